@@ -0,0 +1,238 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for receiving and decoding the replies of the server. The generated replies are split into records
+ * the size of a single read from the socket. Every operation replays those records through the same receiver. The
+ * replies are only decoded, their execution requires a running client.
+ * <p>
+ * The map stripe traffic resembles the burst of map updates the server sends while the player is walking, the move
+ * traffic resembles a crowded area with many moving characters.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiverBenchmark {
+    /**
+     * The amount of data that is stored in a single record of the capture. This is about the amount of data a
+     * single read from the socket returns.
+     */
+    private static final int RECORD_SIZE = 1460;
+
+    /**
+     * The amount of tiles in a map stripe.
+     */
+    private static final int STRIPE_LENGTH = 20;
+
+    @Param({"MapStripe", "Move"})
+    public String traffic;
+
+    @Param({"10000"})
+    public int replies;
+
+    private ReplayChannel channel;
+    private NetCommStatistics statistics;
+    private Receiver receiver;
+
+    /**
+     * The channel that provides the records to the receiver. Every round of the replay provides all records once.
+     * Between the rounds the channel blocks until the next round is started.
+     */
+    private static final class ReplayChannel implements ReadableByteChannel {
+        @Nonnull
+        private final List<ByteBuffer> records;
+        @Nonnull
+        private final Semaphore startedRounds = new Semaphore(0);
+        @Nonnull
+        private final Semaphore finishedRounds = new Semaphore(0);
+        private int nextRecord;
+        @Nullable
+        private ByteBuffer current;
+        private volatile boolean open = true;
+
+        ReplayChannel(@Nonnull List<ByteBuffer> records) {
+            this.records = records;
+            nextRecord = records.size();
+        }
+
+        @Override
+        public int read(@Nonnull ByteBuffer dst) {
+            if (!open) {
+                return -1;
+            }
+            ByteBuffer data = current;
+            if ((data == null) || !data.hasRemaining()) {
+                if (nextRecord >= records.size()) {
+                    if (current != null) {
+                        current = null;
+                        finishedRounds.release();
+                    }
+                    try {
+                        startedRounds.acquire();
+                    } catch (InterruptedException e) {
+                        // the receiver is shutting down
+                        Thread.currentThread().interrupt();
+                        return 0;
+                    }
+                    nextRecord = 0;
+                }
+                data = records.get(nextRecord++).duplicate();
+                current = data;
+            }
+            int length = Math.min(dst.remaining(), data.remaining());
+            ByteBuffer slice = data.duplicate();
+            slice.limit(slice.position() + length);
+            dst.put(slice);
+            data.position(data.position() + length);
+            return length;
+        }
+
+        /**
+         * Replay all records once and wait until the receiver requests data beyond the last record. At this point
+         * all replies are decoded.
+         */
+        void replay(@Nonnull Thread receiver) throws IOException, InterruptedException {
+            startedRounds.release();
+            while (!finishedRounds.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                if (!receiver.isAlive()) {
+                    throw new IOException("The receiver stopped before the end of the replay.");
+                }
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        ByteBuffer frames = ByteBuffer.allocate(replies * 256);
+        for (int i = 0; i < replies; i++) {
+            if ("Move".equals(traffic)) {
+                writeFrame(frames, CommandList.MSG_MOVE, payload -> {
+                    payload.putInt(random.nextInt(1000));
+                    putCoordinate(payload, random);
+                    payload.put((byte) 0x0B);
+                    payload.putShort((short) 300);
+                });
+            } else {
+                writeFrame(frames, CommandList.MSG_MAP_STRIPE, payload -> {
+                    putCoordinate(payload, random);
+                    payload.put((byte) random.nextInt(2));
+                    payload.put((byte) STRIPE_LENGTH);
+                    for (int tile = 0; tile < STRIPE_LENGTH; tile++) {
+                        payload.putShort((short) random.nextInt(1000));
+                        payload.put((byte) random.nextInt(5));
+                        payload.putShort((short) 0);
+                        int items = random.nextInt(3);
+                        payload.put((byte) items);
+                        for (int item = 0; item < items; item++) {
+                            payload.putShort((short) random.nextInt(5000));
+                            payload.putShort((short) 1);
+                        }
+                    }
+                });
+            }
+        }
+        frames.flip();
+
+        List<ByteBuffer> records = new ArrayList<>();
+        while (frames.hasRemaining()) {
+            ByteBuffer record = frames.duplicate();
+            record.limit(Math.min(frames.limit(), frames.position() + RECORD_SIZE));
+            records.add(record.slice().asReadOnlyBuffer());
+            frames.position(record.limit());
+        }
+
+        channel = new ReplayChannel(records);
+        statistics = new NetCommStatistics();
+        receiver = new Receiver(reply -> ReplyFactory.getInstance().releaseReply(reply), channel, statistics, null);
+        receiver.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        receiver.saveShutdown();
+        receiver.join(TimeUnit.SECONDS.toMillis(1));
+        channel.close();
+    }
+
+    private interface PayloadWriter {
+        void write(@Nonnull ByteBuffer payload);
+    }
+
+    private static void writeFrame(@Nonnull ByteBuffer target, int id, @Nonnull PayloadWriter writer) {
+        int frameStart = target.position();
+        target.put((byte) id);
+        target.put((byte) (id ^ 0xFF));
+        target.putShort((short) 0);
+        target.putShort((short) 0);
+        int payloadStart = target.position();
+        writer.write(target);
+        int length = target.position() - payloadStart;
+
+        ByteBuffer payload = target.duplicate();
+        payload.position(payloadStart);
+        payload.limit(target.position());
+        target.putShort(frameStart + 2, (short) length);
+        target.putShort(frameStart + 4, (short) NetComm.getCRC(payload, length));
+    }
+
+    private static void putCoordinate(@Nonnull ByteBuffer target, @Nonnull Random random) {
+        target.putShort((short) random.nextInt(1000));
+        target.putShort((short) random.nextInt(1000));
+        target.putShort((short) 0);
+    }
+
+    @Benchmark
+    public long decode() throws IOException, InterruptedException {
+        long receivedBefore = statistics.getReceivedMessages();
+        channel.replay(receiver);
+        long decoded = statistics.getReceivedMessages() - receivedBefore;
+        if (decoded != replies) {
+            throw new IllegalStateException("Decoded " + decoded + " of " + replies + " replies.");
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.resources;
+
+import illarion.client.resources.data.ResourceTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the lookup of templates by their ID. The read-only table of a factory that finished loading is
+ * compared to the map that stored the templates before.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateFactoryBenchmark {
+    /**
+     * The amount of lookups done in one invocation of a benchmark.
+     */
+    private static final int LOOKUPS = 4096;
+
+    /**
+     * The range of the IDs that are used in case the IDs are sparse.
+     */
+    private static final int SPARSE_ID_RANGE = 1000000;
+
+    /**
+     * The factory used for the benchmark, it does nothing but store the templates.
+     */
+    private static final class BenchmarkFactory extends AbstractTemplateFactory<ResourceTemplate> {
+    }
+
+    @Param({"4000"})
+    public int templateCount;
+
+    /**
+     * The layout of the template IDs. Dense IDs resemble the items and tiles, sparse IDs resemble the references of
+     * the clothes.
+     */
+    @Param({"dense", "sparse"})
+    public String idLayout;
+
+    private int[] lookupIds;
+    private Map<Integer, ResourceTemplate> map;
+    private BenchmarkFactory factory;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        map = new HashMap<>();
+        factory = new BenchmarkFactory();
+        factory.init();
+        int[] ids = new int[templateCount];
+        for (int i = 0; i < templateCount; i++) {
+            int id;
+            do {
+                id = "dense".equals(idLayout) ? random.nextInt(templateCount + (templateCount / 10)) :
+                        random.nextInt(SPARSE_ID_RANGE);
+            } while (map.containsKey(id));
+            int templateId = id;
+            ResourceTemplate template = () -> templateId;
+            map.put(id, template);
+            factory.storeResource(template);
+            ids[i] = id;
+        }
+        factory.loadingFinished();
+
+        lookupIds = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupIds[i] = ids[random.nextInt(ids.length)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long mapGetTemplate() {
+        long checksum = 0;
+        for (int id : lookupIds) {
+            checksum += map.get(id).getTemplateId();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long tableGetTemplate() {
+        long checksum = 0;
+        for (int id : lookupIds) {
+            checksum += factory.getTemplate(id).getTemplateId();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int mapHasTemplate() {
+        int found = 0;
+        for (int id : lookupIds) {
+            if (map.containsKey(id)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int tableHasTemplate() {
+        int found = 0;
+        for (int id : lookupIds) {
+            if (factory.hasTemplate(id)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
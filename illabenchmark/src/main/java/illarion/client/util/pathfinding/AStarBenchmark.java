@@ -0,0 +1,135 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2015 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.util.pathfinding;
+
+import illarion.client.world.CharMovementMode;
+import illarion.common.types.Direction;
+import illarion.common.types.ServerCoordinate;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the A* path finder. The path leads from one corner of a square map to the opposite one, so the
+ * length of the path grows with the size of the map. The throughput is reported as searches per second.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AStarBenchmark {
+    /**
+     * The directions the path finder is allowed to use.
+     */
+    @Nonnull
+    private static final Collection<Direction> DIRECTIONS =
+            Collections.unmodifiableCollection(Arrays.asList(Direction.values()));
+
+    /**
+     * Movement cost provider with a random, but fixed layout of blocked tiles and movement costs.
+     */
+    private static final class BenchmarkMap implements MoveCostProvider {
+        private final int size;
+
+        /**
+         * The movement cost of each tile, {@code 0} marks a blocked tile.
+         */
+        @Nonnull
+        private final int[] costs;
+
+        BenchmarkMap(int size) {
+            this.size = size;
+            costs = new int[size * size];
+            Random random = new Random(42);
+            for (int i = 0; i < costs.length; i++) {
+                costs[i] = (random.nextInt(10) < 2) ? 0 : (1 + random.nextInt(4));
+            }
+            costs[0] = 1;
+            costs[costs.length - 1] = 1;
+        }
+
+        private int getTileCost(int x, int y) {
+            if ((x < 0) || (y < 0) || (x >= size) || (y >= size)) {
+                return 0;
+            }
+            return costs[(x * size) + y];
+        }
+
+        @Override
+        public int getMovementCost(@Nonnull ServerCoordinate origin, @Nonnull CharMovementMode mode,
+                                   @Nonnull Direction direction) {
+            return getMovementCost(origin.getX(), origin.getY(), origin.getZ(), mode, direction);
+        }
+
+        @Override
+        public int getMovementCost(int originX, int originY, int originZ, @Nonnull CharMovementMode mode,
+                                   @Nonnull Direction direction) {
+            int targetX = originX + direction.getDirectionVectorX();
+            int targetY = originY + direction.getDirectionVectorY();
+            int cost = getTileCost(targetX, targetY);
+            if (cost == 0) {
+                return BLOCKED;
+            }
+            if (mode == CharMovementMode.Run) {
+                int runCost = getTileCost(targetX + direction.getDirectionVectorX(),
+                                          targetY + direction.getDirectionVectorY());
+                if (runCost == 0) {
+                    return BLOCKED;
+                }
+                return ((cost + runCost) * 60) * (direction.isDiagonal() ? 141 : 100) / 100;
+            }
+            return (cost * 100) * (direction.isDiagonal() ? 141 : 100) / 100;
+        }
+    }
+
+    @Param({"32", "64", "128", "256"})
+    public int size;
+
+    private AStar pathFinder;
+    private BenchmarkMap map;
+    private ServerCoordinate start;
+    private ServerCoordinate end;
+
+    @Setup
+    public void setup() {
+        pathFinder = new AStar();
+        map = new BenchmarkMap(size);
+        start = new ServerCoordinate(0, 0, 0);
+        end = new ServerCoordinate(size - 1, size - 1, 0);
+        if (findWalkingPath() == null) {
+            throw new IllegalStateException("The benchmark map does not contain a path between the corners.");
+        }
+    }
+
+    @Benchmark
+    public Path findWalkingPath() {
+        return pathFinder.findPath(map, start, end, 0, DIRECTIONS, CharMovementMode.Walk);
+    }
+
+    @Benchmark
+    public Path findRunningPath() {
+        return pathFinder.findPath(map, start, end, 0, DIRECTIONS, CharMovementMode.Walk, CharMovementMode.Run);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.common.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for reading the resource tables. A generated table that resembles the item table is read from the text
+ * format using the {@link TableLoader} and from the binary format using the {@link BinaryTable}. Every value of
+ * the table is accessed once.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableLoaderBenchmark {
+    /**
+     * The amount of leading columns of a NDSC table that are not handed to the loaders.
+     */
+    private static final int NDSC_COLUMNS = 2;
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private byte[] textTable;
+    private byte[] binaryTable;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        builder.append("id,color,itemId,name,weight,value,description,stackable\n");
+        for (int row = 0; row < rows; row++) {
+            builder.append(row).append(',').append(random.nextInt(0xFFFFFF)).append(',');
+            builder.append(random.nextInt(10000)).append(',');
+            builder.append("\"Item ").append(row).append("\",");
+            builder.append(random.nextInt(5000)).append(',');
+            builder.append(random.nextInt(100000)).append(',');
+            builder.append("\"The description of the item number ").append(row).append("\",");
+            builder.append(random.nextBoolean() ? 1 : 0).append('\n');
+        }
+        textTable = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTable.convert(new ByteArrayInputStream(textTable), out);
+        binaryTable = out.toByteArray();
+    }
+
+    @Benchmark
+    public long readTextTable() {
+        long[] checksum = new long[1];
+        new TableLoader(new ByteArrayInputStream(textTable), true, (line, loader) -> {
+            checksum[0] += loader.getInt(0);
+            checksum[0] += loader.getString(1).length();
+            checksum[0] += loader.getInt(2);
+            checksum[0] += loader.getInt(3);
+            checksum[0] += loader.getString(4).length();
+            checksum[0] += loader.getBoolean(5) ? 1 : 0;
+            return true;
+        }, ",");
+        return checksum[0];
+    }
+
+    @Benchmark
+    public long readBinaryTable() throws IOException {
+        BinaryTable table = BinaryTable.read(ByteBuffer.wrap(binaryTable));
+        long checksum = 0;
+        int rowCount = table.getRowCount();
+        for (int row = 0; row < rowCount; row++) {
+            checksum += table.getInt(row, NDSC_COLUMNS);
+            checksum += table.getString(row, NDSC_COLUMNS + 1).length();
+            checksum += table.getInt(row, NDSC_COLUMNS + 2);
+            checksum += table.getInt(row, NDSC_COLUMNS + 3);
+            checksum += table.getString(row, NDSC_COLUMNS + 4).length();
+            checksum += table.getInt(row, NDSC_COLUMNS + 5);
+        }
+        return checksum;
+    }
+}
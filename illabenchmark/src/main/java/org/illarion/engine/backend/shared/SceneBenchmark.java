@@ -0,0 +1,173 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import org.illarion.engine.GameContainer;
+import org.illarion.engine.graphic.Color;
+import org.illarion.engine.graphic.Graphics;
+import org.illarion.engine.graphic.LocatedSceneElement;
+import org.illarion.engine.graphic.SceneEvent;
+import org.illarion.engine.headless.HeadlessGameContainer;
+import org.illarion.engine.headless.HeadlessScene;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the storage of the scene elements. The elements are spread over a large area of the scene, the
+ * viewport only shows a part of it, like the map display of the client does.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneBenchmark {
+    /**
+     * The size of the area the elements are placed in.
+     */
+    private static final int SCENE_SIZE = 8192;
+
+    /**
+     * The size of the viewport.
+     */
+    private static final int VIEWPORT_WIDTH = 1280;
+    private static final int VIEWPORT_HEIGHT = 800;
+
+    /**
+     * The amount of elements that change their location between two updates.
+     */
+    private static final int MOVING_ELEMENTS = 64;
+
+    /**
+     * A scene element that fades its colour during the update and renders itself to the headless graphics. The
+     * update is safe to be executed in parallel.
+     */
+    private static final class BenchmarkElement implements LocatedSceneElement {
+        private int sceneX;
+        private int sceneY;
+        private int order;
+        @Nonnull
+        private final Color color = new Color(Color.WHITE);
+
+        BenchmarkElement(int sceneX, int sceneY, int order) {
+            this.sceneX = sceneX;
+            this.sceneY = sceneY;
+            this.order = order;
+        }
+
+        @Override
+        public int getSceneX() {
+            return sceneX;
+        }
+
+        @Override
+        public int getSceneY() {
+            return sceneY;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public void render(@Nonnull Graphics graphics) {
+            graphics.drawRectangle(sceneX, sceneY, 1, 1, color);
+        }
+
+        @Override
+        public void update(@Nonnull GameContainer container, int delta) {
+            int alpha = color.getAlpha() - delta;
+            color.setAlpha((alpha < 0) ? Color.MAX_INT_VALUE : alpha);
+        }
+
+        @Override
+        public boolean isParallelUpdateSafe() {
+            return true;
+        }
+
+        @Override
+        public boolean isEventProcessed(@Nonnull GameContainer container, int delta, @Nonnull SceneEvent event) {
+            return false;
+        }
+    }
+
+    @Param({"1000", "10000", "50000"})
+    public int elementCount;
+
+    @Param({"false", "true"})
+    public boolean parallelUpdate;
+
+    private HeadlessGameContainer container;
+    private BenchmarkElement[] elements;
+    private HeadlessScene scene;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        container = new HeadlessGameContainer(VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        random = new Random(42);
+        elements = new BenchmarkElement[elementCount];
+        for (int i = 0; i < elementCount; i++) {
+            elements[i] = new BenchmarkElement(random.nextInt(SCENE_SIZE), random.nextInt(SCENE_SIZE),
+                                               random.nextInt(SCENE_SIZE));
+        }
+        scene = createScene();
+    }
+
+    @Nonnull
+    private HeadlessScene createScene() {
+        HeadlessScene newScene = new HeadlessScene(parallelUpdate ? ForkJoinPool.commonPool() : null);
+        newScene.setViewport((SCENE_SIZE - VIEWPORT_WIDTH) / 2, (SCENE_SIZE - VIEWPORT_HEIGHT) / 2, VIEWPORT_WIDTH,
+                             VIEWPORT_HEIGHT);
+        for (BenchmarkElement element : elements) {
+            newScene.addElement(element);
+        }
+        return newScene;
+    }
+
+    @Benchmark
+    public int addElements() {
+        return createScene().getElementCount();
+    }
+
+    @Benchmark
+    public int updateElementLocation() {
+        for (int i = 0; i < MOVING_ELEMENTS; i++) {
+            BenchmarkElement element = elements[random.nextInt(elements.length)];
+            element.sceneX = Math.floorMod(element.sceneX + random.nextInt(129) - 64, SCENE_SIZE);
+            element.sceneY = Math.floorMod(element.sceneY + random.nextInt(129) - 64, SCENE_SIZE);
+            element.order = random.nextInt(SCENE_SIZE);
+            scene.updateElementLocation(element);
+        }
+        return scene.getElementCount();
+    }
+
+    @Benchmark
+    public int updateAndRender() {
+        scene.update(container, 16);
+        container.getEngine().getGraphics().resetDrawCalls();
+        scene.render(container.getEngine().getGraphics(), 0, 0);
+        return container.getEngine().getGraphics().getDrawCalls();
+    }
+}
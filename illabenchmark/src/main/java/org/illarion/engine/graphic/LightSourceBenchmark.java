@@ -0,0 +1,129 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.graphic;
+
+import illarion.common.types.ServerCoordinate;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the shadow casting of the light sources. The throughput is reported as lights per second for each
+ * size of the light rays.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightSourceBenchmark {
+    /**
+     * The length of the map used for the benchmark.
+     */
+    private static final int MAP_SIZE = 32;
+
+    /**
+     * The location of the light source, its placed in the center of the map.
+     */
+    private static final int CENTER = MAP_SIZE / 2;
+
+    /**
+     * Lighting map with a random, but fixed layout of tiles that block the light.
+     */
+    private static final class BenchmarkMap implements LightingMap {
+        @Nonnull
+        private final int[] coverage = new int[MAP_SIZE * MAP_SIZE];
+
+        @Nonnull
+        private final boolean[] accepting = new boolean[MAP_SIZE * MAP_SIZE];
+
+        private float lightSum;
+
+        BenchmarkMap() {
+            Random random = new Random(42);
+            for (int i = 0; i < coverage.length; i++) {
+                int value = random.nextInt(10);
+                if (value < 6) {
+                    coverage[i] = 0;
+                } else if (value < 9) {
+                    coverage[i] = random.nextInt(BLOCKED_VIEW);
+                } else {
+                    coverage[i] = BLOCKED_VIEW;
+                }
+                accepting[i] = random.nextInt(10) > 0;
+            }
+        }
+
+        @Override
+        public boolean acceptsLight(int x, int y, int z, int dx, int dy) {
+            return accepting[(x * MAP_SIZE) + y];
+        }
+
+        @Override
+        public int blocksView(int x, int y, int z) {
+            return coverage[(x * MAP_SIZE) + y];
+        }
+
+        @Override
+        public void renderLights(Collection<ServerCoordinate> coordinates) {
+        }
+
+        @Override
+        public void setLight(int x, int y, int z, float red, float green, float blue) {
+            lightSum += red + green + blue;
+        }
+    }
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9"})
+    public int size;
+
+    private BenchmarkMap map;
+    private LightSource light;
+    private LightRegion region;
+
+    @Setup
+    public void setup() {
+        map = new BenchmarkMap();
+        light = new LightSource(new ServerCoordinate(CENTER, CENTER, 0), (size * 10000) + 9999);
+        light.setMapSource(map);
+        light.calculateShadows();
+
+        region = new LightRegion();
+        for (int x = -size; x <= size; x++) {
+            for (int y = -size; y <= size; y++) {
+                region.add(CENTER + x, CENTER + y, 0);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean calculateShadows() {
+        light.refresh();
+        return light.calculateShadows();
+    }
+
+    @Benchmark
+    public float apply() {
+        light.apply(region);
+        return map.lightSum;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.headless;
+
+import org.illarion.engine.Engine;
+import org.illarion.engine.assets.Assets;
+import org.illarion.engine.input.Input;
+import org.illarion.engine.sound.Sounds;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Engine implementation without any backend. Only the graphics are available and they do not render anything.
+ * Accessing the sounds, the assets or the input fails, as those require a real backend.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public final class HeadlessEngine implements Engine {
+    @Nonnull
+    private final HeadlessGraphics graphics = new HeadlessGraphics();
+
+    @Nonnull
+    @Override
+    public HeadlessGraphics getGraphics() {
+        return graphics;
+    }
+
+    @Nonnull
+    @Override
+    public Sounds getSounds() {
+        throw new UnsupportedOperationException("The headless engine has no sound.");
+    }
+
+    @Nonnull
+    @Override
+    public Assets getAssets() {
+        throw new UnsupportedOperationException("The headless engine has no assets.");
+    }
+
+    @Nonnull
+    @Override
+    public Input getInput() {
+        throw new UnsupportedOperationException("The headless engine has no input.");
+    }
+}
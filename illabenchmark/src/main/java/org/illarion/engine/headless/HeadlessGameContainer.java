@@ -0,0 +1,95 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.headless;
+
+import org.illarion.engine.GameContainer;
+import org.illarion.engine.MouseCursor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Game container with a fixed size that uses the {@link HeadlessEngine}. It is not able to run a game loop, the
+ * benchmarks call the update and render functions directly.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public final class HeadlessGameContainer implements GameContainer {
+    @Nonnull
+    private static final CharSequence[] NO_DIAGNOSTICS = new CharSequence[0];
+
+    @Nonnull
+    private final HeadlessEngine engine = new HeadlessEngine();
+    private final int width;
+    private final int height;
+
+    /**
+     * Create a new headless container.
+     *
+     * @param width the width of the simulated screen
+     * @param height the height of the simulated screen
+     */
+    public HeadlessGameContainer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Nonnull
+    @Override
+    public HeadlessEngine getEngine() {
+        return engine;
+    }
+
+    @Override
+    public void setMouseCursor(@Nullable MouseCursor cursor) {
+    }
+
+    @Override
+    public void startGame() {
+        throw new UnsupportedOperationException("The headless container can't run a game loop.");
+    }
+
+    @Override
+    public void exitGame() {
+    }
+
+    @Nonnull
+    @Override
+    public String getTitle() {
+        return "Headless";
+    }
+
+    @Override
+    public int getFPS() {
+        return 0;
+    }
+
+    @Nonnull
+    @Override
+    public CharSequence[] getDiagnosticLines() {
+        return NO_DIAGNOSTICS;
+    }
+}
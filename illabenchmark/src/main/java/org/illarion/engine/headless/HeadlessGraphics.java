@@ -0,0 +1,129 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.headless;
+
+import illarion.common.types.Rectangle;
+import org.illarion.engine.graphic.*;
+import org.illarion.engine.graphic.effects.TextureEffect;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Graphics implementation that does not render anything. It only counts the draw calls, so the benchmarks can
+ * verify that the rendering code was executed.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@NotThreadSafe
+public final class HeadlessGraphics implements Graphics {
+    /**
+     * The amount of draw operations since the last reset.
+     */
+    private int drawCalls;
+
+    /**
+     * Get the amount of draw operations since the last reset.
+     *
+     * @return the amount of draw operations
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Reset the counter of the draw operations.
+     */
+    public void resetDrawCalls() {
+        drawCalls = 0;
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public void drawSprite(@Nonnull Sprite sprite, int posX, int posY, @Nonnull Color color, int frame, double scale,
+                           double rotation, @Nonnull TextureEffect... effects) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawTileSprite(@Nonnull Sprite sprite, int posX, int posY, @Nonnull Color topColor,
+                               @Nonnull Color bottomColor, @Nonnull Color leftColor, @Nonnull Color rightColor,
+                               @Nonnull Color centerColor, int frame, @Nonnull TextureEffect... effects) {
+        drawCalls++;
+    }
+
+    @Override
+    public void setBlendingMode(@Nonnull BlendingMode mode) {
+    }
+
+    @Override
+    public void drawText(@Nonnull Font font, @Nonnull CharSequence text, @Nonnull Color color, int x, int y) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawText(@Nonnull Font font, @Nonnull CharSequence text, @Nonnull Color color, int x, int y,
+                         double scaleX, double scaleY) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int width, int height, @Nonnull Color color) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawRectangle(@Nonnull Rectangle rectangle, @Nonnull Color color) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int width, int height, @Nonnull Color topLeftColor,
+                              @Nonnull Color topRightColor, @Nonnull Color bottomLeftColor,
+                              @Nonnull Color bottomRightColor) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawTexture(@Nonnull Texture texture, int x, int y, int width, int height, @Nonnull Color color,
+                            @Nonnull TextureEffect... effects) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawTexture(@Nonnull Texture texture, int x, int y, int width, int height, int texX, int texY,
+                            int texWidth, int texHeight, @Nonnull Color color, @Nonnull TextureEffect... effects) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawTexture(@Nonnull Texture texture, int x, int y, int width, int height, int texX, int texY,
+                            int texWidth, int texHeight, int centerX, int centerY, double rotate,
+                            @Nonnull Color color, @Nonnull TextureEffect... effects) {
+        drawCalls++;
+    }
+
+    @Override
+    public void setClippingArea(int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void unsetClippingArea() {
+    }
+}
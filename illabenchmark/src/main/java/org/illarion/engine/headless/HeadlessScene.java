@@ -0,0 +1,58 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.headless;
+
+import org.illarion.engine.GameContainer;
+import org.illarion.engine.backend.shared.AbstractScene;
+import org.illarion.engine.graphic.Graphics;
+import org.illarion.engine.graphic.effects.SceneEffect;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scene implementation without any post processing. It uses the shared scene management of the engine, so it
+ * behaves like the scenes of the real backends regarding the storage and sorting of the elements.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public final class HeadlessScene extends AbstractScene<SceneEffect> {
+    /**
+     * Create a scene that uses the default pool for the parallel update.
+     */
+    public HeadlessScene() {
+    }
+
+    /**
+     * Create a scene that uses a specific pool for the parallel update.
+     *
+     * @param updatePool the pool or {@code null} to update all elements on the calling thread
+     */
+    public HeadlessScene(@Nullable ForkJoinPool updatePool) {
+        super(updatePool);
+    }
+
+    @Override
+    public void update(@Nonnull GameContainer container, int delta) {
+        updateScene(container, delta);
+    }
+
+    @Override
+    public void render(@Nonnull Graphics graphics, int offsetX, int offsetY) {
+        renderScene(graphics);
+    }
+}
@@ -18,6 +18,7 @@ package illarion.build
 import groovy.xml.MarkupBuilder
 import illarion.build.imagepacker.ImagePacker
 import illarion.common.data.Book
+import illarion.common.util.BinaryTable
 import illarion.common.util.Crypto
 import org.gradle.api.DefaultTask
 import org.gradle.api.file.FileCollection
@@ -228,7 +229,8 @@ public class ResourceConverter extends DefaultTask {
     }
 
     /**
-     * Encrypt and write the table files to the new archive.
+     * Encrypt and write the table files to the new archive. Each table is written as text table and as binary table
+     * that the client reads without parsing the text.
      *
      * @param outJar the target archive the encrypted table files are written to
      * @throws IOException in case there is anything wrong with the input or the output file stream
@@ -259,6 +261,15 @@ public class ResourceConverter extends DefaultTask {
                     crypto.encrypt(is, os)
                 }
             }
+
+            def binaryTable = new ByteArrayOutputStream()
+            file.withInputStream { is ->
+                BinaryTable.convert(is, binaryTable)
+            }
+            getTargetFile(targetDirectory, file, { it.replace(".tbl", ".bin") }).withOutputStream { os ->
+                crypto.encrypt(new ByteArrayInputStream(binaryTable.toByteArray()), os)
+            }
+            logger.info("Table ${file.name} converted to ${binaryTable.size()} bytes of binary table")
         }
         tableFiles.clear()
     }
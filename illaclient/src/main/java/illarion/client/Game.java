@@ -19,18 +19,24 @@ import de.lessvoid.nifty.Nifty;
 import de.lessvoid.nifty.spi.time.impl.AccurateTimeProvider;
 import illarion.client.graphics.FontLoader;
 import illarion.client.input.InputReceiver;
+import illarion.client.net.NetCommStatistics;
+import illarion.client.net.client.AbstractCommand;
+import illarion.client.net.server.ServerReply;
 import illarion.client.states.*;
 import illarion.client.util.ConnectionPerformanceClock;
 import illarion.client.util.Lang;
+import illarion.client.util.LatencyHistogram;
 import illarion.client.world.World;
 import illarion.common.config.ConfigChangedEvent;
 import org.bushe.swing.event.annotation.AnnotationProcessor;
 import org.bushe.swing.event.annotation.EventTopicSubscriber;
 import org.illarion.engine.GameContainer;
 import org.illarion.engine.GameListener;
+import org.illarion.engine.assets.TextureLoadingMode;
 import org.illarion.engine.assets.TextureManager;
 import org.illarion.engine.graphic.Color;
 import org.illarion.engine.graphic.Font;
+import org.illarion.engine.graphic.Graphics;
 import org.illarion.engine.input.ForwardingListener;
 import org.illarion.engine.input.ForwardingTarget;
 import org.illarion.engine.nifty.IgeInputSystem;
@@ -43,6 +49,8 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
 
 /**
@@ -52,6 +60,12 @@ import java.util.Properties;
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
 public final class Game implements GameListener {
+    /**
+     * The key of the configuration entry that stores the amount of memory in megabytes the textures of characters,
+     * items and effects may use.
+     */
+    public static final String CFG_TEXTURE_MEMORY = "textureMemory";
+
     /**
      * The ID of no state. In case this "state" is chosen the game will not display anything.
      */
@@ -138,11 +152,12 @@ public final class Game implements GameListener {
     @Override
     public void create(@Nonnull GameContainer container) {
         TextureManager texManager = container.getEngine().getAssets().getTextureManager();
-        texManager.addTextureDirectory("gui");
-        texManager.addTextureDirectory("chars");
-        texManager.addTextureDirectory("items");
-        texManager.addTextureDirectory("tiles");
-        texManager.addTextureDirectory("effects");
+        texManager.addTextureDirectory("gui", TextureLoadingMode.Preferred);
+        texManager.addTextureDirectory("chars", TextureLoadingMode.OnDemand);
+        texManager.addTextureDirectory("items", TextureLoadingMode.OnDemand);
+        texManager.addTextureDirectory("tiles", TextureLoadingMode.Startup);
+        texManager.addTextureDirectory("effects", TextureLoadingMode.OnDemand);
+        texManager.setOnDemandBudget(IllaClient.getCfg().getInteger(CFG_TEXTURE_MEMORY) * 1024L * 1024L);
 
         try {
             FontLoader.getInstance().prepareAllFonts(container.getEngine().getAssets());
@@ -364,6 +379,9 @@ public final class Game implements GameListener {
                                 Math.max(0, netCommPing - serverPing) + " ms", Color.WHITE, 10, renderLine);
                         renderLine += fpsFont.getLineHeight();
                     }
+                    if (World.isInitDone()) {
+                        renderLine = renderNetworkDiagnostic(container, fpsFont, renderLine);
+                    }
                 }
                 // If more diagnostics are wanted, add them here
             }
@@ -372,6 +390,79 @@ public final class Game implements GameListener {
 
 
 
+    /**
+     * Render the statistics of the network interface. This shows the data rates, the round trip times of the
+     * commands and the replies that take the longest time to decode and to wait for their execution.
+     *
+     * @param container the game container
+     * @param font the font used to render the text
+     * @param renderLine the vertical position of the first line
+     * @return the vertical position of the line below the rendered text
+     */
+    private static int renderNetworkDiagnostic(@Nonnull GameContainer container, @Nonnull Font font, int renderLine) {
+        Graphics g = container.getEngine().getGraphics();
+        NetCommStatistics statistics = World.getNet().getStatistics();
+        int line = renderLine;
+
+        String rateLine = String.format("Net: in %.0f B/s, out %.0f B/s", statistics.getReceivedBytesPerSecond(),
+                                        statistics.getSentBytesPerSecond());
+        g.drawText(font, rateLine, Color.WHITE, 10, line);
+        line += font.getLineHeight();
+
+        for (Entry<Class<? extends AbstractCommand>, LatencyHistogram> entry :
+                statistics.getRoundTripTime().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            String roundTripLine = String.format("RTT %s: p50 %.1f ms, p99 %.1f ms", entry.getKey().getSimpleName(),
+                                                 histogram.getPercentileMicros(50) / 1000.0,
+                                                 histogram.getPercentileMicros(99) / 1000.0);
+            g.drawText(font, roundTripLine, Color.WHITE, 10, line);
+            line += font.getLineHeight();
+        }
+
+        String queueLine = getSlowestReply("Queue wait", statistics.getQueueWait());
+        if (queueLine != null) {
+            g.drawText(font, queueLine, Color.WHITE, 10, line);
+            line += font.getLineHeight();
+        }
+        String decodeLine = getSlowestReply("Decode", statistics.getDecodeTime());
+        if (decodeLine != null) {
+            g.drawText(font, decodeLine, Color.WHITE, 10, line);
+            line += font.getLineHeight();
+        }
+        return line;
+    }
+
+    /**
+     * Get the description of the reply with the highest 99th percentile in a set of histograms.
+     *
+     * @param label the label of the line
+     * @param histograms the histograms stored by the class of the reply
+     * @return the text line or {@code null} in case there is no data yet
+     */
+    @Nullable
+    private static String getSlowestReply(@Nonnull String label,
+                                          @Nonnull Map<Class<? extends ServerReply>, LatencyHistogram> histograms) {
+        Class<? extends ServerReply> slowestClass = null;
+        long slowestTime = -1;
+        for (Entry<Class<? extends ServerReply>, LatencyHistogram> entry : histograms.entrySet()) {
+            if (entry.getValue().getCount() == 0) {
+                continue;
+            }
+            long time = entry.getValue().getPercentileMicros(99);
+            if (time > slowestTime) {
+                slowestTime = time;
+                slowestClass = entry.getKey();
+            }
+        }
+        if (slowestClass == null) {
+            return null;
+        }
+        return String.format("%s: p99 %d us (%s)", label, slowestTime, slowestClass.getSimpleName());
+    }
+
     @EventTopicSubscriber(topic = "showFps")
     public void onFpsConfigChanged(@Nonnull String topic, @Nonnull ConfigChangedEvent event) {
         showFPS = event.getConfig().getBoolean(event.getKey());
@@ -20,6 +20,7 @@ import ch.qos.logback.classic.util.ContextInitializer;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.util.StatusPrinter;
 import illarion.client.crash.DefaultCrashHandler;
+import illarion.client.net.NetComm;
 import illarion.client.net.client.LogoutCmd;
 import illarion.client.resources.SongFactory;
 import illarion.client.resources.SoundFactory;
@@ -28,6 +29,7 @@ import illarion.client.resources.loaders.SoundLoader;
 import illarion.client.util.ChatLog;
 import illarion.client.util.GlobalExecutorService;
 import illarion.client.util.Lang;
+import illarion.client.util.UpdateTaskManager;
 import illarion.client.util.translation.Translator;
 import illarion.client.world.Player;
 import illarion.client.world.World;
@@ -323,6 +325,9 @@ public final class IllaClient implements EventTopicSubscriber<ConfigChangedEvent
         cfg.setDefault("savePassword", false);
         cfg.setDefault("showFps", false);
         cfg.setDefault("showPing", false);
+        cfg.setDefault(NetComm.CFG_SELECTOR_RECEIVE, true);
+        cfg.setDefault(UpdateTaskManager.CFG_FRAME_BUDGET, UpdateTaskManager.DEFAULT_FRAME_BUDGET);
+        cfg.setDefault(Game.CFG_TEXTURE_MEMORY, 256);
         cfg.setDefault(CrashReporter.CFG_KEY, CrashReporter.MODE_ASK);
 
         Locale locale = Locale.getDefault(Category.DISPLAY);
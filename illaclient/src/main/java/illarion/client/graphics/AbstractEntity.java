@@ -366,6 +366,16 @@ public abstract class AbstractEntity<T extends AbstractEntityTemplate>
         return getDisplayCoordinate().getLayer();
     }
 
+    @Override
+    public final int getSceneX() {
+        return getDisplayCoordinate().getX();
+    }
+
+    @Override
+    public final int getSceneY() {
+        return getDisplayCoordinate().getY();
+    }
+
     /**
      * Hide the entity from the screen by removing it from the display list.
      */
@@ -517,7 +527,7 @@ public abstract class AbstractEntity<T extends AbstractEntityTemplate>
         DisplayCoordinate oldCoordinate = displayCoordinate;
         displayCoordinate = coordinate;
 
-        if (shown && (oldCoordinate != null) && (oldCoordinate.getLayer() != coordinate.getLayer())) {
+        if (shown && (oldCoordinate != null) && !oldCoordinate.equals(coordinate)) {
             updateDisplayPosition();
         }
     }
@@ -586,6 +596,18 @@ public abstract class AbstractEntity<T extends AbstractEntityTemplate>
         return shown;
     }
 
+    /**
+     * Check if the update of this class is safe to be executed in parallel. As long as the entity is shown and not
+     * highlighted, the update only changes the alpha value and the colours of this entity. Subclasses that do not add
+     * anything else to the update can report themselves as {@link #isParallelUpdateSafe() parallel update safe} based
+     * on this.
+     *
+     * @return {@code true} in case the update of this class is safe to be executed in parallel
+     */
+    protected final boolean isBaseUpdateParallelSafe() {
+        return !removedEntity && isShown() && (getHighlight() == 0);
+    }
+
     @Override
     public void update(@Nonnull GameContainer container, int delta) {
         if (removedEntity) {
@@ -666,6 +688,18 @@ public abstract class AbstractEntity<T extends AbstractEntityTemplate>
      */
     @Nonnull
     public Color getLocalLight() {
+        return getLocalLight(tempLight);
+    }
+
+    /**
+     * Get the light local to this tile. Other entities that require this light during their update have to use
+     * this function with their own storage, as the updates of the entities may run in parallel.
+     *
+     * @param storage the color instance that receives the light in case it needs to be calculated
+     * @return the local light of this entity
+     */
+    @Nonnull
+    public Color getLocalLight(@Nonnull Color storage) {
         Color parentLight = getParentLight();
         if (parentLight == null) {
             return getLight();
@@ -673,9 +707,9 @@ public abstract class AbstractEntity<T extends AbstractEntityTemplate>
         if (parentLight.getAlpha() == 0) {
             return parentLight;
         }
-        tempLight.setColor(parentLight);
-        tempLight.multiply(getLight());
-        return tempLight;
+        storage.setColor(parentLight);
+        storage.multiply(getLight());
+        return storage;
     }
 
     @Nonnull
@@ -15,7 +15,7 @@
  */
 package illarion.client.graphics;
 
-import org.illarion.engine.graphic.SceneElement;
+import org.illarion.engine.graphic.LocatedSceneElement;
 
 /**
  * Interface for a object that can be rendered on the screen.
@@ -23,7 +23,7 @@ import org.illarion.engine.graphic.SceneElement;
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  * @author Nop
  */
-public interface DisplayItem extends SceneElement {
+public interface DisplayItem extends LocatedSceneElement {
     /**
      * Remove object from display list.
      */
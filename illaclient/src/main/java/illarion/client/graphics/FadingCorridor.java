@@ -34,11 +34,6 @@ public final class FadingCorridor {
      */
     private static final FadingCorridor INSTANCE = new FadingCorridor();
 
-    /**
-     * The rectangle that is used for some temporary calculation actions.
-     */
-    private static final Rectangle TEMP_RECT = new Rectangle();
-
     /**
      * The tolerance around the corridor, so the width the minimal needed area
      * is increased by.
@@ -95,9 +90,7 @@ public final class FadingCorridor {
      */
     boolean isInCorridor(
             int testLocX, int testLocY, int testLayer, int width, int height) {
-        TEMP_RECT.setBounds(testLocX, testLocY, width, height);
-
-        return (testLayer < back) && fading.intersects(TEMP_RECT);
+        return (testLayer < back) && fading.intersects(testLocX, testLocY, width, height);
     }
 
     /**
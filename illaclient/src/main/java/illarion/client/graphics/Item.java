@@ -85,6 +85,12 @@ public final class Item extends AbstractEntity<ItemTemplate> implements Resource
     @Nonnull
     private final MapTile parentTile;
 
+    /**
+     * The storage for the light of the tile this item is located on.
+     */
+    @Nonnull
+    private final Color parentLight = new Color(Color.WHITE);
+
     /**
      * This indicates of the number of the item shall be shown. This number shows how many items are on this stack.
      * Its only useful to show this in case the item actually is a stack, so {@link #count} is greater then 1 and the
@@ -136,7 +142,7 @@ public final class Item extends AbstractEntity<ItemTemplate> implements Resource
         if (parentGraphicTile == null) {
             return Color.BLACK;
         }
-        return parentGraphicTile.getLocalLight();
+        return parentGraphicTile.getLocalLight(parentLight);
     }
 
     /**
@@ -466,6 +472,11 @@ public final class Item extends AbstractEntity<ItemTemplate> implements Resource
         return (localStack != null) && localStack.isShown();
     }
 
+    @Override
+    public boolean isParallelUpdateSafe() {
+        return (number == null) && isBaseUpdateParallelSafe();
+    }
+
     @Override
     public void update(@Nonnull GameContainer container, int delta) {
         super.update(container, delta);
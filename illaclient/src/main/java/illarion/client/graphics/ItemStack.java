@@ -218,6 +218,16 @@ public class ItemStack implements DisplayItem, List<Item> {
         return stackLocation.getLayer();
     }
 
+    @Override
+    public int getSceneX() {
+        return stackLocation.getX();
+    }
+
+    @Override
+    public int getSceneY() {
+        return stackLocation.getY();
+    }
+
     @Override
     public void render(@Nonnull Graphics graphics) {
         lock.readLock().lock();
@@ -230,6 +240,21 @@ public class ItemStack implements DisplayItem, List<Item> {
         }
     }
 
+    @Override
+    public boolean isParallelUpdateSafe() {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                if (!items.get(i).isParallelUpdateSafe()) {
+                    return false;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return true;
+    }
+
     @Override
     public void update(@Nonnull GameContainer container, int delta) {
         lock.readLock().lock();
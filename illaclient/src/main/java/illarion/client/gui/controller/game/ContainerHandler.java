@@ -39,6 +39,7 @@ import illarion.client.resources.data.ItemTemplate;
 import illarion.client.util.Lang;
 import illarion.client.util.LookAtTracker;
 import illarion.client.util.UpdateTask;
+import illarion.client.util.UpdateTaskPriority;
 import illarion.client.world.World;
 import illarion.client.world.interactive.InteractionManager;
 import illarion.client.world.items.ContainerSlot;
@@ -446,7 +447,7 @@ public final class ContainerHandler implements ContainerGui, ScreenController {
      */
     @Override
     public void closeContainer(int containerId) {
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             if (isContainerCreated(containerId)) {
                 tooltipHandler.hideToolTip();
                 removeItemContainer(containerId);
@@ -483,7 +484,7 @@ public final class ContainerHandler implements ContainerGui, ScreenController {
 
     @Override
     public void showContainer(@Nonnull ItemContainer container) {
-        World.getUpdateTaskManager().addTask(new UpdateContainerTask(container));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, new UpdateContainerTask(container));
     }
 
     @Override
@@ -505,7 +506,7 @@ public final class ContainerHandler implements ContainerGui, ScreenController {
 
     @Override
     public void updateMerchantOverlay() {
-        World.getUpdateTaskManager().addTask(updateMerchantOverlays);
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, updateMerchantOverlays);
     }
 
     private int lastContainerId = -1;
@@ -32,6 +32,7 @@ import illarion.client.gui.util.NiftyMerchantItem;
 import illarion.client.gui.util.NiftySelectItem;
 import illarion.client.net.client.*;
 import illarion.client.util.Lang;
+import illarion.client.util.UpdateTaskPriority;
 import illarion.client.world.Char;
 import illarion.client.world.World;
 import illarion.client.world.items.CraftingItem;
@@ -199,7 +200,7 @@ public final class DialogHandler
     @Override
     public void showSelectionDialog(int dialogId, @Nonnull String title, @Nonnull String content,
                                     @Nonnull Collection<SelectionItem> items) {
-        World.getUpdateTaskManager().addTask((container, delta) ->
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) ->
                 showSelectionDialogImpl(dialogId, title, content, items));
     }
 
@@ -411,7 +412,8 @@ public final class DialogHandler
     @Override
     public void showMerchantDialog(int dialogId, @Nonnull String title,
                                    @Nonnull Collection<MerchantItem> items) {
-        World.getUpdateTaskManager().addTask((container, delta) -> showMerchantDialogImpl(dialogId, title, items));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface,
+                (container, delta) -> showMerchantDialogImpl(dialogId, title, items));
     }
 
     private void showMerchantDialogImpl(int dialogId, @Nonnull String title, @Nonnull Iterable<MerchantItem> items) {
@@ -526,13 +528,14 @@ public final class DialogHandler
     @Override
     public void showCraftingDialog(int dialogId, @Nonnull String title, @Nonnull Collection<String> groups,
                                    @Nonnull Collection<CraftingItem> items) {
-        World.getUpdateTaskManager().addTask((container, delta) -> showCraftingDialogImpl(dialogId, title, groups, items));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface,
+                (container, delta) -> showCraftingDialogImpl(dialogId, title, groups, items));
     }
 
     @Override
     public void startProductionIndicator(int dialogId, int remainingItemCount,
                                          double requiredTime) {
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             if ((craftingDialog != null) && openCraftDialog && (craftingDialog.getDialogId() == dialogId)) {
                 craftingDialog.setAmount(remainingItemCount);
                 craftingDialog.startProgress(requiredTime);
@@ -543,7 +546,7 @@ public final class DialogHandler
 
     @Override
     public void finishProduction(int dialogId) {
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             if ((craftingDialog != null) && openCraftDialog && (craftingDialog.getDialogId() == dialogId)) {
                 craftingDialog.setAmount(craftingDialog.getAmount() - 1);
                 craftingDialog.setProgress(0.f);
@@ -554,7 +557,7 @@ public final class DialogHandler
 
     @Override
     public void abortProduction(int dialogId) {
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             if ((craftingDialog != null) && openCraftDialog && (craftingDialog.getDialogId() == dialogId)) {
                 craftingDialog.setProgress(0.f);
                 craftingInProgress = false;
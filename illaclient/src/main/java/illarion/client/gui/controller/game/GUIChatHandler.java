@@ -45,6 +45,7 @@ import illarion.client.net.client.SayCmd;
 import illarion.client.util.ChatHandler.SpeechMode;
 import illarion.client.util.Lang;
 import illarion.client.util.UpdateTask;
+import illarion.client.util.UpdateTaskPriority;
 import illarion.client.util.translation.Translator;
 import illarion.client.world.Char;
 import illarion.client.world.World;
@@ -109,7 +110,7 @@ public final class GUIChatHandler implements ChatGui, KeyInputHandler, ScreenCon
      */
     @Override
     public void addChatMessage(@Nonnull String message, @Nonnull Color color) {
-        World.getUpdateTaskManager().addTask(new ChatBoxEntry(message, color));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Cosmetic, new ChatBoxEntry(message, color));
     }
 
     /**
@@ -122,7 +123,8 @@ public final class GUIChatHandler implements ChatGui, KeyInputHandler, ScreenCon
     @Override
     public void showChatBubble(
             @Nullable Char character, @Nonnull String message, @Nonnull Color color) {
-        World.getUpdateTaskManager().addTask(new CharTalkEntry(character, message, color));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Cosmetic,
+                new CharTalkEntry(character, message, color));
     }
 
     /**
@@ -37,6 +37,7 @@ import illarion.client.resources.data.ItemTemplate;
 import illarion.client.util.Lang;
 import illarion.client.util.LookAtTracker;
 import illarion.client.util.UpdateTask;
+import illarion.client.util.UpdateTaskPriority;
 import illarion.client.world.World;
 import illarion.client.world.interactive.InteractionManager;
 import illarion.client.world.items.CarryLoad;
@@ -137,6 +138,9 @@ public final class GUIInventoryHandler implements InventoryGui, ScreenController
     @Nonnull
     private final Input input;
 
+    @Nonnull
+    private final UpdateTask carryLoadUpdate = (container, delta) -> updateCarryLoadImpl();
+
     @Nonnull
     private final UpdateTask updateMerchantOverlays = (container, delta) -> {
         Inventory inventory = World.getPlayer().getInventory();
@@ -183,7 +187,7 @@ public final class GUIInventoryHandler implements InventoryGui, ScreenController
 
     @Override
     public void updateCarryLoad() {
-        World.getUpdateTaskManager().addTask((container, delta) -> updateCarryLoadImpl());
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, carryLoadUpdate, carryLoadUpdate);
     }
 
     private void updateCarryLoadImpl() {
@@ -216,12 +220,13 @@ public final class GUIInventoryHandler implements InventoryGui, ScreenController
 
     @Override
     public void updateMerchantOverlay() {
-        World.getUpdateTaskManager().addTask(updateMerchantOverlays);
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, updateMerchantOverlays,
+                updateMerchantOverlays);
     }
 
     @Override
     public void toggleInventory() {
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             if (inventoryWindow != null) {
                 if (inventoryWindow.isVisible()) {
                     hideInventory();
@@ -238,7 +243,7 @@ public final class GUIInventoryHandler implements InventoryGui, ScreenController
      */
     @Override
     public void hideInventory() {
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             if (inventoryWindow != null) {
                 tooltipHandler.hideToolTip();
                 inventoryWindow.hide();
@@ -248,7 +253,7 @@ public final class GUIInventoryHandler implements InventoryGui, ScreenController
 
     @Override
     public void showInventory() {
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             if (inventoryWindow != null) {
                 inventoryWindow.show(() -> {
                     World.getUpdateTaskManager().addTaskForLater((container1, delta1) -> updateCarryLoad());
@@ -527,7 +532,8 @@ public final class GUIInventoryHandler implements InventoryGui, ScreenController
         if ((slotId < 0) || (slotId >= Inventory.SLOT_COUNT)) {
             throw new IllegalArgumentException("Slot ID out of valid range.");
         }
-        World.getUpdateTaskManager().addTask(new InventorySlotUpdate(slotId, itemId, count));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, slots[slotId],
+                new InventorySlotUpdate(slotId, itemId, count));
     }
 
     @Override
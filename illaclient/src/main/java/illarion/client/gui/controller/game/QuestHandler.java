@@ -28,6 +28,7 @@ import de.lessvoid.nifty.tools.SizeValue;
 import illarion.client.IllaClient;
 import illarion.client.graphics.FontLoader;
 import illarion.client.gui.QuestGui;
+import illarion.client.util.UpdateTaskPriority;
 import illarion.client.world.World;
 import illarion.common.types.ServerCoordinate;
 import org.intellij.lang.annotations.Flow;
@@ -328,7 +329,8 @@ public final class QuestHandler implements QuestGui, ScreenController {
 
     @Override
     public void updateAllQuests() {
-        World.getUpdateTaskManager().addTask((container, delta) -> updateAllQuestsInternal());
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface,
+                (container, delta) -> updateAllQuestsInternal());
     }
 
     private void updateAllQuestsInternal() {
@@ -562,7 +564,8 @@ public final class QuestHandler implements QuestGui, ScreenController {
 
     @Override
     public void removeQuest(int questId) {
-        World.getUpdateTaskManager().addTask((container, delta) -> removeQuestInternal(questId));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface,
+                (container, delta) -> removeQuestInternal(questId));
     }
 
     /**
@@ -603,7 +606,8 @@ public final class QuestHandler implements QuestGui, ScreenController {
             @Nonnull String description,
             boolean finished,
             @Nonnull List<ServerCoordinate> locations) {
-        World.getUpdateTaskManager().addTask((container, delta) -> setQuestInternal(questId, name, description, finished, locations));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface,
+                (container, delta) -> setQuestInternal(questId, name, description, finished, locations));
     }
 
     @Override
@@ -31,6 +31,7 @@ import de.lessvoid.nifty.tools.SizeValue;
 import illarion.client.IllaClient;
 import illarion.client.gui.SkillGui;
 import illarion.client.util.Lang;
+import illarion.client.util.UpdateTaskPriority;
 import illarion.client.world.MapTile;
 import illarion.client.world.World;
 import illarion.common.config.Config;
@@ -110,7 +111,8 @@ public final class SkillsHandler implements SkillGui, ScreenController, Updatabl
 
     @Override
     public void showSkillWindow() {
-        World.getUpdateTaskManager().addTask((container, delta) -> internalShowSkillWindow());
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface,
+                (container, delta) -> internalShowSkillWindow());
     }
 
     private void internalShowSkillWindow() {
@@ -123,7 +125,8 @@ public final class SkillsHandler implements SkillGui, ScreenController, Updatabl
 
     @Override
     public void hideSkillWindow() {
-        World.getUpdateTaskManager().addTask((container, delta) -> internalHideSkillWindow());
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface,
+                (container, delta) -> internalHideSkillWindow());
     }
 
     private void internalHideSkillWindow() {
@@ -223,7 +226,8 @@ public final class SkillsHandler implements SkillGui, ScreenController, Updatabl
 
     @Override
     public void updateSkill(@Nonnull Skill skill, int value, int minor) {
-        World.getUpdateTaskManager().addTask((container, delta) -> internalUpdateSkill(skill, value, minor));
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, skill,
+                (container, delta) -> internalUpdateSkill(skill, value, minor));
     }
 
     @Nullable
@@ -23,6 +23,7 @@ import de.lessvoid.nifty.tools.Color;
 import de.lessvoid.nifty.tools.SizeValue;
 import illarion.client.gui.Tooltip;
 import illarion.client.gui.events.TooltipsRemovedEvent;
+import illarion.client.util.UpdateTaskPriority;
 import illarion.client.world.World;
 import illarion.common.types.Rectangle;
 import org.bushe.swing.event.EventBus;
@@ -113,7 +114,7 @@ public final class TooltipHandler implements ScreenController, UpdatableHandler
      * Hide all current tooltips.
      */
     public void hideToolTip() {
-        World.getUpdateTaskManager().addTask((container, delta) -> hideToolTipImpl());
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> hideToolTipImpl());
     }
 
     private void hideToolTipImpl() {
@@ -145,7 +146,7 @@ public final class TooltipHandler implements ScreenController, UpdatableHandler
 
         log.debug("Showing tooltip {} for {}", tooltip, location);
 
-        World.getUpdateTaskManager().addTask((container, delta) -> {
+        World.getUpdateTaskManager().addTask(UpdateTaskPriority.Interface, (container, delta) -> {
             hideToolTipImpl();
             showToolTipImpl(location, tooltip);
             activeTooltipArea = location;
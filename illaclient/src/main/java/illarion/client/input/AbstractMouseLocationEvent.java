@@ -15,7 +15,7 @@
  */
 package illarion.client.input;
 
-import org.illarion.engine.graphic.SceneEvent;
+import org.illarion.engine.graphic.LocatedSceneEvent;
 
 import javax.annotation.Nonnull;
 
@@ -24,7 +24,7 @@ import javax.annotation.Nonnull;
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
-public abstract class AbstractMouseLocationEvent implements SceneEvent {
+public abstract class AbstractMouseLocationEvent implements LocatedSceneEvent {
     /**
      * The x coordinate on the screen where the click occurred.
      */
@@ -61,6 +61,7 @@ public abstract class AbstractMouseLocationEvent implements SceneEvent {
      *
      * @return the x coordinate of the click
      */
+    @Override
     public int getX() {
         return x;
     }
@@ -70,6 +71,7 @@ public abstract class AbstractMouseLocationEvent implements SceneEvent {
      *
      * @return the y coordinate of the click
      */
+    @Override
     public int getY() {
         return y;
     }
@@ -15,6 +15,7 @@
  */
 package illarion.client.loading;
 
+import illarion.client.loading.LoadingGraph.Node;
 import illarion.common.util.ProgressMonitor;
 import org.illarion.engine.Engine;
 
@@ -25,7 +26,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * This class is used to enlist the required loading tasks and perform the loading operations itself.
+ * This class is used to enlist the required loading tasks and perform the loading operations itself. The tasks are
+ * stored in a {@link LoadingGraph}, so the tasks that do not depend on each other are load at the same time.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
@@ -44,17 +46,10 @@ public final class Loading {
     private ProgressMonitor progressMonitor;
 
     /**
-     * This is the list of loading tasks that need to be handled.
+     * This is the graph of the loading tasks that need to be handled.
      */
-    @Nonnull
-    private final List<LoadingTask> tasks;
-
-    /**
-     * Create a new instance of this class. This also enlists all the required entries.
-     */
-    public Loading() {
-        tasks = new ArrayList<>();
-    }
+    @Nullable
+    private LoadingGraph graph;
 
     /**
      * Enlist all components that are still needed to be loaded.
@@ -63,27 +58,30 @@ public final class Loading {
      */
     public void enlistMissingComponents(@Nonnull Engine gameEngine) {
         progressMonitor = new ProgressMonitor();
+        LoadingGraph newGraph = new LoadingGraph();
+        List<Node> environmentDependencies = new ArrayList<>();
         if (!loadingDone) {
-            addToTaskList(new TextureLoadingTask(gameEngine));
-            addToTaskList(new ResourceTableLoading(gameEngine));
-            addToTaskList(new SoundLoadingTask(gameEngine));
+            Node textures = newGraph.addRenderNode("Textures", new TextureLoadingTask(gameEngine));
+            environmentDependencies.add(textures);
+            environmentDependencies.addAll(ResourceTableLoading.enlist(newGraph, gameEngine, textures));
+            environmentDependencies.add(newGraph.addRenderNode("Sounds", new SoundLoadingTask(gameEngine)));
             loadingDone = true;
         }
-        addToTaskList(new GameEnvironmentLoading(gameEngine));
+        newGraph.addRenderNode("Game environment", new GameEnvironmentLoading(gameEngine),
+                               environmentDependencies.toArray(new Node[environmentDependencies.size()]));
+
+        for (ProgressMonitor monitor : newGraph.getProgressMonitors()) {
+            progressMonitor.addChild(monitor);
+        }
+        graph = newGraph;
     }
 
     /**
-     * Perform the text loading step.
+     * Perform the next loading step.
      */
     public void load() {
-        if (tasks.isEmpty()) {
-            return;
-        }
-
-        LoadingTask currentTask = tasks.get(0);
-        currentTask.load();
-        if (currentTask.isLoadingDone()) {
-            tasks.remove(0);
+        if (graph != null) {
+            graph.update();
         }
     }
 
@@ -93,19 +91,7 @@ public final class Loading {
      * @return {@code true} in case the loading is done
      */
     public boolean isLoadingDone() {
-        return tasks.isEmpty();
-    }
-
-    /**
-     * Add a new task to the list of tasks and attach it to the progress monitor.
-     *
-     * @param task the task to add
-     */
-    private void addToTaskList(@Nonnull LoadingTask task) {
-        tasks.add(task);
-
-        assert progressMonitor != null;
-        progressMonitor.addChild(task.getProgressMonitor());
+        return (graph == null) || graph.isDone();
     }
 
     /**
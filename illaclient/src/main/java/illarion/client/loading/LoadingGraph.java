@@ -0,0 +1,337 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.loading;
+
+import illarion.common.util.PoolThreadFactory;
+import illarion.common.util.ProgressMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * This graph executes the loading steps of the client in the order defined by their dependencies. A step is started
+ * once all the steps it depends on are done, so independent steps run at the same time.
+ * <p>
+ * Steps that are executed by a worker are handed to a bounded thread pool. Steps that need the graphics context are
+ * {@link LoadingTask}s that are processed on the render thread, one step of each task for every call of
+ * {@link #update()}. The graph itself is driven from the render thread.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@NotThreadSafe
+final class LoadingGraph {
+    /**
+     * The logger of this class.
+     */
+    @Nonnull
+    private static final Logger log = LoggerFactory.getLogger(LoadingGraph.class);
+
+    /**
+     * The maximal amount of threads that execute the worker steps. One core is left to the render thread.
+     */
+    private static final int LOADING_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * One step of the loading graph.
+     */
+    static final class Node {
+        /**
+         * The name of the step that is used to report the timing.
+         */
+        @Nonnull
+        private final String name;
+
+        /**
+         * The work of a step that is executed by a worker or {@code null} in case this step is executed on the
+         * render thread.
+         */
+        @Nullable
+        private final Callable<?> work;
+
+        /**
+         * The task of a step that is executed on the render thread or {@code null} in case this step is executed by
+         * a worker.
+         */
+        @Nullable
+        private final LoadingTask task;
+
+        /**
+         * The monitor that reports the progress of this step.
+         */
+        @Nonnull
+        private final ProgressMonitor monitor;
+
+        /**
+         * The steps that have to be done before this step is started.
+         */
+        @Nonnull
+        private final List<Node> dependencies;
+
+        /**
+         * The future of a running worker step.
+         */
+        @Nullable
+        private Future<?> future;
+
+        /**
+         * The time in nanoseconds when the execution of this step started and ended. Worker steps set these values
+         * on the worker thread.
+         */
+        private volatile long startTime;
+        private volatile long endTime;
+
+        private boolean started;
+        private boolean done;
+
+        private Node(
+                @Nonnull String name,
+                @Nullable Callable<?> work,
+                @Nullable LoadingTask task,
+                @Nonnull ProgressMonitor monitor,
+                @Nonnull Node... dependencies) {
+            this.name = name;
+            this.work = work;
+            this.task = task;
+            this.monitor = monitor;
+            this.dependencies = Arrays.asList(dependencies);
+        }
+
+        private boolean isReady() {
+            for (Node dependency : dependencies) {
+                if (!dependency.done) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * All steps of this graph in the order they were added.
+     */
+    @Nonnull
+    private final List<Node> nodes;
+
+    /**
+     * The executor of the worker steps. It is created once the first worker step starts and shut down once all
+     * steps are done.
+     */
+    @Nullable
+    private ExecutorService executor;
+
+    /**
+     * The time in nanoseconds the first step of this graph was started.
+     */
+    private long startTime;
+
+    /**
+     * This is set {@code true} once all steps are done.
+     */
+    private boolean done;
+
+    LoadingGraph() {
+        nodes = new ArrayList<>();
+    }
+
+    /**
+     * Add a step that is executed by a worker thread.
+     *
+     * @param name the name of the step
+     * @param monitor the monitor that reports the progress of this step
+     * @param work the work of this step
+     * @param dependencies the steps that need to be done before this step is started
+     * @return the new step
+     */
+    @Nonnull
+    Node addWorkerNode(
+            @Nonnull String name,
+            @Nonnull ProgressMonitor monitor,
+            @Nonnull Callable<?> work,
+            @Nonnull Node... dependencies) {
+        return addNode(new Node(name, work, null, monitor, dependencies));
+    }
+
+    /**
+     * Add a step that is executed on the render thread.
+     *
+     * @param name the name of the step
+     * @param task the task of this step
+     * @param dependencies the steps that need to be done before this step is started
+     * @return the new step
+     */
+    @Nonnull
+    Node addRenderNode(@Nonnull String name, @Nonnull LoadingTask task, @Nonnull Node... dependencies) {
+        return addNode(new Node(name, null, task, task.getProgressMonitor(), dependencies));
+    }
+
+    @Nonnull
+    private Node addNode(@Nonnull Node node) {
+        if (done) {
+            throw new IllegalStateException("Adding steps to a graph that is done is not allowed.");
+        }
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Get the progress monitors of all steps of this graph.
+     *
+     * @return the progress monitors
+     */
+    @Nonnull
+    List<ProgressMonitor> getProgressMonitors() {
+        List<ProgressMonitor> monitors = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            monitors.add(node.monitor);
+        }
+        return monitors;
+    }
+
+    /**
+     * Start the steps that got ready, collect the finished worker steps and process one step of every running
+     * render thread step. This has to be called from the render thread.
+     */
+    void update() {
+        if (done) {
+            return;
+        }
+        if (startTime == 0) {
+            startTime = System.nanoTime();
+        }
+
+        boolean allDone = true;
+        for (Node node : nodes) {
+            if (node.done) {
+                continue;
+            }
+            if (!node.started) {
+                if (!node.isReady()) {
+                    allDone = false;
+                    continue;
+                }
+                start(node);
+            }
+            if (node.task != null) {
+                updateRenderNode(node, node.task);
+            } else {
+                updateWorkerNode(node);
+            }
+            allDone &= node.done;
+        }
+
+        if (allDone) {
+            finish();
+        }
+    }
+
+    /**
+     * Check if all steps of the graph are done.
+     *
+     * @return {@code true} in case all steps are done
+     */
+    boolean isDone() {
+        return done;
+    }
+
+    private void start(@Nonnull Node node) {
+        log.debug("Starting loading step {}", node);
+        node.started = true;
+        node.startTime = System.nanoTime();
+
+        Callable<?> work = node.work;
+        if (work != null) {
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(LOADING_THREADS, new PoolThreadFactory("Loading", true));
+            }
+            node.future = executor.submit(() -> {
+                node.startTime = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    node.endTime = System.nanoTime();
+                }
+            });
+        }
+    }
+
+    private static void updateRenderNode(@Nonnull Node node, @Nonnull LoadingTask task) {
+        task.load();
+        if (task.isLoadingDone()) {
+            node.endTime = System.nanoTime();
+            node.done = true;
+        }
+    }
+
+    private static void updateWorkerNode(@Nonnull Node node) {
+        Future<?> future = node.future;
+        if ((future == null) || !future.isDone()) {
+            return;
+        }
+        try {
+            future.get();
+        } catch (@Nonnull InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (@Nonnull ExecutionException e) {
+            log.error("Loading step {} failed.", node, e.getCause());
+        }
+        node.monitor.setProgress(1.f);
+        node.done = true;
+    }
+
+    /**
+     * Shut down the worker threads and report the time spent in each step.
+     */
+    private void finish() {
+        done = true;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+
+        if (log.isInfoEnabled()) {
+            List<Node> sortedNodes = new ArrayList<>(nodes);
+            Collections.sort(sortedNodes, (o1, o2) -> Long.compare(o2.getDurationMillis(), o1.getDurationMillis()));
+            StringBuilder builder = new StringBuilder();
+            for (Node node : sortedNodes) {
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(node.name).append(' ').append(node.getDurationMillis()).append(" ms");
+            }
+            log.info("Loading finished after {} ms using {} threads: {}",
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), LOADING_THREADS, builder);
+        }
+    }
+}
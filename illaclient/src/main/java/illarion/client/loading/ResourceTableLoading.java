@@ -15,94 +15,79 @@
  */
 package illarion.client.loading;
 
+import illarion.client.loading.LoadingGraph.Node;
 import illarion.client.resources.*;
 import illarion.client.resources.loaders.*;
-import illarion.common.util.ProgressMonitor;
+import illarion.common.util.TableLoader;
 import org.illarion.engine.Engine;
 
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.NotThreadSafe;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * This class is used to allow the loading sequence of the client to load the resource tables.
+ * This class is used to add the loading of the resource tables to the loading graph of the client. Each table is
+ * load by its own step, so the tables are load in parallel. All tables except for the books require the textures.
+ * The clothes are assigned to the characters, so they require the characters as well.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
-@NotThreadSafe
-final class ResourceTableLoading implements LoadingTask {
-    /**
-     * The progress monitor that tracks the loading activity of this task.
-     */
-    @Nonnull
-    private final ProgressMonitor progressMonitor;
-
-    /**
-     * The list of tasks that need to be finished during the resource table loading.
-     */
-    @Nonnull
-    private final List<AbstractResourceLoader<? extends Resource>> taskList;
+final class ResourceTableLoading {
+    private ResourceTableLoading() {
+    }
 
     /**
-     * Create a new resource table loading task and enlist all the sub-tasks.
+     * Add the steps that load the resource tables to the loading graph.
      *
+     * @param graph the loading graph
      * @param gameEngine the engine of the game
+     * @param textures the step that loads the textures
+     * @return the steps that load the resource tables
      */
-    ResourceTableLoading(@Nonnull Engine gameEngine) {
-        taskList = new ArrayList<>();
-        progressMonitor = new ProgressMonitor();
+    @Nonnull
+    static List<Node> enlist(@Nonnull LoadingGraph graph, @Nonnull Engine gameEngine, @Nonnull Node textures) {
+        /* The tables are independent, so they are read in parallel ahead of their loading steps. */
+        TableLoader.preloadTables("Tiles", "Overlays", "Items", "Chars", "Cloth", "Effects", "Books");
 
-        addTask(new TileLoader(gameEngine.getAssets()), TileFactory.getInstance());
-        addTask(new OverlayLoader(gameEngine.getAssets()), OverlayFactory.getInstance());
-        addTask(new ItemLoader(gameEngine.getAssets()), ItemFactory.getInstance());
-        addTask(new CharacterLoader(gameEngine.getAssets()), CharacterFactory.getInstance());
-        addTask(new ClothLoader(gameEngine.getAssets()), new ClothFactoryRelay());
-        addTask(new EffectLoader(gameEngine.getAssets()), EffectFactory.getInstance());
-        addTask(new MiscImageLoader(gameEngine.getAssets()), MiscImageFactory.getInstance());
-        addTask(new BookLoader(), BookFactory.getInstance());
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(addTask(graph, "Tiles", new TileLoader(gameEngine.getAssets()), TileFactory.getInstance(),
+                          textures));
+        nodes.add(addTask(graph, "Overlays", new OverlayLoader(gameEngine.getAssets()), OverlayFactory.getInstance(),
+                          textures));
+        nodes.add(addTask(graph, "Items", new ItemLoader(gameEngine.getAssets()), ItemFactory.getInstance(),
+                          textures));
+        Node characters = addTask(graph, "Characters", new CharacterLoader(gameEngine.getAssets()),
+                                  CharacterFactory.getInstance(), textures);
+        nodes.add(characters);
+        nodes.add(addTask(graph, "Clothes", new ClothLoader(gameEngine.getAssets()), new ClothFactoryRelay(),
+                          textures, characters));
+        nodes.add(addTask(graph, "Effects", new EffectLoader(gameEngine.getAssets()), EffectFactory.getInstance(),
+                          textures));
+        nodes.add(addTask(graph, "Misc images", new MiscImageLoader(gameEngine.getAssets()),
+                          MiscImageFactory.getInstance(), textures));
+        nodes.add(addTask(graph, "Books", new BookLoader(), BookFactory.getInstance()));
+        return nodes;
     }
 
     /**
-     * Add a task to the list of tasks and to the progress monitor.
+     * Add a resource loader as step to the loading graph.
      *
+     * @param graph the loading graph
+     * @param name the name of the step
      * @param loader the loader of this task
      * @param factory the factory that is supposed to be filled
+     * @param dependencies the steps that need to be done before the loader is started
      * @param <T> the resource type that is load in this case
+     * @return the new step
      */
-    private <T extends Resource> void addTask(
-            @Nonnull AbstractResourceLoader<T> loader, @Nonnull ResourceFactory<T> factory) {
-        loader.setTarget(factory);
-        progressMonitor.addChild(loader.getProgressMonitor());
-        taskList.add(loader);
-    }
-
-    @Override
-    public void load() {
-        if (!taskList.isEmpty()) {
-            AbstractResourceLoader<? extends Resource> loader = taskList.remove(0);
-            try {
-                loader.call();
-            } catch (Exception e) {
-                e.printStackTrace(System.err);
-            }
-        }
-    }
-
-    @Override
-    public boolean isLoadingDone() {
-        for (AbstractResourceLoader<? extends Resource> loader : taskList) {
-            if (!loader.isLoadingDone()) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     @Nonnull
-    @Override
-    public ProgressMonitor getProgressMonitor() {
-        return progressMonitor;
+    private static <T extends Resource> Node addTask(
+            @Nonnull LoadingGraph graph,
+            @Nonnull String name,
+            @Nonnull AbstractResourceLoader<T> loader,
+            @Nonnull ResourceFactory<T> factory,
+            @Nonnull Node... dependencies) {
+        loader.setTarget(factory);
+        return graph.addWorkerNode(name, loader.getProgressMonitor(), loader, dependencies);
     }
 }
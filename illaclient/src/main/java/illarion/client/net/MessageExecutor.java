@@ -15,6 +15,7 @@
  */
 package illarion.client.net;
 
+import illarion.client.net.server.CoalescableServerReply;
 import illarion.client.net.server.ServerReply;
 import illarion.client.net.server.ServerReplyResult;
 import org.jetbrains.annotations.Contract;
@@ -24,38 +25,281 @@ import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class will take care that the messages received from the server are executes properly.
+ * <p>
+ * The receiver places the decoded replies in a lock-free queue. The executor thread drains this queue in batches.
+ * Before a batch is executed, replies that are replaced by a newer reply in the same batch are discarded. Replies
+ * that request to be rescheduled are retried with a growing delay, unless a newer reply replaces them meanwhile.
+ * </p>
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
-final class MessageExecutor {
+final class MessageExecutor implements ReplyHandler {
     @Nonnull
     private static final Marker NET = MarkerFactory.getMarker("Net");
     @Nonnull
     private static final Logger log = LoggerFactory.getLogger(MessageExecutor.class);
 
+    /**
+     * The maximal amount of replies executed in one batch.
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /**
+     * The delay before a rescheduled reply is executed for the first time again.
+     */
+    private static final long MIN_RESCHEDULE_DELAY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The maximal delay between two attempts to execute a rescheduled reply.
+     */
+    private static final long MAX_RESCHEDULE_DELAY = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The time the executor thread sleeps in case there is nothing to do. The thread is woken up as soon as a new
+     * reply arrives.
+     */
+    private static final long IDLE_WAIT_TIME = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * A reply waiting for its execution.
+     */
+    private static final class PendingReply {
+        /**
+         * The reply.
+         */
+        @Nonnull
+        private final ServerReply reply;
+
+        /**
+         * The time the reply was handed over to the executor.
+         */
+        private final long scheduleTime;
+
+        /**
+         * The current delay between two execution attempts of a rescheduled reply.
+         */
+        private long rescheduleDelay;
+
+        /**
+         * The time when the next execution attempt of a rescheduled reply is due.
+         */
+        private long nextAttemptTime;
+
+        /**
+         * This flag is set {@code true} in case a newer reply replaces this one.
+         */
+        private boolean superseded;
+
+        PendingReply(@Nonnull ServerReply reply, long scheduleTime) {
+            this.reply = reply;
+            this.scheduleTime = scheduleTime;
+        }
+    }
+
+    /**
+     * The replies that were received and wait for their execution.
+     */
+    @Nonnull
+    private final Queue<PendingReply> incomingReplies = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The replies that got rescheduled and wait for their next execution attempt. Only accessed by the executor
+     * thread.
+     */
+    @Nonnull
+    private final List<PendingReply> delayedReplies = new ArrayList<>();
+
+    /**
+     * The batch of replies that is currently executed. Only accessed by the executor thread.
+     */
+    @Nonnull
+    private final List<PendingReply> batch = new ArrayList<>();
+
+    /**
+     * The coalescing keys that were found in the current batch, stored by the class of the reply. Only accessed by
+     * the executor thread.
+     */
+    @Nonnull
+    private final Map<Class<? extends ServerReply>, Set<Object>> coalescingKeys = new HashMap<>();
+
+    /**
+     * The statistics that record the queue wait and the execution latency of the replies.
+     */
+    @Nonnull
+    private final NetCommStatistics statistics;
+
+    /**
+     * The thread that executes the replies.
+     */
+    @Nonnull
+    private final Thread executorThread;
+
+    /**
+     * This latch is released once the executor thread ended.
+     */
     @Nonnull
-    private final ExecutorService executorService;
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    /**
+     * This flag is {@code true} as long as the executor is supposed to run.
+     */
+    private volatile boolean running;
 
     /**
      * Default constructor for a message executor.
+     *
+     * @param statistics the statistics that record the queue wait and the execution latency of the replies
      */
-    MessageExecutor() {
-        executorService = Executors.newSingleThreadExecutor();
+    MessageExecutor(@Nonnull NetCommStatistics statistics) {
+        this.statistics = statistics;
+        running = true;
+        executorThread = new Thread(this::executeLoop, "Illarion message executor");
+        executorThread.setDaemon(true);
+        executorThread.start();
     }
 
-    void scheduleReplyExecution(@Nonnull ServerReply reply) {
+    @Override
+    public void scheduleReplyExecution(@Nonnull ServerReply reply) {
         log.debug(NET, "scheduled {}", reply);
-        executorService.submit(() -> executeReply(reply));
+        incomingReplies.offer(new PendingReply(reply, System.nanoTime()));
+        LockSupport.unpark(executorThread);
+    }
+
+    private void executeLoop() {
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                collectBatch(now);
+                if (batch.isEmpty()) {
+                    LockSupport.parkNanos(this, getWaitTime(now));
+                    continue;
+                }
+
+                coalesceBatch();
+                for (PendingReply pendingReply : batch) {
+                    if (pendingReply.superseded) {
+                        log.debug(NET, "superseded {}", pendingReply.reply);
+                        statistics.reportCoalescedReply();
+                        ReplyFactory.getInstance().releaseReply(pendingReply.reply);
+                    } else {
+                        executeReply(pendingReply);
+                    }
+                }
+                batch.clear();
+            }
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * Fill the batch with the rescheduled replies that are due and the replies that arrived since the last batch.
+     *
+     * @param now the current time
+     */
+    private void collectBatch(long now) {
+        Iterator<PendingReply> delayedItr = delayedReplies.iterator();
+        while (delayedItr.hasNext()) {
+            PendingReply pendingReply = delayedItr.next();
+            if ((now - pendingReply.nextAttemptTime) >= 0) {
+                delayedItr.remove();
+                batch.add(pendingReply);
+            }
+        }
+
+        while (batch.size() < MAX_BATCH_SIZE) {
+            PendingReply pendingReply = incomingReplies.poll();
+            if (pendingReply == null) {
+                break;
+            }
+            batch.add(pendingReply);
+        }
+    }
+
+    /**
+     * Get the time the executor thread is allowed to wait for new replies.
+     *
+     * @param now the current time
+     * @return the time to wait in nanoseconds
+     */
+    private long getWaitTime(long now) {
+        long waitTime = IDLE_WAIT_TIME;
+        for (PendingReply pendingReply : delayedReplies) {
+            waitTime = Math.min(waitTime, pendingReply.nextAttemptTime - now);
+        }
+        return Math.max(0L, waitTime);
     }
 
-    private void executeReply(@Nonnull ServerReply reply) {
+    /**
+     * Mark all replies in the current batch that are replaced by a newer reply in the same batch. Rescheduled replies
+     * that still wait for their next attempt are older than every reply in the batch. They are discarded in case the
+     * batch contains a reply that replaces them, so they can't be executed after the newer reply.
+     */
+    private void coalesceBatch() {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            PendingReply pendingReply = batch.get(i);
+            @Nullable Object key = getCoalescingKey(pendingReply.reply);
+            if (key == null) {
+                continue;
+            }
+            Set<Object> keys = coalescingKeys.computeIfAbsent(pendingReply.reply.getClass(), k -> new HashSet<>());
+            if (!keys.add(key)) {
+                pendingReply.superseded = true;
+            }
+        }
+
+        Iterator<PendingReply> delayedItr = delayedReplies.iterator();
+        while (delayedItr.hasNext()) {
+            PendingReply pendingReply = delayedItr.next();
+            @Nullable Object key = getCoalescingKey(pendingReply.reply);
+            if (key == null) {
+                continue;
+            }
+            @Nullable Set<Object> keys = coalescingKeys.get(pendingReply.reply.getClass());
+            if ((keys != null) && keys.contains(key)) {
+                delayedItr.remove();
+                log.debug(NET, "superseded {}", pendingReply.reply);
+                statistics.reportCoalescedReply();
+                ReplyFactory.getInstance().releaseReply(pendingReply.reply);
+            }
+        }
+
+        for (Set<Object> keys : coalescingKeys.values()) {
+            keys.clear();
+        }
+    }
+
+    /**
+     * Get the key that identifies the replies that replace each other.
+     *
+     * @param reply the reply
+     * @return the coalescing key or {@code null} in case the reply is never replaced by another reply
+     */
+    @Nullable
+    private static Object getCoalescingKey(@Nonnull ServerReply reply) {
+        if (reply instanceof CoalescableServerReply) {
+            return ((CoalescableServerReply) reply).getCoalescingKey();
+        }
+        return null;
+    }
+
+    private void executeReply(@Nonnull PendingReply pendingReply) {
+        ServerReply reply = pendingReply.reply;
         log.debug(NET, "executing {}", reply);
+        if (pendingReply.rescheduleDelay == 0) {
+            statistics.reportQueueWait(reply.getClass(), System.nanoTime() - pendingReply.scheduleTime);
+        }
         try {
+            long executionStart = System.nanoTime();
             ServerReplyResult result = reply.execute();
+            statistics.reportExecutionTime(reply.getClass(), System.nanoTime() - executionStart);
             switch (result) {
                 case Success:
                     log.debug(NET, "finished with success {}", reply);
@@ -65,19 +309,26 @@ final class MessageExecutor {
                     break;
                 case Reschedule:
                     log.debug(NET, "delaying {}", reply);
-                    scheduleReplyExecution(reply);
+                    pendingReply.rescheduleDelay = (pendingReply.rescheduleDelay == 0) ? MIN_RESCHEDULE_DELAY :
+                            Math.min(MAX_RESCHEDULE_DELAY, pendingReply.rescheduleDelay * 2);
+                    pendingReply.nextAttemptTime = System.nanoTime() + pendingReply.rescheduleDelay;
+                    delayedReplies.add(pendingReply);
+                    return;
             }
         } catch (Exception e) {
             log.error(NET, "Error while executing server replay.", e);
         }
+        statistics.reportExecutedReply(reply.getClass(), System.nanoTime() - pendingReply.scheduleTime);
+        ReplyFactory.getInstance().releaseReply(reply);
     }
 
     /**
-     * Shutdown the sender.
+     * Shutdown the executor. Replies that were not executed yet are discarded.
      */
     @Nonnull
     public Future<Boolean> saveShutdown() {
-        executorService.shutdown();
+        running = false;
+        LockSupport.unpark(executorThread);
 
         return new Future<Boolean>() {
             @Override
@@ -94,7 +345,7 @@ final class MessageExecutor {
 
             @Override
             public boolean isDone() {
-                return executorService.isTerminated();
+                return terminated.getCount() == 0;
             }
 
             @Override
@@ -111,7 +362,7 @@ final class MessageExecutor {
             @Nonnull
             public Boolean get(long timeout, @Nonnull TimeUnit unit)
                     throws InterruptedException, ExecutionException, TimeoutException {
-                return executorService.awaitTermination(timeout, unit);
+                return terminated.await(timeout, unit);
             }
         };
     }
@@ -27,12 +27,17 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.*;
@@ -78,9 +83,45 @@ public final class NetComm {
      */
     private static final int THREAD_WAIT_TIME = 100;
 
+    /**
+     * The time in milliseconds between two checks if a keep alive command needs to be send.
+     */
+    private static final long KEEP_ALIVE_INTERVAL = 500;
+
+    /**
+     * The maximal time in milliseconds between two keep alive commands. Within this time, keep alive commands are
+     * skipped in case other commands were send. Once it passed, the keep alive command is send regardless to keep
+     * the measurement of the connection performance up to date.
+     */
+    private static final long MAX_KEEP_ALIVE_INTERVAL = 5000;
+
+    /**
+     * The key of the configuration entry that selects if the connection is operated in non-blocking mode. In this
+     * mode the receiver waits for incoming data using a selector.
+     */
+    @Nonnull
+    public static final String CFG_SELECTOR_RECEIVE = "netSelectorReceive";
+
+    /**
+     * The name the statistics of the network interface are registered with at the platform MBean server.
+     */
+    @Nonnull
+    private static final String STATISTICS_MBEAN_NAME = "illarion.client:type=NetCommStatistics";
+
+    /**
+     * The statistics of the network interface.
+     */
+    @Nonnull
+    private final NetCommStatistics statistics = new NetCommStatistics();
+
     @Nonnull
     private final ScheduledExecutorService keepAliveExecutor;
 
+    /**
+     * The time in milliseconds when the last keep alive command was send.
+     */
+    private long lastKeepAlive;
+
     /**
      * The receiver that accepts and decodes data that was received from the server.
      */
@@ -100,6 +141,13 @@ public final class NetComm {
     @Nullable
     private Sender sender;
 
+    /**
+     * The capture the received network traffic is written to. This is only set in case the system property
+     * {@value PacketCapture#CAPTURE_PROPERTY} names the file to write.
+     */
+    @Nullable
+    private PacketCaptureWriter capture;
+
     /**
      * Communication socket to the Illarion server.
      */
@@ -219,18 +267,38 @@ public final class NetComm {
                 }
             }
 
-            sender = new Sender(socket);
-            messageHandler = new MessageExecutor();
-            inputThread = new Receiver(messageHandler, socket);
+            if (IllaClient.getCfg().getBoolean(CFG_SELECTOR_RECEIVE)) {
+                socket.configureBlocking(false);
+            }
+
+            String captureFile = System.getProperty(PacketCapture.CAPTURE_PROPERTY);
+            if (captureFile != null) {
+                capture = new PacketCaptureWriter(Paths.get(captureFile));
+            }
+
+            sender = new Sender(socket, statistics);
+            messageHandler = new MessageExecutor(statistics);
+            inputThread = new Receiver(messageHandler, socket, statistics, capture);
             inputThread.setUncaughtExceptionHandler(NetCommCrashHandler.getInstance());
             inputThread.start();
+            registerStatistics();
 
             keepAliveExecutor.scheduleAtFixedRate(() -> {
                 if (ConnectionPerformanceClock.isReadyForNewPing()) {
+                    Sender currentSender = sender;
+                    long now = System.currentTimeMillis();
+                    if ((currentSender != null) &&
+                            (currentSender.getTimeSinceLastWrite(TimeUnit.MILLISECONDS) < KEEP_ALIVE_INTERVAL) &&
+                            ((now - lastKeepAlive) < MAX_KEEP_ALIVE_INTERVAL)) {
+                        // other commands just went out, the connection is known to be alive
+                        statistics.reportSkippedKeepAlive();
+                        return;
+                    }
+                    lastKeepAlive = now;
                     ConnectionPerformanceClock.notifySendToNetComm();
                     sendCommand(new KeepAliveCmd());
                 }
-            }, 500, 500, TimeUnit.MILLISECONDS);
+            }, KEEP_ALIVE_INTERVAL, KEEP_ALIVE_INTERVAL, TimeUnit.MILLISECONDS);
         } catch (@Nonnull IOException e) {
             log.error("Connection error");
             return false;
@@ -244,6 +312,7 @@ public final class NetComm {
      */
     public void disconnect() {
         setLoginDone(false);
+        unregisterStatistics();
         try {
             Collection<Future<?>> terminationFutures = new ArrayList<>();
 
@@ -292,11 +361,57 @@ public final class NetComm {
                 socket.close();
                 socket = null;
             }
+
+            if (capture != null) {
+                capture.close();
+                capture = null;
+            }
         } catch (@Nonnull IOException e) {
             log.warn("Disconnecting failed.", e);
         }
     }
 
+    /**
+     * Publish the statistics of the network interface at the platform MBean server, so they can be monitored with
+     * any JMX client.
+     */
+    private void registerStatistics() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(STATISTICS_MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(statistics, name);
+            }
+        } catch (@Nonnull JMException e) {
+            log.warn("Failed to publish the network statistics.", e);
+        }
+    }
+
+    /**
+     * Remove the statistics of the network interface from the platform MBean server.
+     */
+    private static void unregisterStatistics() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(STATISTICS_MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (@Nonnull JMException e) {
+            log.warn("Failed to remove the network statistics.", e);
+        }
+    }
+
+    /**
+     * Get the statistics of the network interface.
+     *
+     * @return the statistics
+     */
+    @Nonnull
+    public NetCommStatistics getStatistics() {
+        return statistics;
+    }
+
     private boolean loginDone;
 
     public void setLoginDone(boolean done) {
@@ -0,0 +1,560 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+import illarion.client.net.client.AbstractCommand;
+import illarion.client.net.server.ServerReply;
+import illarion.client.util.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects the counters of the network interface. The counters are updated by the network threads and
+ * can be read from any other thread. The rates are calculated over the time since the last time they were sampled,
+ * but at most once per second.
+ * <p>
+ * Next to the counters the latency of the network interface is recorded in histograms. The round trip time is
+ * measured from writing a command that expects a response until the response is decoded. The decode time and the
+ * time the replies wait in the queue of the executor are stored by the class of the reply. Comparing those values
+ * tells if a delay is caused by the server, the connection or the client.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@ThreadSafe
+public final class NetCommStatistics implements NetCommStatisticsMBean {
+    /**
+     * The minimal time in nanoseconds between two samples of the rates.
+     */
+    private static final long SAMPLE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The maximal amount of commands that wait for the same response. Older commands are dropped once this limit is
+     * exceeded, as the server apparently did not answer them.
+     */
+    private static final int MAX_PENDING_REQUESTS = 32;
+
+    /**
+     * The time after that a command waiting for its response is considered to be unanswered.
+     */
+    private static final long RESPONSE_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * A command that was send and waits for its response.
+     */
+    private static final class PendingRequest {
+        /**
+         * The class of the command.
+         */
+        @Nonnull
+        private final Class<? extends AbstractCommand> commandClass;
+
+        /**
+         * The time the command was send.
+         */
+        private final long sendTime;
+
+        PendingRequest(@Nonnull Class<? extends AbstractCommand> commandClass, long sendTime) {
+            this.commandClass = commandClass;
+            this.sendTime = sendTime;
+        }
+    }
+
+    /**
+     * The commands waiting for a response, stored by the ID of the expected response.
+     */
+    private static final class PendingRequests {
+        @Nonnull
+        private final Queue<PendingRequest> requests = new ConcurrentLinkedQueue<>();
+        @Nonnull
+        private final AtomicInteger size = new AtomicInteger();
+
+        void offer(@Nonnull PendingRequest request) {
+            requests.offer(request);
+            if (size.incrementAndGet() > MAX_PENDING_REQUESTS) {
+                poll();
+            }
+        }
+
+        @Nullable
+        PendingRequest poll() {
+            @Nullable PendingRequest request = requests.poll();
+            if (request != null) {
+                size.decrementAndGet();
+            }
+            return request;
+        }
+    }
+
+    /**
+     * The total amount of bytes that were received.
+     */
+    private final LongAdder receivedBytes = new LongAdder();
+
+    /**
+     * The total amount of messages that were received and decoded.
+     */
+    private final LongAdder receivedMessages = new LongAdder();
+
+    /**
+     * The amount of times the receiver thread woke up to handle data from the channel.
+     */
+    private final LongAdder wakeUps = new LongAdder();
+
+    /**
+     * The amount of replies that were discarded because a newer reply replaced them.
+     */
+    private final LongAdder coalescedReplies = new LongAdder();
+
+    /**
+     * The amount of replies that finished their execution.
+     */
+    private final LongAdder executedReplies = new LongAdder();
+
+    /**
+     * The total amount of bytes that were send.
+     */
+    private final LongAdder sentBytes = new LongAdder();
+
+    /**
+     * The total amount of commands that were send.
+     */
+    private final LongAdder sentCommands = new LongAdder();
+
+    /**
+     * The amount of write operations used to send the commands.
+     */
+    private final LongAdder writes = new LongAdder();
+
+    /**
+     * The amount of keep alive commands that were not send because other commands were send recently.
+     */
+    private final LongAdder skippedKeepAlives = new LongAdder();
+
+    /**
+     * The time between receiving and executing a reply, stored by the class of the reply.
+     */
+    @Nonnull
+    private final Map<Class<? extends ServerReply>, LatencyHistogram> executionLatency = new ConcurrentHashMap<>();
+
+    /**
+     * The time required to execute a reply, stored by the class of the reply.
+     */
+    @Nonnull
+    private final Map<Class<? extends ServerReply>, LatencyHistogram> executionTime = new ConcurrentHashMap<>();
+
+    /**
+     * The time required to decode a reply, stored by the class of the reply.
+     */
+    @Nonnull
+    private final Map<Class<? extends ServerReply>, LatencyHistogram> decodeTime = new ConcurrentHashMap<>();
+
+    /**
+     * The time between receiving a reply and the start of its execution, stored by the class of the reply.
+     */
+    @Nonnull
+    private final Map<Class<? extends ServerReply>, LatencyHistogram> queueWait = new ConcurrentHashMap<>();
+
+    /**
+     * The time between sending a command and receiving its response, stored by the class of the command.
+     */
+    @Nonnull
+    private final Map<Class<? extends AbstractCommand>, LatencyHistogram> roundTripTime = new ConcurrentHashMap<>();
+
+    /**
+     * The commands that wait for their response, stored by the ID of the response.
+     */
+    @Nonnull
+    private final Map<Integer, PendingRequests> pendingRequests = new ConcurrentHashMap<>();
+
+    private long lastSampleTime;
+    private long lastReceivedBytes;
+    private long lastReceivedMessages;
+    private long lastWakeUps;
+    private long lastSentBytes;
+    private long lastSentCommands;
+
+    private volatile double receivedBytesPerSecond;
+    private volatile double receivedMessagesPerSecond;
+    private volatile double wakeUpsPerSecond;
+    private volatile double sentBytesPerSecond;
+    private volatile double sentCommandsPerSecond;
+
+    NetCommStatistics() {
+        lastSampleTime = System.nanoTime();
+    }
+
+    /**
+     * Report that data was received from the server.
+     *
+     * @param bytes the amount of bytes received
+     */
+    void reportReceivedBytes(int bytes) {
+        if (bytes > 0) {
+            receivedBytes.add(bytes);
+        }
+    }
+
+    /**
+     * Report that a complete message was received and decoded.
+     */
+    void reportReceivedMessage() {
+        receivedMessages.increment();
+    }
+
+    /**
+     * Report that the receiver thread woke up to check the connection for new data.
+     */
+    void reportWakeUp() {
+        wakeUps.increment();
+    }
+
+    /**
+     * Report that a reply was discarded because a newer reply replaced it.
+     */
+    void reportCoalescedReply() {
+        coalescedReplies.increment();
+    }
+
+    /**
+     * Report that data was written to the server.
+     *
+     * @param bytes the amount of bytes written
+     * @param commands the amount of commands contained in the data
+     */
+    void reportSentData(int bytes, int commands) {
+        sentBytes.add(bytes);
+        sentCommands.add(commands);
+        writes.increment();
+    }
+
+    /**
+     * Report that a keep alive command was skipped because other commands were send recently.
+     */
+    void reportSkippedKeepAlive() {
+        skippedKeepAlives.increment();
+    }
+
+    /**
+     * Report that a reply was executed.
+     *
+     * @param replyClass the class of the reply
+     * @param latency the time between receiving and executing the reply in nanoseconds
+     */
+    void reportExecutedReply(@Nonnull Class<? extends ServerReply> replyClass, long latency) {
+        executionLatency.computeIfAbsent(replyClass, k -> new LatencyHistogram()).record(latency);
+        executedReplies.increment();
+    }
+
+    /**
+     * Report the time a single execution attempt of a reply took.
+     *
+     * @param replyClass the class of the reply
+     * @param time the time spent executing the reply in nanoseconds
+     */
+    void reportExecutionTime(@Nonnull Class<? extends ServerReply> replyClass, long time) {
+        executionTime.computeIfAbsent(replyClass, k -> new LatencyHistogram()).record(time);
+    }
+
+    /**
+     * Report that a reply was decoded.
+     *
+     * @param replyClass the class of the reply
+     * @param time the time required to decode the reply in nanoseconds
+     */
+    void reportDecodedReply(@Nonnull Class<? extends ServerReply> replyClass, long time) {
+        decodeTime.computeIfAbsent(replyClass, k -> new LatencyHistogram()).record(time);
+    }
+
+    /**
+     * Report that the executor started the execution of a reply for the first time.
+     *
+     * @param replyClass the class of the reply
+     * @param time the time the reply waited in the queue of the executor in nanoseconds
+     */
+    void reportQueueWait(@Nonnull Class<? extends ServerReply> replyClass, long time) {
+        queueWait.computeIfAbsent(replyClass, k -> new LatencyHistogram()).record(time);
+    }
+
+    /**
+     * Report that a command was written to the server. In case the command expects a response, the time is stored
+     * until the response arrives.
+     *
+     * @param command the command
+     * @param sendTime the time the command was written in nanoseconds
+     */
+    void reportSentCommand(@Nonnull AbstractCommand command, long sendTime) {
+        int responseId = command.getResponseId();
+        if (responseId == AbstractCommand.NO_RESPONSE) {
+            return;
+        }
+        pendingRequests.computeIfAbsent(responseId, k -> new PendingRequests())
+                .offer(new PendingRequest(command.getClass(), sendTime));
+    }
+
+    /**
+     * Check if any command of this client is waiting for a reply with the specified ID.
+     *
+     * @param replyId the ID of the reply
+     * @return {@code true} in case the reply may be the response to a command
+     */
+    boolean isAwaitingResponse(int replyId) {
+        @Nullable PendingRequests requests = pendingRequests.get(replyId);
+        return (requests != null) && (requests.size.get() > 0);
+    }
+
+    /**
+     * Report that a response to a command of this client was received. The response is matched with the oldest
+     * command waiting for it.
+     *
+     * @param replyId the ID of the reply
+     * @param receiveTime the time the response was decoded in nanoseconds
+     */
+    void reportResponse(int replyId, long receiveTime) {
+        @Nullable PendingRequests requests = pendingRequests.get(replyId);
+        if (requests == null) {
+            return;
+        }
+        while (true) {
+            @Nullable PendingRequest request = requests.poll();
+            if (request == null) {
+                return;
+            }
+            long time = receiveTime - request.sendTime;
+            if (time < RESPONSE_TIMEOUT) {
+                roundTripTime.computeIfAbsent(request.commandClass, k -> new LatencyHistogram()).record(time);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    @Override
+    public long getReceivedMessages() {
+        return receivedMessages.sum();
+    }
+
+    @Override
+    public long getWakeUps() {
+        return wakeUps.sum();
+    }
+
+    @Override
+    public long getCoalescedReplies() {
+        return coalescedReplies.sum();
+    }
+
+    @Override
+    public long getExecutedReplies() {
+        return executedReplies.sum();
+    }
+
+    @Override
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
+
+    @Override
+    public long getSentCommands() {
+        return sentCommands.sum();
+    }
+
+    @Override
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    @Override
+    public long getSkippedKeepAlives() {
+        return skippedKeepAlives.sum();
+    }
+
+    /**
+     * Get the histograms of the time between receiving and executing the replies.
+     *
+     * @return the histograms stored by the class of the reply
+     */
+    @Nonnull
+    public Map<Class<? extends ServerReply>, LatencyHistogram> getExecutionLatency() {
+        return Collections.unmodifiableMap(executionLatency);
+    }
+
+    /**
+     * Get the histograms of the time required to execute the replies.
+     *
+     * @return the histograms stored by the class of the reply
+     */
+    @Nonnull
+    public Map<Class<? extends ServerReply>, LatencyHistogram> getExecutionTime() {
+        return Collections.unmodifiableMap(executionTime);
+    }
+
+    /**
+     * Get the histograms of the time required to decode the replies.
+     *
+     * @return the histograms stored by the class of the reply
+     */
+    @Nonnull
+    public Map<Class<? extends ServerReply>, LatencyHistogram> getDecodeTime() {
+        return Collections.unmodifiableMap(decodeTime);
+    }
+
+    /**
+     * Get the histograms of the time the replies waited in the queue of the executor.
+     *
+     * @return the histograms stored by the class of the reply
+     */
+    @Nonnull
+    public Map<Class<? extends ServerReply>, LatencyHistogram> getQueueWait() {
+        return Collections.unmodifiableMap(queueWait);
+    }
+
+    /**
+     * Get the histograms of the time between sending a command and receiving its response.
+     *
+     * @return the histograms stored by the class of the command
+     */
+    @Nonnull
+    public Map<Class<? extends AbstractCommand>, LatencyHistogram> getRoundTripTime() {
+        return Collections.unmodifiableMap(roundTripTime);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getRoundTripTimeSummary() {
+        return summarize(roundTripTime);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getDecodeTimeSummary() {
+        return summarize(decodeTime);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getQueueWaitSummary() {
+        return summarize(queueWait);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getExecutionLatencySummary() {
+        return summarize(executionLatency);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getExecutionTimeSummary() {
+        return summarize(executionTime);
+    }
+
+    @Nonnull
+    private static String[] summarize(@Nonnull Map<? extends Class<?>, LatencyHistogram> histograms) {
+        return histograms.entrySet().stream()
+                .map(e -> e.getKey().getSimpleName() + ": " + e.getValue())
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void resetHistograms() {
+        executionLatency.values().forEach(LatencyHistogram::reset);
+        executionTime.values().forEach(LatencyHistogram::reset);
+        decodeTime.values().forEach(LatencyHistogram::reset);
+        queueWait.values().forEach(LatencyHistogram::reset);
+        roundTripTime.values().forEach(LatencyHistogram::reset);
+    }
+
+    @Override
+    public double getReceivedBytesPerSecond() {
+        sample();
+        return receivedBytesPerSecond;
+    }
+
+    @Override
+    public double getReceivedMessagesPerSecond() {
+        sample();
+        return receivedMessagesPerSecond;
+    }
+
+    @Override
+    public double getWakeUpsPerSecond() {
+        sample();
+        return wakeUpsPerSecond;
+    }
+
+    @Override
+    public double getSentBytesPerSecond() {
+        sample();
+        return sentBytesPerSecond;
+    }
+
+    @Override
+    public double getSentCommandsPerSecond() {
+        sample();
+        return sentCommandsPerSecond;
+    }
+
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleTime;
+        if (elapsed < SAMPLE_INTERVAL) {
+            return;
+        }
+        double elapsedSeconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+
+        long currentBytes = receivedBytes.sum();
+        long currentMessages = receivedMessages.sum();
+        long currentWakeUps = wakeUps.sum();
+        long currentSentBytes = sentBytes.sum();
+        long currentSentCommands = sentCommands.sum();
+
+        receivedBytesPerSecond = (currentBytes - lastReceivedBytes) / elapsedSeconds;
+        receivedMessagesPerSecond = (currentMessages - lastReceivedMessages) / elapsedSeconds;
+        wakeUpsPerSecond = (currentWakeUps - lastWakeUps) / elapsedSeconds;
+        sentBytesPerSecond = (currentSentBytes - lastSentBytes) / elapsedSeconds;
+        sentCommandsPerSecond = (currentSentCommands - lastSentCommands) / elapsedSeconds;
+
+        lastReceivedBytes = currentBytes;
+        lastReceivedMessages = currentMessages;
+        lastWakeUps = currentWakeUps;
+        lastSentBytes = currentSentBytes;
+        lastSentCommands = currentSentCommands;
+        lastSampleTime = now;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("in: %.0f B/s, %.1f msg/s, %.1f wake-ups/s; out: %.0f B/s, %d cmds in %d writes",
+                             getReceivedBytesPerSecond(), getReceivedMessagesPerSecond(), getWakeUpsPerSecond(),
+                             getSentBytesPerSecond(), getSentCommands(), getWrites());
+    }
+}
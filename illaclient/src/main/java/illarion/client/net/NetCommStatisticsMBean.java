@@ -0,0 +1,99 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The management interface of the network statistics. It exposes the counters, rates and latency histograms of the
+ * network interface to JMX clients such as JConsole or VisualVM.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public interface NetCommStatisticsMBean {
+    long getReceivedBytes();
+
+    long getReceivedMessages();
+
+    long getWakeUps();
+
+    long getCoalescedReplies();
+
+    long getExecutedReplies();
+
+    long getSentBytes();
+
+    long getSentCommands();
+
+    long getWrites();
+
+    long getSkippedKeepAlives();
+
+    double getReceivedBytesPerSecond();
+
+    double getReceivedMessagesPerSecond();
+
+    double getWakeUpsPerSecond();
+
+    double getSentBytesPerSecond();
+
+    double getSentCommandsPerSecond();
+
+    /**
+     * Get the time between sending a command and receiving the response to it.
+     *
+     * @return one line per command class
+     */
+    @Nonnull
+    String[] getRoundTripTimeSummary();
+
+    /**
+     * Get the time required to decode the replies.
+     *
+     * @return one line per reply class
+     */
+    @Nonnull
+    String[] getDecodeTimeSummary();
+
+    /**
+     * Get the time the replies wait in the queue of the executor before their execution starts.
+     *
+     * @return one line per reply class
+     */
+    @Nonnull
+    String[] getQueueWaitSummary();
+
+    /**
+     * Get the time between receiving and finishing the execution of the replies.
+     *
+     * @return one line per reply class
+     */
+    @Nonnull
+    String[] getExecutionLatencySummary();
+
+    /**
+     * Get the time a single execution attempt of the replies takes.
+     *
+     * @return one line per reply class
+     */
+    @Nonnull
+    String[] getExecutionTimeSummary();
+
+    /**
+     * Clear all latency histograms.
+     */
+    void resetHistograms();
+}
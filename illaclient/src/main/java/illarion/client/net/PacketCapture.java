@@ -0,0 +1,66 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+/**
+ * The constants of the binary packet capture format. A capture starts with a header that contains the
+ * {@link #MAGIC} value, the {@link #VERSION} of the format and the wall clock time in milliseconds the capture
+ * started at. The header is followed by one record for every block of data that was read from the server:
+ * <ul>
+ * <li>the direction of the data, {@link #RECEIVED} (1 byte)</li>
+ * <li>the time in nanoseconds since the start of the capture (8 bytes)</li>
+ * <li>the length of the data (4 bytes)</li>
+ * <li>the data exactly as it was transferred</li>
+ * </ul>
+ * All values are stored in big endian byte order. The data written to the server is not captured, because it
+ * contains the login credentials of the player.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+final class PacketCapture {
+    /**
+     * The value the capture files start with.
+     */
+    static final int MAGIC = 0x494C4350;
+
+    /**
+     * The version of the capture format.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * The size of the file header in bytes.
+     */
+    static final int FILE_HEADER_SIZE = 14;
+
+    /**
+     * The size of the header of each record in bytes.
+     */
+    static final int RECORD_HEADER_SIZE = 13;
+
+    /**
+     * The direction of data that was received from the server.
+     */
+    static final byte RECEIVED = 0;
+
+    /**
+     * The name of the system property that holds the file the traffic of the connection is captured to.
+     */
+    static final String CAPTURE_PROPERTY = "illarion.net.capture";
+
+    private PacketCapture() {
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class reads the records of a capture file created by {@link PacketCaptureWriter}.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@NotThreadSafe
+final class PacketCaptureReader implements Closeable {
+    /**
+     * A single block of data stored in the capture.
+     */
+    static final class Record {
+        private final byte direction;
+        private final long time;
+        @Nonnull
+        private final byte[] data;
+
+        Record(byte direction, long time, @Nonnull byte[] data) {
+            this.direction = direction;
+            this.time = time;
+            this.data = data;
+        }
+
+        /**
+         * Get the direction of the data.
+         *
+         * @return the direction, {@link PacketCapture#RECEIVED} for the data read from the server
+         */
+        byte getDirection() {
+            return direction;
+        }
+
+        /**
+         * Get the time the data was transferred.
+         *
+         * @return the time in nanoseconds since the start of the capture
+         */
+        long getTime() {
+            return time;
+        }
+
+        @Nonnull
+        byte[] getData() {
+            return data;
+        }
+    }
+
+    @Nonnull
+    private final DataInputStream in;
+
+    /**
+     * The wall clock time in milliseconds the capture was started at.
+     */
+    private final long captureStart;
+
+    /**
+     * Open a capture file and read its header.
+     *
+     * @param file the capture file
+     * @throws IOException in case reading the file fails or the file is not a capture
+     */
+    PacketCaptureReader(@Nonnull Path file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            if (in.readInt() != PacketCapture.MAGIC) {
+                throw new IOException(file + " is not a network capture.");
+            }
+            short version = in.readShort();
+            if (version != PacketCapture.VERSION) {
+                throw new IOException("Unsupported version of the network capture: " + version);
+            }
+            captureStart = in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    long getCaptureStart() {
+        return captureStart;
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return the record or {@code null} in case the end of the capture is reached
+     * @throws IOException in case reading the record fails
+     */
+    @Nullable
+    Record next() throws IOException {
+        byte direction;
+        try {
+            direction = in.readByte();
+        } catch (EOFException e) {
+            return null;
+        }
+        long time = in.readLong();
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid record length: " + length);
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return new Record(direction, time, data);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+import illarion.client.net.server.ServerReply;
+import illarion.client.util.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class replays the data received from the server that was stored in a capture file. The data is fed into the
+ * same receiver that handles the connection to the server, so the decoding and the execution of the replies can be
+ * measured without a server.
+ * <p>
+ * The data is replayed either as fast as possible or with the timing it was recorded with. By default the replies
+ * are only decoded. In case the execution is enabled, the replies are handed over to the message executor and
+ * executed against the current state of the {@link illarion.client.world.World}. The world needs to be initialized
+ * for this.
+ * </p>
+ * <p>
+ * A capture is created by starting the client with the system property {@value PacketCapture#CAPTURE_PROPERTY}
+ * set to the file that is supposed to store the capture.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public final class PacketCaptureReplay {
+    @Nonnull
+    private static final Logger log = LoggerFactory.getLogger(PacketCaptureReplay.class);
+
+    /**
+     * The maximal time the replay waits for the executor to finish the replies without any progress.
+     */
+    private static final long EXECUTION_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * The result of a replay.
+     */
+    public static final class Report {
+        private final long messages;
+        private final long bytes;
+        private final long duration;
+        private final long allocatedBytes;
+        @Nonnull
+        private final NetCommStatistics statistics;
+
+        Report(long messages, long bytes, long duration, long allocatedBytes,
+               @Nonnull NetCommStatistics statistics) {
+            this.messages = messages;
+            this.bytes = bytes;
+            this.duration = duration;
+            this.allocatedBytes = allocatedBytes;
+            this.statistics = statistics;
+        }
+
+        /**
+         * Get the amount of replies that were decoded.
+         *
+         * @return the amount of replies
+         */
+        public long getMessages() {
+            return messages;
+        }
+
+        /**
+         * Get the amount of bytes that were replayed.
+         *
+         * @return the amount of bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Get the time the replay took.
+         *
+         * @param unit the unit of the returned time
+         * @return the duration of the replay
+         */
+        public long getDuration(@Nonnull TimeUnit unit) {
+            return unit.convert(duration, TimeUnit.NANOSECONDS);
+        }
+
+        public double getMessagesPerSecond() {
+            return messages / toSeconds(duration);
+        }
+
+        /**
+         * Get the amount of memory allocated by all threads during the replay.
+         *
+         * @return the allocated bytes or {@code -1} in case the virtual machine does not support measuring the
+         * allocations
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public double getAllocatedBytesPerSecond() {
+            return (allocatedBytes < 0) ? -1.0 : (allocatedBytes / toSeconds(duration));
+        }
+
+        /**
+         * Get the statistics recorded during the replay. Those contain the decode and the execution time of each
+         * type of reply.
+         *
+         * @return the statistics
+         */
+        @Nonnull
+        public NetCommStatistics getStatistics() {
+            return statistics;
+        }
+
+        private static double toSeconds(long nanos) {
+            return Math.max(1L, nanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("Replayed %d messages (%d bytes) in %d ms: %.0f msg/s%n", messages, bytes,
+                                         getDuration(TimeUnit.MILLISECONDS), getMessagesPerSecond()));
+            if (allocatedBytes >= 0) {
+                builder.append(String.format("Allocated %d bytes: %.0f bytes/s%n", allocatedBytes,
+                                             getAllocatedBytesPerSecond()));
+            }
+            appendHistograms(builder, "Decode time", statistics.getDecodeTime());
+            appendHistograms(builder, "Execution time", statistics.getExecutionTime());
+            return builder.toString();
+        }
+
+        private static void appendHistograms(@Nonnull StringBuilder builder, @Nonnull String title,
+                                             @Nonnull Map<Class<? extends ServerReply>, LatencyHistogram> data) {
+            if (data.isEmpty()) {
+                return;
+            }
+            builder.append(title).append(':').append(System.lineSeparator());
+            data.entrySet().stream()
+                    .sorted((e1, e2) -> e1.getKey().getSimpleName().compareTo(e2.getKey().getSimpleName()))
+                    .forEach(e -> builder.append("  ").append(e.getKey().getSimpleName()).append(": ")
+                            .append(e.getValue()).append(System.lineSeparator()));
+        }
+    }
+
+    /**
+     * The channel that provides the recorded data to the receiver. Once all data is read, the channel blocks until
+     * the receiver is shut down.
+     */
+    private static final class ReplayChannel implements ReadableByteChannel {
+        @Nonnull
+        private final List<PacketCaptureReader.Record> records;
+        private final boolean realTime;
+        @Nonnull
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private int nextRecord;
+        @Nullable
+        private ByteBuffer current;
+        private long replayStart;
+        private volatile boolean open = true;
+
+        ReplayChannel(@Nonnull List<PacketCaptureReader.Record> records, boolean realTime) {
+            this.records = records;
+            this.realTime = realTime;
+        }
+
+        @Override
+        public int read(@Nonnull ByteBuffer dst) throws IOException {
+            if (!open) {
+                return -1;
+            }
+            ByteBuffer data = current;
+            if ((data == null) || !data.hasRemaining()) {
+                if (nextRecord >= records.size()) {
+                    finished.countDown();
+                    // the replay is done, wait for the receiver to shut down
+                    while (open && !Thread.currentThread().isInterrupted()) {
+                        LockSupport.park(this);
+                    }
+                    return 0;
+                }
+                PacketCaptureReader.Record record = records.get(nextRecord++);
+                if (realTime) {
+                    waitForRecord(record);
+                }
+                data = ByteBuffer.wrap(record.getData());
+                current = data;
+            }
+            int length = Math.min(dst.remaining(), data.remaining());
+            ByteBuffer slice = data.duplicate();
+            slice.limit(slice.position() + length);
+            dst.put(slice);
+            data.position(data.position() + length);
+            return length;
+        }
+
+        private void waitForRecord(@Nonnull PacketCaptureReader.Record record) {
+            if (replayStart == 0) {
+                replayStart = System.nanoTime() - record.getTime();
+            }
+            long dueTime = replayStart + record.getTime();
+            long waitTime;
+            while ((waitTime = dueTime - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, waitTime);
+            }
+        }
+
+        void awaitFinished(@Nonnull Thread receiver) throws IOException, InterruptedException {
+            while (!finished.await(100, TimeUnit.MILLISECONDS)) {
+                if (!receiver.isAlive()) {
+                    throw new IOException("The receiver stopped before the end of the capture.");
+                }
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    /**
+     * The handler that discards the replies right after they were decoded.
+     */
+    private static final class DiscardingHandler implements ReplyHandler {
+        @Override
+        public void scheduleReplyExecution(@Nonnull ServerReply reply) {
+            ReplyFactory.getInstance().releaseReply(reply);
+        }
+    }
+
+    @Nonnull
+    private final Path captureFile;
+    private boolean realTime;
+    private boolean executeReplies;
+
+    /**
+     * Create a new replay of a capture file.
+     *
+     * @param captureFile the capture file
+     */
+    public PacketCaptureReplay(@Nonnull Path captureFile) {
+        this.captureFile = captureFile;
+    }
+
+    /**
+     * Set if the data is replayed with the timing it was recorded with. Otherwise the data is replayed as fast as
+     * possible.
+     *
+     * @param realTime {@code true} to replay the data with the recorded timing
+     */
+    public void setRealTime(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    /**
+     * Set if the replies are executed after they were decoded.
+     *
+     * @param executeReplies {@code true} to execute the replies
+     */
+    public void setExecuteReplies(boolean executeReplies) {
+        this.executeReplies = executeReplies;
+    }
+
+    /**
+     * Replay the capture.
+     *
+     * @return the report of the replay
+     * @throws IOException in case reading the capture fails
+     * @throws InterruptedException in case the thread is interrupted while waiting for the replay to finish
+     */
+    @Nonnull
+    public Report replay() throws IOException, InterruptedException {
+        List<PacketCaptureReader.Record> records = readReceivedData();
+        long bytes = 0;
+        for (PacketCaptureReader.Record record : records) {
+            bytes += record.getData().length;
+        }
+
+        NetCommStatistics statistics = new NetCommStatistics();
+        MessageExecutor executor = executeReplies ? new MessageExecutor(statistics) : null;
+        ReplayChannel channel = new ReplayChannel(records, realTime);
+        Receiver receiver = new Receiver((executor == null) ? new DiscardingHandler() : executor, channel,
+                                         statistics, null);
+
+        long allocationStart = getAllocatedBytes();
+        long start = System.nanoTime();
+        long end;
+        long allocationEnd;
+        receiver.start();
+        try {
+            channel.awaitFinished(receiver);
+            if (executor != null) {
+                awaitExecution(statistics);
+            }
+            end = System.nanoTime();
+            allocationEnd = getAllocatedBytes();
+        } finally {
+            receiver.saveShutdown();
+            receiver.join(TimeUnit.SECONDS.toMillis(1));
+            channel.close();
+            if (executor != null) {
+                executor.saveShutdown();
+            }
+        }
+
+        long allocated = ((allocationStart < 0) || (allocationEnd < 0)) ? -1 : (allocationEnd - allocationStart);
+        return new Report(statistics.getReceivedMessages(), bytes, end - start, allocated, statistics);
+    }
+
+    @Nonnull
+    private List<PacketCaptureReader.Record> readReceivedData() throws IOException {
+        List<PacketCaptureReader.Record> records = new ArrayList<>();
+        try (PacketCaptureReader reader = new PacketCaptureReader(captureFile)) {
+            while (true) {
+                @Nullable PacketCaptureReader.Record record = reader.next();
+                if (record == null) {
+                    break;
+                }
+                if (record.getDirection() == PacketCapture.RECEIVED) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Wait until the executor handled all replies. Replies that keep requesting to be rescheduled would block the
+     * replay forever, so the waiting ends once no reply was handled for {@link #EXECUTION_TIMEOUT}.
+     */
+    private static void awaitExecution(@Nonnull NetCommStatistics statistics) throws InterruptedException {
+        long lastHandled = -1;
+        long lastProgress = System.nanoTime();
+        while (true) {
+            long handled = statistics.getExecutedReplies() + statistics.getCoalescedReplies();
+            if (handled >= statistics.getReceivedMessages()) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (handled != lastHandled) {
+                lastHandled = handled;
+                lastProgress = now;
+            } else if ((now - lastProgress) > EXECUTION_TIMEOUT) {
+                log.warn("{} replies were not executed.", statistics.getReceivedMessages() - handled);
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    /**
+     * Get the amount of memory allocated by all live threads.
+     *
+     * @return the allocated bytes or {@code -1} in case the virtual machine does not support this measurement
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long allocated : allocationBean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Replay a capture file and print the report.
+     * <p>
+     * Usage: {@code PacketCaptureReplay [--realtime] [--execute] <capture file>}
+     * </p>
+     *
+     * @param args the arguments
+     */
+    public static void main(String... args) throws IOException, InterruptedException {
+        @Nullable Path file = null;
+        boolean realTime = false;
+        boolean execute = false;
+        for (String arg : args) {
+            switch (arg) {
+                case "--realtime":
+                    realTime = true;
+                    break;
+                case "--execute":
+                    execute = true;
+                    break;
+                default:
+                    file = Paths.get(arg);
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: PacketCaptureReplay [--realtime] [--execute] <capture file>");
+            System.exit(-1);
+            return;
+        }
+
+        PacketCaptureReplay replay = new PacketCaptureReplay(file);
+        replay.setRealTime(realTime);
+        replay.setExecuteReplies(execute);
+        System.out.print(replay.replay());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes the data received from the server into a capture file. The format of the file is
+ * described in {@link PacketCapture}. The captures can be replayed using {@link PacketCaptureReplay}.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@ThreadSafe
+final class PacketCaptureWriter implements Closeable {
+    @Nonnull
+    private static final Logger log = LoggerFactory.getLogger(PacketCaptureWriter.class);
+
+    /**
+     * The channel to the capture file.
+     */
+    @Nonnull
+    private final FileChannel channel;
+
+    /**
+     * The buffer used to write the header of the records.
+     */
+    @Nonnull
+    private final ByteBuffer header = ByteBuffer.allocate(PacketCapture.RECORD_HEADER_SIZE);
+
+    /**
+     * The value of {@link System#nanoTime()} when the capture started.
+     */
+    private final long startTime;
+
+    /**
+     * This flag is set {@code true} once writing to the file failed. No further data is written in this case.
+     */
+    private boolean failed;
+
+    /**
+     * Create a new capture file. An existing file is replaced.
+     *
+     * @param file the file to write
+     * @throws IOException in case creating the file fails
+     */
+    PacketCaptureWriter(@Nonnull Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        startTime = System.nanoTime();
+
+        ByteBuffer fileHeader = ByteBuffer.allocate(PacketCapture.FILE_HEADER_SIZE);
+        fileHeader.putInt(PacketCapture.MAGIC);
+        fileHeader.putShort(PacketCapture.VERSION);
+        fileHeader.putLong(System.currentTimeMillis());
+        fileHeader.flip();
+        writeFully(fileHeader);
+        log.info("Capturing the network traffic to {}", file);
+    }
+
+    /**
+     * Write a block of data to the capture. The position of the buffer is not changed.
+     *
+     * @param direction the direction of the data, {@link PacketCapture#RECEIVED}
+     * @param data the buffer holding the data between its position and its limit
+     */
+    synchronized void write(byte direction, @Nonnull ByteBuffer data) {
+        if (failed || !data.hasRemaining()) {
+            return;
+        }
+        header.clear();
+        header.put(direction);
+        header.putLong(System.nanoTime() - startTime);
+        header.putInt(data.remaining());
+        header.flip();
+        try {
+            writeFully(header);
+            writeFully(data.duplicate());
+        } catch (IOException e) {
+            log.error("Writing the network capture failed. Capturing stopped.", e);
+            failed = true;
+        }
+    }
+
+    private void writeFully(@Nonnull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
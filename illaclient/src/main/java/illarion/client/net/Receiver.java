@@ -17,6 +17,7 @@ package illarion.client.net;
 
 import illarion.client.IllaClient;
 import illarion.client.net.server.ServerReply;
+import illarion.client.net.server.SharedServerReply;
 import illarion.client.util.Lang;
 import illarion.common.net.NetCommReader;
 import org.slf4j.Logger;
@@ -25,11 +26,17 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.charset.CharsetDecoder;
 
 /**
@@ -42,9 +49,10 @@ import java.nio.charset.CharsetDecoder;
 @NotThreadSafe
 final class Receiver extends Thread implements NetCommReader {
     /**
-     * Length of the byte buffer used to store the data from the server.
+     * Length of the byte buffer used to store the data from the server. The buffer is large enough to receive many
+     * small commands at once, as it is only compacted before new data is read.
      */
-    private static final int INITIAL_BUFFER_SIZE = 1000;
+    private static final int INITIAL_BUFFER_SIZE = 8192;
 
     /**
      * The XOR mask the command ID is masked with to decode the checking ID and ensure that the start of a command
@@ -78,10 +86,26 @@ final class Receiver extends Thread implements NetCommReader {
     @Nonnull
     private final ReadableByteChannel inChannel;
     /**
-     * The list that stores the commands there were decoded and prepared for the NetComm for execution.
+     * The handler that takes the decoded replies and prepares them for execution.
      */
     @Nonnull
-    private final MessageExecutor executor;
+    private final ReplyHandler executor;
+    /**
+     * The selector that is used to wait for incoming data in case the input channel is not blocking. In case the
+     * channel is blocking, this is {@code null} and the receiver is waiting inside the read operation.
+     */
+    @Nullable
+    private final Selector selector;
+    /**
+     * The statistics that are updated with the data received by this receiver.
+     */
+    @Nonnull
+    private final NetCommStatistics statistics;
+    /**
+     * The capture the received data is written to or {@code null} in case the traffic is not captured.
+     */
+    @Nullable
+    private final PacketCaptureWriter capture;
     /**
      * The buffer that stores the byte that we received from the server for decoding.
      */
@@ -103,13 +127,26 @@ final class Receiver extends Thread implements NetCommReader {
      * @param executor the executor that takes care to send the messages to the rest of the client
      * @param in the input stream of the socket connection to the server that contains the data that needs to
      * be decoded
+     * @param statistics the statistics that are updated with the received data
+     * @param capture the capture the received data is written to or {@code null}
+     * @throws IOException in case the selector for a non-blocking channel can't be opened
      */
-    Receiver(@Nonnull MessageExecutor executor, @Nonnull ReadableByteChannel in) {
+    Receiver(@Nonnull ReplyHandler executor, @Nonnull ReadableByteChannel in, @Nonnull NetCommStatistics statistics,
+             @Nullable PacketCaptureWriter capture) throws IOException {
         super("Illarion input thread");
 
         this.executor = executor;
+        this.statistics = statistics;
+        this.capture = capture;
         inChannel = in;
 
+        if ((in instanceof SelectableChannel) && !((SelectableChannel) in).isBlocking()) {
+            selector = Selector.open();
+            ((SelectableChannel) in).register(selector, SelectionKey.OP_READ);
+        } else {
+            selector = null;
+        }
+
         decoder = NetComm.SERVER_STRING_ENCODING.newDecoder();
         setDaemon(true);
     }
@@ -272,22 +309,23 @@ final class Receiver extends Thread implements NetCommReader {
         while (running) {
             try {
                 while (running && receiveData(minRequiredData)) {
+                    ByteBuffer buffer = getBuffer();
                     while (true) {
-                        ByteBuffer buffer = getBuffer();
                         // wait for a complete message header
                         if (buffer.remaining() < CommandList.HEADER_SIZE) {
                             break;
                         }
 
+                        int frameStart = buffer.position();
+
                         // identify command
                         int id = readUByte();
                         int xor = readUByte();
 
                         // valid command id
                         if (id != (xor ^ COMMAND_XOR_MASK)) {
-                            // delete only first byte from buffer, scanning for valid command
-                            buffer.position(1);
-                            buffer.compact();
+                            // skip only the first byte, scanning for valid command
+                            buffer.position(frameStart + 1);
 
                             log.warn("Skipping invalid data [{}]", id);
 
@@ -299,50 +337,36 @@ final class Receiver extends Thread implements NetCommReader {
                         int crc = readUShort();
 
                         // wait for complete data
-                        if (!isDataComplete(len)) {
-                            // scroll the cursor back and wait for more.
-                            buffer.position(0);
-                            minRequiredData = len + CommandList.HEADER_SIZE;
+                        if (!isDataComplete(len, frameStart)) {
+                            // the buffer is empty in case the incomplete frame timed out and got discarded
+                            minRequiredData = buffer.hasRemaining() ? (len + CommandList.HEADER_SIZE) :
+                                    CommandList.HEADER_SIZE;
                             break;
                         }
 
                         minRequiredData = CommandList.HEADER_SIZE;
+                        int frameEnd = buffer.position() + len;
 
                         // check CRC
                         if (crc != NetComm.getCRC(buffer, len)) {
                             int oldLimit = buffer.limit();
-                            buffer.limit(len + CommandList.HEADER_SIZE);
-                            buffer.position(CommandList.HEADER_SIZE);
+                            buffer.limit(frameEnd);
                             NetComm.dump("Invalid CRC ", buffer);
 
-                            buffer.position(1);
                             buffer.limit(oldLimit);
-                            buffer.compact();
-                            buffer.flip();
+                            buffer.position(frameStart + 1);
                             continue;
                         }
 
-                        // decode
+                        // decode the command directly from the receive buffer, limited to the current frame
+                        int oldLimit = buffer.limit();
+                        buffer.limit(frameEnd);
                         try {
-                            ServerReply rpl = ReplyFactory.getInstance().getReply(id);
-                            if (rpl != null) {
-                                rpl.decode(this);
-                                if (id != CommandList.MSG_KEEP_ALIVE) {
-                                    log.debug("REC: {}", rpl);
-                                }
-
-                                // put decoded command in input queue
-                                executor.scheduleReplyExecution(rpl);
-                            } else {
-                                // throw away the command that was incorrectly decoded
-                                buffer.position(len + CommandList.HEADER_SIZE);
-                            }
-                        } catch (@Nonnull IllegalArgumentException ex) {
-                            log.error("Invalid command id received {}", Integer.toHexString(id));
+                            decodeReply(id);
+                        } finally {
+                            buffer.limit(oldLimit);
+                            buffer.position(frameEnd);
                         }
-
-                        buffer.compact();
-                        buffer.flip();
                     }
                 }
             } catch (@Nonnull IOException e) {
@@ -350,17 +374,71 @@ final class Receiver extends Thread implements NetCommReader {
                     log.error("The connection to the server is not working anymore.", e);
                     IllaClient.sendDisconnectEvent(Lang.getMsg("error.receiver"), true);
                     running = false;
-                    return;
                 }
             } catch (@Nonnull Exception e) {
                 if (running) {
                     log.error("General error in the receiver", e);
                     IllaClient.sendDisconnectEvent(Lang.getMsg("error.receiver"), true);
                     running = false;
-                    return;
                 }
             }
         }
+        closeSelector();
+    }
+
+    /**
+     * Decode a single reply from the receive buffer and schedule it for execution. The limit of the buffer has to be
+     * set to the end of the frame of the reply.
+     *
+     * @param id the ID of the reply
+     * @throws IOException in case reading the reply fails
+     */
+    private void decodeReply(int id) throws IOException {
+        ServerReply rpl;
+        try {
+            rpl = ReplyFactory.getInstance().getReply(id);
+        } catch (@Nonnull IllegalArgumentException ex) {
+            log.error("Invalid command id received {}", Integer.toHexString(id));
+            return;
+        }
+        if (rpl == null) {
+            // throw away the command that can't be decoded
+            return;
+        }
+
+        long decodeStart = System.nanoTime();
+        try {
+            rpl.decode(this);
+        } catch (@Nonnull BufferUnderflowException | IndexOutOfBoundsException ex) {
+            // readString reports strings that are longer than the remaining data with a IndexOutOfBoundsException
+            log.error("Reply {} is longer than the received frame. Skipping.", rpl.getClass().getSimpleName());
+            ReplyFactory.getInstance().releaseReply(rpl);
+            return;
+        }
+        long decodeEnd = System.nanoTime();
+        if (id != CommandList.MSG_KEEP_ALIVE) {
+            log.debug("REC: {}", rpl);
+        }
+
+        statistics.reportReceivedMessage();
+        statistics.reportDecodedReply(rpl.getClass(), decodeEnd - decodeStart);
+        if (statistics.isAwaitingResponse(id) &&
+                (!(rpl instanceof SharedServerReply) || ((SharedServerReply) rpl).isResponse())) {
+            statistics.reportResponse(id, decodeEnd);
+        }
+
+        // put decoded command in input queue
+        executor.scheduleReplyExecution(rpl);
+    }
+
+    private void closeSelector() {
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the selector of the receiver.", e);
+            }
+        }
     }
 
     /**
@@ -369,16 +447,21 @@ final class Receiver extends Thread implements NetCommReader {
     public void saveShutdown() {
         log.info("{}: Shutdown requested!", getName());
         running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
         interrupt();
     }
 
     /**
-     * This function checks of the received data contains a complete command.
+     * This function checks of the received data contains a complete command. In case the rest of the command did
+     * not arrive within the {@link #RECEIVER_TIMEOUT}, all data in the buffer is discarded.
      *
      * @param len the amount of bytes that were received for that command
+     * @param frameStart the position in the buffer where the frame of the command starts
      * @return true in case the command is complete, false if not
      */
-    private boolean isDataComplete(int len) {
+    private boolean isDataComplete(int len, int frameStart) {
         ByteBuffer buffer = getBuffer();
         if (len <= buffer.remaining()) {
             timeOut = 0;
@@ -393,10 +476,11 @@ final class Receiver extends Thread implements NetCommReader {
         // timeout exceeded
         if (System.currentTimeMillis() > timeOut) {
             NetComm.dump("Receiver timeout. Skipping ", buffer);
+            timeOut = 0;
             buffer.clear();
             buffer.limit(0);
-        } else { // still waiting
-            buffer.position(0);
+        } else { // still waiting, scroll the cursor back to the start of the frame
+            buffer.position(frameStart);
         }
 
         return false;
@@ -404,6 +488,11 @@ final class Receiver extends Thread implements NetCommReader {
 
     /**
      * Read data from the input stream of the socket and store it in the buffer.
+     * <p>
+     * In case the channel is not blocking, the thread waits on the selector until the channel is ready to be read.
+     * The waiting is interrupted once the {@link #RECEIVER_TIMEOUT} passes, so incomplete commands are discarded
+     * properly even if the server sends nothing anymore.
+     * </p>
      *
      * @param neededDataInBuffer The data that is needed at least before the method has to return in order to parse
      * the values correctly
@@ -414,24 +503,44 @@ final class Receiver extends Thread implements NetCommReader {
         ByteBuffer buffer = getBuffer(neededDataInBuffer);
         int data = buffer.remaining();
 
-        int appPos = buffer.limit();
-        buffer.clear();
-        buffer.position(appPos);
+        // move the remaining data to the start of the buffer, this is the only time the buffer is compacted
+        buffer.compact();
+        int appPos = buffer.position();
 
-        int newData = 0;
-        while (true) {
-            if (inChannel.isOpen()) {
-                newData = inChannel.read(buffer);
+        int receivedData = 0;
+        while (running && (data < neededDataInBuffer)) {
+            if (!inChannel.isOpen()) {
+                throw new ClosedChannelException();
             }
-            data += newData;
-            if (data >= neededDataInBuffer) {
-                break;
+            if (selector != null) {
+                int readyKeys = selector.select(RECEIVER_TIMEOUT);
+                statistics.reportWakeUp();
+                if (readyKeys == 0) {
+                    // timeout or shutdown, hand the current data back for checking
+                    break;
+                }
+                selector.selectedKeys().clear();
+            } else {
+                statistics.reportWakeUp();
+            }
+
+            int newData = inChannel.read(buffer);
+            if (newData < 0) {
+                throw new EOFException("The server closed the connection.");
             }
+            statistics.reportReceivedBytes(newData);
+            receivedData += newData;
+            data += newData;
         }
 
         buffer.flip();
 
-        if ((newData > 0) && NetComm.isDumpingActive()) {
+        if ((receivedData > 0) && (capture != null)) {
+            ByteBuffer receivedBuffer = buffer.duplicate();
+            receivedBuffer.position(appPos);
+            capture.write(PacketCapture.RECEIVED, receivedBuffer);
+        }
+        if ((receivedData > 0) && NetComm.isDumpingActive()) {
             buffer.position(appPos);
             NetComm.dump("rcv <= ", buffer);
             buffer.position(0);
@@ -23,13 +23,17 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * The Factory for commands the server sends to the client. This factory creates the required message objects on
- * demand.
+ * demand. Replies that implement {@link RecyclableServerReply} are pooled and reused once they got released after
+ * their execution.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
@@ -48,17 +52,56 @@ public final class ReplyFactory {
     private static final Logger log = LoggerFactory.getLogger(ReplyFactory.class);
 
     /**
-     * This map stores the message classes along with the IDs of the command encoded in them.
+     * The amount of reply IDs. The IDs are transferred as unsigned byte.
+     */
+    private static final int REPLY_ID_COUNT = 1 << Byte.SIZE;
+
+    /**
+     * The maximal amount of unused instances of a recyclable reply that are stored.
+     */
+    private static final int POOL_SIZE = 64;
+
+    /**
+     * The registered reply types. The index of the array is the ID of the reply.
+     */
+    @Nonnull
+    private final ReplyType[] replyTypes;
+
+    /**
+     * The registered reply types stored by their class. This is used to find the pool of a released reply.
      */
     @Nonnull
-    private final Map<Integer, Class<? extends ServerReply>> replyMap;
+    private final Map<Class<? extends ServerReply>, ReplyType> replyTypesByClass;
+
+    /**
+     * This class stores the information required to create the instances of a single reply type.
+     */
+    private static final class ReplyType {
+        /**
+         * The constructor used to create new instances of the reply.
+         */
+        @Nonnull
+        private final Constructor<? extends ServerReply> constructor;
+
+        /**
+         * The unused instances of this reply or {@code null} in case this reply type is not recyclable.
+         */
+        @Nullable
+        private final BlockingQueue<ServerReply> pool;
+
+        ReplyType(@Nonnull Constructor<? extends ServerReply> constructor, boolean recyclable) {
+            this.constructor = constructor;
+            pool = recyclable ? new ArrayBlockingQueue<>(POOL_SIZE) : null;
+        }
+    }
 
     /**
      * The default constructor of the factory. This registers all commands.
      */
     @SuppressWarnings({"OverlyLongMethod", "OverlyCoupledMethod"})
     private ReplyFactory() {
-        replyMap = new HashMap<>();
+        replyTypes = new ReplyType[REPLY_ID_COUNT];
+        replyTypesByClass = new HashMap<>();
 
         register(AppearanceMsg.class);
         register(AttackMsg.class);
@@ -128,45 +171,80 @@ public final class ReplyFactory {
             return;
         }
 
-        if (replyMap.containsKey(messageData.replyId())) {
+        int id = messageData.replyId();
+        if ((id < 0) || (id >= REPLY_ID_COUNT)) {
+            log.error("Class with invalid key: {}", clazz.getName());
+            return;
+        }
+
+        if (replyTypes[id] != null) {
             log.error("Class with duplicated key: {}", clazz.getName());
             return;
         }
 
-        replyMap.put(messageData.replyId(), clazz);
+        try {
+            ReplyType type = new ReplyType(clazz.getConstructor(),
+                                           RecyclableServerReply.class.isAssignableFrom(clazz));
+            replyTypes[id] = type;
+            replyTypesByClass.put(clazz, type);
+        } catch (NoSuchMethodException e) {
+            log.error("Failed to locate required constructor.", e);
+        }
     }
 
     /**
-     * Get a replay instance. This class will check if there is any reply fitting the ID registered and create a new
-     * instance of it.
+     * Get a replay instance. This class will check if there is any reply fitting the ID registered and either fetch
+     * a unused instance from the pool or create a new instance of it.
      *
      * @param id the ID of the reply
-     * @return the newly created reply instance
+     * @return the reply instance
      */
     @Nullable
-    @Contract(pure = true)
     public ServerReply getReply(int id) {
-        Class<? extends ServerReply> replyClass = replyMap.get(id);
+        ReplyType type = ((id >= 0) && (id < REPLY_ID_COUNT)) ? replyTypes[id] : null;
 
-        if (replyClass == null) {
+        if (type == null) {
             log.error("Illegal reply requested. ID: 0x{}", Integer.toHexString(id));
             return null;
         }
 
+        if (type.pool != null) {
+            ServerReply pooledReply = type.pool.poll();
+            if (pooledReply != null) {
+                return pooledReply;
+            }
+        }
+
         try {
-            return replyClass.getConstructor().newInstance();
+            return type.constructor.newInstance();
         } catch (InstantiationException e) {
             log.error("Failed to create instance of reply class!", e);
         } catch (IllegalAccessException e) {
             log.error("Access to reply class constructor was denied.", e);
-        } catch (NoSuchMethodException e) {
-            log.error("Failed to locate required constructor.", e);
         } catch (InvocationTargetException e) {
             log.error("Problem while executing the constructor.", e);
         }
         return null;
     }
 
+    /**
+     * Release a reply that is not used anymore. In case the reply is recyclable, it is reset and stored to be used
+     * again. The reply must not be accessed anymore once this function was called.
+     *
+     * @param reply the reply that is not needed anymore
+     */
+    public void releaseReply(@Nonnull ServerReply reply) {
+        if (!(reply instanceof RecyclableServerReply)) {
+            return;
+        }
+
+        ReplyType type = replyTypesByClass.get(reply.getClass());
+        if ((type != null) && (type.pool != null)) {
+            ((RecyclableServerReply) reply).reset();
+            type.pool.offer(reply);
+        }
+    }
+
     /**
      * Get the singleton instance of this class.
      *
@@ -0,0 +1,34 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net;
+
+import illarion.client.net.server.ServerReply;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The receiver hands the decoded replies over to an implementation of this interface.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+interface ReplyHandler {
+    /**
+     * Accept a reply that was decoded.
+     *
+     * @param reply the reply
+     */
+    void scheduleReplyExecution(@Nonnull ServerReply reply);
+}
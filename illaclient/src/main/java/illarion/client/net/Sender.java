@@ -21,19 +21,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The Sender class handles all data that is send from the client, encodes the
  * commands and prepares them for sending.
+ * <p>
+ * The commands are queued and encoded by the sender thread. All commands that are waiting once the thread starts
+ * encoding are encoded one after another into the outbound buffer and written to the server with a single write.
+ * While the data is written, new commands queue up and are send with the next write.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  * @author Nop
@@ -53,16 +64,32 @@ final class Sender implements NetCommWriter {
     private static final Logger log = LoggerFactory.getLogger(Sender.class);
 
     /**
-     * The maximal size in bytes one command can use.
+     * The size of the header of each command. It contains the ID, the checking ID, the length and the CRC.
      */
-    private static final int MAX_COMMAND_SIZE = 1000;
+    private static final int HEADER_SIZE = 6;
 
     /**
-     * Length of the byte buffer used to store the data before its send to the
-     * server.
+     * The maximal size in bytes the data of one command can use. The length of the command is transferred as
+     * unsigned short.
+     */
+    private static final int MAX_COMMAND_SIZE = (1 << Short.SIZE) - 1;
+
+    /**
+     * The initial size of the outbound buffer. The buffer grows in case a single command does not fit into it.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    /**
+     * The maximal time in milliseconds the sender waits for the socket to accept more data before it tries to write
+     * again.
+     */
+    private static final long WRITE_WAIT_TIME = 100;
+
+    /**
+     * The buffer that stores the encoded commands until they are written to the server.
      */
     @Nonnull
-    private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_COMMAND_SIZE);
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
 
     /**
      * The string encoder that is used to encode the strings before they are
@@ -85,31 +112,99 @@ final class Sender implements NetCommWriter {
     @Nonnull
     private final WritableByteChannel outChannel;
 
+    /**
+     * The selector that is used to wait until a non-blocking channel accepts more data. It is created once the
+     * socket buffer is full for the first time and only used by the thread that writes the data.
+     */
+    @Nullable
+    private Selector writeSelector;
+
     @Nonnull
     private final ExecutorService commandExecutor;
 
+    /**
+     * The commands that are waiting to be encoded.
+     */
+    @Nonnull
+    private final Queue<AbstractCommand> pendingCommands;
+
+    /**
+     * This flag is set {@code true} while a task to send the pending commands is scheduled and did not start yet.
+     */
+    @Nonnull
+    private final AtomicBoolean sendScheduled;
+
+    /**
+     * The statistics of the network interface.
+     */
+    @Nonnull
+    private final NetCommStatistics statistics;
+
+    /**
+     * The amount of commands that are stored in the outbound buffer.
+     */
+    private int bufferedCommands;
+
+    /**
+     * The time in nanoseconds when data was written to the server the last time.
+     */
+    private volatile long lastWriteTime;
+
     /**
      * The basic constructor for the sender that sets up all needed data.
      *
      * @param out the output channel of the socket connection used to send the
      * data to the server
+     * @param statistics the statistics of the network interface
      */
-    Sender(@Nonnull WritableByteChannel out) {
+    Sender(@Nonnull WritableByteChannel out, @Nonnull NetCommStatistics statistics) {
         commandExecutor = Executors.newSingleThreadExecutor();
         outChannel = out;
+        this.statistics = statistics;
+        pendingCommands = new ConcurrentLinkedQueue<>();
+        sendScheduled = new AtomicBoolean();
+        lastWriteTime = System.nanoTime();
 
         encoder = NetComm.SERVER_STRING_ENCODING.newEncoder();
     }
 
     void sendCommand(@Nonnull AbstractCommand cmd) {
-        commandExecutor.submit(() -> {
-            try {
+        pendingCommands.offer(cmd);
+        if (sendScheduled.compareAndSet(false, true)) {
+            commandExecutor.submit(() -> {
+                sendScheduled.set(false);
+                try {
+                    sendPendingCommands();
+                } catch (Exception e) {
+                    log.error("Error while sending command.", e);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Get the time that passed since data was written to the server the last time.
+     *
+     * @param unit the unit of the returned time
+     * @return the time since the last write
+     */
+    long getTimeSinceLastWrite(@Nonnull TimeUnit unit) {
+        return unit.convert(System.nanoTime() - lastWriteTime, TimeUnit.NANOSECONDS);
+    }
+
+    private void sendPendingCommands() throws IOException {
+        try {
+            while (true) {
+                @Nullable AbstractCommand cmd = pendingCommands.poll();
+                if (cmd == null) {
+                    break;
+                }
                 encodeCommand(cmd);
-            } catch (Exception e) {
-                log.error("Error while sending command.", e);
             }
-            return null;
-        });
+        } finally {
+            writeBuffer();
+        }
     }
 
     private void encodeCommand(@Nonnull AbstractCommand cmd) throws IOException {
@@ -117,7 +212,37 @@ final class Sender implements NetCommWriter {
             log.debug("SND: {}", cmd);
         }
 
-        buffer.clear();
+        ensureCapacity(HEADER_SIZE + Math.min(MAX_COMMAND_SIZE, cmd.getSizeHint()));
+        while (true) {
+            int startOfFrame = buffer.position();
+            try {
+                if (encodeFrame(cmd, startOfFrame)) {
+                    bufferedCommands++;
+                    statistics.reportSentCommand(cmd, System.nanoTime());
+                } else {
+                    log.error("Command {} exceeds the maximal size and was not send.", cmd);
+                    buffer.position(startOfFrame);
+                }
+                return;
+            } catch (BufferOverflowException e) {
+                // the size hint of the command was too small, make room and try again
+                buffer.position(startOfFrame);
+                writeBuffer();
+                growBuffer(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Encode a command along with its header into the buffer.
+     *
+     * @param cmd the command to encode
+     * @param startOfFrame the position in the buffer where the header of the command starts
+     * @return {@code true} in case the command was encoded, {@code false} if the command is too large to be send
+     * @throws IOException in case encoding the command fails
+     * @throws BufferOverflowException in case the command does not fit into the buffer
+     */
+    private boolean encodeFrame(@Nonnull AbstractCommand cmd, int startOfFrame) throws IOException {
         buffer.put((byte) cmd.getId());
         buffer.put((byte) (cmd.getId() ^ COMMAND_XOR_MASK));
 
@@ -131,26 +256,112 @@ final class Sender implements NetCommWriter {
         cmd.encode(this);
 
         int length = buffer.position() - startOfCmd;
-        buffer.flip();
-        buffer.position(startOfCmd);
-        int crc = NetComm.getCRC(buffer, length);
-        buffer.position(headerLenCRC);
-        buffer.putShort((short) length);
-        buffer.putShort((short) crc);
-        buffer.position(0);
+        if (length > MAX_COMMAND_SIZE) {
+            return false;
+        }
+        ByteBuffer commandData = buffer.duplicate();
+        commandData.limit(buffer.position());
+        commandData.position(startOfCmd);
+        int crc = NetComm.getCRC(commandData, length);
+        buffer.putShort(headerLenCRC, (short) length);
+        buffer.putShort(headerLenCRC + 2, (short) crc);
 
         if (NetComm.isDumpingActive()) {
-            NetComm.dump("snd => ", buffer);
-            buffer.flip();
+            commandData.position(startOfFrame);
+            NetComm.dump("snd => ", commandData);
+        }
+        return true;
+    }
+
+    /**
+     * Make sure that the buffer has at least the requested amount of bytes remaining. In case it does not, the
+     * buffered commands are written and the buffer is enlarged if required.
+     *
+     * @param required the amount of bytes required
+     * @throws IOException in case writing the buffered commands fails
+     */
+    private void ensureCapacity(int required) throws IOException {
+        if (buffer.remaining() >= required) {
+            return;
+        }
+        writeBuffer();
+        if (buffer.capacity() < required) {
+            growBuffer(required);
+        }
+    }
+
+    /**
+     * Replace the buffer with a larger one. This must only be called while the buffer is empty.
+     *
+     * @param minimalCapacity the minimal capacity of the new buffer
+     */
+    private void growBuffer(int minimalCapacity) {
+        assert buffer.position() == 0;
+        int capacity = Integer.highestOneBit(minimalCapacity - 1) << 1;
+        log.debug("Growing the outbound buffer to {} bytes.", capacity);
+        buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Write all commands stored in the buffer to the server with a single write operation and clear the buffer.
+     *
+     * @throws IOException in case writing the data fails
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        try {
+            while (buffer.hasRemaining()) {
+                if (outChannel.write(buffer) == 0) {
+                    // the channel is not blocking and the socket buffer is full
+                    awaitWritable();
+                }
+            }
+        } finally {
+            buffer.clear();
+        }
+        if (bytes > 0) {
+            lastWriteTime = System.nanoTime();
+            statistics.reportSentData(bytes, bufferedCommands);
+        }
+        bufferedCommands = 0;
+    }
+
+    /**
+     * Wait until the non-blocking output channel is able to accept more data. The wait is limited, so a closed
+     * channel is noticed by the next write attempt.
+     *
+     * @throws IOException in case waiting for the channel fails
+     */
+    private void awaitWritable() throws IOException {
+        if (!(outChannel instanceof SelectableChannel)) {
+            Thread.yield();
+            return;
+        }
+        if (writeSelector == null) {
+            writeSelector = Selector.open();
+            ((SelectableChannel) outChannel).register(writeSelector, SelectionKey.OP_WRITE);
         }
+        writeSelector.select(WRITE_WAIT_TIME);
+        writeSelector.selectedKeys().clear();
+    }
 
-        outChannel.write(buffer);
+    private void closeWriteSelector() {
+        if (writeSelector != null) {
+            try {
+                writeSelector.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the write selector of the sender.", e);
+            }
+            writeSelector = null;
+        }
     }
 
     /**
      * Shutdown the sender.
      */
     public Future<Boolean> saveShutdown() {
+        commandExecutor.execute(this::closeWriteSelector);
         commandExecutor.shutdown();
 
         return new Future<Boolean>() {
@@ -229,12 +440,16 @@ final class Sender implements NetCommWriter {
         int startIndex = buffer.position();
         buffer.putShort((short) 0);
 
+        encoder.reset();
         encodingBuffer.clear();
         encodingBuffer.put(value, 0, Math.min(encodingBuffer.capacity(), value.length()));
         encodingBuffer.flip();
 
         do {
             CoderResult encodingResult = encoder.encode(encodingBuffer, buffer, true);
+            if (encodingResult.isOverflow()) {
+                throw new BufferOverflowException();
+            }
             if (!encodingResult.isError()) {
                 break;
             }
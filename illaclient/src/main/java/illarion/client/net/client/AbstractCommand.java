@@ -33,6 +33,16 @@ import java.io.IOException;
 @NotThreadSafe
 @Immutable
 public abstract class AbstractCommand {
+    /**
+     * The size hint of commands that only encode values of a fixed size.
+     */
+    protected static final int DEFAULT_SIZE_HINT = 64;
+
+    /**
+     * The response ID of commands the server does not answer with a specific reply.
+     */
+    public static final int NO_RESPONSE = -1;
+
     /**
      * The ID of the command.
      */
@@ -77,6 +87,42 @@ public abstract class AbstractCommand {
      */
     public abstract void encode(@Nonnull NetCommWriter writer) throws IOException;
 
+    /**
+     * Get the amount of bytes the encoded data of this command is expected to require at most. The sender reserves
+     * this amount of space before encoding the command. Commands that encode strings or a variable amount of values
+     * need to override this function.
+     *
+     * @return the expected maximal size of the encoded command in bytes
+     */
+    @Contract(pure = true)
+    public int getSizeHint() {
+        return DEFAULT_SIZE_HINT;
+    }
+
+    /**
+     * Get the ID of the reply the server sends in response to this command. The network statistics use this to
+     * measure the round trip time of the command. Commands that are answered by a specific reply need to override
+     * this function.
+     *
+     * @return the ID of the response or {@link #NO_RESPONSE}
+     */
+    @Contract(pure = true)
+    public int getResponseId() {
+        return NO_RESPONSE;
+    }
+
+    /**
+     * Get the amount of bytes a string requires once it is encoded.
+     *
+     * @param value the string
+     * @return the size of the encoded string including the length header
+     */
+    @Contract(pure = true)
+    protected static int getStringSizeHint(@Nonnull String value) {
+        // the server encoding uses one byte per character
+        return 2 + value.length();
+    }
+
     /**
      * Get the ID of this client command.
      *
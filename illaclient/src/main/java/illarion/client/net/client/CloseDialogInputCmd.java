@@ -73,6 +73,11 @@ public final class CloseDialogInputCmd extends AbstractCommand {
         writer.writeString(text);
     }
 
+    @Override
+    public int getSizeHint() {
+        return DEFAULT_SIZE_HINT + getStringSizeHint(text);
+    }
+
     @Nonnull
     @Override
     public String toString() {
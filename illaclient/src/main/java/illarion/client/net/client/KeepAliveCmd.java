@@ -43,6 +43,11 @@ public final class KeepAliveCmd extends AbstractCommand {
         ConnectionPerformanceClock.notifyNetCommEncode();
     }
 
+    @Override
+    public int getResponseId() {
+        return CommandList.MSG_KEEP_ALIVE;
+    }
+
     @Nonnull
     @Override
     public String toString() {
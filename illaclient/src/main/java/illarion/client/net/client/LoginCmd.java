@@ -73,6 +73,11 @@ public final class LoginCmd extends AbstractCommand {
         writer.writeString(password);
     }
 
+    @Override
+    public int getSizeHint() {
+        return DEFAULT_SIZE_HINT + getStringSizeHint(charName) + getStringSizeHint(password);
+    }
+
     @Nonnull
     @Override
     @Contract(pure = true)
@@ -70,6 +70,11 @@ public final class LookAtCharCmd extends AbstractCommand {
         mode = (byte) lookAtMode;
     }
 
+    @Override
+    public int getResponseId() {
+        return CommandList.MSG_LOOKAT_CHAR;
+    }
+
     /**
      * Get the data of this look at character command as string.
      *
@@ -62,6 +62,11 @@ public final class LookAtMapItemCmd extends AbstractCommand {
         writer.writeUByte(stackPosition);
     }
 
+    @Override
+    public int getResponseId() {
+        return CommandList.MSG_LOOKAT_MAPITEM;
+    }
+
     @Nonnull
     @Override
     public String toString() {
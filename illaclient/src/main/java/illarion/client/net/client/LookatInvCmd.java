@@ -50,6 +50,11 @@ public final class LookatInvCmd extends AbstractCommand {
         writer.writeUByte(slot);
     }
 
+    @Override
+    public int getResponseId() {
+        return CommandList.MSG_LOOKAT_INV;
+    }
+
     /**
      * Get the data of this look at inventory command as string.
      *
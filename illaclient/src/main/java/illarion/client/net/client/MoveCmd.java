@@ -101,6 +101,11 @@ public final class MoveCmd extends AbstractCommand {
         writer.writeByte(mode);
     }
 
+    @Override
+    public int getResponseId() {
+        return CommandList.MSG_MOVE;
+    }
+
     /**
      * Get the data of this move command as string.
      *
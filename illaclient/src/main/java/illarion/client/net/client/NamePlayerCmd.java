@@ -55,6 +55,11 @@ public final class NamePlayerCmd extends AbstractCommand {
         writer.writeString(customName);
     }
 
+    @Override
+    public int getSizeHint() {
+        return DEFAULT_SIZE_HINT + getStringSizeHint(customName);
+    }
+
     @Nonnull
     @Override
     public String toString() {
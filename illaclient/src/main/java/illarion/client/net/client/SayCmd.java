@@ -73,6 +73,11 @@ public final class SayCmd extends AbstractCommand {
         writer.writeString(text);
     }
 
+    @Override
+    public int getSizeHint() {
+        return getStringSizeHint(text);
+    }
+
     @Nonnull
     @Override
     public String toString() {
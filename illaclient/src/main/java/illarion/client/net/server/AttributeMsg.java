@@ -27,7 +27,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 
 /**
  * Server message: Character attributes
@@ -36,7 +38,7 @@ import java.io.IOException;
  * @author Nop
  */
 @ReplyMessage(replyId = CommandList.MSG_ATTRIBUTE)
-public final class AttributeMsg implements ServerReply {
+public final class AttributeMsg implements RecyclableServerReply, CoalescableServerReply {
     @Nonnull
     private static final Logger log = LoggerFactory.getLogger(AttributeMsg.class);
 
@@ -93,6 +95,21 @@ public final class AttributeMsg implements ServerReply {
         return ServerReplyResult.Failed;
     }
 
+    @Nullable
+    @Override
+    public Object getCoalescingKey() {
+        if ((targetCharacter == null) || (attribute == null)) {
+            return null;
+        }
+        return new SimpleImmutableEntry<>(targetCharacter, attribute);
+    }
+
+    @Override
+    public void reset() {
+        targetCharacter = null;
+        attribute = null;
+    }
+
     @Nonnull
     @Override
     @Contract(pure = true)
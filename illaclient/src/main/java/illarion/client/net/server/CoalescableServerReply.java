@@ -0,0 +1,35 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net.server;
+
+import javax.annotation.Nullable;
+
+/**
+ * This interface marks server replies that replace older replies of the same type. In case the message executor
+ * finds multiple replies of the same type with equal coalescing keys waiting for execution, only the latest one is
+ * executed and the older ones are discarded.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public interface CoalescableServerReply extends ServerReply {
+    /**
+     * Get the key that identifies the state this reply updates. This is called after the reply got decoded.
+     *
+     * @return the key or {@code null} in case this reply must not replace any other reply
+     */
+    @Nullable
+    Object getCoalescingKey();
+}
@@ -38,7 +38,7 @@ import java.util.List;
  * @author Nop
  */
 @ReplyMessage(replyId = CommandList.MSG_UPDATE_ITEMS)
-public final class ItemUpdateMsg implements ServerReply {
+public final class ItemUpdateMsg implements RecyclableServerReply {
     /**
      * The value for {@link #newTileMovePoints} to indicate that the field is blocked.
      */
@@ -104,6 +104,13 @@ public final class ItemUpdateMsg implements ServerReply {
         return ServerReplyResult.Success;
     }
 
+    @Override
+    public void reset() {
+        location = null;
+        itemId = null;
+        itemCount = null;
+    }
+
     @Nonnull
     @Override
     @Contract(pure = true)
@@ -25,9 +25,8 @@ import illarion.common.types.ServerCoordinate;
 import org.jetbrains.annotations.Contract;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,7 +36,7 @@ import java.util.List;
  * @author Nop
  */
 @ReplyMessage(replyId = CommandList.MSG_MAP_STRIPE)
-public final class MapStripeMsg implements ServerReply {
+public final class MapStripeMsg implements RecyclableServerReply {
     /**
      * Constant if the map stripe goes from top to bottom.
      */
@@ -49,10 +48,16 @@ public final class MapStripeMsg implements ServerReply {
     private static final int DIR_RIGHT = 0;
 
     /**
-     * The list of tiles that are inside the update and all containing information.
+     * The list of tiles that are inside the update and all containing information. The list is reused when this
+     * message is recycled.
      */
-    @Nullable
-    private List<TileUpdate> tiles;
+    @Nonnull
+    private final List<TileUpdate> tiles = new ArrayList<>();
+
+    /**
+     * This flag is set {@code true} once the message got decoded.
+     */
+    private boolean decoded;
 
     @Override
     public void decode(@Nonnull NetCommReader reader) throws IOException {
@@ -60,21 +65,22 @@ public final class MapStripeMsg implements ServerReply {
 
         int dir = reader.readUByte();
         int count = reader.readUByte();
-        tiles = Arrays.asList(new TileUpdate[count]);
+        tiles.clear();
         for (int i = 0; i < count; ++i) {
-            tiles.set(i, new TileUpdate(loc, reader));
+            tiles.add(new TileUpdate(loc, reader));
             if (dir == DIR_DOWN) {
                 loc = new ServerCoordinate(loc, Direction.SouthWest);
             } else if (dir == DIR_RIGHT) {
                 loc = new ServerCoordinate(loc, Direction.SouthEast);
             }
         }
+        decoded = true;
     }
 
     @Nonnull
     @Override
     public ServerReplyResult execute() {
-        if (tiles == null) {
+        if (!decoded) {
             throw new NotDecodedException();
         }
 
@@ -86,6 +92,12 @@ public final class MapStripeMsg implements ServerReply {
         return ServerReplyResult.Success;
     }
 
+    @Override
+    public void reset() {
+        tiles.clear();
+        decoded = false;
+    }
+
     @Nonnull
     @Override
     @Contract(pure = true)
@@ -38,7 +38,7 @@ import java.io.IOException;
  * @author Nop
  */
 @ReplyMessage(replyId = CommandList.MSG_MOVE)
-public final class MoveMsg implements ServerReply {
+public final class MoveMsg implements RecyclableServerReply, CoalescableServerReply, SharedServerReply {
     @Nonnull
     private static final Logger log = LoggerFactory.getLogger(MoveMsg.class);
 
@@ -183,6 +183,33 @@ public final class MoveMsg implements ServerReply {
         return ServerReplyResult.Success;
     }
 
+    /**
+     * Moves of the player character are never coalesced, as the movement handler needs the response to every
+     * move request.
+     */
+    @Nullable
+    @Override
+    public Object getCoalescingKey() {
+        if ((charId == null) || !World.getPlayer().isPlayerIdSet() || World.getPlayer().isPlayer(charId)) {
+            return null;
+        }
+        return charId;
+    }
+
+    /**
+     * Only the moves of the player character answer a move command.
+     */
+    @Override
+    public boolean isResponse() {
+        return (charId != null) && World.getPlayer().isPlayerIdSet() && World.getPlayer().isPlayer(charId);
+    }
+
+    @Override
+    public void reset() {
+        charId = null;
+        location = null;
+    }
+
     @Nonnull
     @Override
     @Contract(pure = true)
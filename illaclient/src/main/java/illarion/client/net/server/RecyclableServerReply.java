@@ -0,0 +1,34 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net.server;
+
+/**
+ * This interface marks server replies that are pooled by the {@link illarion.client.net.ReplyFactory}. Once the
+ * execution of such a reply is finished, the instance is reset and reused to decode the next reply of the same type.
+ * <p>
+ * Only replies that do not hand references to themselves to other parts of the client (for example using update
+ * tasks) may implement this interface, as the instance is overwritten as soon as it is released.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public interface RecyclableServerReply extends ServerReply {
+    /**
+     * Drop all decoded data. This is called before the reply is returned to the pool, so the pooled instance does
+     * not keep the decoded data alive.
+     */
+    void reset();
+}
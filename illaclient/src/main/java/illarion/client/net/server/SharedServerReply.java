@@ -0,0 +1,32 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.net.server;
+
+/**
+ * This interface marks server replies that are send in response to a command of this client, but also without any
+ * request. The network statistics only match replies with commands in case they are a response, so the round trip
+ * time is not distorted by the unsolicited replies.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public interface SharedServerReply extends ServerReply {
+    /**
+     * Check if this reply is the response to a command of this client. This is called after the reply got decoded.
+     *
+     * @return {@code true} in case this reply answers a command of this client
+     */
+    boolean isResponse();
+}
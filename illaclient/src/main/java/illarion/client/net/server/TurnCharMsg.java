@@ -37,7 +37,7 @@ import java.io.IOException;
  * @author Nop
  */
 @ReplyMessage(replyId = CommandList.MSG_TURN_CHAR)
-public final class TurnCharMsg implements ServerReply {
+public final class TurnCharMsg implements RecyclableServerReply, CoalescableServerReply {
     @Nonnull
     private static final Logger log = LoggerFactory.getLogger(TurnCharMsg.class);
 
@@ -85,6 +85,18 @@ public final class TurnCharMsg implements ServerReply {
         }
     }
 
+    @Nullable
+    @Override
+    public Object getCoalescingKey() {
+        return charId;
+    }
+
+    @Override
+    public void reset() {
+        charId = null;
+        dir = null;
+    }
+
     @Nonnull
     @Override
     @Contract(pure = true)
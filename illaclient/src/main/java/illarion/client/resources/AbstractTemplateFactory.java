@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +29,10 @@ import java.util.Map;
 /**
  * The purpose of this class is to store and retrieve the templates that were load from the resources. Those
  * templates are later on used to create the actual objects.
+ * <p>
+ * Once the loading is finished, the templates are moved to a read-only table that is indexed by the template ID. From
+ * this point on no more templates can be stored and the templates can be fetched from any thread without locking.
+ * </p>
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
@@ -37,10 +42,17 @@ public abstract class AbstractTemplateFactory<T extends ResourceTemplate> implem
     private static final Logger log = LoggerFactory.getLogger(AbstractTemplateFactory.class);
 
     /**
-     * The map that is used to store the resources.
+     * The map that is used to store the resources while the loading is not finished yet. It is dropped after the
+     * {@link #table} is set.
      */
-    @Nonnull
-    private final Map<Integer, T> storage;
+    @Nullable
+    private volatile Map<Integer, T> storage;
+
+    /**
+     * The table that stores the resources once the loading is finished.
+     */
+    @Nullable
+    private volatile TemplateTable<T> table;
 
     /**
      * The ID used in case the requested object does not exist.
@@ -64,6 +76,10 @@ public abstract class AbstractTemplateFactory<T extends ResourceTemplate> implem
 
     @Override
     public void storeResource(@Nonnull T resource) {
+        Map<Integer, T> storage = this.storage;
+        if (storage == null) {
+            throw new IllegalStateException("Loading of this factory was already finished.");
+        }
         if (storage.containsKey(resource.getTemplateId())) {
             log.warn("Located duplicated resource template: {}", resource);
         }
@@ -72,6 +88,12 @@ public abstract class AbstractTemplateFactory<T extends ResourceTemplate> implem
 
     @Override
     public void loadingFinished() {
+        Map<Integer, T> storage = this.storage;
+        if (storage == null) {
+            throw new IllegalStateException("Loading of this factory was already finished.");
+        }
+        table = TemplateTable.create(storage);
+        this.storage = null;
     }
 
     @Override
@@ -80,15 +102,15 @@ public abstract class AbstractTemplateFactory<T extends ResourceTemplate> implem
 
     @Contract(pure = true)
     public boolean hasTemplate(int templateId) {
-        return storage.containsKey(templateId);
+        return lookup(templateId) != null;
     }
 
     @Nonnull
     @Contract(pure = true)
     public T getTemplate(int templateId) {
-        T object = storage.get(templateId);
+        T object = lookup(templateId);
         if ((object == null) && (defaultId > -1)) {
-            T defaultObject = storage.get(defaultId);
+            T defaultObject = lookup(defaultId);
             if (defaultObject == null) {
                 throw new IllegalStateException("Requested template " + templateId + " and the default template " +
                                                         defaultId + " were not found.");
@@ -101,4 +123,21 @@ public abstract class AbstractTemplateFactory<T extends ResourceTemplate> implem
         }
         return object;
     }
+
+    /**
+     * Get the template with a specific ID from the storage that is currently active.
+     *
+     * @param templateId the ID of the template
+     * @return the template or {@code null} in case there is no template with this ID
+     */
+    @Nullable
+    @Contract(pure = true)
+    private T lookup(int templateId) {
+        TemplateTable<T> currentTable = table;
+        if (currentTable != null) {
+            return currentTable.get(templateId);
+        }
+        Map<Integer, T> storage = this.storage;
+        return (storage == null) ? null : storage.get(templateId);
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.resources;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import illarion.client.resources.data.ResourceTemplate;
+import org.jetbrains.annotations.Contract;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.Map;
+
+/**
+ * The read-only storage of the templates of a factory once the loading is finished. In case the template IDs are
+ * dense, the templates are stored in a array that is indexed by the template ID. Otherwise they are stored in a
+ * primitive hash map, that does not require to box the ID for the lookup.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@Immutable
+final class TemplateTable<T extends ResourceTemplate> {
+    /**
+     * The factor the range of the template IDs may be larger then the amount of templates so the templates are still
+     * stored in a array indexed by the ID.
+     */
+    private static final int MAX_DENSITY_FACTOR = 4;
+
+    /**
+     * The size of the ID range that is always stored in a array indexed by the ID.
+     */
+    private static final int MIN_DENSE_RANGE = 64;
+
+    /**
+     * The lowest template ID. The template with this ID is stored at the first index of the dense table.
+     */
+    private final int firstId;
+
+    /**
+     * The templates of a dense table. The index is the ID of the template minus {@link #firstId}. This is
+     * {@code null} in case the table is sparse.
+     */
+    @Nullable
+    private final T[] templates;
+
+    /**
+     * The templates of a sparse table or {@code null} in case the table is dense.
+     */
+    @Nullable
+    private final TIntObjectMap<T> sparseTemplates;
+
+    private TemplateTable(int firstId, @Nonnull T[] templates) {
+        this.firstId = firstId;
+        this.templates = templates;
+        sparseTemplates = null;
+    }
+
+    private TemplateTable(@Nonnull TIntObjectMap<T> sparseTemplates) {
+        firstId = 0;
+        templates = null;
+        this.sparseTemplates = sparseTemplates;
+    }
+
+    /**
+     * Create the table that contains all templates of a map.
+     *
+     * @param storage the map of the template IDs to the templates
+     * @param <T> the type of the templates
+     * @return the new table
+     */
+    @Nonnull
+    static <T extends ResourceTemplate> TemplateTable<T> create(@Nonnull Map<Integer, T> storage) {
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        for (int id : storage.keySet()) {
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+        }
+
+        if (storage.isEmpty()) {
+            @SuppressWarnings("unchecked") T[] templates = (T[]) new ResourceTemplate[0];
+            return new TemplateTable<>(0, templates);
+        }
+
+        long range = ((long) maxId - minId) + 1;
+        if (range <= Math.max(MIN_DENSE_RANGE, (long) storage.size() * MAX_DENSITY_FACTOR)) {
+            @SuppressWarnings("unchecked") T[] templates = (T[]) new ResourceTemplate[(int) range];
+            for (Map.Entry<Integer, T> entry : storage.entrySet()) {
+                templates[entry.getKey() - minId] = entry.getValue();
+            }
+            return new TemplateTable<>(minId, templates);
+        }
+
+        TIntObjectMap<T> sparseTemplates = new TIntObjectHashMap<>(storage.size());
+        for (Map.Entry<Integer, T> entry : storage.entrySet()) {
+            sparseTemplates.put(entry.getKey(), entry.getValue());
+        }
+        return new TemplateTable<>(sparseTemplates);
+    }
+
+    /**
+     * Get the template with a specific ID.
+     *
+     * @param templateId the ID of the template
+     * @return the template or {@code null} in case there is no template with this ID
+     */
+    @Nullable
+    @Contract(pure = true)
+    T get(int templateId) {
+        if (templates == null) {
+            assert sparseTemplates != null;
+            return sparseTemplates.get(templateId);
+        }
+        int index = templateId - firstId;
+        if ((index < 0) || (index >= templates.length)) {
+            return null;
+        }
+        return templates[index];
+    }
+}
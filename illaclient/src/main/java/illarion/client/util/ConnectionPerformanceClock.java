@@ -106,7 +106,7 @@ public final class ConnectionPerformanceClock {
         lastSendToNetComm = -1;
         if (localLastSendToNetComm > -1) {
             lastNetCommTime = System.currentTimeMillis() - localLastSendToNetComm;
-            lastNetCommTimes[netCommTimesCursor] = lastServerTime;
+            lastNetCommTimes[netCommTimesCursor] = lastNetCommTime;
             netCommTimesCursor = (netCommTimesCursor + 1) % lastNetCommTimes.length;
         }
     }
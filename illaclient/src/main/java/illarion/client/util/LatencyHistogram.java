@@ -0,0 +1,149 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram that collects durations without allocating anything while recording. The values are sorted into
+ * buckets with exponentially growing size. Bucket {@code n} contains all values between {@code 2^(n-1)} and
+ * {@code 2^n} microseconds, so the percentiles are accurate up to a factor of two.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+    /**
+     * The amount of buckets. The last bucket holds every duration longer than about 35 minutes.
+     */
+    private static final int BUCKET_COUNT = 32;
+
+    /**
+     * The amount of values in each bucket.
+     */
+    @Nonnull
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * The amount of recorded values.
+     */
+    @Nonnull
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * The sum of all recorded durations in nanoseconds.
+     */
+    @Nonnull
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * The longest recorded duration in nanoseconds.
+     */
+    @Nonnull
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Record a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        long micros = TimeUnit.NANOSECONDS.toMicros(value);
+        int bucket = Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Get the amount of recorded durations.
+     *
+     * @return the amount of values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the average of the recorded durations.
+     *
+     * @return the average duration in microseconds
+     */
+    public double getMeanMicros() {
+        long currentCount = count.sum();
+        if (currentCount == 0) {
+            return 0.0;
+        }
+        return totalNanos.sum() / (currentCount * 1000.0);
+    }
+
+    /**
+     * Get the longest recorded duration.
+     *
+     * @return the longest duration in microseconds
+     */
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+    }
+
+    /**
+     * Get the upper bound of the bucket that contains the requested percentile.
+     *
+     * @param percentile the percentile in the range of {@code 0} to {@code 100}
+     * @return the upper bound of the percentile in microseconds
+     */
+    public long getPercentileMicros(double percentile) {
+        long currentCount = count.sum();
+        if (currentCount == 0) {
+            return 0L;
+        }
+        long threshold = (long) Math.ceil((currentCount * Math.min(100.0, Math.max(0.0, percentile))) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if ((seen >= threshold) && (seen > 0)) {
+                return Math.min(1L << i, getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * Drop all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.0fus p50=%dus p99=%dus max=%dus", getCount(), getMeanMicros(),
+                             getPercentileMicros(50), getPercentileMicros(99), getMaxMicros());
+    }
+}
@@ -16,24 +16,100 @@
 package illarion.client.util;
 
 import org.illarion.engine.GameContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class stores a list of tasks that are supposed to be executed during the next update cycle of the game.
+ * <p>
+ * The tasks are sorted into the classes of {@link UpdateTaskPriority}. The tasks of the {@link UpdateTaskPriority#Game}
+ * class are always executed during the next update. The tasks of the other classes are executed until the time
+ * budget of the update is used up. The remaining tasks are deferred to the following updates. At least one task of
+ * every class is executed during each update, so no class is starved.
+ * <p>
+ * Tasks added with a key replace the task with the same key that is still waiting for its execution. The replacing
+ * task is executed at the position of the task it replaced.
+ * <p>
+ * The statistics of the tasks are published as MBean, so they can be monitored with any JMX client.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
-public final class UpdateTaskManager {
+public final class UpdateTaskManager implements UpdateTaskManagerMBean {
     /**
-     * The task queue.
+     * The logger that is used for the log output of this class.
      */
     @Nonnull
-    private final Queue<UpdateTask> taskQueue;
+    private static final Logger log = LoggerFactory.getLogger(UpdateTaskManager.class);
+
+    /**
+     * The key of the configuration entry that stores the time budget of a single update in milliseconds.
+     */
+    @Nonnull
+    public static final String CFG_FRAME_BUDGET = "updateFrameBudget";
+
+    /**
+     * The default time budget of a single update in milliseconds.
+     */
+    public static final int DEFAULT_FRAME_BUDGET = 4;
+
+    /**
+     * The priority classes in the order they are executed.
+     */
+    @Nonnull
+    private static final UpdateTaskPriority[] PRIORITIES = UpdateTaskPriority.values();
+
+    /**
+     * The task queues, one for each priority class.
+     */
+    @Nonnull
+    private final Queue<UpdateTask>[] taskQueues;
+
+    /**
+     * The amount of tasks in each of the task queues.
+     */
+    @Nonnull
+    private final AtomicIntegerArray queueDepths;
+
+    /**
+     * The tasks added with a key that are waiting for their execution.
+     */
+    @Nonnull
+    private final Map<Object, UpdateTask> keyedTasks;
+
+    /**
+     * The time spent executing the tasks of each priority class during an update.
+     */
+    @Nonnull
+    private final LatencyHistogram[] executionTimes;
+
+    /**
+     * The amount of tasks that were deferred to a later update.
+     */
+    @Nonnull
+    private final LongAdder deferredTasks;
+
+    /**
+     * The amount of tasks that were replaced by a newer task with the same key.
+     */
+    @Nonnull
+    private final LongAdder coalescedTasks;
+
+    /**
+     * The time budget of a single update in nanoseconds.
+     */
+    private volatile long frameBudget;
 
     /**
      * This value is set {@code true} while the updates are executed.
@@ -60,8 +136,33 @@ public final class UpdateTaskManager {
     /**
      * The default constructor that prepares the internal structures.
      */
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public UpdateTaskManager() {
-        taskQueue = new ConcurrentLinkedQueue<>();
+        taskQueues = new Queue[PRIORITIES.length];
+        executionTimes = new LatencyHistogram[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            taskQueues[i] = new ConcurrentLinkedQueue<>();
+            executionTimes[i] = new LatencyHistogram();
+        }
+        queueDepths = new AtomicIntegerArray(PRIORITIES.length);
+        keyedTasks = new ConcurrentHashMap<>();
+        deferredTasks = new LongAdder();
+        coalescedTasks = new LongAdder();
+        frameBudget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FRAME_BUDGET);
+    }
+
+    /**
+     * Set the time budget of a single update. Once the budget is used up, all tasks but the tasks of the
+     * {@link UpdateTaskPriority#Game} class are deferred to the next update.
+     *
+     * @param budget the time budget
+     * @param unit the unit of the time budget
+     */
+    public void setFrameBudget(long budget, @Nonnull TimeUnit unit) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("The budget must not be negative.");
+        }
+        frameBudget = unit.toNanos(budget);
     }
 
     /**
@@ -76,13 +177,33 @@ public final class UpdateTaskManager {
         currentThread = Thread.currentThread();
         isInUpdateCall = true;
         try {
-            while (true) {
-                @Nullable UpdateTask task = taskQueue.poll();
-                if (task == null) {
-                    return;
-                }
+            long frameStart = System.nanoTime();
+            long budget = frameBudget;
+            for (UpdateTaskPriority priority : PRIORITIES) {
+                long classStart = System.nanoTime();
+                boolean budgeted = priority != UpdateTaskPriority.Game;
+                boolean executedAny = false;
+                while (true) {
+                    if (budgeted && executedAny && ((System.nanoTime() - frameStart) >= budget)) {
+                        int remaining = queueDepths.get(priority.ordinal());
+                        if (remaining > 0) {
+                            deferredTasks.add(remaining);
+                            log.trace("Deferring {} tasks of the class {}.", remaining, priority);
+                        }
+                        break;
+                    }
+                    @Nullable UpdateTask task = taskQueues[priority.ordinal()].poll();
+                    if (task == null) {
+                        break;
+                    }
+                    queueDepths.decrementAndGet(priority.ordinal());
 
-                task.onUpdateGame(container, delta);
+                    task.onUpdateGame(container, delta);
+                    executedAny = true;
+                }
+                if (executedAny) {
+                    executionTimes[priority.ordinal()].record(System.nanoTime() - classStart);
+                }
             }
         } finally {
             isInUpdateCall = false;
@@ -92,24 +213,165 @@ public final class UpdateTaskManager {
 
     /**
      * Add a task to the list of tasks executed during the update loop. In case the update loop is currently
-     * executed from the calling thread, the task is executed instantly.
+     * executed from the calling thread, the task is executed instantly. The task is part of the
+     * {@link UpdateTaskPriority#Game} class.
      *
      * @param task the task to execute
      */
     public void addTask(@Nonnull UpdateTask task) {
+        addTask(UpdateTaskPriority.Game, task);
+    }
+
+    /**
+     * Add a task to the list of tasks executed during the update loop. In case the update loop is currently
+     * executed from the calling thread, the task is executed instantly.
+     *
+     * @param priority the priority class of the task
+     * @param task the task to execute
+     */
+    public void addTask(@Nonnull UpdateTaskPriority priority, @Nonnull UpdateTask task) {
         if (isInUpdateCall && Objects.equals(currentThread, Thread.currentThread()) && (currentContainer != null)) {
             task.onUpdateGame(currentContainer, currentDelta);
         } else {
-            taskQueue.offer(task);
+            enqueue(priority, task);
         }
     }
 
     /**
-     * Add a task to the list of tasks executed during the next update.
+     * Add a task that replaces the task with the same key that is still waiting for its execution. In case the
+     * update loop is currently executed from the calling thread, the task is executed instantly.
+     *
+     * @param priority the priority class of the task
+     * @param key the key of the task, keys are compared using {@link Object#equals(Object)}
+     * @param task the task to execute
+     */
+    public void addTask(@Nonnull UpdateTaskPriority priority, @Nonnull Object key, @Nonnull UpdateTask task) {
+        if (isInUpdateCall && Objects.equals(currentThread, Thread.currentThread()) && (currentContainer != null)) {
+            keyedTasks.remove(key);
+            task.onUpdateGame(currentContainer, currentDelta);
+        } else if (keyedTasks.put(key, task) == null) {
+            enqueue(priority, new KeyedTask(key));
+        } else {
+            coalescedTasks.increment();
+        }
+    }
+
+    /**
+     * Add a task to the list of tasks executed during the next update. The task is part of the
+     * {@link UpdateTaskPriority#Game} class.
      *
      * @param task the task to execute
      */
     public void addTaskForLater(@Nonnull UpdateTask task) {
-        taskQueue.offer(task);
+        addTaskForLater(UpdateTaskPriority.Game, task);
+    }
+
+    /**
+     * Add a task to the list of tasks executed during the next update.
+     *
+     * @param priority the priority class of the task
+     * @param task the task to execute
+     */
+    public void addTaskForLater(@Nonnull UpdateTaskPriority priority, @Nonnull UpdateTask task) {
+        enqueue(priority, task);
+    }
+
+    private void enqueue(@Nonnull UpdateTaskPriority priority, @Nonnull UpdateTask task) {
+        queueDepths.incrementAndGet(priority.ordinal());
+        taskQueues[priority.ordinal()].offer(task);
+    }
+
+    /**
+     * Get the amount of tasks of a priority class that are waiting for their execution.
+     *
+     * @param priority the priority class
+     * @return the amount of waiting tasks
+     */
+    public int getQueueDepth(@Nonnull UpdateTaskPriority priority) {
+        return queueDepths.get(priority.ordinal());
+    }
+
+    /**
+     * Get the histogram of the time spent executing the tasks of a priority class during a single update.
+     *
+     * @param priority the priority class
+     * @return the histogram of the execution times
+     */
+    @Nonnull
+    public LatencyHistogram getExecutionTime(@Nonnull UpdateTaskPriority priority) {
+        return executionTimes[priority.ordinal()];
+    }
+
+    /**
+     * Get the amount of tasks that were deferred to a later update because the time budget was used up. Tasks that
+     * were deferred multiple times are counted multiple times.
+     *
+     * @return the amount of deferred tasks
+     */
+    @Override
+    public long getDeferredTasks() {
+        return deferredTasks.sum();
+    }
+
+    /**
+     * Get the amount of tasks that were replaced by a newer task with the same key before they got executed.
+     *
+     * @return the amount of replaced tasks
+     */
+    @Override
+    public long getCoalescedTasks() {
+        return coalescedTasks.sum();
+    }
+
+    @Override
+    public long getFrameBudgetMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(frameBudget);
+    }
+
+    @Override
+    public void setFrameBudgetMillis(long budget) {
+        setFrameBudget(budget, TimeUnit.MILLISECONDS);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getQueueDepthSummary() {
+        return Arrays.stream(PRIORITIES)
+                .map(priority -> priority + ": " + getQueueDepth(priority))
+                .toArray(String[]::new);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getExecutionTimeSummary() {
+        return Arrays.stream(PRIORITIES)
+                .map(priority -> priority + ": " + getExecutionTime(priority))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void resetHistograms() {
+        Arrays.stream(executionTimes).forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * The placeholder in the task queue for a task that was added with a key. Once executed, it runs the task that
+     * was added last for this key.
+     */
+    private final class KeyedTask implements UpdateTask {
+        @Nonnull
+        private final Object key;
+
+        KeyedTask(@Nonnull Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onUpdateGame(@Nonnull GameContainer container, int delta) {
+            @Nullable UpdateTask task = keyedTasks.remove(key);
+            if (task != null) {
+                task.onUpdateGame(container, delta);
+            }
+        }
     }
 }
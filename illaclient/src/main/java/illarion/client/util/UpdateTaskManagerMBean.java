@@ -0,0 +1,65 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.util;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The management interface of the update task manager. It exposes the queue depths, counters and execution times of
+ * the update tasks to JMX clients such as JConsole or VisualVM.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public interface UpdateTaskManagerMBean {
+    /**
+     * Get the time budget of a single update.
+     *
+     * @return the time budget in milliseconds
+     */
+    long getFrameBudgetMillis();
+
+    /**
+     * Set the time budget of a single update.
+     *
+     * @param budget the time budget in milliseconds
+     */
+    void setFrameBudgetMillis(long budget);
+
+    long getDeferredTasks();
+
+    long getCoalescedTasks();
+
+    /**
+     * Get the amount of tasks that are waiting for their execution.
+     *
+     * @return one line per priority class
+     */
+    @Nonnull
+    String[] getQueueDepthSummary();
+
+    /**
+     * Get the time spent executing the tasks during a single update.
+     *
+     * @return one line per priority class
+     */
+    @Nonnull
+    String[] getExecutionTimeSummary();
+
+    /**
+     * Clear all latency histograms.
+     */
+    void resetHistograms();
+}
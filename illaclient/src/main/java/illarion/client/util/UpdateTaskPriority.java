@@ -0,0 +1,42 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.util;
+
+/**
+ * The priority classes of the tasks executed by the {@link UpdateTaskManager}. The classes are executed in the order
+ * they are defined here.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public enum UpdateTaskPriority {
+    /**
+     * Tasks that change the state of the game, like the movement of characters or changes of the map. These tasks
+     * are always executed during the next update, regardless of the time they take.
+     */
+    Game,
+
+    /**
+     * Tasks that update the state of the user interface, like the inventory, containers or dialogs. These tasks are
+     * deferred to the following updates in case the time budget of the update is used up.
+     */
+    Interface,
+
+    /**
+     * Tasks that only change the appearance of the game, like new lines in the chat log or chat bubbles. These
+     * tasks are executed after all other tasks and are deferred in case the time budget of the update is used up.
+     */
+    Cosmetic
+}
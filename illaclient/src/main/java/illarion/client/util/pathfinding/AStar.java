@@ -19,15 +19,21 @@ import illarion.client.util.ConnectionPerformanceClock;
 import illarion.client.world.CharMovementMode;
 import illarion.common.types.Direction;
 import illarion.common.types.ServerCoordinate;
+import org.jetbrains.annotations.Contract;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Collection;
 
 /**
  * This class implements the A* path finding algorithm.
+ * <p>
+ * The search works on primitive node indices stored in a {@link AStarSearchContext}. Each thread keeps its own
+ * context that is reused for every search, so searching does not create any objects except for the nodes of the
+ * resulting path.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
@@ -35,6 +41,61 @@ public class AStar implements PathFindingAlgorithm {
     @Nonnull
     private static final Logger log = LoggerFactory.getLogger(AStar.class);
 
+    /**
+     * The value for the maximal amount of expanded nodes that disables the limit.
+     */
+    public static final int UNLIMITED = 0;
+
+    /**
+     * The additional cost of walking one tile straight.
+     */
+    private static final int WALK_DISTANCE_COST = 150;
+
+    /**
+     * The additional cost of walking one tile diagonal.
+     */
+    private static final int WALK_DIAGONAL_DISTANCE_COST = (int) (150 * 1.4142135623730951);
+
+    /**
+     * The additional cost of running two tiles straight.
+     */
+    private static final int RUN_DISTANCE_COST = 300;
+
+    /**
+     * The additional cost of running two tiles diagonal.
+     */
+    private static final int RUN_DIAGONAL_DISTANCE_COST = (int) (300 * 1.4142135623730951);
+
+    /**
+     * The search contexts of the threads that use the path finder.
+     */
+    @Nonnull
+    private static final ThreadLocal<AStarSearchContext> CONTEXTS = ThreadLocal.withInitial(AStarSearchContext::new);
+
+    /**
+     * The maximal amount of nodes that are expanded before the search is given up or {@link #UNLIMITED}.
+     */
+    private final int maxExpandedNodes;
+
+    /**
+     * Create a path finder that searches until the open nodes are exhausted.
+     */
+    public AStar() {
+        this(UNLIMITED);
+    }
+
+    /**
+     * Create a path finder that gives up after expanding a limited amount of nodes.
+     *
+     * @param maxExpandedNodes the maximal amount of expanded nodes or {@link #UNLIMITED}
+     */
+    public AStar(int maxExpandedNodes) {
+        if (maxExpandedNodes < 0) {
+            throw new IllegalArgumentException("The maximal amount of expanded nodes must not be negative.");
+        }
+        this.maxExpandedNodes = maxExpandedNodes;
+    }
+
     @Nullable
     @Override
     public Path findPath(
@@ -60,95 +121,143 @@ public class AStar implements PathFindingAlgorithm {
             return null;
         }
         log.debug("Searching path from {} to {} getting as close as {} tiles", start, end, approachDistance);
-        /* Setting up the data structures. */
-        /* Nodes that are in this set were yet not fully processed. */
-        NavigableSet<AStarPathNode> openNodes = new TreeSet<>();
-        /* The list of nodes and their corresponding locations. */
-        Map<ServerCoordinate, AStarPathNode> knownNodes = new HashMap<>();
+
         /* The methods of movement that apply. */
-        EnumSet<CharMovementMode> movementMethodSettings = EnumSet.of(movementMethod, movementMethods);
+        boolean walking = isSelected(CharMovementMode.Walk, movementMethod, movementMethods);
+        boolean running = isSelected(CharMovementMode.Run, movementMethod, movementMethods);
+        if (!walking && !running) {
+            return null;
+        }
+
+        Direction[] directions = allowedDirections.toArray(new Direction[allowedDirections.size()]);
+        int pingCost = (int) ConnectionPerformanceClock.getMaxServerPing();
+        int z = start.getZ();
+
+        AStarSearchContext context = CONTEXTS.get();
+        context.reset();
 
-        expandNode(costProvider, end, null, start, allowedDirections, movementMethodSettings, openNodes);
+        expandNode(context, costProvider, AStarSearchContext.NO_NODE, start.getX(), start.getY(), z, end, directions,
+                   walking, running, pingCost);
 
-        while (!openNodes.isEmpty()) {
+        int expandedNodes = 0;
+        while (!context.isOpenEmpty()) {
             /* Take the unchecked node closest to the target. */
-            AStarPathNode currentNode = openNodes.pollFirst();
-            if (currentNode.getLocation().getStepDistance(end) <= approachDistance) {
-                Path createdPath = buildPath(currentNode);
+            int currentNode = context.pollOpen();
+            int currentX = context.getNodeX(currentNode);
+            int currentY = context.getNodeY(currentNode);
+            if (getStepDistance(currentX, currentY, end) <= approachDistance) {
+                Path createdPath = buildPath(context, currentNode, z);
                 log.debug("Current node is within range. Building path: {}", createdPath);
                 return createdPath;
             }
-            AStarPathNode alternative = knownNodes.get(currentNode.getLocation());
-            if ((alternative == null) || (alternative.getCost() > currentNode.getCost())) {
-                knownNodes.put(currentNode.getLocation(), currentNode);
-                expandNode(costProvider, end, currentNode, currentNode.getLocation(), allowedDirections, movementMethodSettings,
-                           openNodes);
+            if (context.getNode(currentX, currentY) != currentNode) {
+                /* A cheaper way to this location was found after this node was queued. */
+                continue;
+            }
+            expandedNodes++;
+            if ((maxExpandedNodes != UNLIMITED) && (expandedNodes > maxExpandedNodes)) {
+                log.debug("Giving up the search after expanding {} nodes.", maxExpandedNodes);
+                return null;
             }
+            expandNode(context, costProvider, currentNode, currentX, currentY, z, end, directions, walking, running,
+                       pingCost);
         }
 
         return null;
     }
 
+    @Contract(pure = true)
+    private static boolean isSelected(
+            @Nonnull CharMovementMode mode,
+            @Nonnull CharMovementMode movementMethod,
+            @Nonnull CharMovementMode... movementMethods) {
+        if (movementMethod == mode) {
+            return true;
+        }
+        for (CharMovementMode method : movementMethods) {
+            if (method == mode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Nonnull
-    private static Path buildPath(@Nonnull AStarPathNode lastNode) {
-        LinkedList<PathNode> path = new LinkedList<>();
-        @Nullable AStarPathNode nextNode = lastNode;
-        while (nextNode != null) {
-            path.addFirst(nextNode);
-            nextNode = nextNode.getParentNode();
+    private static Path buildPath(@Nonnull AStarSearchContext context, int lastNode, int z) {
+        int length = 0;
+        for (int node = lastNode; node != AStarSearchContext.NO_NODE; node = context.getNodeParent(node)) {
+            length++;
         }
-        return new Path(path);
+        PathNode[] path = new PathNode[length];
+        int index = length;
+        for (int node = lastNode; node != AStarSearchContext.NO_NODE; node = context.getNodeParent(node)) {
+            path[--index] = new AStarPathNode(
+                    new ServerCoordinate(context.getNodeX(node), context.getNodeY(node), z),
+                    context.isNodeRunning(node) ? CharMovementMode.Run : CharMovementMode.Walk,
+                    context.getNodeCost(node));
+        }
+        return new Path(Arrays.asList(path));
     }
 
     private static void expandNode(
+            @Nonnull AStarSearchContext context,
             @Nonnull MoveCostProvider costProvider,
+            int nodeToExpand, int originX, int originY, int originZ,
             @Nonnull ServerCoordinate end,
-            @Nullable AStarPathNode nodeToExpand,
-            @Nonnull ServerCoordinate origin, @Nonnull Iterable<Direction> allowedDirections,
-            @Nonnull Collection<CharMovementMode> movementMethods,
-            @Nonnull Collection<AStarPathNode> storage) {
-        if (movementMethods.isEmpty()) {
-            throw new IllegalArgumentException("No movement methods selected. This is not valid.");
-        }
+            @Nonnull Direction[] allowedDirections,
+            boolean walking, boolean running, int pingCost) {
+        int baseCost = (nodeToExpand == AStarSearchContext.NO_NODE) ? 0 : context.getNodeCost(nodeToExpand);
         for (Direction dir : allowedDirections) {
-            ServerCoordinate walkingCoordinates = new ServerCoordinate(origin, dir);
-            if (movementMethods.contains(CharMovementMode.Walk)) {
-                int moveCost = costProvider.getMovementCost(origin, CharMovementMode.Walk, dir);
+            int walkingX = originX + dir.getDirectionVectorX();
+            int walkingY = originY + dir.getDirectionVectorY();
+            if (walking) {
+                int moveCost = costProvider.getMovementCost(originX, originY, originZ, CharMovementMode.Walk, dir);
                 if (moveCost == MoveCostProvider.BLOCKED) {
                     continue;
-                } else {
-                    /* Additional cost for distance. */
-                    moveCost += (int) (150 * (dir.isDiagonal() ? 1.4142135623730951 : 1.0));
-                    /* Additional cost for current ping. */
-                    moveCost += (int) ConnectionPerformanceClock.getMaxServerPing();
-
-                    storage.add(new AStarPathNode(nodeToExpand, walkingCoordinates, CharMovementMode.Walk, moveCost,
-                            getHeuristic(walkingCoordinates, end)));
                 }
+                /* Additional cost for distance and the current ping. */
+                moveCost += dir.isDiagonal() ? WALK_DIAGONAL_DISTANCE_COST : WALK_DISTANCE_COST;
+                moveCost += pingCost;
+
+                addOpenNode(context, nodeToExpand, walkingX, walkingY, false, baseCost + moveCost, end);
             }
-            if (walkingCoordinates.equals(end)) {
+            if ((walkingX == end.getX()) && (walkingY == end.getY())) {
                 continue;
             }
-            if (movementMethods.contains(CharMovementMode.Run)) {
-                ServerCoordinate runningCoordinates = new ServerCoordinate(walkingCoordinates, dir);
-                int moveCost = costProvider.getMovementCost(origin, CharMovementMode.Run, dir);
+            if (running) {
+                int moveCost = costProvider.getMovementCost(originX, originY, originZ, CharMovementMode.Run, dir);
                 if (moveCost != MoveCostProvider.BLOCKED) {
-                    /* Additional cost for distance. */
-                    moveCost += (int) (300 * (dir.isDiagonal() ? 1.4142135623730951 : 1.0));
-                    /* Additional cost for current ping. */
-                    moveCost += (int) ConnectionPerformanceClock.getMaxServerPing();
+                    /* Additional cost for distance and the current ping. */
+                    moveCost += dir.isDiagonal() ? RUN_DIAGONAL_DISTANCE_COST : RUN_DISTANCE_COST;
+                    moveCost += pingCost;
 
-                    storage.add(new AStarPathNode(nodeToExpand, runningCoordinates, CharMovementMode.Run, moveCost,
-                            getHeuristic(runningCoordinates, end)));
+                    addOpenNode(context, nodeToExpand, walkingX + dir.getDirectionVectorX(),
+                                walkingY + dir.getDirectionVectorY(), true, baseCost + moveCost, end);
                 }
             }
         }
     }
 
-    private static int getHeuristic(@Nonnull ServerCoordinate currentLocation,
-                                    @Nonnull ServerCoordinate targetLocation) {
-        int dX = Math.abs(currentLocation.getX() - targetLocation.getX());
-        int dY = Math.abs(currentLocation.getY() - targetLocation.getY());
+    private static void addOpenNode(
+            @Nonnull AStarSearchContext context, int parent, int x, int y, boolean running, int cost,
+            @Nonnull ServerCoordinate end) {
+        int knownNode = context.getNode(x, y);
+        if ((knownNode != AStarSearchContext.NO_NODE) && (context.getNodeCost(knownNode) <= cost)) {
+            /* There is already a way to this location that is at least as cheap. */
+            return;
+        }
+        context.pushOpen(context.addNode(parent, x, y, running, cost, getHeuristic(x, y, end)));
+    }
+
+    @Contract(pure = true)
+    private static int getStepDistance(int x, int y, @Nonnull ServerCoordinate target) {
+        return Math.max(Math.abs(x - target.getX()), Math.abs(y - target.getY()));
+    }
+
+    @Contract(pure = true)
+    private static int getHeuristic(int x, int y, @Nonnull ServerCoordinate targetLocation) {
+        int dX = Math.abs(x - targetLocation.getX());
+        int dY = Math.abs(y - targetLocation.getY());
 
         int dMax = Math.max(dX, dY);
         int dMin = Math.min(dX, dY);
@@ -20,80 +20,40 @@ import illarion.common.types.ServerCoordinate;
 import org.jetbrains.annotations.Contract;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
 /**
- * This is the path node implementation used for the A* algorithm that contains all required node information to get the
- * algorithm to work.
+ * This is the path node implementation used for the results of the A* algorithm. The search itself works on the
+ * primitive nodes of the {@link AStarSearchContext}, the instances of this class are only created for the nodes of
+ * the path that was found.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
-class AStarPathNode extends AbstractPathNode implements Comparable<AStarPathNode> {
+final class AStarPathNode extends AbstractPathNode {
     /**
      * The cost to reach this field.
      */
     private final int cost;
 
-    /**
-     * The predicted cost to reach the target location from this field
-     */
-    private final int heuristic;
-
-    /**
-     * The node that prepends this node.
-     */
-    @Nullable
-    private final AStarPathNode parentNode;
-
     /**
      * Create a node on the path.
      *
-     * @param parentNode the parent of this node or {@code null} in case this node is the first step on the path.
      * @param target the location this node is bound to
      * @param method the movement method to reach this node
-     * @param cost the cost to reach this tile
-     * @param heuristic the predicted cost to reach the target from this location
+     * @param cost the total cost to reach this tile
      */
-    AStarPathNode(
-            @Nullable AStarPathNode parentNode,
-            @Nonnull ServerCoordinate target,
-            @Nonnull CharMovementMode method,
-            int cost,
-            int heuristic) {
+    AStarPathNode(@Nonnull ServerCoordinate target, @Nonnull CharMovementMode method, int cost) {
         super(target, method);
-        this.parentNode = parentNode;
-        this.cost = (parentNode == null) ? cost : (parentNode.cost + cost);
-        this.heuristic = heuristic;
+        this.cost = cost;
     }
 
-    /**
-     * Get the predicted cost to reach the target.
-     *
-     * @return the predicted cost to reach the target
-     */
     @Contract(pure = true)
-    private int getPredictedCost() {
-        return heuristic + cost;
-    }
-
-    @Override
-    public int compareTo(@Nonnull AStarPathNode o) {
-        int result = Integer.compare(getPredictedCost(), o.getPredictedCost());
-        return (result == 0) ? 1 : result;
+    public int getCost() {
+        return cost;
     }
 
     @Override
     @Nonnull
     public String toString() {
-        return getLocation() + " Predicted cost: " + getPredictedCost();
-    }
-
-    public int getCost() {
-        return cost;
-    }
-
-    @Nullable
-    public AStarPathNode getParentNode() {
-        return parentNode;
+        return getLocation() + " Cost: " + cost;
     }
 }
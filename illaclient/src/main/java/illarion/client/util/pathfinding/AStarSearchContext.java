@@ -0,0 +1,309 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2015 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.util.pathfinding;
+
+import org.jetbrains.annotations.Contract;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * This is the working memory of a single A* search. The nodes of the search are stored in parallel primitive arrays
+ * and referred to by their index. The open nodes are kept in a binary heap of node indices and the best node for
+ * each location is found in a open addressing hash table that uses the packed coordinates as keys.
+ * <p>
+ * A context is reused for many searches. Resetting it does not clear the arrays, the entries of the hash table are
+ * invalidated by increasing the generation counter instead.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@NotThreadSafe
+final class AStarSearchContext {
+    /**
+     * The value returned by {@link #getNode(int, int)} in case there is no node for the location.
+     */
+    static final int NO_NODE = -1;
+
+    /**
+     * The initial amount of nodes the context is able to store before it needs to grow.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The maximal load factor of the hash table.
+     */
+    private static final float MAX_LOAD = 0.5f;
+
+    private int[] nodeX;
+    private int[] nodeY;
+    private int[] nodeCost;
+    private int[] nodePredictedCost;
+    private int[] nodeParent;
+    private boolean[] nodeRunning;
+    private int nodeCount;
+
+    /**
+     * The binary heap of the open nodes. The node with the lowest predicted cost is on top. Nodes with the same
+     * predicted cost are sorted by the order they were created in.
+     */
+    private int[] heap;
+    private int heapSize;
+
+    private long[] tableKeys;
+    private int[] tableNodes;
+    private int[] tableGeneration;
+    private int tableMask;
+    private int tableSize;
+    private int generation;
+
+    AStarSearchContext() {
+        nodeX = new int[INITIAL_CAPACITY];
+        nodeY = new int[INITIAL_CAPACITY];
+        nodeCost = new int[INITIAL_CAPACITY];
+        nodePredictedCost = new int[INITIAL_CAPACITY];
+        nodeParent = new int[INITIAL_CAPACITY];
+        nodeRunning = new boolean[INITIAL_CAPACITY];
+        heap = new int[INITIAL_CAPACITY];
+        allocateTable(INITIAL_CAPACITY * 2);
+    }
+
+    /**
+     * Prepare the context for a new search. All nodes of the previous search are discarded.
+     */
+    void reset() {
+        nodeCount = 0;
+        heapSize = 0;
+        tableSize = 0;
+        generation++;
+        if (generation == 0) {
+            /* The generation counter wrapped around. Old entries could become valid again. */
+            Arrays.fill(tableGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Create a new node and store it as the best node for its location.
+     *
+     * @param parent the index of the parent node or {@link #NO_NODE}
+     * @param x the x coordinate of the node
+     * @param y the y coordinate of the node
+     * @param running {@code true} in case the node is reached by running
+     * @param cost the total cost to reach the node
+     * @param heuristic the predicted cost to reach the target from the node
+     * @return the index of the new node
+     */
+    int addNode(int parent, int x, int y, boolean running, int cost, int heuristic) {
+        if (nodeCount == nodeX.length) {
+            growNodes();
+        }
+        int node = nodeCount++;
+        nodeX[node] = x;
+        nodeY[node] = y;
+        nodeCost[node] = cost;
+        nodePredictedCost[node] = cost + heuristic;
+        nodeParent[node] = parent;
+        nodeRunning[node] = running;
+        putNode(x, y, node);
+        return node;
+    }
+
+    @Contract(pure = true)
+    int getNodeX(int node) {
+        return nodeX[node];
+    }
+
+    @Contract(pure = true)
+    int getNodeY(int node) {
+        return nodeY[node];
+    }
+
+    @Contract(pure = true)
+    int getNodeCost(int node) {
+        return nodeCost[node];
+    }
+
+    @Contract(pure = true)
+    int getNodeParent(int node) {
+        return nodeParent[node];
+    }
+
+    @Contract(pure = true)
+    boolean isNodeRunning(int node) {
+        return nodeRunning[node];
+    }
+
+    /**
+     * Get the best node that was created for a location in the current search.
+     *
+     * @param x the x coordinate of the location
+     * @param y the y coordinate of the location
+     * @return the index of the node or {@link #NO_NODE}
+     */
+    @Contract(pure = true)
+    int getNode(int x, int y) {
+        long key = toKey(x, y);
+        int slot = hash(key) & tableMask;
+        while (tableGeneration[slot] == generation) {
+            if (tableKeys[slot] == key) {
+                return tableNodes[slot];
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return NO_NODE;
+    }
+
+    private void putNode(int x, int y, int node) {
+        long key = toKey(x, y);
+        int slot = hash(key) & tableMask;
+        while (tableGeneration[slot] == generation) {
+            if (tableKeys[slot] == key) {
+                tableNodes[slot] = node;
+                return;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        tableKeys[slot] = key;
+        tableNodes[slot] = node;
+        tableGeneration[slot] = generation;
+        tableSize++;
+        if (tableSize > (tableKeys.length * MAX_LOAD)) {
+            growTable();
+        }
+    }
+
+    @Contract(pure = true)
+    boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Add a node to the open nodes.
+     *
+     * @param node the index of the node
+     */
+    void pushOpen(int node) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        int index = heapSize++;
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentNode = heap[parentIndex];
+            if (!isBefore(node, parentNode)) {
+                break;
+            }
+            heap[index] = parentNode;
+            index = parentIndex;
+        }
+        heap[index] = node;
+    }
+
+    /**
+     * Remove the open node with the lowest predicted cost.
+     *
+     * @return the index of the node
+     */
+    int pollOpen() {
+        int result = heap[0];
+        int last = heap[--heapSize];
+        int index = 0;
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if ((right < heapSize) && isBefore(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!isBefore(heap[child], last)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+        return result;
+    }
+
+    @Contract(pure = true)
+    private boolean isBefore(int node, int other) {
+        int nodeValue = nodePredictedCost[node];
+        int otherValue = nodePredictedCost[other];
+        return (nodeValue < otherValue) || ((nodeValue == otherValue) && (node < other));
+    }
+
+    private void growNodes() {
+        int capacity = nodeX.length * 2;
+        nodeX = Arrays.copyOf(nodeX, capacity);
+        nodeY = Arrays.copyOf(nodeY, capacity);
+        nodeCost = Arrays.copyOf(nodeCost, capacity);
+        nodePredictedCost = Arrays.copyOf(nodePredictedCost, capacity);
+        nodeParent = Arrays.copyOf(nodeParent, capacity);
+        nodeRunning = Arrays.copyOf(nodeRunning, capacity);
+    }
+
+    private void allocateTable(int capacity) {
+        tableKeys = new long[capacity];
+        tableNodes = new int[capacity];
+        tableGeneration = new int[capacity];
+        tableMask = capacity - 1;
+        tableSize = 0;
+        generation = 1;
+    }
+
+    private void growTable() {
+        long[] oldKeys = tableKeys;
+        int[] oldNodes = tableNodes;
+        int[] oldGeneration = tableGeneration;
+        int oldCurrentGeneration = generation;
+
+        allocateTable(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldGeneration[i] == oldCurrentGeneration) {
+                insertFresh(oldKeys[i], oldNodes[i]);
+            }
+        }
+    }
+
+    private void insertFresh(long key, int node) {
+        int slot = hash(key) & tableMask;
+        while (tableGeneration[slot] == generation) {
+            slot = (slot + 1) & tableMask;
+        }
+        tableKeys[slot] = key;
+        tableNodes[slot] = node;
+        tableGeneration[slot] = generation;
+        tableSize++;
+    }
+
+    @Contract(pure = true)
+    private static long toKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    @Contract(pure = true)
+    private static int hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "A* search context (nodes: " + nodeCount + ", open: " + heapSize + ')';
+    }
+}
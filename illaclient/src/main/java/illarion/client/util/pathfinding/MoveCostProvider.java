@@ -43,4 +43,20 @@ public interface MoveCostProvider {
      * @return the cost of the move or {@link #BLOCKED} in case the move is not possible
      */
     int getMovementCost(@Nonnull ServerCoordinate origin, @Nonnull CharMovementMode mode, @Nonnull Direction direction);
+
+    /**
+     * Get the cost for a move from the origin. This variant is used by the path finding algorithms while searching.
+     * Providers that are able to look up the costs without creating a coordinate instance should override it.
+     *
+     * @param originX   the x coordinate of the start location of the move
+     * @param originY   the y coordinate of the start location of the move
+     * @param originZ   the z coordinate of the start location of the move
+     * @param mode      the movement method
+     * @param direction the direction of the move
+     * @return the cost of the move or {@link #BLOCKED} in case the move is not possible
+     */
+    default int getMovementCost(int originX, int originY, int originZ,
+                                @Nonnull CharMovementMode mode, @Nonnull Direction direction) {
+        return getMovementCost(new ServerCoordinate(originX, originY, originZ), mode, direction);
+    }
 }
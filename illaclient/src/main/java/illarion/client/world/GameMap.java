@@ -38,16 +38,9 @@ import org.jetbrains.annotations.Contract;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
 
 /**
  * This handler stores all map data and ensures the updates of the map. This
@@ -110,23 +103,22 @@ public final class GameMap implements LightingMap, Stoppable {
     private final InteractiveMap interactive;
 
     /**
-     * The lock that secures the map tiles.
+     * The handler for the overview map.
      */
     @Nonnull
-    private final ReadWriteLock mapLock;
+    private final GameMiniMap miniMap;
 
     /**
-     * The handler for the overview map.
+     * The tiles of the map.
      */
     @Nonnull
-    private final GameMiniMap miniMap;
+    private final MapTileStore tiles;
 
     /**
-     * The tiles of the map. The key of the hash map is the location key of the tiles location.
+     * The version of the ambient light. This value is increased every time the ambient light changes. The tiles
+     * compare it with the version they applied last time to update their light once they are displayed.
      */
-    @Nonnull
-    @GuardedBy("mapLock")
-    private final Map<ServerCoordinate, MapTile> tiles;
+    private volatile int ambientLightVersion;
 
     /**
      * This is the list of active quest markers that show where a quest starts.
@@ -160,15 +152,13 @@ public final class GameMap implements LightingMap, Stoppable {
      * Default constructor of the map handler.
      */
     public GameMap(@Nonnull Engine engine) throws EngineException {
-        tiles = new HashMap<>();
+        tiles = new MapTileStore();
         interactive = new InteractiveMap(this);
 
         activeQuestStartMarkers = new HashMap<>();
         activeQuestTargetMarkers = new HashMap<>();
         inactiveQuestTargetLocations = new HashMap<>();
 
-        mapLock = new ReentrantReadWriteLock();
-
         miniMap = new GameMiniMap(engine);
 
         showQuestsOnMiniMap = IllaClient.getCfg().getBoolean("showQuestsOnMiniMap");
@@ -334,14 +324,16 @@ public final class GameMap implements LightingMap, Stoppable {
     /**
      * Determines whether a map location accepts the light from a specific direction.
      *
-     * @param coordinate the location of the tile
+     * @param x the x coordinate of the tile
+     * @param y the y coordinate of the tile
+     * @param z the z coordinate of the tile
      * @param dx the X-Delta of the light ray direction
      * @param dy the Y-Delta of the light ray direction
      * @return {@code true} if the position accepts the light, false if not
      */
     @Override
-    public boolean acceptsLight(@Nonnull ServerCoordinate coordinate, int dx, int dy) {
-        MapTile tile = getMapAt(coordinate);
+    public boolean acceptsLight(int x, int y, int z, int dx, int dy) {
+        MapTile tile = getMapAt(x, y, z);
         if (tile != null) {
             switch (tile.getFace()) {
                 case ItemInfo.FACE_ALL:
@@ -367,13 +359,15 @@ public final class GameMap implements LightingMap, Stoppable {
     /**
      * Determines how much the tile blocks the view.
      *
-     * @param coordinate the location of the tile
+     * @param x the x coordinate of the tile
+     * @param y the y coordinate of the tile
+     * @param z the z coordinate of the tile
      * @return obscurity of the tile, 0 for clear view {@link LightingMap#BLOCKED_VIEW} for fully blocked
      */
     @Override
     @Contract(pure = true)
-    public int blocksView(@Nonnull ServerCoordinate coordinate) {
-        MapTile tile = getMapAt(coordinate);
+    public int blocksView(int x, int y, int z) {
+        MapTile tile = getMapAt(x, y, z);
         if (tile == null) {
             return 0;
         }
@@ -392,17 +386,7 @@ public final class GameMap implements LightingMap, Stoppable {
      * Clear the entire map. This will cause all the tiles and items to be removed. It does not touch the characters.
      */
     public void clear() {
-        MapTile[] oldTiles = null;
-
-        mapLock.writeLock().lock();
-        try {
-            oldTiles = tiles.values().toArray(new MapTile[tiles.size()]);
-            tiles.clear();
-        } finally {
-            mapLock.writeLock().unlock();
-        }
-
-        for (MapTile oldTile : oldTiles) {
+        for (MapTile oldTile : tiles.clear()) {
             oldTile.markAsRemoved();
         }
 
@@ -477,12 +461,21 @@ public final class GameMap implements LightingMap, Stoppable {
     @Nullable
     @Contract(pure = true)
     public MapTile getMapAt(@Nonnull ServerCoordinate coordinate) {
-        mapLock.readLock().lock();
-        try {
-            return tiles.get(coordinate);
-        } finally {
-            mapLock.readLock().unlock();
-        }
+        return tiles.get(coordinate);
+    }
+
+    /**
+     * Get a map tile at a specified location. This function does not allocate any memory.
+     *
+     * @param x the x coordinate of the location
+     * @param y the y coordinate of the location
+     * @param z the z coordinate of the location
+     * @return the map tile at the location or {@code null}
+     */
+    @Nullable
+    @Contract(pure = true)
+    public MapTile getMapAt(int x, int y, int z) {
+        return tiles.get(x, y, z);
     }
 
     /**
@@ -502,72 +495,83 @@ public final class GameMap implements LightingMap, Stoppable {
      * @param coordinate the coordinate of the tile that is to be removed
      */
     public boolean removeTile(ServerCoordinate coordinate) {
-        @Nullable MapTile removedTile = null;
-        mapLock.writeLock().lock();
-        try {
-            removedTile = tiles.remove(coordinate);
-        } finally {
-            mapLock.writeLock().unlock();
-        }
-
+        @Nullable MapTile removedTile = tiles.remove(coordinate);
         if (removedTile != null) {
-            @Nullable QuestMarkerCarrier marker = activeQuestTargetMarkers.remove(coordinate);
-            if (marker != null) {
-                QuestMarker questMarker = marker.getMapMarker();
-                if (questMarker != null) {
-                    questMarker.markAsRemoved();
-                }
+            onTileRemoved(removedTile);
+            return true;
+        }
+        return false;
+    }
 
-                Pointer guiMarker = marker.getGuiMarker();
-                if (guiMarker != null) {
-                    inactiveQuestTargetLocations.put(coordinate, new QuestMarkerCarrier(null, guiMarker));
-                }
+    /**
+     * Clean up everything related to a tile that got removed from the map.
+     *
+     * @param removedTile the tile that got removed
+     */
+    private void onTileRemoved(@Nonnull MapTile removedTile) {
+        ServerCoordinate coordinate = removedTile.getCoordinates();
+        @Nullable QuestMarkerCarrier marker = activeQuestTargetMarkers.remove(coordinate);
+        if (marker != null) {
+            QuestMarker questMarker = marker.getMapMarker();
+            if (questMarker != null) {
+                questMarker.markAsRemoved();
             }
 
-            @Nullable QuestMarkerCarrier startMarker = activeQuestStartMarkers.remove(coordinate);
-            if (startMarker != null) {
-                startMarker.removeMarker();
+            Pointer guiMarker = marker.getGuiMarker();
+            if (guiMarker != null) {
+                inactiveQuestTargetLocations.put(coordinate, new QuestMarkerCarrier(null, guiMarker));
             }
+        }
 
-            removedTile.markAsRemoved();
-            return true;
+        @Nullable QuestMarkerCarrier startMarker = activeQuestStartMarkers.remove(coordinate);
+        if (startMarker != null) {
+            startMarker.removeMarker();
         }
-        return false;
+
+        removedTile.markAsRemoved();
     }
 
     /**
      * Render lights based on the tile light and the ambient light generated by the current IG time and the weather.
+     * Only the tiles that received new light values are updated.
+     *
+     * @param coordinates the locations of the tiles that need to render their light
      */
     @Override
-    public void renderLights() {
-        mapLock.writeLock().lock();
-        try {
-            Color ambientLight = World.getWeather().getAmbientLight();
-            for (MapTile tile : tiles.values()) {
+    public void renderLights(@Nonnull Collection<ServerCoordinate> coordinates) {
+        Color ambientLight = World.getWeather().getAmbientLight();
+        for (ServerCoordinate coordinate : coordinates) {
+            MapTile tile = getMapAt(coordinate);
+            if (tile != null) {
                 tile.renderLight();
                 tile.applyAmbientLight(ambientLight);
             }
-        } finally {
-            mapLock.writeLock().unlock();
         }
 
         World.getPeople().updateLight();
     }
 
+    /**
+     * Notify the map that the ambient light changed. The tiles are not updated at once, each tile applies the new
+     * ambient light the next time its light is requested.
+     */
     public void updateAmbientLight() {
-        mapLock.writeLock().lock();
-        try {
-            Color ambientLight = World.getWeather().getAmbientLight();
-            for (MapTile tile : tiles.values()) {
-                tile.applyAmbientLight(ambientLight);
-            }
-        } finally {
-            mapLock.writeLock().unlock();
-        }
+        ambientLightVersion++;
 
         World.getPeople().updateLight();
     }
 
+    /**
+     * Get the current version of the ambient light.
+     *
+     * @return the version of the ambient light
+     * @see #updateAmbientLight()
+     */
+    @Contract(pure = true)
+    int getAmbientLightVersion() {
+        return ambientLightVersion;
+    }
+
     @Override
     public void saveShutdown() {
         clear();
@@ -575,48 +579,44 @@ public final class GameMap implements LightingMap, Stoppable {
     }
 
     /**
-     * Set a light color on a tile.
+     * Add a light color to a tile.
      *
-     * @param coordinate the location of the map tile on the server map
-     * @param color the color that shall be set for this tile
+     * @param x the x coordinate of the map tile on the server map
+     * @param y the y coordinate of the map tile on the server map
+     * @param z the z coordinate of the map tile on the server map
+     * @param red the red component of the light that is added to this tile
+     * @param green the green component of the light that is added to this tile
+     * @param blue the blue component of the light that is added to this tile
      */
     @Override
-    public void setLight(@Nonnull ServerCoordinate coordinate, @Nonnull Color color) {
-        MapTile tile = getMapAt(coordinate);
+    public void setLight(int x, int y, int z, float red, float green, float blue) {
+        MapTile tile = getMapAt(x, y, z);
         if (tile != null) {
-            tile.addLight(color);
+            tile.addLight(red, green, blue);
         }
     }
 
     /**
-     * This function sends all tiles to the map processor and causes it to check the tiles again.
+     * This function sends all tiles to the map processor and causes it to check the tiles again. Chunks of the map
+     * that are entirely outside of the clipping range are dropped at once, the remaining tiles are checked one by one.
      */
     public void updateAllTiles() {
-        Collection<ServerCoordinate> tilesToDelete = new HashSet<>();
-        mapLock.readLock().lock();
-        try {
-            tilesToDelete.addAll(tiles.values().stream().filter(GameMapProcessor2::isOutsideOfClipping).map(MapTile::getCoordinates).collect(Collectors.toList()));
-        } finally {
-            mapLock.readLock().unlock();
+        for (MapTile removedTile : tiles.removeChunks(GameMapProcessor2::isOutsideOfClipping)) {
+            onTileRemoved(removedTile);
         }
-        if (!tilesToDelete.isEmpty()) {
-            mapLock.writeLock().lock();
-            try {
-                tilesToDelete.forEach(this::removeTile);
-            } finally {
-                mapLock.writeLock().unlock();
+
+        Collection<ServerCoordinate> tilesToDelete = new ArrayList<>();
+        tiles.forEach(tile -> {
+            if (GameMapProcessor2.isOutsideOfClipping(tile)) {
+                tilesToDelete.add(tile.getCoordinates());
             }
-        }
+        });
+        tilesToDelete.forEach(this::removeTile);
     }
 
     public void updateTiles(@Nonnull Iterable<TileUpdate> updateDataList) {
-        mapLock.writeLock().lock();
-        try {
-            for (@Nonnull TileUpdate updateData : updateDataList) {
-                updateTile(updateData);
-            }
-        } finally {
-            mapLock.writeLock().unlock();
+        for (@Nonnull TileUpdate updateData : updateDataList) {
+            updateTile(updateData);
         }
     }
 
@@ -647,16 +647,10 @@ public final class GameMap implements LightingMap, Stoppable {
             }
 
             if (newTile) {
-                tile.applyAmbientLight(World.getWeather().getAmbientLight());
                 setColorLinks(tile);
                 GameMapProcessor2.processTile(tile);
 
-                mapLock.writeLock().lock();
-                try {
-                    tiles.put(coordinate, tile);
-                } finally {
-                    mapLock.writeLock().unlock();
-                }
+                tiles.put(tile);
 
                 QuestMarkerCarrier inactiveMarker = inactiveQuestTargetLocations.remove(updateData.getLocation());
                 if (inactiveMarker != null) {
@@ -689,7 +683,8 @@ public final class GameMap implements LightingMap, Stoppable {
     @Nullable
     @Contract(pure = true)
     private MapTile getMapAt(@Nonnull ServerCoordinate origin, @Nonnull Direction direction) {
-        return getMapAt(new ServerCoordinate(origin, direction));
+        return tiles.get(origin.getX() + direction.getDirectionVectorX(),
+                         origin.getY() + direction.getDirectionVectorY(), origin.getZ());
     }
 
     /**
@@ -700,17 +695,12 @@ public final class GameMap implements LightingMap, Stoppable {
     private void setColorLinks(@Nonnull MapTile tile) {
         ServerCoordinate tileLocation = tile.getCoordinates();
 
-        mapLock.readLock().lock();
-        try {
-            //noinspection ConstantConditions
-            for (Direction dir : Direction.values()) {
-                MapTile offsetTile = getMapAt(tileLocation, dir);
-                if (offsetTile != null) {
-                    tile.linkColors(offsetTile, dir);
-                }
+        //noinspection ConstantConditions
+        for (Direction dir : Direction.values()) {
+            MapTile offsetTile = getMapAt(tileLocation, dir);
+            if (offsetTile != null) {
+                tile.linkColors(offsetTile, dir);
             }
-        } finally {
-            mapLock.readLock().unlock();
         }
     }
 }
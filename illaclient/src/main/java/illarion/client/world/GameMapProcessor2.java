@@ -126,6 +126,48 @@ public final class GameMapProcessor2 {
 
     }
 
+    /**
+     * Check if a rectangular region of the map is entirely outside of the clipping range. This is used to drop
+     * complete chunks of the map at once.
+     *
+     * @param minX the smallest x coordinate of the region
+     * @param minY the smallest y coordinate of the region
+     * @param maxX the largest x coordinate of the region
+     * @param maxY the largest y coordinate of the region
+     * @param z the level of the region
+     * @return {@code true} in case every tile in the region is outside of the clipping range
+     */
+    public static boolean isOutsideOfClipping(int minX, int minY, int maxX, int maxY, int z) {
+        if (!World.getPlayer().hasValidLocation()) {
+            return false;
+        }
+
+        ServerCoordinate playerLoc = World.getPlayer().getLocation();
+
+        if (((playerLoc.getZ() + 2) < z) || ((playerLoc.getZ() - 2) > z)) {
+            return true;
+        }
+
+        MapDimensions mapDim = MapDimensions.getInstance();
+
+        if ((playerLoc.toMapColumn() + mapDim.getClippingOffsetLeft()) > ServerCoordinate.toMapColumn(maxX, maxY)) {
+            return true;
+        }
+
+        if ((playerLoc.toMapColumn() + mapDim.getClippingOffsetRight()) < ServerCoordinate.toMapColumn(minX, minY)) {
+            return true;
+        }
+
+        int level = (Math.abs(z - playerLoc.getZ()) * 6) + 1;
+
+        if ((playerLoc.toMapRow() + mapDim.getClippingOffsetTop()) < (ServerCoordinate.toMapRow(minX, maxY) - level)) {
+            return true;
+        }
+
+        return (playerLoc.toMapRow() + mapDim.getClippingOffsetBottom()) >
+                (ServerCoordinate.toMapRow(maxX, minY) + level);
+    }
+
     public static void checkInside() {
         ServerCoordinate playerLocation = World.getPlayer().getLocation();
 
@@ -169,7 +211,7 @@ public final class GameMapProcessor2 {
             }
             currentZ--;
 
-            MapTile tile = World.getMap().getMapAt(new ServerCoordinate(currentX, currentY, currentZ));
+            MapTile tile = World.getMap().getMapAt(currentX, currentY, currentZ);
             if (tile != null) {
                 return tile;
             }
@@ -194,7 +236,7 @@ public final class GameMapProcessor2 {
             }
             currentZ++;
 
-            MapTile tile = World.getMap().getMapAt(new ServerCoordinate(currentX, currentY, currentZ));
+            MapTile tile = World.getMap().getMapAt(currentX, currentY, currentZ);
             if (tile != null) {
                 return tile;
             }
@@ -209,8 +251,8 @@ public final class GameMapProcessor2 {
         GameMap map = World.getMap();
         //noinspection ConstantConditions
         for (Direction dir : Direction.values()) {
-            ServerCoordinate newLoc = new ServerCoordinate(startLocation, dir);
-            MapTile tile = map.getMapAt(newLoc);
+            MapTile tile = map.getMapAt(startLocation.getX() + dir.getDirectionVectorX(),
+                                        startLocation.getY() + dir.getDirectionVectorY(), startLocation.getZ());
             if (tile != null) {
                 MapGroup group = tile.getMapGroup();
                 if (group != null) {
@@ -35,21 +35,10 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.lang.ref.Reference;
-import java.lang.ref.SoftReference;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class stores a reduced version of the full map the character knows. The map data is packed to a minimized and
@@ -69,11 +58,6 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
      */
     public static final int WORLDMAP_WIDTH = 1024;
 
-    /**
-     * The bytes that are reserved for one tile in the internal storage.
-     */
-    private static final int BYTES_PER_TILE = 2;
-
     /**
      * The log file handler that takes care for the logging output of this class.
      */
@@ -96,19 +80,11 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
     private static final int MINI_RADIUS = 81;
 
     /**
-     * This map contains all mini map data that is load. All map data is stored as soft references to allow them to
-     * be cleaned up as needed.
+     * This map contains the caches of all mini maps that are currently open. These are the maps of the current
+     * origin and the levels around it.
      */
     @Nonnull
-    private final Map<ServerCoordinate, Reference<ByteBuffer>> mapDataStorage;
-
-    /**
-     * This list is used to keep strong references to the map data that is currently active used in order to avoid
-     * that this map data is cleared too soon.
-     */
-    @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
-    @Nonnull
-    private final List<ByteBuffer> strongMapDataStorage;
+    private final Map<ServerCoordinate, MiniMapCache> mapCaches;
 
     /**
      * The origin location of the map.
@@ -135,16 +111,7 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
         worldMap = engine.getAssets().createWorldMap(this);
         miniMapImage = new IgeMiniMapRenderImage(engine, worldMap, MINI_RADIUS);
 
-        mapDataStorage = new HashMap<>();
-        strongMapDataStorage = new ArrayList<>(5);
-    }
-
-    @Nonnull
-    private static ByteBuffer createMapBuffer() {
-        int size = WorldMap.WORLD_MAP_WIDTH * WorldMap.WORLD_MAP_HEIGHT * BYTES_PER_TILE;
-        ByteBuffer buffer = ByteBuffer.allocate(size);
-        buffer.order(ByteOrder.nativeOrder());
-        return buffer;
+        mapCaches = new ConcurrentHashMap<>();
     }
 
     /**
@@ -182,32 +149,6 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
         worldMap.render(container);
     }
 
-    /**
-     * Encode a server location to the index in the map data buffer.
-     *
-     * @param x the x coordinate of the location on the map
-     * @param y the y coordinate of the location on the map
-     * @return the index of the location in the map data buffer
-     * @throws IllegalArgumentException in case either x or y is out of the local range
-     */
-    private int encodeLocation(int x, int y) {
-        if (mapOrigin == null) {
-            throw new IllegalStateException(
-                    "Encoding the location is not possible until the origin of the map is set.");
-        }
-        int mapOriginY = mapOrigin.getY();
-        if ((y < mapOriginY) || (y >= (mapOriginY + WORLDMAP_HEIGHT))) {
-            throw new IllegalArgumentException("y out of range");
-        }
-
-        int mapOriginX = mapOrigin.getX();
-        if ((x < mapOriginX) || (x >= (mapOriginX + WORLDMAP_WIDTH))) {
-            throw new IllegalArgumentException("x out of range");
-        }
-
-        return ((y - mapOriginY) * WORLDMAP_WIDTH * BYTES_PER_TILE) + ((x - mapOriginX) * BYTES_PER_TILE);
-    }
-
     /**
      * Check if a location is within the coordinate space of the currently load set of mini maps.
      *
@@ -246,37 +187,6 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
         return isLocationOnMap(loc.getX(), loc.getY(), loc.getZ());
     }
 
-    /**
-     * This function causes the byte buffer that holds the mini map data in the storage to be stored only with a soft
-     * reference. After this was called its possible that the data is cleared at some point in future.
-     *
-     * @param origin the origin location of the map.
-     */
-    private void weakenMapDataStorage(@Nonnull ServerCoordinate origin) {
-        ByteBuffer mapData = getMapDataStorage(origin);
-        if (mapData == null) {
-            mapDataStorage.remove(origin);
-        } else {
-            strongMapDataStorage.remove(mapData);
-        }
-    }
-
-    /**
-     * Fetch the map data from the storage.
-     *
-     * @param mapOrigin the origin of the map
-     * @return the map data or {@code null} in case the data for this map is not load
-     */
-    @Nullable
-    private ByteBuffer getMapDataStorage(@Nonnull ServerCoordinate mapOrigin) {
-        @Nullable Reference<ByteBuffer> mapDataRef = mapDataStorage.get(mapOrigin);
-        if (mapDataRef == null) {
-            return null;
-        }
-        @Nullable ByteBuffer mapData = mapDataRef.get();
-        return mapData;
-    }
-
     /**
      * Get the list of origins that needs to be handled as alive.
      *
@@ -305,60 +215,47 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
         ServerCoordinate oldOrigin = mapOrigin;
         mapOrigin = newOrigin;
 
-        if (oldOrigin == null) {
-            List<ServerCoordinate> loadList = getOriginsList(newOrigin);
-            loadList.forEach(this::strengthenOrLoadMap);
-            return;
-        }
-
-        /* Find out what origins turn in active and what new ones get active. */
-        List<ServerCoordinate> oldActive = getOriginsList(oldOrigin);
         List<ServerCoordinate> newActive = getOriginsList(newOrigin);
-
-        @Nonnull Iterator<ServerCoordinate> oldActiveItr = oldActive.iterator();
-        while (oldActiveItr.hasNext()) {
-            ServerCoordinate checkedOrigin = oldActiveItr.next();
-            if (newActive.contains(checkedOrigin)) {
-                newActive.remove(checkedOrigin);
-                oldActiveItr.remove();
+        if (oldOrigin != null) {
+            /* Close the maps that are not needed anymore. Writing the changes is done in the background. */
+            List<ServerCoordinate> oldActive = getOriginsList(oldOrigin);
+            oldActive.removeAll(newActive);
+            for (ServerCoordinate loc : oldActive) {
+                MiniMapCache cache = mapCaches.remove(loc);
+                if (cache != null) {
+                    GlobalExecutorService.getService().submit(() -> closeMap(cache));
+                }
             }
         }
 
-        Collection<Callable<Void>> updateList = new ArrayList<>();
-
-        /* Save all the old data to the file system and weaken the storage of each map. */
-        for (@Nonnull ServerCoordinate loc : oldActive) {
-            updateList.add(new Callable<Void>() {
-                @Nullable
-                @Override
-                public Void call() {
-                    saveMap(loc);
-                    weakenMapDataStorage(loc);
-                    return null;
-                }
-            });
-        }
+        /* Opening the maps only maps the files to the memory. The data is read once its accessed. */
+        newActive.stream().filter(loc -> !mapCaches.containsKey(loc)).forEach(this::openMap);
+        performFullUpdate();
+    }
 
-        /* Reactivate or load all the maps that are newly inside the player range. */
-        for (@Nonnull ServerCoordinate loc : newActive) {
-            updateList.add(new Callable<Void>() {
-                @Nullable
-                @Override
-                public Void call() {
-                    strengthenOrLoadMap(loc);
-                    return null;
-                }
-            });
+    /**
+     * Open the cache of a map.
+     *
+     * @param origin the origin of the map
+     */
+    private void openMap(@Nonnull ServerCoordinate origin) {
+        try {
+            mapCaches.put(origin, MiniMapCache.open(getMapFilename(origin), getLegacyMapFilename(origin)));
+        } catch (IOException e) {
+            LOGGER.error("Failed to open the mini map file for {}", origin, e);
         }
+    }
 
-        boolean executionInProgress = true;
-        while (executionInProgress) {
-            executionInProgress = false;
-            try {
-                GlobalExecutorService.getService().invokeAll(updateList);
-            } catch (@Nonnull InterruptedException ignored) {
-                executionInProgress = true;
-            }
+    /**
+     * Close the cache of a map. All changes are written to the disk.
+     *
+     * @param cache the cache of the map
+     */
+    private static void closeMap(@Nonnull MiniMapCache cache) {
+        try {
+            cache.close();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close the mini map file.", e);
         }
     }
 
@@ -387,12 +284,12 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
             callback.setTile(location, WorldMap.NO_TILE, WorldMap.NO_TILE, false);
             return;
         }
-        ByteBuffer mapData = getMapDataStorage(mapOrigin);
-        if (mapData == null) {
+        MiniMapCache cache = mapCaches.get(mapOrigin);
+        if (cache == null) {
             callback.setTile(location, WorldMap.NO_TILE, WorldMap.NO_TILE, false);
             return;
         }
-        int tileData = mapData.getShort(encodeLocation(location));
+        int tileData = cache.getTile(location.getX() - mapOrigin.getX(), location.getY() - mapOrigin.getY());
 
         if (tileData == 0) {
             callback.setTile(location, WorldMap.NO_TILE, WorldMap.NO_TILE, false);
@@ -419,6 +316,79 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
         }
     }
 
+    @Override
+    public void requestTiles(@Nonnull ServerCoordinate origin, int width, int height, @Nonnull int[] target) {
+        ServerCoordinate currentOrigin = mapOrigin;
+        if (currentOrigin == null) {
+            throw new IllegalStateException("Requesting a new tile is illegal while the origin of the map is not set.");
+        }
+
+        int emptyTile = WorldMapDataProvider.packTile(WorldMap.NO_TILE, WorldMap.NO_TILE, false);
+        Arrays.fill(target, 0, width * height, emptyTile);
+        if (origin.getZ() != currentOrigin.getZ()) {
+            return;
+        }
+        MiniMapCache cache = mapCaches.get(currentOrigin);
+        if (cache == null) {
+            return;
+        }
+
+        int startX = Math.max(origin.getX(), currentOrigin.getX());
+        int endX = Math.min(origin.getX() + width, currentOrigin.getX() + WORLDMAP_WIDTH);
+        int startY = Math.max(origin.getY(), currentOrigin.getY());
+        int endY = Math.min(origin.getY() + height, currentOrigin.getY() + WORLDMAP_HEIGHT);
+        if ((startX >= endX) || (startY >= endY)) {
+            return;
+        }
+
+        int[] mapColors = getMapColorTable();
+        int rowLength = endX - startX;
+        for (int y = startY; y < endY; y++) {
+            int rowOffset = ((y - origin.getY()) * width) + (startX - origin.getX());
+            cache.getRow(startX - currentOrigin.getX(), y - currentOrigin.getY(), rowLength, target, rowOffset);
+            for (int i = rowOffset; i < (rowOffset + rowLength); i++) {
+                target[i] = toPackedTile(target[i], mapColors);
+            }
+        }
+    }
+
+    /**
+     * Create the table that translates the tile IDs stored in the mini map to the map colors of the tiles.
+     *
+     * @return the table, it contains {@code -1} for all IDs that do not refer to a known tile
+     */
+    @Nonnull
+    private static int[] getMapColorTable() {
+        TileFactory factory = TileFactory.getInstance();
+        int[] mapColors = new int[(MASK_TILE_ID | MASK_OVERLAY_ID) + 1];
+        for (int id = 0; id < mapColors.length; id++) {
+            mapColors[id] = factory.hasTemplate(id) ? factory.getTemplate(id).getTileInfo().getMapColor() : -1;
+        }
+        return mapColors;
+    }
+
+    /**
+     * Convert the tile data stored in the mini map into the packed tile data of the world map.
+     *
+     * @param tileData the tile data of the mini map
+     * @param mapColors the table created by {@link #getMapColorTable()}
+     * @return the packed tile data
+     */
+    private static int toPackedTile(int tileData, @Nonnull int[] mapColors) {
+        if (tileData == 0) {
+            return WorldMapDataProvider.packTile(WorldMap.NO_TILE, WorldMap.NO_TILE, false);
+        }
+
+        boolean blocked = (tileData & MASK_BLOCKED) > 0;
+        int tileMapColor = mapColors[tileData & MASK_TILE_ID];
+        if (tileMapColor < 0) {
+            return WorldMapDataProvider.packTile(WorldMap.NO_TILE, WorldMap.NO_TILE, blocked);
+        }
+        int overlayMapColor = mapColors[tileData & MASK_OVERLAY_ID];
+        return WorldMapDataProvider.packTile(tileMapColor, (overlayMapColor < 0) ? WorldMap.NO_TILE : overlayMapColor,
+                                             blocked);
+    }
+
     @Nonnull
     private static ServerCoordinate getOriginLocation(@Nonnull ServerCoordinate playerLoc) {
         int newMapLevel = playerLoc.getZ();
@@ -458,110 +428,34 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
      * Save all maps that are currently load to the hard disk.
      */
     public void saveAllMaps() {
-        if (mapOrigin != null) {
-            List<ServerCoordinate> origins = getOriginsList(mapOrigin);
-            origins.forEach(this::saveMap);
-        }
-    }
-
-    /**
-     * Save the current map to its file.
-     */
-    private void saveMap(@Nonnull ServerCoordinate origin) {
-        @Nullable ByteBuffer mapData = getMapDataStorage(origin);
-        if (mapData == null) {
-            return;
-        }
-
-        Path mapFile = getMapFilename(origin);
-        if (Files.exists(mapFile) && !Files.isWritable(mapFile)) {
-            LOGGER.error("The map file is not accessible. Can't write anything.");
-            return;
-        }
-
-        try (WritableByteChannel outChannel = Channels
-                .newChannel(new GZIPOutputStream(Files.newOutputStream(mapFile)))) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (mapData) {
-                mapData.rewind();
-                int toWrite = mapData.remaining();
-                while (toWrite > 0) {
-                    toWrite -= outChannel.write(mapData);
-                }
-            }
-        } catch (@Nonnull FileNotFoundException e) {
-            LOGGER.error("Target file not found", e);
-        } catch (@Nonnull IOException e) {
-            LOGGER.error("Error while writing minimap file", e);
-        }
+        mapCaches.values().forEach(MiniMapCache::flush);
     }
 
     /**
      * Get the full path string to the file for the currently selected map. This file needs to be used to store and
-     * load
-     * the map data.
+     * load the map data.
      *
      * @return the path and the filename of the map file
      */
     @Nonnull
     private static Path getMapFilename(@Nonnull ServerCoordinate mapOrigin) {
-        StringBuilder builder = new StringBuilder();
-        builder.setLength(0);
-        builder.append("map");
-        builder.append(mapOrigin.getX() / WORLDMAP_WIDTH);
-        builder.append(mapOrigin.getY() / WORLDMAP_HEIGHT);
-        builder.append(mapOrigin.getZ());
-        builder.append(".dat");
-        return World.getPlayer().getPath().resolve(builder.toString());
+        return World.getPlayer().getPath().resolve(getMapName(mapOrigin) + ".map");
     }
 
     /**
-     * This function either creates a strong storage entry of the map data or loads the map data from the file system
-     * and create the strong storage after.
+     * Get the file the map data was stored in by older versions of the client. These files are compressed and are
+     * converted once they are found.
      *
-     * @param mapOrigin the origin of the map
+     * @return the path and the filename of the legacy map file
      */
-    private void strengthenOrLoadMap(@Nonnull ServerCoordinate mapOrigin) {
-        /* First check if the map is still around. */
-        ByteBuffer existingMapData = getMapDataStorage(mapOrigin);
-        if (existingMapData != null) {
-            strongMapDataStorage.add(existingMapData);
-            return;
-        }
-
-        @Nonnull ByteBuffer mapData = createMapBuffer();
-        Path mapFile = getMapFilename(mapOrigin);
-
-        mapDataStorage.put(mapOrigin, new SoftReference<>(mapData));
-        strongMapDataStorage.add(mapData);
-
-        if (!Files.isRegularFile(mapFile)) {
-            return;
-        }
-
-        try (ReadableByteChannel inChannel = Channels.newChannel(new GZIPInputStream(Files.newInputStream(mapFile)))) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (mapData) {
-                mapData.rewind();
-
-                int read = 1;
-                while (read > 0) {
-                    read = inChannel.read(mapData);
-                }
-                inChannel.close();
-            }
+    @Nonnull
+    private static Path getLegacyMapFilename(@Nonnull ServerCoordinate mapOrigin) {
+        return World.getPlayer().getPath().resolve(getMapName(mapOrigin) + ".dat");
+    }
 
-            performFullUpdate();
-        } catch (@Nonnull IOException e) {
-            LOGGER.error("Failed loading the map data from its file.", e);
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (mapData) {
-                mapData.rewind();
-                while (mapData.hasRemaining()) {
-                    mapData.put((byte) 0);
-                }
-            }
-        }
+    @Nonnull
+    private static String getMapName(@Nonnull ServerCoordinate mapOrigin) {
+        return "map" + (mapOrigin.getX() / WORLDMAP_WIDTH) + (mapOrigin.getY() / WORLDMAP_HEIGHT) + mapOrigin.getZ();
     }
 
     /**
@@ -597,23 +491,16 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
      */
     @SuppressWarnings("BooleanMethodNameMustStartWithQuestion")
     private boolean saveTile(@Nonnull ServerCoordinate loc, int tileID, boolean blocked) {
-        int index = encodeLocation(loc);
-
         ServerCoordinate origin = getOriginLocation(loc);
-        ByteBuffer mapData = getMapDataStorage(origin);
-        if (mapData == null) {
+        MiniMapCache cache = mapCaches.get(origin);
+        if (cache == null) {
             return false;
         }
 
+        int x = loc.getX() - origin.getX();
+        int y = loc.getY() - origin.getY();
         if (tileID == MapTile.ID_NONE) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (mapData) {
-                if (mapData.getShort(index) == 0) {
-                    return false;
-                }
-                mapData.putShort(index, (short) 0);
-            }
-            return true;
+            return cache.setTile(x, y, (short) 0);
         }
 
         short encodedTileValue = (short) TileInfo.getBaseID(tileID);
@@ -622,28 +509,15 @@ public final class GameMiniMap implements WorldMapDataProvider, Stoppable {
             encodedTileValue += 1 << SHIFT_BLOCKED;
         }
 
-        //noinspection SynchronizationOnLocalVariableOrMethodParameter
-        synchronized (mapData) {
-            if (mapData.getShort(index) == encodedTileValue) {
-                return false;
-            }
-            mapData.putShort(index, encodedTileValue);
-        }
-        return true;
-    }
-
-    /**
-     * Encode a server location to the index in the map data buffer.
-     *
-     * @param loc the server location that shall be encoded
-     * @return the index of the location in the map data buffer
-     */
-    private int encodeLocation(@Nonnull ServerCoordinate loc) {
-        return encodeLocation(loc.getX(), loc.getY());
+        return cache.setTile(x, y, encodedTileValue);
     }
 
     @Override
     public void saveShutdown() {
         worldMap.dispose();
+        for (MiniMapCache cache : mapCaches.values()) {
+            closeMap(cache);
+        }
+        mapCaches.clear();
     }
 }
@@ -148,7 +148,14 @@ public final class MapTile {
      * The temporary light instance that is used for the calculations before its applied to the actual light.
      */
     @Nonnull
-    private final Color tmpLight = new Color(Color.WHITE);
+    private final Color tmpLight = new Color(Color.BLACK);
+
+    /**
+     * The version of the ambient light that was applied to this tile the last time.
+     *
+     * @see GameMap#getAmbientLightVersion()
+     */
+    private int ambientLightVersion = -1;
 
     /**
      * The reference to the tile that is obstructing this tile.
@@ -233,6 +240,7 @@ public final class MapTile {
 
     @Nonnull
     public Color getTargetLight() {
+        checkAmbientLight();
         return localColor.getTargetColor();
     }
 
@@ -254,9 +262,20 @@ public final class MapTile {
     }
 
     public void updateColor(int delta) {
+        checkAmbientLight();
         localColor.update(delta);
     }
 
+    /**
+     * Apply the ambient light again in case it changed since it was applied to this tile the last time.
+     */
+    private void checkAmbientLight() {
+        int currentVersion = World.getMap().getAmbientLightVersion();
+        if (currentVersion != ambientLightVersion) {
+            applyAmbientLight(World.getWeather().getAmbientLight());
+        }
+    }
+
     void linkColors(@Nonnull MapTile otherTile, @Nonnull Direction direction) {
         Direction reverseDirection = Direction.getReverse(direction);
         otherTile.colors.put(reverseDirection, localColor);
@@ -524,14 +543,16 @@ public final class MapTile {
     /**
      * Add some light influence to this tile. This is added to the already existing light on this tile
      *
-     * @param color the light that shall be added
+     * @param red the red component of the light that shall be added
+     * @param green the green component of the light that shall be added
+     * @param blue the blue component of the light that shall be added
      */
-    public void addLight(@Nonnull Color color) {
+    public void addLight(float red, float green, float blue) {
         if (removedTile) {
             LOGGER.warn("Adding light to a removed tile.");
             return;
         }
-        tmpLight.add(color);
+        tmpLight.add(red, green, blue);
     }
 
     /**
@@ -752,7 +773,14 @@ public final class MapTile {
         tmpLight.setColor(Color.BLACK);
     }
 
+    /**
+     * Apply the ambient light to the light of this tile. This takes the light calculated by the light tracer and adds
+     * the ambient light to it.
+     *
+     * @param ambientLight the current ambient light
+     */
     public void applyAmbientLight(@Nonnull Color ambientLight) {
+        ambientLightVersion = World.getMap().getAmbientLightVersion();
         targetCenterColor.setColor(tracerColor);
         targetCenterColor.add(ambientLight);
         targetCenterColor.clamp();
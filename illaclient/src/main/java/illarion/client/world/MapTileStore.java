@@ -0,0 +1,480 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.world;
+
+import illarion.common.types.ServerCoordinate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * This class stores the tiles of the game map. The tiles are stored in chunks of 16 by 16 tiles per level. The
+ * chunks are stored in a open addressing hash table keyed by the packed chunk coordinates.
+ * <p>
+ * Looking up a tile does not allocate anything and usually does not lock, as the chunk table is read optimistically.
+ * Only changes to the chunk table acquire the write lock. The tiles inside a chunk are accessed atomically.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@ThreadSafe
+final class MapTileStore {
+    /**
+     * The amount of bits that are shifted away from a coordinate to get the chunk coordinate.
+     */
+    private static final int CHUNK_SHIFT = 4;
+
+    /**
+     * The amount of tiles along one edge of a chunk.
+     */
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * The mask applied to a coordinate to get the coordinate inside the chunk.
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * The mask applied to the chunk coordinates before they are packed into the chunk key.
+     */
+    private static final long KEY_MASK = 0xFFFFF;
+
+    /**
+     * The initial size of the chunk table. This has to be a power of two.
+     */
+    private static final int INITIAL_TABLE_SIZE = 64;
+
+    /**
+     * A single chunk of the map.
+     */
+    private static final class Chunk {
+        /**
+         * The packed coordinates of the chunk.
+         */
+        private final long key;
+
+        /**
+         * The smallest x coordinate of a tile in this chunk.
+         */
+        private final int originX;
+
+        /**
+         * The smallest y coordinate of a tile in this chunk.
+         */
+        private final int originY;
+
+        /**
+         * The level of the chunk.
+         */
+        private final int z;
+
+        /**
+         * The tiles of the chunk.
+         */
+        @Nonnull
+        private final AtomicReferenceArray<MapTile> tiles = new AtomicReferenceArray<>(CHUNK_SIZE * CHUNK_SIZE);
+
+        /**
+         * The amount of tiles that are stored in this chunk.
+         */
+        @GuardedBy("lock")
+        private int tileCount;
+
+        Chunk(long key, int originX, int originY, int z) {
+            this.key = key;
+            this.originX = originX;
+            this.originY = originY;
+            this.z = z;
+        }
+
+        void collectTiles(@Nonnull Consumer<MapTile> consumer) {
+            for (int i = 0; i < tiles.length(); i++) {
+                MapTile tile = tiles.get(i);
+                if (tile != null) {
+                    consumer.accept(tile);
+                }
+            }
+        }
+    }
+
+    /**
+     * This filter is used to select chunks based on the region of the map they cover.
+     */
+    @FunctionalInterface
+    interface RegionFilter {
+        /**
+         * Check if a region is accepted by this filter.
+         *
+         * @param minX the smallest x coordinate of the region
+         * @param minY the smallest y coordinate of the region
+         * @param maxX the largest x coordinate of the region
+         * @param maxY the largest y coordinate of the region
+         * @param z the level of the region
+         * @return {@code true} in case the region is accepted
+         */
+        boolean accept(int minX, int minY, int maxX, int maxY, int z);
+    }
+
+    /**
+     * The lock that guards the structure of the chunk table.
+     */
+    @Nonnull
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The chunk table. The length of this array is always a power of two and it is at most half filled.
+     */
+    @Nonnull
+    private volatile Chunk[] table = new Chunk[INITIAL_TABLE_SIZE];
+
+    /**
+     * The amount of chunks in the table.
+     */
+    @GuardedBy("lock")
+    private int chunkCount;
+
+    /**
+     * The amount of tiles in the store.
+     */
+    private volatile int tileCount;
+
+    private static long getChunkKey(int chunkX, int chunkY, int z) {
+        return ((chunkX & KEY_MASK) << 40) | ((chunkY & KEY_MASK) << 20) | (z & KEY_MASK);
+    }
+
+    private static int getTileIndex(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    private static int getSlot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * Find a chunk in the table. In case this is called without holding a lock, the result has to be validated.
+     *
+     * @param chunks the chunk table
+     * @param key the key of the chunk
+     * @return the slot of the chunk or {@code -1} in case the chunk was not found
+     */
+    private static int findSlot(@Nonnull Chunk[] chunks, long key) {
+        int mask = chunks.length - 1;
+        int slot = getSlot(key, mask);
+        for (int probe = 0; probe < chunks.length; probe++) {
+            Chunk chunk = chunks[slot];
+            if (chunk == null) {
+                return -1;
+            }
+            if (chunk.key == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Nullable
+    private Chunk getChunk(int x, int y, int z) {
+        long key = getChunkKey(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT, z);
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            Chunk[] chunks = table;
+            int slot = findSlot(chunks, key);
+            Chunk chunk = (slot >= 0) ? chunks[slot] : null;
+            if (lock.validate(stamp)) {
+                return chunk;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            Chunk[] chunks = table;
+            int slot = findSlot(chunks, key);
+            return (slot >= 0) ? chunks[slot] : null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get the tile at a location.
+     *
+     * @param x the x coordinate of the tile
+     * @param y the y coordinate of the tile
+     * @param z the z coordinate of the tile
+     * @return the tile or {@code null} in case there is no tile at this location
+     */
+    @Nullable
+    MapTile get(int x, int y, int z) {
+        Chunk chunk = getChunk(x, y, z);
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.tiles.get(getTileIndex(x, y));
+    }
+
+    /**
+     * Get the tile at a location.
+     *
+     * @param coordinate the location of the tile
+     * @return the tile or {@code null} in case there is no tile at this location
+     */
+    @Nullable
+    MapTile get(@Nonnull ServerCoordinate coordinate) {
+        return get(coordinate.getX(), coordinate.getY(), coordinate.getZ());
+    }
+
+    /**
+     * Store a tile at its location.
+     *
+     * @param tile the tile
+     * @return the tile that was replaced or {@code null}
+     */
+    @Nullable
+    MapTile put(@Nonnull MapTile tile) {
+        ServerCoordinate coordinate = tile.getCoordinates();
+        int x = coordinate.getX();
+        int y = coordinate.getY();
+        int z = coordinate.getZ();
+        long key = getChunkKey(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT, z);
+
+        long stamp = lock.writeLock();
+        try {
+            Chunk[] chunks = table;
+            int slot = findSlot(chunks, key);
+            Chunk chunk;
+            if (slot >= 0) {
+                chunk = chunks[slot];
+            } else {
+                chunk = new Chunk(key, x & ~CHUNK_MASK, y & ~CHUNK_MASK, z);
+                insertChunk(chunk);
+            }
+            MapTile oldTile = chunk.tiles.getAndSet(getTileIndex(x, y), tile);
+            if (oldTile == null) {
+                chunk.tileCount++;
+                tileCount++;
+            }
+            return oldTile;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove the tile at a location.
+     *
+     * @param coordinate the location of the tile
+     * @return the removed tile or {@code null} in case there was no tile
+     */
+    @Nullable
+    MapTile remove(@Nonnull ServerCoordinate coordinate) {
+        int x = coordinate.getX();
+        int y = coordinate.getY();
+        long key = getChunkKey(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT, coordinate.getZ());
+
+        long stamp = lock.writeLock();
+        try {
+            Chunk[] chunks = table;
+            int slot = findSlot(chunks, key);
+            if (slot < 0) {
+                return null;
+            }
+            Chunk chunk = chunks[slot];
+            MapTile oldTile = chunk.tiles.getAndSet(getTileIndex(x, y), null);
+            if (oldTile != null) {
+                chunk.tileCount--;
+                tileCount--;
+                if (chunk.tileCount == 0) {
+                    removeSlot(slot);
+                }
+            }
+            return oldTile;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove all chunks that cover a region accepted by the filter.
+     *
+     * @param filter the filter that selects the chunks to remove
+     * @return the tiles that were stored in the removed chunks
+     */
+    @Nonnull
+    List<MapTile> removeChunks(@Nonnull RegionFilter filter) {
+        List<Chunk> removedChunks = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            Chunk[] chunks = table;
+            Chunk[] newChunks = new Chunk[chunks.length];
+            for (Chunk chunk : chunks) {
+                if (chunk == null) {
+                    continue;
+                }
+                if (filter.accept(chunk.originX, chunk.originY, chunk.originX + CHUNK_MASK,
+                                  chunk.originY + CHUNK_MASK, chunk.z)) {
+                    removedChunks.add(chunk);
+                    chunkCount--;
+                    tileCount -= chunk.tileCount;
+                } else {
+                    insertChunk(newChunks, chunk);
+                }
+            }
+            if (!removedChunks.isEmpty()) {
+                table = newChunks;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        List<MapTile> removedTiles = new ArrayList<>();
+        for (Chunk chunk : removedChunks) {
+            chunk.collectTiles(removedTiles::add);
+        }
+        return removedTiles;
+    }
+
+    /**
+     * Remove all tiles from the store.
+     *
+     * @return the removed tiles
+     */
+    @Nonnull
+    List<MapTile> clear() {
+        Chunk[] oldChunks;
+        long stamp = lock.writeLock();
+        try {
+            oldChunks = table;
+            table = new Chunk[INITIAL_TABLE_SIZE];
+            chunkCount = 0;
+            tileCount = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        List<MapTile> removedTiles = new ArrayList<>();
+        for (Chunk chunk : oldChunks) {
+            if (chunk != null) {
+                chunk.collectTiles(removedTiles::add);
+            }
+        }
+        return removedTiles;
+    }
+
+    /**
+     * Call the consumer for every tile in the store. The consumer is not called while holding any lock, so it is
+     * allowed to access the store. Changes to the store that happen during the iteration may or may not be visible.
+     *
+     * @param consumer the consumer
+     */
+    void forEach(@Nonnull Consumer<MapTile> consumer) {
+        Chunk[] chunks;
+        long stamp = lock.readLock();
+        try {
+            chunks = table.clone();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                chunk.collectTiles(consumer);
+            }
+        }
+    }
+
+    /**
+     * Get the amount of tiles in the store.
+     *
+     * @return the amount of tiles
+     */
+    int size() {
+        return tileCount;
+    }
+
+    /**
+     * Check if the store contains no tiles.
+     *
+     * @return {@code true} in case the store is empty
+     */
+    boolean isEmpty() {
+        return tileCount == 0;
+    }
+
+    @GuardedBy("lock")
+    private void insertChunk(@Nonnull Chunk chunk) {
+        Chunk[] chunks = table;
+        if (((chunkCount + 1) << 1) > chunks.length) {
+            Chunk[] newChunks = new Chunk[chunks.length << 1];
+            for (Chunk oldChunk : chunks) {
+                if (oldChunk != null) {
+                    insertChunk(newChunks, oldChunk);
+                }
+            }
+            chunks = newChunks;
+        }
+        insertChunk(chunks, chunk);
+        chunkCount++;
+        table = chunks;
+    }
+
+    private static void insertChunk(@Nonnull Chunk[] chunks, @Nonnull Chunk chunk) {
+        int mask = chunks.length - 1;
+        int slot = getSlot(chunk.key, mask);
+        while (chunks[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        chunks[slot] = chunk;
+    }
+
+    /**
+     * Remove a chunk from the table and shift the following chunks back to keep the probe sequences intact.
+     *
+     * @param slot the slot of the chunk to remove
+     */
+    @GuardedBy("lock")
+    private void removeSlot(int slot) {
+        Chunk[] chunks = table;
+        int mask = chunks.length - 1;
+        int free = slot;
+        chunks[free] = null;
+        int current = free;
+        while (true) {
+            current = (current + 1) & mask;
+            Chunk chunk = chunks[current];
+            if (chunk == null) {
+                break;
+            }
+            int ideal = getSlot(chunk.key, mask);
+            boolean inPlace = (free <= current) ? ((free < ideal) && (ideal <= current)) :
+                    ((free < ideal) || (ideal <= current));
+            if (!inPlace) {
+                chunks[free] = chunk;
+                chunks[current] = null;
+                free = current;
+            }
+        }
+        chunkCount--;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.client.world;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This is the memory mapped file that stores the mini map data of one origin. The file is split into square pages of
+ * tiles, so the tiles close to each other are stored close to each other in the file as well. This way only the
+ * pages of the file around the player are read from the disk and kept in memory by the operating system.
+ * <p>
+ * Each page tracks if it was changed. Flushing the cache only writes something in case at least one page is dirty.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@ThreadSafe
+final class MiniMapCache implements Closeable {
+    /**
+     * The logger that takes care for the logging output of this class.
+     */
+    @Nonnull
+    private static final Logger log = LoggerFactory.getLogger(MiniMapCache.class);
+
+    /**
+     * The bytes that are reserved for one tile in the file.
+     */
+    private static final int BYTES_PER_TILE = 2;
+
+    /**
+     * The amount of bits to shift to get from a tile coordinate to a page coordinate. Each page is 64 x 64 tiles.
+     */
+    private static final int PAGE_SHIFT = 6;
+
+    /**
+     * The width and height of a page in tiles.
+     */
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    /**
+     * The mask to get the location of a tile inside its page.
+     */
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * The amount of pages in one row of the map.
+     */
+    private static final int PAGES_PER_ROW = GameMiniMap.WORLDMAP_WIDTH / PAGE_SIZE;
+
+    /**
+     * The amount of pages of the map.
+     */
+    private static final int PAGE_COUNT = PAGES_PER_ROW * (GameMiniMap.WORLDMAP_HEIGHT / PAGE_SIZE);
+
+    /**
+     * The size of the map file in bytes.
+     */
+    private static final int FILE_SIZE = GameMiniMap.WORLDMAP_WIDTH * GameMiniMap.WORLDMAP_HEIGHT * BYTES_PER_TILE;
+
+    /**
+     * The channel of the file.
+     */
+    @Nonnull
+    private final FileChannel channel;
+
+    /**
+     * The memory mapped content of the file.
+     */
+    @Nonnull
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The flags of the pages that were changed since the last flush.
+     */
+    @Nonnull
+    private final boolean[] dirtyPages;
+
+    /**
+     * The amount of pages that were changed since the last flush.
+     */
+    private int dirtyPageCount;
+
+    private MiniMapCache(@Nonnull FileChannel channel, @Nonnull MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        dirtyPages = new boolean[PAGE_COUNT];
+    }
+
+    /**
+     * Open the cache file of a mini map. In case the file does not exist, its created. In case the file does not
+     * exist but a legacy file in the old compressed format does, the legacy file is converted.
+     *
+     * @param file the cache file
+     * @param legacyFile the file of the map in the old compressed format
+     * @return the opened cache
+     * @throws IOException in case opening the file fails
+     */
+    @Nonnull
+    static MiniMapCache open(@Nonnull Path file, @Nonnull Path legacyFile) throws IOException {
+        boolean convertLegacy = !Files.exists(file) && Files.isRegularFile(legacyFile);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            if (channel.size() != FILE_SIZE) {
+                if (channel.size() > 0) {
+                    log.warn("Mini map file {} has a illegal size. Discarding its content.", file);
+                    channel.truncate(0);
+                }
+                channel.write(ByteBuffer.wrap(new byte[1]), FILE_SIZE - 1);
+            }
+            MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, FILE_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            MiniMapCache cache = new MiniMapCache(channel, buffer);
+            if (convertLegacy) {
+                cache.importLegacyFile(legacyFile);
+            }
+            return cache;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Import the data of a legacy map file. The legacy files store all tiles row by row in native byte order and are
+     * compressed with GZIP. Once the import is done the legacy file is removed.
+     *
+     * @param legacyFile the legacy file
+     */
+    private void importLegacyFile(@Nonnull Path legacyFile) {
+        ByteBuffer legacyData = ByteBuffer.allocate(FILE_SIZE);
+        legacyData.order(ByteOrder.nativeOrder());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(legacyFile))) {
+            byte[] data = legacyData.array();
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read == -1) {
+                    break;
+                }
+                offset += read;
+            }
+        } catch (IOException e) {
+            log.error("Failed to import the legacy mini map file {}", legacyFile, e);
+            return;
+        }
+
+        for (int y = 0; y < GameMiniMap.WORLDMAP_HEIGHT; y++) {
+            for (int x = 0; x < GameMiniMap.WORLDMAP_WIDTH; x++) {
+                short value = legacyData.getShort(((y * GameMiniMap.WORLDMAP_WIDTH) + x) * BYTES_PER_TILE);
+                if (value != 0) {
+                    setTile(x, y, value);
+                }
+            }
+        }
+        flush();
+
+        try {
+            Files.delete(legacyFile);
+        } catch (IOException e) {
+            log.warn("Failed to remove the legacy mini map file {}", legacyFile, e);
+        }
+    }
+
+    /**
+     * Get the index of a tile in the file.
+     *
+     * @param x the x coordinate of the tile relative to the origin of the map
+     * @param y the y coordinate of the tile relative to the origin of the map
+     * @return the index of the first byte of the tile
+     */
+    private static int getIndex(int x, int y) {
+        int page = getPage(x, y);
+        return ((page << (PAGE_SHIFT << 1)) + ((y & PAGE_MASK) << PAGE_SHIFT) + (x & PAGE_MASK)) * BYTES_PER_TILE;
+    }
+
+    private static int getPage(int x, int y) {
+        return ((y >> PAGE_SHIFT) * PAGES_PER_ROW) + (x >> PAGE_SHIFT);
+    }
+
+    /**
+     * Get the encoded data of a tile.
+     *
+     * @param x the x coordinate of the tile relative to the origin of the map
+     * @param y the y coordinate of the tile relative to the origin of the map
+     * @return the encoded tile data
+     */
+    int getTile(int x, int y) {
+        return buffer.getShort(getIndex(x, y));
+    }
+
+    /**
+     * Get the encoded data of consecutive tiles in one row.
+     *
+     * @param x the x coordinate of the first tile relative to the origin of the map
+     * @param y the y coordinate of the tiles relative to the origin of the map
+     * @param length the amount of tiles
+     * @param target the array that receives the encoded tile data
+     * @param offset the index in the array that receives the data of the first tile
+     */
+    void getRow(int x, int y, int length, @Nonnull int[] target, int offset) {
+        int end = x + length;
+        int currentX = x;
+        int targetIndex = offset;
+        while (currentX < end) {
+            /* The tiles of a row are stored consecutive until the end of the page. */
+            int runEnd = Math.min(end, (currentX | PAGE_MASK) + 1);
+            int index = getIndex(currentX, y);
+            for (; currentX < runEnd; currentX++) {
+                target[targetIndex++] = buffer.getShort(index);
+                index += BYTES_PER_TILE;
+            }
+        }
+    }
+
+    /**
+     * Set the encoded data of a tile.
+     *
+     * @param x the x coordinate of the tile relative to the origin of the map
+     * @param y the y coordinate of the tile relative to the origin of the map
+     * @param value the encoded tile data
+     * @return {@code true} in case the data of the tile changed
+     */
+    synchronized boolean setTile(int x, int y, short value) {
+        int index = getIndex(x, y);
+        if (buffer.getShort(index) == value) {
+            return false;
+        }
+        buffer.putShort(index, value);
+
+        int page = getPage(x, y);
+        if (!dirtyPages[page]) {
+            dirtyPages[page] = true;
+            dirtyPageCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Write all changed pages to the disk.
+     */
+    synchronized void flush() {
+        if (dirtyPageCount == 0) {
+            return;
+        }
+        log.debug("Flushing {} changed pages of the mini map.", dirtyPageCount);
+        buffer.force();
+        Arrays.fill(dirtyPages, false);
+        dirtyPageCount = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
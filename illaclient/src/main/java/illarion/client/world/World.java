@@ -15,6 +15,7 @@
  */
 package illarion.client.world;
 
+import illarion.client.IllaClient;
 import illarion.client.graphics.AnimationManager;
 import illarion.client.graphics.MapDisplayManager;
 import illarion.client.gui.GameGui;
@@ -27,10 +28,17 @@ import org.illarion.engine.Engine;
 import org.illarion.engine.EngineException;
 import org.illarion.engine.graphic.LightTracer;
 import org.jetbrains.annotations.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is used to unify the access to the different components of the game and to ensure a proper
@@ -40,6 +48,18 @@ import javax.annotation.concurrent.ThreadSafe;
  */
 @ThreadSafe
 public final class World {
+    /**
+     * The logger that is used for the log output of this class.
+     */
+    @Nonnull
+    private static final Logger log = LoggerFactory.getLogger(World.class);
+
+    /**
+     * The name the statistics of the update tasks are registered with at the platform MBean server.
+     */
+    @Nonnull
+    private static final String UPDATE_STATISTICS_MBEAN_NAME = "illarion.client:type=UpdateTaskManager";
+
     /**
      * The singleton instance of this class.
      */
@@ -87,6 +107,7 @@ public final class World {
         INSTANCE.net = null;
         INSTANCE.weather = null;
         INSTANCE.clock = null;
+        unregisterUpdateStatistics();
         INSTANCE.updateManager = null;
 
         INSTANCE.init = false;
@@ -330,6 +351,9 @@ public final class World {
         }
         INSTANCE.init = true;
         INSTANCE.updateManager = new UpdateTaskManager();
+        INSTANCE.updateManager.setFrameBudget(IllaClient.getCfg().getInteger(UpdateTaskManager.CFG_FRAME_BUDGET),
+                                              TimeUnit.MILLISECONDS);
+        registerUpdateStatistics(INSTANCE.updateManager);
         INSTANCE.aniManager = new AnimationManager();
         INSTANCE.chatHandler = new ChatHandler();
         INSTANCE.clock = new Clock();
@@ -344,6 +368,39 @@ public final class World {
         INSTANCE.interactionManager = new InteractionManager();
     }
 
+    /**
+     * Publish the statistics of the update tasks at the platform MBean server, so they can be monitored with any
+     * JMX client.
+     *
+     * @param updateManager the update task manager that provides the statistics
+     */
+    private static void registerUpdateStatistics(@Nonnull UpdateTaskManager updateManager) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(UPDATE_STATISTICS_MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(updateManager, name);
+            }
+        } catch (@Nonnull JMException e) {
+            log.warn("Failed to publish the update task statistics.", e);
+        }
+    }
+
+    /**
+     * Remove the statistics of the update tasks from the platform MBean server.
+     */
+    private static void unregisterUpdateStatistics() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(UPDATE_STATISTICS_MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (@Nonnull JMException e) {
+            log.warn("Failed to remove the update task statistics.", e);
+        }
+    }
+
     /**
      * Init the GUI of the game.
      *
@@ -230,9 +230,28 @@ public class Movement {
     public int getMovementDuration(@Nonnull ServerCoordinate current,
                                    @Nonnull CharMovementMode mode,
                                    @Nonnull Direction dir) {
+        return getMovementDuration(current.getX(), current.getY(), current.getZ(), mode, dir);
+    }
+
+    /**
+     * Get the duration of a move. This function does not create any coordinate instances, so the path finding can
+     * use it while searching.
+     *
+     * @param currentX the x coordinate of the start location of the move
+     * @param currentY the y coordinate of the start location of the move
+     * @param currentZ the z coordinate of the start location of the move
+     * @param mode the movement method
+     * @param dir the direction of the move
+     * @return the duration of the move or {@code -1} in case the move is not possible
+     */
+    @Contract(pure = true)
+    public int getMovementDuration(int currentX, int currentY, int currentZ,
+                                   @Nonnull CharMovementMode mode,
+                                   @Nonnull Direction dir) {
         if (player.getCarryLoad().isWalkingPossible()) {
-            ServerCoordinate walkingTarget = new ServerCoordinate(current, dir);
-            MapTile walkingTile = World.getMap().getMapAt(walkingTarget);
+            int walkingX = currentX + dir.getDirectionVectorX();
+            int walkingY = currentY + dir.getDirectionVectorY();
+            MapTile walkingTile = World.getMap().getMapAt(walkingX, walkingY, currentZ);
 
             if ((walkingTile != null) && !walkingTile.isBlocked()) {
                 int agility = Math.min(player.getCharacter().getAttribute(CharacterAttribute.Agility), MAX_WALK_AGI);
@@ -244,8 +263,8 @@ public class Movement {
                         mode == CharMovementMode.Run);
 
                 if (mode == CharMovementMode.Run) {
-                    ServerCoordinate runTarget = new ServerCoordinate(walkingTarget, dir);
-                    MapTile runningTile = World.getMap().getMapAt(runTarget);
+                    MapTile runningTile = World.getMap().getMapAt(walkingX + dir.getDirectionVectorX(),
+                            walkingY + dir.getDirectionVectorY(), currentZ);
                     if ((runningTile != null) && !runningTile.isBlocked()) {
                         movementDuration += getMovementDuration(runningTile.getMovementCost(), mods,
                                 dir.isDiagonal(), true);
@@ -276,13 +276,21 @@ class WalkToMovementHandler extends AbstractMovementHandler implements TargetMov
 
     @Override
     public int getMovementCost(@Nonnull ServerCoordinate origin, @Nonnull CharMovementMode mode, @Nonnull Direction direction) {
-        int cost = getMovement().getMovementDuration(origin, mode, direction);
+        return getMovementCost(origin.getX(), origin.getY(), origin.getZ(), mode, direction);
+    }
+
+    @Override
+    public int getMovementCost(int originX, int originY, int originZ,
+                               @Nonnull CharMovementMode mode, @Nonnull Direction direction) {
+        int cost = getMovement().getMovementDuration(originX, originY, originZ, mode, direction);
 
-        if ((cost != MoveCostProvider.BLOCKED) &&
-                origin.equals(getMovement().getServerLocation()) &&
-                (mode == getMovementMode()) &&
-                (direction == getPreferredDirection())) {
-            cost /= 2;
+        if (cost != MoveCostProvider.BLOCKED) {
+            ServerCoordinate currentPos = getMovement().getServerLocation();
+            if ((currentPos.getX() == originX) && (currentPos.getY() == originY) && (currentPos.getZ() == originZ) &&
+                    (mode == getMovementMode()) &&
+                    (direction == getPreferredDirection())) {
+                cost /= 2;
+            }
         }
 
         return cost;
@@ -0,0 +1,320 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2015 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.common.util;
+
+import org.jetbrains.annotations.Contract;
+
+import javax.annotation.Nonnull;
+import javax.annotation.WillNotClose;
+import javax.annotation.concurrent.Immutable;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a resource table that was tokenized at build time and stored in a binary, columnar format. Reading it
+ * requires no text parsing. The columns that only contain integer values are stored as integer arrays, all other
+ * columns are stored as one block of UTF-8 encoded bytes and the strings are only decoded once they are requested.
+ * <p/>
+ * The table stores all tokens of a line, including the two leading tokens of the NDSC tables. The
+ * {@link TableLoader} skips them while reading the table.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@Immutable
+public final class BinaryTable {
+    /**
+     * The marker at the start of every binary table.
+     */
+    private static final int MAGIC = 0x494C5442;
+
+    /**
+     * The version of the binary format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The type marker of a column that stores integer values.
+     */
+    private static final byte TYPE_INT = 0;
+
+    /**
+     * The type marker of a column that stores string values.
+     */
+    private static final byte TYPE_STRING = 1;
+
+    /**
+     * The amount of tokens stored for each row.
+     */
+    @Nonnull
+    private final int[] tokenCounts;
+
+    /**
+     * The values of the integer columns or {@code null} for string columns.
+     */
+    @Nonnull
+    private final int[][] intColumns;
+
+    /**
+     * The start offsets of the strings in {@link #stringData} or {@code null} for integer columns. Each array
+     * contains one additional entry that marks the end of the last string.
+     */
+    @Nonnull
+    private final int[][] stringOffsets;
+
+    /**
+     * The UTF-8 encoded strings of the string columns or {@code null} for integer columns.
+     */
+    @Nonnull
+    private final byte[][] stringData;
+
+    private BinaryTable(
+            @Nonnull int[] tokenCounts,
+            @Nonnull int[][] intColumns,
+            @Nonnull int[][] stringOffsets,
+            @Nonnull byte[][] stringData) {
+        this.tokenCounts = tokenCounts;
+        this.intColumns = intColumns;
+        this.stringOffsets = stringOffsets;
+        this.stringData = stringData;
+    }
+
+    /**
+     * Read a binary table. The stream is read in bulk until its end.
+     *
+     * @param in the stream that supplies the table
+     * @return the table
+     * @throws IOException in case reading the stream fails or the data is not a valid binary table
+     */
+    @Nonnull
+    public static BinaryTable read(@Nonnull @WillNotClose InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        byte[] chunk = new byte[16 * 1024];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return read(ByteBuffer.wrap(buffer.toByteArray()));
+    }
+
+    /**
+     * Read a binary table from a buffer. The buffer may be a memory mapped file.
+     *
+     * @param buffer the buffer that contains the table, it needs to use the big endian byte order
+     * @return the table
+     * @throws IOException in case the data is not a valid binary table
+     */
+    @Nonnull
+    public static BinaryTable read(@Nonnull ByteBuffer buffer) throws IOException {
+        try {
+            if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)) {
+                throw new IOException("The data is not a binary table of a supported version.");
+            }
+            int rowCount = buffer.getInt();
+            int columnCount = buffer.getInt();
+            if ((rowCount < 0) || (columnCount < 0)) {
+                throw new IOException("The size of the binary table is invalid.");
+            }
+
+            int[] tokenCounts = new int[rowCount];
+            buffer.asIntBuffer().get(tokenCounts);
+            buffer.position(buffer.position() + (rowCount * 4));
+
+            int[][] intColumns = new int[columnCount][];
+            int[][] stringOffsets = new int[columnCount][];
+            byte[][] stringData = new byte[columnCount][];
+            for (int column = 0; column < columnCount; column++) {
+                byte type = buffer.get();
+                if (type == TYPE_INT) {
+                    int[] values = new int[rowCount];
+                    buffer.asIntBuffer().get(values);
+                    buffer.position(buffer.position() + (rowCount * 4));
+                    intColumns[column] = values;
+                } else if (type == TYPE_STRING) {
+                    int[] offsets = new int[rowCount + 1];
+                    buffer.asIntBuffer().get(offsets);
+                    buffer.position(buffer.position() + ((rowCount + 1) * 4));
+                    byte[] data = new byte[offsets[rowCount]];
+                    buffer.get(data);
+                    stringOffsets[column] = offsets;
+                    stringData[column] = data;
+                } else {
+                    throw new IOException("Unknown column type: " + type);
+                }
+            }
+            return new BinaryTable(tokenCounts, intColumns, stringOffsets, stringData);
+        } catch (@Nonnull BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("The binary table is truncated.", e);
+        }
+    }
+
+    /**
+     * Convert a table in the text format that is read by the {@link TableLoader} to a binary table. The first line
+     * of the text table is the header and is skipped, as are empty lines and comments.
+     *
+     * @param in the stream that supplies the text table
+     * @param out the stream that receives the binary table
+     * @throws IOException in case reading or writing the data fails
+     */
+    public static void convert(@Nonnull @WillNotClose InputStream in, @Nonnull @WillNotClose OutputStream out)
+            throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        int columnCount = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        // skip header
+        reader.readLine();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // skip comments and empty lines
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            List<String> tokens = new ArrayList<>();
+            TableLoader.parseTokens(line, false, ",", tokens);
+            columnCount = Math.max(columnCount, tokens.size());
+            rows.add(tokens);
+        }
+
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        dataOut.writeInt(MAGIC);
+        dataOut.writeInt(VERSION);
+        dataOut.writeInt(rows.size());
+        dataOut.writeInt(columnCount);
+        for (List<String> row : rows) {
+            dataOut.writeInt(row.size());
+        }
+        for (int column = 0; column < columnCount; column++) {
+            if (isIntColumn(rows, column)) {
+                dataOut.writeByte(TYPE_INT);
+                for (List<String> row : rows) {
+                    dataOut.writeInt((column < row.size()) ? Integer.parseInt(row.get(column)) : 0);
+                }
+            } else {
+                dataOut.writeByte(TYPE_STRING);
+                ByteArrayOutputStream data = new ByteArrayOutputStream();
+                dataOut.writeInt(0);
+                for (List<String> row : rows) {
+                    if (column < row.size()) {
+                        data.write(row.get(column).getBytes(StandardCharsets.UTF_8));
+                    }
+                    dataOut.writeInt(data.size());
+                }
+                data.writeTo(dataOut);
+            }
+        }
+        dataOut.flush();
+    }
+
+    /**
+     * Check if all values of a column are integer values that are converted back to the same text. Only in this
+     * case the column can be stored as integer column without changing the strings read from it.
+     */
+    @Contract(pure = true)
+    private static boolean isIntColumn(@Nonnull Iterable<List<String>> rows, int column) {
+        for (List<String> row : rows) {
+            if (column < row.size()) {
+                String token = row.get(column);
+                try {
+                    if (!Integer.toString(Integer.parseInt(token)).equals(token)) {
+                        return false;
+                    }
+                } catch (@Nonnull NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the amount of rows stored in this table.
+     *
+     * @return the amount of rows
+     */
+    @Contract(pure = true)
+    public int getRowCount() {
+        return tokenCounts.length;
+    }
+
+    /**
+     * Get the amount of tokens that were read in a row.
+     *
+     * @param row the index of the row
+     * @return the amount of tokens of the row
+     */
+    @Contract(pure = true)
+    public int getTokenCount(int row) {
+        return tokenCounts[row];
+    }
+
+    /**
+     * Check if a column stores only integer values.
+     *
+     * @param column the index of the column
+     * @return {@code true} in case the values of the column can be read with {@link #getInt(int, int)}
+     */
+    @Contract(pure = true)
+    public boolean isIntColumn(int column) {
+        return intColumns[column] != null;
+    }
+
+    /**
+     * Get the integer value of a token. The column has to be a integer column.
+     *
+     * @param row the index of the row
+     * @param column the index of the column
+     * @return the value of the token
+     */
+    @Contract(pure = true)
+    public int getInt(int row, int column) {
+        int[] values = intColumns[column];
+        if (values == null) {
+            throw new IllegalArgumentException("Column " + column + " does not store integer values.");
+        }
+        return values[row];
+    }
+
+    /**
+     * Get the text of a token.
+     *
+     * @param row the index of the row
+     * @param column the index of the column
+     * @return the text of the token
+     */
+    @Nonnull
+    @Contract(pure = true)
+    public String getString(int row, int column) {
+        int[] values = intColumns[column];
+        if (values != null) {
+            return Integer.toString(values[row]);
+        }
+        int[] offsets = stringOffsets[column];
+        int start = offsets[row];
+        return new String(stringData[column], start, offsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "Binary table (rows: " + tokenCounts.length + ", columns: " + intColumns.length + ", integer columns: " +
+                Arrays.stream(intColumns).filter(c -> c != null).count() + ')';
+    }
+}
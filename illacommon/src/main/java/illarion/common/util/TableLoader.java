@@ -23,12 +23,21 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Class for loading data tables with different delimiters and also the special
  * NDSC table type that is created by the config tool. The data is tokenized and
  * distributed to a callback class that is allowed to parse the values by the
  * functions offered by this class line by line.
+ * <p/>
+ * Tables that are loaded from the resources are read from their binary version in case it is present. Binary tables
+ * are tokenized at build time already, so reading them does not require parsing the text. Independent tables can be
+ * read in parallel ahead of time using {@link #preloadTables(String...)}.
  *
  * @author Nop
  * @author Martin Karing &lt;nitram@illarion.org&gt;
@@ -47,6 +56,18 @@ public class TableLoader {
     @Nonnull
     private static final Logger LOGGER = LoggerFactory.getLogger(TableLoader.class);
 
+    /**
+     * The delimiter of the tables that are available in the binary format.
+     */
+    @Nonnull
+    private static final String BINARY_DELIMITER = ",";
+
+    /**
+     * The binary tables that are read in the background, stored by the name of the table.
+     */
+    @Nonnull
+    private static final Map<String, CompletableFuture<BinaryTable>> preloadedTables = new ConcurrentHashMap<>();
+
     /**
      * The delimiter that is used at this table.
      */
@@ -59,6 +80,22 @@ public class TableLoader {
     @Nonnull
     private final ArrayList<String> tokens;
 
+    /**
+     * The binary table that is read or {@code null} in case the table is read from the text format.
+     */
+    @Nullable
+    private BinaryTable binaryTable;
+
+    /**
+     * The row of the {@link #binaryTable} that is currently read.
+     */
+    private int binaryRow;
+
+    /**
+     * The amount of leading columns of the {@link #binaryTable} that are skipped.
+     */
+    private int binaryColumnOffset;
+
     /**
      * Construct a table loader that loads the table from the file system. With
      * this constructor the table loader takes a {@code ,} as delimiter.
@@ -162,6 +199,14 @@ public class TableLoader {
             throw new IllegalStateException("This constructor requires a Cryptography instance to be present.");
         }
 
+        if (BINARY_DELIMITER.equals(tableDelimiter)) {
+            BinaryTable binary = getBinaryTable(table);
+            if (binary != null) {
+                loadBinaryTable(binary, ndsc, callback);
+                return;
+            }
+        }
+
         // read table via class loader
         InputStream rsc = Thread.currentThread().getContextClassLoader().getResourceAsStream(table + ".dat");
         if (rsc == null) {
@@ -227,6 +272,85 @@ public class TableLoader {
         crypto = newCrypto;
     }
 
+    /**
+     * Start reading the binary versions of tables in the background. The tables are read in parallel and kept until
+     * a table loader requests them. This requires the crypto instance to be set.
+     *
+     * @param tables the names of the tables
+     */
+    public static void preloadTables(@Nonnull String... tables) {
+        Crypto currentCrypto = crypto;
+        if (currentCrypto == null) {
+            throw new IllegalStateException("Preloading tables requires a Cryptography instance to be present.");
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        for (String table : tables) {
+            preloadedTables.computeIfAbsent(table, name -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readBinaryTable(currentCrypto, classLoader, name);
+                } catch (@Nonnull IOException | CryptoException e) {
+                    LOGGER.warn("Failed to preload the binary table {}", name, e);
+                    return null;
+                }
+            }));
+        }
+    }
+
+    /**
+     * Get the binary version of a table. In case the table was preloaded, the preloaded table is used and released.
+     * Otherwise it is read right away.
+     *
+     * @param table the name of the table
+     * @return the binary table or {@code null} in case there is no usable binary version of the table
+     */
+    @Nullable
+    private static BinaryTable getBinaryTable(@Nonnull String table) {
+        CompletableFuture<BinaryTable> preloaded = preloadedTables.remove(table);
+        if (preloaded != null) {
+            try {
+                return preloaded.get();
+            } catch (@Nonnull InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (@Nonnull ExecutionException e) {
+                LOGGER.warn("Preloading the binary table {} failed", table, e.getCause());
+                return null;
+            }
+        }
+
+        Crypto currentCrypto = crypto;
+        if (currentCrypto == null) {
+            return null;
+        }
+        try {
+            return readBinaryTable(currentCrypto, Thread.currentThread().getContextClassLoader(), table);
+        } catch (@Nonnull IOException | CryptoException e) {
+            LOGGER.warn("Failed to read the binary table {}, falling back to the text table.", table, e);
+            return null;
+        }
+    }
+
+    /**
+     * Read the binary version of a table from the resources. The file name of the binary table ends with
+     * {@code .bin}, it is encrypted in the same way as the text tables.
+     *
+     * @return the binary table or {@code null} in case the resources do not contain the binary table
+     */
+    @Nullable
+    private static BinaryTable readBinaryTable(
+            @Nonnull Crypto crypto, @Nonnull ClassLoader classLoader, @Nonnull String table)
+            throws IOException, CryptoException {
+        try (InputStream rsc = classLoader.getResourceAsStream(table + ".bin")) {
+            if (rsc == null) {
+                return null;
+            }
+            long start = System.nanoTime();
+            BinaryTable result = BinaryTable.read(crypto.getDecryptedStream(rsc));
+            LOGGER.debug("Read binary table {} in {} ms: {}", table, (System.nanoTime() - start) / 1000000, result);
+            return result;
+        }
+    }
+
     /**
      * Return the string representation of a token that was read in the last
      * line with a given index.
@@ -237,6 +361,16 @@ public class TableLoader {
     @Nonnull
     @Contract(pure = true)
     public String get(int index) {
+        BinaryTable binary = binaryTable;
+        if (binary != null) {
+            int column = index + binaryColumnOffset;
+            if (column < binary.getTokenCount(binaryRow)) {
+                return binary.getString(binaryRow, column);
+            }
+            LOGGER.error("Missing element in line at {}", binary.getString(binaryRow, binaryColumnOffset));
+            return "<missing>";
+        }
+
         if (index < tokens.size()) {
             String token = tokens.get(index);
             if (token != null) {
@@ -259,6 +393,9 @@ public class TableLoader {
      */
     @Contract(pure = true)
     public boolean getBoolean(int index) {
+        if (isBinaryInt(index)) {
+            return binaryTable.getInt(binaryRow, index + binaryColumnOffset) != 0;
+        }
         String tokenValue = get(index);
         return !"0".equals(tokenValue);
     }
@@ -272,10 +409,29 @@ public class TableLoader {
      */
     @Contract(pure = true)
     public int getInt(int index) {
+        if (isBinaryInt(index)) {
+            return binaryTable.getInt(binaryRow, index + binaryColumnOffset);
+        }
         String tokenValue = get(index);
         return Integer.parseInt(tokenValue);
     }
 
+    /**
+     * Check if a token of the current line of a binary table is stored as integer value.
+     *
+     * @param index the index of the token
+     * @return {@code true} in case the integer value can be read from the binary table directly
+     */
+    @Contract(pure = true)
+    private boolean isBinaryInt(int index) {
+        BinaryTable binary = binaryTable;
+        if (binary == null) {
+            return false;
+        }
+        int column = index + binaryColumnOffset;
+        return (column < binary.getTokenCount(binaryRow)) && binary.isIntColumn(column);
+    }
+
     /**
      * Return the string representation of a token that was read in the last
      * line with a given index.
@@ -334,6 +490,27 @@ public class TableLoader {
         }
     }
 
+    /**
+     * Hand all rows of a binary table to the callback.
+     *
+     * @param table the binary table
+     * @param ndsc true for NDSC table, that causes the first two tokes ignored
+     * @param callback the callback class that is allowed to parse the values this table loader reads
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends TableLoader> void loadBinaryTable(
+            @Nonnull BinaryTable table, boolean ndsc, @Nonnull TableLoaderSink<T> callback) {
+        binaryTable = table;
+        binaryColumnOffset = ndsc ? 2 : 0;
+        int rowCount = table.getRowCount();
+        for (int row = 0; row < rowCount; row++) {
+            binaryRow = row;
+            if (!callback.processRecord(row, (T) this)) {
+                break;
+            }
+        }
+    }
+
     /**
      * Parse all the tokens delimited by the set delimiter ({@link #delimiter}) from one line into the tokens array
      * ({@link #tokens}). The tokens need to be read by the callback function after this function is done in order to
@@ -344,6 +521,20 @@ public class TableLoader {
      * are ignored
      */
     private void parseTokens(@Nonnull String line, boolean ndsc) {
+        parseTokens(line, ndsc, delimiter, tokens);
+    }
+
+    /**
+     * Parse all the tokens of one line of a table. This is shared with the conversion to the binary tables, so
+     * both formats yield the same tokens.
+     *
+     * @param line the string line that shall be parsed for the tokens
+     * @param ndsc true for ndsc tables. For ndsc tables the first two tokens are ignored
+     * @param delimiter the delimiter of the table
+     * @param tokens the list that receives the tokens
+     */
+    static void parseTokens(
+            @Nonnull String line, boolean ndsc, @Nonnull String delimiter, @Nonnull List<String> tokens) {
         int pos = 0;
         // skip table id and color
         if (ndsc) {
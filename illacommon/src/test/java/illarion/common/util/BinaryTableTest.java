@@ -0,0 +1,64 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2014 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.common.util;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+public class BinaryTableTest {
+    private static BinaryTable convert(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTable.convert(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), out);
+        return BinaryTable.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testConvert() throws Exception {
+        BinaryTable table = convert("id,name,value\n" +
+                                            "1,\"first\",10\n" +
+                                            "# comment\n" +
+                                            "\n" +
+                                            "2,\"zweitä\",007\n" +
+                                            "3,third\n");
+
+        assertEquals(table.getRowCount(), 3);
+        assertEquals(table.getTokenCount(0), 3);
+        assertEquals(table.getTokenCount(2), 2);
+
+        assertTrue(table.isIntColumn(0));
+        assertEquals(table.getInt(1, 0), 2);
+        assertEquals(table.getString(2, 0), "3");
+
+        assertFalse(table.isIntColumn(1));
+        assertEquals(table.getString(0, 1), "first");
+        assertEquals(table.getString(1, 1), "zweitä");
+
+        /* "007" would not be read back as the same text from a integer column. */
+        assertFalse(table.isIntColumn(2));
+        assertEquals(table.getString(1, 2), "007");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testReadInvalid() throws Exception {
+        BinaryTable.read(new ByteArrayInputStream("id,name\n1,2\n".getBytes(StandardCharsets.UTF_8)));
+    }
+}
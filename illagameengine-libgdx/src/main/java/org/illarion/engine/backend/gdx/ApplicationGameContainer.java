@@ -65,6 +65,21 @@ public class ApplicationGameContainer implements DesktopGameContainer {
      */
     private int lastFrameRenderCalls;
 
+    /**
+     * The amount of times the sprite batch was flushed during the last frame because the shader changed.
+     */
+    private int lastFrameShaderFlushes;
+
+    /**
+     * The amount of times the sprite batch was flushed during the last frame because the blending mode changed.
+     */
+    private int lastFrameBlendingFlushes;
+
+    /**
+     * The amount of times the sprite batch was flushed during the last frame because the clipping area changed.
+     */
+    private int lastFrameClippingFlushes;
+
     /**
      * The width of the application in windowed mode.
      */
@@ -207,7 +222,9 @@ public class ApplicationGameContainer implements DesktopGameContainer {
     @Nonnull
     @Override
     public CharSequence[] getDiagnosticLines() {
-        return new CharSequence[]{"Render calls: " + lastFrameRenderCalls};
+        return new CharSequence[]{"Render calls: " + lastFrameRenderCalls,
+                "Flushes: shader " + lastFrameShaderFlushes + ", blending " + lastFrameBlendingFlushes +
+                        ", clipping " + lastFrameClippingFlushes};
     }
 
     @Override
@@ -304,8 +321,11 @@ public class ApplicationGameContainer implements DesktopGameContainer {
         engine = new GdxEngine(gdxApplication, this);
     }
 
-    void setLastFrameRenderCalls(int calls) {
-        lastFrameRenderCalls = calls;
+    void setLastFrameStatistics(int renderCalls, int shaderFlushes, int blendingFlushes, int clippingFlushes) {
+        lastFrameRenderCalls = renderCalls;
+        lastFrameShaderFlushes = shaderFlushes;
+        lastFrameBlendingFlushes = blendingFlushes;
+        lastFrameClippingFlushes = clippingFlushes;
     }
 
     @Override
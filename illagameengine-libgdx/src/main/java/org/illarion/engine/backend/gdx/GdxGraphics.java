@@ -21,8 +21,6 @@ import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.scenes.scene2d.utils.ScissorStack;
 import com.badlogic.gdx.utils.Pools;
 import illarion.common.types.Rectangle;
@@ -34,12 +32,21 @@ import javax.annotation.Nullable;
 
 /**
  * This is the graphics engine implementation that uses libGDX.
+ * <p>
+ * All draw operations are sent to a single sprite batch. The texture effects are only applied to the batch once they
+ * actually change and the lighting of the tiles is written into the vertex colors, so following draw operations
+ * that share the texture, the shader and the blending mode are merged into a single render call. The order of the
+ * draw operations is never changed, as the isometric scene depends on it.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
 class GdxGraphics implements Graphics {
+    /**
+     * The amount of values in the vertex data for a single quad in the sprite batch.
+     */
+    private static final int QUAD_SIZE = 20;
     @Nonnull
-    private static final float[] FLT_BUFFER = new float[20];
+    private static final float[] FLT_BUFFER = new float[QUAD_SIZE * 2];
     /**
      * The libGDX graphics instance that is used to display the graphics.
      */
@@ -70,11 +77,6 @@ class GdxGraphics implements Graphics {
      */
     @Nonnull
     private final com.badlogic.gdx.graphics.Color tempColor4;
-    /**
-     * The shape renderer used to draw primitive shapes.
-     */
-    @Nonnull
-    private final ShapeRenderer shapeRenderer;
     /**
      * This is a temporary texture region instance that is used for some calculations.
      */
@@ -113,6 +115,23 @@ class GdxGraphics implements Graphics {
      * This is set {@code true} in case the clipping is activated.
      */
     private boolean activeClipping;
+    /**
+     * The texture effect that is currently applied to the sprite batch.
+     */
+    @Nullable
+    private GdxTextureEffect activeEffect;
+    /**
+     * The amount of times the sprite batch had to be flushed because the shader changed.
+     */
+    private int shaderFlushes;
+    /**
+     * The amount of times the sprite batch had to be flushed because the blending mode changed.
+     */
+    private int blendingFlushes;
+    /**
+     * The amount of times the sprite batch had to be flushed because the clipping area changed.
+     */
+    private int clippingFlushes;
 
     /**
      * Create a new instance of the graphics engine that is using libGDX to render.
@@ -122,7 +141,6 @@ class GdxGraphics implements Graphics {
     GdxGraphics(@Nonnull GdxEngine engine, @Nonnull com.badlogic.gdx.Graphics gdxGraphics) {
         this.gdxGraphics = gdxGraphics;
         this.engine = engine;
-        shapeRenderer = new ShapeRenderer();
         spriteBatch = new SpriteBatch();
         tempColor1 = new com.badlogic.gdx.graphics.Color();
         tempColor2 = new com.badlogic.gdx.graphics.Color();
@@ -141,6 +159,46 @@ class GdxGraphics implements Graphics {
         return spriteBatch;
     }
 
+    /**
+     * Get the amount of times the sprite batch was flushed because the shader of a texture effect changed since the
+     * last reset of the statistics.
+     *
+     * @return the amount of flushes caused by shader changes
+     */
+    int getShaderFlushes() {
+        return shaderFlushes;
+    }
+
+    /**
+     * Get the amount of times the sprite batch was flushed because the blending mode changed since the last reset
+     * of the statistics.
+     *
+     * @return the amount of flushes caused by blending mode changes
+     */
+    int getBlendingFlushes() {
+        return blendingFlushes;
+    }
+
+    /**
+     * Get the amount of times the sprite batch was flushed because the clipping area changed since the last reset of
+     * the statistics.
+     *
+     * @return the amount of flushes caused by clipping changes
+     */
+    int getClippingFlushes() {
+        return clippingFlushes;
+    }
+
+    /**
+     * Reset the render statistics. This is done once the statistics of a frame got reported.
+     */
+    void resetStatistics() {
+        spriteBatch.totalRenderCalls = 0;
+        shaderFlushes = 0;
+        blendingFlushes = 0;
+        clippingFlushes = 0;
+    }
+
     void setCursor(@Nullable GdxCursor cursor) {
         if (cursor == null) {
             gdxGraphics.setCursor(null);
@@ -209,34 +267,63 @@ class GdxGraphics implements Graphics {
             tempRegion.setRegion(gdxSprite.getFrame(frame).getTextureRegion());
             tempRegion.flip(gdxSprite.isMirrored(), true);
             if (usedEffect != null) {
-                float u, u2;
-                if (tempRegion.isFlipX()) {
-                    u = tempRegion.getU();
-                    u2 = tempRegion.getU2();
-                } else {
-                    u2 = tempRegion.getU();
-                    u = tempRegion.getU2();
-                }
-                float v, v2;
-                if (tempRegion.isFlipY()) {
-                    v = tempRegion.getV();
-                    v2 = tempRegion.getV2();
-                } else {
-                    v2 = tempRegion.getV();
-                    v = tempRegion.getV2();
-                }
-                usedEffect.setTopLeftCoordinate(u2, v2);
-                usedEffect.setBottomRightCoordinate(u, v);
-                usedEffect.activateEffect(spriteBatch);
+                transferTextureCoordinates(tempRegion, usedEffect);
             }
+            applyEffect(usedEffect);
             spriteBatch.draw(tempRegion, tempEngineRectangle.getX(), tempEngineRectangle.getY(), (float) centerTransX,
                     (float) centerTransY, tempEngineRectangle.getWidth(), tempEngineRectangle.getHeight(), 1.f,
                     1.f, (float) rotation);
+        }
+    }
 
-            if (usedEffect != null) {
-                usedEffect.disableEffect(spriteBatch);
+    /**
+     * Transfer the texture coordinates of the region that is rendered to a texture effect.
+     *
+     * @param region the region that is rendered
+     * @param effect the effect that receives the coordinates
+     */
+    private static void transferTextureCoordinates(@Nonnull TextureRegion region, @Nonnull GdxTextureEffect effect) {
+        float u, u2;
+        if (region.isFlipX()) {
+            u = region.getU();
+            u2 = region.getU2();
+        } else {
+            u2 = region.getU();
+            u = region.getU2();
+        }
+        float v, v2;
+        if (region.isFlipY()) {
+            v = region.getV();
+            v2 = region.getV2();
+        } else {
+            v2 = region.getV();
+            v = region.getV2();
+        }
+        effect.setTopLeftCoordinate(u2, v2);
+        effect.setBottomRightCoordinate(u, v);
+    }
+
+    /**
+     * Apply a texture effect to the sprite batch. The batch is only flushed in case the effect differs from the
+     * effect that is already applied or in case the parameters of the applied effect changed.
+     *
+     * @param effect the effect to apply or {@code null} to render without effect
+     */
+    private void applyEffect(@Nullable GdxTextureEffect effect) {
+        if (effect == null) {
+            if (activeEffect != null) {
+                shaderFlushes++;
+                activeEffect.disableEffect(spriteBatch);
+                activeEffect = null;
             }
+            return;
         }
+        if ((effect == activeEffect) && !effect.isEffectChanged()) {
+            return;
+        }
+        shaderFlushes++;
+        effect.activateEffect(spriteBatch);
+        activeEffect = effect;
     }
 
     private void activateSpriteBatch() {
@@ -244,9 +331,6 @@ class GdxGraphics implements Graphics {
             return;
         }
 
-        if (shapeRenderer.getCurrentType() != null) {
-            shapeRenderer.end();
-        }
         spriteBatch.begin();
         spriteBatchActive = true;
     }
@@ -278,105 +362,105 @@ class GdxGraphics implements Graphics {
         GdxSprite gdxSprite = (GdxSprite) sprite;
         activateSpriteBatch();
 
-        float bottomColorF = getFloatColor(bottomColor, tempColor1);
-        float topColorF = getFloatColor(topColor, tempColor1);
-        float leftColorF = getFloatColor(leftColor, tempColor1);
-        float rightColorF = getFloatColor(rightColor, tempColor1);
-        float centerColorF = getFloatColor(centerColor, tempColor1);
+        @Nullable GdxTextureEffect usedEffect;
+        if ((effects.length > 0) && (effects[0] instanceof GdxTextureEffect)) {
+            usedEffect = (GdxTextureEffect) effects[0];
+        } else {
+            usedEffect = null;
+        }
+
+        float topColorF;
+        float bottomColorF;
+        float leftColorF;
+        float rightColorF;
+        float centerColorF;
+        if (usedEffect instanceof GdxTileLightEffect) {
+            /*
+            The light of the tile is written into the vertex colors. That way the tile does not require the shader
+            and the uniform values that would force the sprite batch to flush for every single tile.
+             */
+            ((GdxTileLightEffect) usedEffect).getVertexColors(tempColor1, tempColor2, tempColor3, tempColor4);
+            tempColor1.a = topColor.getAlphaf();
+            tempColor2.a = bottomColor.getAlphaf();
+            tempColor3.a = leftColor.getAlphaf();
+            tempColor4.a = rightColor.getAlphaf();
+            topColorF = tempColor1.clamp().toFloatBits();
+            bottomColorF = tempColor2.clamp().toFloatBits();
+            leftColorF = tempColor3.clamp().toFloatBits();
+            rightColorF = tempColor4.clamp().toFloatBits();
+            tempColor1.set((tempColor1.r + tempColor2.r + tempColor3.r + tempColor4.r) / 4.f,
+                           (tempColor1.g + tempColor2.g + tempColor3.g + tempColor4.g) / 4.f,
+                           (tempColor1.b + tempColor2.b + tempColor3.b + tempColor4.b) / 4.f,
+                           centerColor.getAlphaf());
+            centerColorF = tempColor1.clamp().toFloatBits();
+            usedEffect = null;
+        } else {
+            topColorF = getFloatColor(topColor, tempColor1);
+            bottomColorF = getFloatColor(bottomColor, tempColor1);
+            leftColorF = getFloatColor(leftColor, tempColor1);
+            rightColorF = getFloatColor(rightColor, tempColor1);
+            centerColorF = getFloatColor(centerColor, tempColor1);
+        }
 
         TextureRegion textureRegion = gdxSprite.getFrame(frame).getTextureRegion();
 
         int width = sprite.getWidth() + 1;
         int height = sprite.getHeight() + 1;
 
-        gdxSprite.getDisplayArea(posX, posY, 1.f, 0.f, tempEngineRectangle);
         float centerTransX = (width * gdxSprite.getCenterX()) + gdxSprite.getOffsetX();
         float centerTransY = (height * gdxSprite.getCenterY()) + gdxSprite.getOffsetY();
 
         float originX = posX - centerTransX;
         float originY = posY + centerTransY;
 
-        float topX = originX + (width / 2.f);
-        float topY = originY - height;
-        float topU = textureRegion.getU() + ((textureRegion.getU2() - textureRegion.getU()) / 2.f);
-        float topV = textureRegion.getV();
-
-        float leftX = originX;
-        float leftY = originY - (height / 2.f);
-        float leftU = textureRegion.getU();
-        float leftV = textureRegion.getV() + ((textureRegion.getV2() - textureRegion.getV()) / 2.f);
-
-        float rightX = originX + width;
-        float rightY = originY - (height / 2.f);
-        float rightU = textureRegion.getU2();
-        float rightV = textureRegion.getV() + ((textureRegion.getV2() - textureRegion.getV()) / 2.f);
-
-        float bottomX = originX + (width / 2.f);
-        float bottomY = originY;
-        float bottomU = textureRegion.getU() + ((textureRegion.getU2() - textureRegion.getU()) / 2.f);
-        float bottomV = textureRegion.getV2();
-
+        float middleX = originX + (width / 2.f);
+        float middleY = originY - (height / 2.f);
+        float middleU = textureRegion.getU() + ((textureRegion.getU2() - textureRegion.getU()) / 2.f);
+        float middleV = textureRegion.getV() + ((textureRegion.getV2() - textureRegion.getV()) / 2.f);
 
+        /*
+        The tile is rendered as four triangles around the center of the tile, so the center color is part of the
+        vertex data as well. The sprite batch takes quads, so the four triangles are sent as two quads that both
+        contain the center vertex.
+         */
         float[] vertices = FLT_BUFFER;
-        vertices[0] = topX;
-        vertices[1] = topY;
-        vertices[2] = topColorF;
-        vertices[3] = topU;
-        vertices[4] = topV;
-
-        vertices[5] = leftX;
-        vertices[6] = leftY;
-        vertices[7] = leftColorF;
-        vertices[8] = leftU;
-        vertices[9] = leftV;
-
-        vertices[10] = bottomX;
-        vertices[11] = bottomY;
-        vertices[12] = bottomColorF;
-        vertices[13] = bottomU;
-        vertices[14] = bottomV;
-
-        vertices[15] = rightX;
-        vertices[16] = rightY;
-        vertices[17] = rightColorF;
-        vertices[18] = rightU;
-        vertices[19] = rightV;
+        putVertex(vertices, 0, middleX, originY - height, topColorF, middleU, textureRegion.getV());
+        putVertex(vertices, 5, originX, middleY, leftColorF, textureRegion.getU(), middleV);
+        putVertex(vertices, 10, middleX, middleY, centerColorF, middleU, middleV);
+        putVertex(vertices, 15, originX + width, middleY, rightColorF, textureRegion.getU2(), middleV);
 
-        @Nullable GdxTextureEffect usedEffect;
-        if ((effects.length > 0) && (effects[0] instanceof GdxTextureEffect)) {
-            usedEffect = (GdxTextureEffect) effects[0];
-        } else {
-            usedEffect = null;
-        }
-        spriteBatch.setColor(tempColor1);
-        tempRegion.setRegion(gdxSprite.getFrame(frame).getTextureRegion());
-        tempRegion.flip(gdxSprite.isMirrored(), true);
-        if (usedEffect != null) {
-            float u, u2;
-            if (tempRegion.isFlipX()) {
-                u = tempRegion.getU();
-                u2 = tempRegion.getU2();
-            } else {
-                u2 = tempRegion.getU();
-                u = tempRegion.getU2();
-            }
-            float v, v2;
-            if (tempRegion.isFlipY()) {
-                v = tempRegion.getV();
-                v2 = tempRegion.getV2();
-            } else {
-                v2 = tempRegion.getV();
-                v = tempRegion.getV2();
-            }
-            usedEffect.setTopLeftCoordinate(u2, v2);
-            usedEffect.setBottomRightCoordinate(u, v);
-            usedEffect.activateEffect(spriteBatch);
-        }
-        spriteBatch.draw(textureRegion.getTexture(), FLT_BUFFER, 0, 20);
+        putVertex(vertices, 20, middleX, originY, bottomColorF, middleU, textureRegion.getV2());
+        putVertex(vertices, 25, originX + width, middleY, rightColorF, textureRegion.getU2(), middleV);
+        putVertex(vertices, 30, middleX, middleY, centerColorF, middleU, middleV);
+        putVertex(vertices, 35, originX, middleY, leftColorF, textureRegion.getU(), middleV);
 
         if (usedEffect != null) {
-            usedEffect.disableEffect(spriteBatch);
+            tempRegion.setRegion(textureRegion);
+            tempRegion.flip(gdxSprite.isMirrored(), true);
+            transferTextureCoordinates(tempRegion, usedEffect);
         }
+        applyEffect(usedEffect);
+        spriteBatch.draw(textureRegion.getTexture(), vertices, 0, QUAD_SIZE * 2);
+    }
+
+    /**
+     * Store the data of a single vertex in the vertex data array of the sprite batch.
+     *
+     * @param vertices the vertex data array
+     * @param offset the index of the first value of the vertex
+     * @param x the x coordinate of the vertex
+     * @param y the y coordinate of the vertex
+     * @param color the packed color of the vertex
+     * @param u the u texture coordinate of the vertex
+     * @param v the v texture coordinate of the vertex
+     */
+    private static void putVertex(@Nonnull float[] vertices, int offset, float x, float y, float color, float u,
+                                  float v) {
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = color;
+        vertices[offset + 3] = u;
+        vertices[offset + 4] = v;
     }
 
     @Override
@@ -384,6 +468,9 @@ class GdxGraphics implements Graphics {
         if (lastBlendingMode == mode) {
             return;
         }
+        if (spriteBatchActive) {
+            blendingFlushes++;
+        }
         switch (mode) {
             case AlphaBlend:
                 spriteBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
@@ -413,6 +500,7 @@ class GdxGraphics implements Graphics {
             double scaleY) {
         if (font instanceof GdxFont) {
             activateSpriteBatch();
+            applyEffect(null);
             GdxFont gdxFont = (GdxFont) font;
 
             BitmapFont bitmapFont = gdxFont.getBitmapFont();
@@ -468,37 +556,22 @@ class GdxGraphics implements Graphics {
             @Nonnull Color topRightColor,
             @Nonnull Color bottomLeftColor,
             @Nonnull Color bottomRightColor) {
-        activateShapeRenderer();
-        transferColor(topLeftColor, tempColor1);
-        transferColor(topRightColor, tempColor2);
-        transferColor(bottomLeftColor, tempColor3);
-        transferColor(bottomRightColor, tempColor4);
-        shapeRenderer.rect(x, y, width, height, tempColor3, tempColor4, tempColor2, tempColor1);
-        shapeRenderer.end();
-        gdxGraphics.getGL20().glDisable(GL20.GL_BLEND);
-    }
-
-    private void activateShapeRenderer() {
-        if (shapeRenderer.getCurrentType() != null) {
+        if ((width == 0) || (height == 0) || !(blankBackground instanceof GdxTexture)) {
             return;
         }
-        if (spriteBatchActive) {
-            spriteBatch.end();
-            spriteBatchActive = false;
-        }
+        activateSpriteBatch();
+        applyEffect(null);
 
-        GL20 gl20 = gdxGraphics.getGL20();
-        gl20.glEnable(GL20.GL_BLEND);
-        assert lastBlendingMode != null;
-        switch (lastBlendingMode) {
-            case AlphaBlend:
-                gl20.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
-                break;
-            case Multiply:
-                gl20.glBlendFunc(GL20.GL_DST_COLOR, GL20.GL_ZERO);
-                break;
-        }
-        shapeRenderer.begin(ShapeType.Filled);
+        TextureRegion region = ((GdxTexture) blankBackground).getTextureRegion();
+        float[] vertices = FLT_BUFFER;
+        putVertex(vertices, 0, x, y, getFloatColor(bottomLeftColor, tempColor1), region.getU(), region.getV());
+        putVertex(vertices, 5, x + width, y, getFloatColor(bottomRightColor, tempColor1), region.getU2(),
+                  region.getV());
+        putVertex(vertices, 10, x + width, y + height, getFloatColor(topRightColor, tempColor1), region.getU2(),
+                  region.getV2());
+        putVertex(vertices, 15, x, y + height, getFloatColor(topLeftColor, tempColor1), region.getU(),
+                  region.getV2());
+        spriteBatch.draw(region.getTexture(), vertices, 0, QUAD_SIZE);
     }
 
     @Override
@@ -523,19 +596,13 @@ class GdxGraphics implements Graphics {
             } else {
                 usedEffect = null;
             }
-            if (usedEffect != null) {
-                usedEffect.activateEffect(spriteBatch);
-            }
+            applyEffect(usedEffect);
             spriteBatch.setColor(tempColor1);
             tempRegion.setRegion(((GdxTexture) texture).getTextureRegion());
             if (!tempRegion.isFlipY()) {
                 tempRegion.flip(false, true);
             }
             spriteBatch.draw(tempRegion, x, y, width, height);
-
-            if (usedEffect != null) {
-                usedEffect.disableEffect(spriteBatch);
-            }
         }
     }
 
@@ -568,19 +635,13 @@ class GdxGraphics implements Graphics {
             } else {
                 usedEffect = null;
             }
-            if (usedEffect != null) {
-                usedEffect.activateEffect(spriteBatch);
-            }
+            applyEffect(usedEffect);
             spriteBatch.setColor(tempColor1);
             tempRegion.setRegion(((GdxTexture) texture).getTextureRegion(), texX, texY, texWidth, texHeight);
             if (!tempRegion.isFlipY()) {
                 tempRegion.flip(false, true);
             }
             spriteBatch.draw(tempRegion, x, y, width, height);
-
-            if (usedEffect != null) {
-                usedEffect.disableEffect(spriteBatch);
-            }
         }
     }
 
@@ -613,9 +674,7 @@ class GdxGraphics implements Graphics {
             } else {
                 usedEffect = null;
             }
-            if (usedEffect != null) {
-                usedEffect.activateEffect(spriteBatch);
-            }
+            applyEffect(usedEffect);
 
             spriteBatch.setColor(tempColor1);
             tempRegion.setRegion(((GdxTexture) texture).getTextureRegion(), texX, texY, texWidth, texHeight);
@@ -623,10 +682,6 @@ class GdxGraphics implements Graphics {
                 tempRegion.flip(false, true);
             }
             spriteBatch.draw(tempRegion, x, y, centerX, centerY, width, height, 1.f, 1.f, (float) rotate);
-
-            if (usedEffect != null) {
-                usedEffect.disableEffect(spriteBatch);
-            }
         }
     }
 
@@ -638,6 +693,9 @@ class GdxGraphics implements Graphics {
         if ((x == 0) && (y == 0) && (width == gdxGraphics.getWidth()) && (height == gdxGraphics.getHeight())) {
             return;
         }
+        if (spriteBatchActive) {
+            clippingFlushes++;
+        }
         flushAll();
         com.badlogic.gdx.math.Rectangle clippingRect = Pools.obtain(com.badlogic.gdx.math.Rectangle.class);
         clippingRect.set(x, y, width, height);
@@ -657,6 +715,9 @@ class GdxGraphics implements Graphics {
     @Override
     public void unsetClippingArea() {
         if (activeClipping) {
+            if (spriteBatchActive) {
+                clippingFlushes++;
+            }
             flushAll();
             Pools.free(ScissorStack.popScissors());
             activeClipping = false;
@@ -664,17 +725,18 @@ class GdxGraphics implements Graphics {
     }
 
     /**
-     * Stops the render operation of both the shape renderer and the sprite batch renderer to ensure that the
-     * buffered data is flushed to the screen.
+     * Stops the render operation of the sprite batch renderer to ensure that the buffered data is flushed to the
+     * screen. Any texture effect that is still applied to the sprite batch is removed.
      */
     public void flushAll() {
-        if (shapeRenderer.getCurrentType() != null) {
-            shapeRenderer.end();
-        }
         if (spriteBatchActive) {
             spriteBatch.end();
             spriteBatchActive = false;
         }
+        if (activeEffect != null) {
+            activeEffect.disableEffect(spriteBatch);
+            activeEffect = null;
+        }
     }
 
     private float getFloatColor(@Nonnull Color source, @Nonnull com.badlogic.gdx.graphics.Color workingInstance) {
@@ -693,7 +755,6 @@ class GdxGraphics implements Graphics {
         camera.update();
 
         spriteBatch.setProjectionMatrix(camera.combined);
-        shapeRenderer.setProjectionMatrix(camera.combined);
     }
 
     /**
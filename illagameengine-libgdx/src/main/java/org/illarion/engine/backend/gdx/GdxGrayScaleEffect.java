@@ -61,6 +61,11 @@ class GdxGrayScaleEffect implements GrayScaleEffect, GdxSceneEffect, GdxTextureE
         batch.setShader(null);
     }
 
+    @Override
+    public boolean isEffectChanged() {
+        return false;
+    }
+
     @Override
     public void setTopLeftCoordinate(float x, float y) {
     }
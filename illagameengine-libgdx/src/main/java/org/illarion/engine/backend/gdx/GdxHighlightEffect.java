@@ -41,6 +41,11 @@ class GdxHighlightEffect implements HighlightEffect, GdxTextureEffect {
     @Nonnull
     private final com.badlogic.gdx.graphics.Color highlightColor;
 
+    /**
+     * This flag is set {@code true} in case the highlight color changed since the effect was applied.
+     */
+    private boolean changed;
+
     /**
      * Create a new instance of the highlight effect.
      *
@@ -57,6 +62,7 @@ class GdxHighlightEffect implements HighlightEffect, GdxTextureEffect {
     public void activateEffect(@Nonnull SpriteBatch batch) {
         batch.setShader(shader);
         shader.setUniformf("u_colorHighlight", highlightColor);
+        changed = false;
     }
 
     @Override
@@ -64,6 +70,11 @@ class GdxHighlightEffect implements HighlightEffect, GdxTextureEffect {
         batch.setShader(null);
     }
 
+    @Override
+    public boolean isEffectChanged() {
+        return changed;
+    }
+
     @Override
     public void setTopLeftCoordinate(float x, float y) {
     }
@@ -74,6 +85,8 @@ class GdxHighlightEffect implements HighlightEffect, GdxTextureEffect {
 
     @Override
     public void setHighlightColor(@Nonnull Color color) {
+        float oldColor = highlightColor.toFloatBits();
         GdxGraphics.transferColor(color, highlightColor);
+        changed |= highlightColor.toFloatBits() != oldColor;
     }
 }
@@ -49,6 +49,11 @@ class GdxMiniMapEffect implements MiniMapEffect, GdxTextureEffect {
      */
     private int centerY;
 
+    /**
+     * This flag is set {@code true} in case the center or the radius changed since the effect was applied.
+     */
+    private boolean changed;
+
     @Nonnull
     private final WorldMap worldMap;
 
@@ -74,6 +79,7 @@ class GdxMiniMapEffect implements MiniMapEffect, GdxTextureEffect {
         shader.setUniformf("u_radius", (float) radius / WorldMap.WORLD_MAP_HEIGHT);
         shader.setUniformf("u_markerSize", 2.f / WorldMap.WORLD_MAP_HEIGHT);
         shader.setUniformf("u_center", miniMapCenterX, miniMapCenterY);
+        changed = false;
     }
 
     @Override
@@ -81,6 +87,11 @@ class GdxMiniMapEffect implements MiniMapEffect, GdxTextureEffect {
         batch.setShader(null);
     }
 
+    @Override
+    public boolean isEffectChanged() {
+        return changed;
+    }
+
     @Override
     public void setTopLeftCoordinate(float x, float y) {
     }
@@ -91,12 +102,16 @@ class GdxMiniMapEffect implements MiniMapEffect, GdxTextureEffect {
 
     @Override
     public void setCenter(@Nonnull ServerCoordinate location) {
-        centerX = location.getX() - worldMap.getMapOrigin().getX();
-        centerY = location.getY() - worldMap.getMapOrigin().getY();
+        int newCenterX = location.getX() - worldMap.getMapOrigin().getX();
+        int newCenterY = location.getY() - worldMap.getMapOrigin().getY();
+        changed |= (newCenterX != centerX) || (newCenterY != centerY);
+        centerX = newCenterX;
+        centerY = newCenterY;
     }
 
     @Override
     public void setRadius(int radius) {
+        changed |= this.radius != radius;
         this.radius = radius;
     }
 }
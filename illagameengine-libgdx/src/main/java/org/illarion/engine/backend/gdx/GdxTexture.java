@@ -16,9 +16,11 @@
 package org.illarion.engine.backend.gdx;
 
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import org.illarion.engine.backend.shared.OnDemandTextureAtlas;
 import org.illarion.engine.graphic.Texture;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * This is the implementation of a texture that stores a libGDX texture.
@@ -32,8 +34,64 @@ class GdxTexture implements Texture {
     @Nonnull
     private final TextureRegion backingTexture;
 
+    /**
+     * The atlas this texture is located on in case the atlas is loaded on demand.
+     */
+    @Nullable
+    private final OnDemandTextureAtlas atlas;
+
+    /**
+     * The texture drawn until the on demand atlas is loaded.
+     */
+    @Nullable
+    private final com.badlogic.gdx.graphics.Texture placeholder;
+
+    /**
+     * The x coordinate of the texture on the on demand atlas.
+     */
+    private final int atlasX;
+
+    /**
+     * The y coordinate of the texture on the on demand atlas.
+     */
+    private final int atlasY;
+
+    /**
+     * The generation of the on demand atlas the backing texture refers to.
+     */
+    private int atlasGeneration;
+
     GdxTexture(@Nonnull TextureRegion backingTexture) {
         this.backingTexture = backingTexture;
+        atlas = null;
+        placeholder = null;
+        atlasX = 0;
+        atlasY = 0;
+    }
+
+    /**
+     * Create a texture that is located on a on demand atlas.
+     *
+     * @param atlas the atlas
+     * @param placeholder the texture drawn until the atlas is loaded
+     * @param x the x coordinate of the texture on the atlas
+     * @param y the y coordinate of the texture on the atlas
+     * @param width the width of the texture
+     * @param height the height of the texture
+     */
+    GdxTexture(
+            @Nonnull OnDemandTextureAtlas atlas,
+            @Nonnull com.badlogic.gdx.graphics.Texture placeholder,
+            int x,
+            int y,
+            int width,
+            int height) {
+        backingTexture = new TextureRegion(placeholder, 0, 0, width, height);
+        this.atlas = atlas;
+        this.placeholder = placeholder;
+        atlasX = x;
+        atlasY = y;
+        atlasGeneration = atlas.getGeneration();
     }
 
     @Override
@@ -44,6 +102,9 @@ class GdxTexture implements Texture {
     @Nonnull
     @Override
     public Texture getSubTexture(int x, int y, int width, int height) {
+        if ((atlas != null) && (placeholder != null)) {
+            return new GdxTexture(atlas, placeholder, atlasX + x, atlasY + y, width, height);
+        }
         return new GdxTexture(new TextureRegion(backingTexture, x, y, width, height));
     }
 
@@ -57,8 +118,29 @@ class GdxTexture implements Texture {
         return backingTexture.getRegionWidth();
     }
 
+    /**
+     * Get the region that is drawn. In case this texture is located on a on demand atlas, this function marks the
+     * atlas as used and returns the placeholder until the atlas is loaded.
+     *
+     * @return the texture region
+     */
     @Nonnull
     public TextureRegion getTextureRegion() {
+        if ((atlas != null) && (placeholder != null)) {
+            @Nullable GdxTexture atlasTexture = (GdxTexture) atlas.use();
+            if (atlas.getGeneration() != atlasGeneration) {
+                int width = backingTexture.getRegionWidth();
+                int height = backingTexture.getRegionHeight();
+                if (atlasTexture == null) {
+                    backingTexture.setTexture(placeholder);
+                    backingTexture.setRegion(0, 0, width, height);
+                } else {
+                    backingTexture.setTexture(atlasTexture.backingTexture.getTexture());
+                    backingTexture.setRegion(atlasX, atlasY, width, height);
+                }
+                atlasGeneration = atlas.getGeneration();
+            }
+        }
         return backingTexture;
     }
 }
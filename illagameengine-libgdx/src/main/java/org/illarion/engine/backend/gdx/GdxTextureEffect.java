@@ -40,6 +40,15 @@ interface GdxTextureEffect extends TextureEffect {
      */
     void disableEffect(@Nonnull SpriteBatch batch);
 
+    /**
+     * Check if the parameters of the effect changed since the effect was applied to a sprite batch the last time.
+     * In case they did not change, the effect that is still applied to the sprite batch does not need to be applied
+     * again and the sprite batch does not need to be flushed.
+     *
+     * @return {@code true} in case the effect needs to be applied again
+     */
+    boolean isEffectChanged();
+
     /**
      * Set the top left coordinate of the texture that is rendered.
      *
@@ -18,44 +18,198 @@ package org.illarion.engine.backend.gdx;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.Texture.TextureFilter;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.Pixmap.Format;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import org.illarion.engine.backend.shared.AbstractTextureManager;
+import org.illarion.engine.backend.shared.OnDemandTextureAtlas;
+import org.illarion.engine.backend.shared.PixelBuffer;
+import org.illarion.engine.backend.shared.PixelBufferPool;
+import org.illarion.engine.backend.shared.PngDecoder;
+import org.illarion.engine.backend.shared.TextureUpload;
+import org.illarion.engine.graphic.Texture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * This is the texture manager that takes care of loading and storing textures that were created for libGDX.
+ * <p/>
+ * The PNG files are decoded straight into pooled pixel buffers and transferred to the graphics context in multiple
+ * steps. Only images the streaming decoder does not support are decoded by libGDX.
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
-class GdxTextureManager extends AbstractTextureManager<Pixmap> {
+class GdxTextureManager extends AbstractTextureManager<PixelBuffer> {
+    @Nonnull
+    private static final Logger log = LoggerFactory.getLogger(GdxTextureManager.class);
+
+    /**
+     * The size of the buffer used to read the PNG files.
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The buffers storing the decoded textures. There is one buffer for every decoding thread and one for the
+     * texture that is currently uploaded.
+     */
+    @Nonnull
+    private final PixelBufferPool pixelBufferPool = new PixelBufferPool(MAX_DECODED_ATLASES);
+
+    /**
+     * The transparent texture drawn in place of the textures of on demand atlas files that are not loaded yet.
+     */
+    @Nonnull
+    private final com.badlogic.gdx.graphics.Texture placeholder;
+
+    /**
+     * The thread that owns the graphics context.
+     */
+    @Nonnull
+    private final Thread renderThread;
+
+    /**
+     * Create the texture manager. This has to be called in the graphics context.
+     */
+    GdxTextureManager() {
+        renderThread = Thread.currentThread();
+        Pixmap placeholderPixels = new Pixmap(1, 1, Format.RGBA8888);
+        placeholderPixels.setColor(0.f, 0.f, 0.f, 0.f);
+        placeholderPixels.fill();
+        placeholder = new com.badlogic.gdx.graphics.Texture(placeholderPixels);
+        placeholderPixels.dispose();
+    }
+
     @Override
     @Nullable
-    protected Pixmap loadTextureData(@Nonnull String textureName) {
+    protected PixelBuffer loadTextureData(@Nonnull String textureName) {
         try {
             FileHandle fileH = Gdx.files.classpath(textureName);
             if (!fileH.exists()) {
                 return null;
             }
-            return new Pixmap(fileH);
-        } catch (@Nonnull Exception ignored) {
+            try (InputStream in = fileH.read(READ_BUFFER_SIZE)) {
+                @Nullable PixelBuffer pixels = PngDecoder.decode(in, pixelBufferPool);
+                if (pixels != null) {
+                    return pixels;
+                }
+            }
+            return loadPixmapData(fileH);
+        } catch (@Nonnull IOException | GdxRuntimeException e) {
+            log.warn("Failed to decode texture: {}", textureName, e);
             return null;
         }
     }
 
+    /**
+     * Decode a image with libGDX and copy it into a pixel buffer. This is used for the images the streaming
+     * decoder does not support. Images in other formats than RGBA8888 are converted pixel by pixel, because drawing
+     * them into a RGBA8888 pixmap would require changing the blending, which is shared by all pixmaps.
+     *
+     * @param fileH the file of the image
+     * @return the decoded image
+     */
+    @Nonnull
+    private PixelBuffer loadPixmapData(@Nonnull FileHandle fileH) {
+        Pixmap pixmap = new Pixmap(fileH);
+        try {
+            PixelBuffer pixels = pixelBufferPool.acquire(pixmap.getWidth(), pixmap.getHeight());
+            ByteBuffer target = pixels.getPixels();
+            if (pixmap.getFormat() == Format.RGBA8888) {
+                target.put(pixmap.getPixels());
+            } else {
+                for (int y = 0; y < pixmap.getHeight(); y++) {
+                    for (int x = 0; x < pixmap.getWidth(); x++) {
+                        int color = pixmap.getPixel(x, y);
+                        target.put((byte) (color >>> 24));
+                        target.put((byte) (color >>> 16));
+                        target.put((byte) (color >>> 8));
+                        target.put((byte) color);
+                    }
+                }
+            }
+            return pixels;
+        } finally {
+            pixmap.dispose();
+        }
+    }
+
+    @Override
+    protected void releaseTextureData(@Nonnull PixelBuffer preLoadData) {
+        preLoadData.release();
+    }
+
+    @Override
+    protected void releaseDecodingMemory() {
+        pixelBufferPool.clear();
+    }
+
+    @Nonnull
+    @Override
+    protected TextureUpload startTextureUpload(@Nonnull String resource, @Nonnull PixelBuffer preLoadData) {
+        return new GdxTextureUpload(preLoadData);
+    }
+
+    @Override
+    protected boolean isOnDemandLoadingSupported() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    protected Texture createOnDemandTexture(
+            @Nonnull OnDemandTextureAtlas atlas, int posX, int posY, int width, int height) {
+        return new GdxTexture(atlas, placeholder, posX, posY, width, height);
+    }
+
+    @Override
+    protected void disposeAtlasTexture(@Nonnull Texture texture) {
+        if (texture instanceof GdxTexture) {
+            ((GdxTexture) texture).getTextureRegion().getTexture().dispose();
+        }
+    }
+
     @Nullable
     @Override
-    protected GdxTexture loadTexture(@Nonnull String resource, @Nonnull Pixmap preLoadData) {
+    protected GdxTexture loadTexture(@Nonnull String resource, @Nonnull PixelBuffer preLoadData) {
+        if (Thread.currentThread() == renderThread) {
+            return uploadTexture(preLoadData);
+        }
+
+        /* Textures requested by the loading threads have to be uploaded by the render thread. */
+        FutureTask<GdxTexture> upload = new FutureTask<>(() -> uploadTexture(preLoadData));
+        Gdx.app.postRunnable(upload);
+        try {
+            return upload.get();
+        } catch (@Nonnull InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (@Nonnull ExecutionException e) {
+            log.error("Failed to upload the texture {}", resource, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Upload the entire texture at once. This has to be called in the graphics context.
+     *
+     * @param preLoadData the pixels of the texture
+     * @return the texture or {@code null} in case the upload failed
+     */
+    @Nullable
+    private static GdxTexture uploadTexture(@Nonnull PixelBuffer preLoadData) {
         try {
-            Texture tex = new Texture(preLoadData, false);
-            tex.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-            TextureRegion region = new TextureRegion(tex);
-            region.flip(false, false);
-            return new GdxTexture(region);
+            GdxTextureUpload upload = new GdxTextureUpload(preLoadData);
+            while (!upload.uploadStep()) {
+                // transfer the entire texture at once
+            }
+            return upload.getTexture();
         } catch (@Nonnull GdxRuntimeException e) {
             return null;
         }
@@ -0,0 +1,162 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.gdx;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import org.illarion.engine.backend.shared.PixelBuffer;
+import org.illarion.engine.backend.shared.TextureUpload;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This upload transfers a decoded texture to libGDX in stripes of rows. The first step only allocates the texture,
+ * each further step transfers one stripe straight from the pixel buffer.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+class GdxTextureUpload implements TextureUpload {
+    /**
+     * The amount of bytes transferred in one step.
+     */
+    private static final int STEP_SIZE = 256 * 1024;
+
+    /**
+     * The texture data that only allocates the storage of the texture. The pixel data is transferred afterwards.
+     */
+    private static final class EmptyTextureData implements TextureData {
+        private final int width;
+        private final int height;
+
+        EmptyTextureData(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Nonnull
+        @Override
+        public TextureDataType getType() {
+            return TextureDataType.Custom;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return true;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Nonnull
+        @Override
+        public Pixmap consumePixmap() {
+            throw new GdxRuntimeException("This texture data does not provide a pixmap.");
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return false;
+        }
+
+        @Override
+        public void consumeCustomData(int target) {
+            Gdx.gl.glTexImage2D(target, 0, GL20.GL_RGBA, width, height, 0, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE,
+                                null);
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Nonnull
+        @Override
+        public Format getFormat() {
+            return Format.RGBA8888;
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return false;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return false;
+        }
+    }
+
+    @Nonnull
+    private final PixelBuffer pixels;
+
+    /**
+     * The amount of rows transferred in one step.
+     */
+    private final int rowsPerStep;
+
+    @Nullable
+    private Texture texture;
+
+    /**
+     * The amount of rows that are transferred already.
+     */
+    private int uploadedRows;
+
+    GdxTextureUpload(@Nonnull PixelBuffer pixels) {
+        this.pixels = pixels;
+        rowsPerStep = Math.max(1, STEP_SIZE / (pixels.getWidth() * PixelBuffer.BYTES_PER_PIXEL));
+    }
+
+    @Override
+    public boolean uploadStep() {
+        if (texture == null) {
+            texture = new Texture(new EmptyTextureData(pixels.getWidth(), pixels.getHeight()));
+            texture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
+            return false;
+        }
+
+        int rows = Math.min(rowsPerStep, pixels.getHeight() - uploadedRows);
+        texture.bind();
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, uploadedRows, pixels.getWidth(), rows, GL20.GL_RGBA,
+                               GL20.GL_UNSIGNED_BYTE, pixels.getRows(uploadedRows, rows));
+        uploadedRows += rows;
+        return uploadedRows >= pixels.getHeight();
+    }
+
+    @Nullable
+    @Override
+    public GdxTexture getTexture() {
+        if ((texture == null) || (uploadedRows < pixels.getHeight())) {
+            return null;
+        }
+        return new GdxTexture(new TextureRegion(texture));
+    }
+}
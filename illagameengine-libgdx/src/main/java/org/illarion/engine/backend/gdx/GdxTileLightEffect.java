@@ -128,6 +128,11 @@ public class GdxTileLightEffect implements TileLightEffect, GdxTextureEffect {
     @Nonnull
     private final Vector2 bottomRightCoord;
 
+    /**
+     * This flag is set {@code true} in case any of the parameters changed since the effect was applied.
+     */
+    private boolean changed;
+
     GdxTileLightEffect(@Nonnull Files files) {
         //noinspection SpellCheckingInspection
         shader = new ShaderProgram(files.internal("org/illarion/engine/backend/gdx/shaders/generic.vert"),
@@ -153,46 +158,55 @@ public class GdxTileLightEffect implements TileLightEffect, GdxTextureEffect {
     @Override
     public void setTopLeftColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, topLeft);
+        changed = true;
     }
 
     @Override
     public void setTopRightColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, topRight);
+        changed = true;
     }
 
     @Override
     public void setBottomLeftColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, bottomLeft);
+        changed = true;
     }
 
     @Override
     public void setBottomRightColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, bottomRight);
+        changed = true;
     }
 
     @Override
     public void setTopColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, top);
+        changed = true;
     }
 
     @Override
     public void setBottomColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, bottom);
+        changed = true;
     }
 
     @Override
     public void setLeftColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, left);
+        changed = true;
     }
 
     @Override
     public void setRightColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, right);
+        changed = true;
     }
 
     @Override
     public void setCenterColor(@Nonnull Color color) {
         GdxGraphics.transferColor(color, center);
+        changed = true;
     }
 
     @Override
@@ -211,6 +225,38 @@ public class GdxTileLightEffect implements TileLightEffect, GdxTextureEffect {
             setUniform(shader, UNIFORM_TOP_LEFT_COORDS, topLeftCoord);
             setUniform(shader, UNIFORM_BOTTOM_RIGHT_COORDS, bottomRightCoord);
         }
+        changed = false;
+    }
+
+    /**
+     * Get the light colors at the four corners of the tile. The colors are calculated the same way the shader of
+     * this effect calculates them, so the light can be applied as vertex colors without using the shader. The alpha
+     * value of the target colors is set to {@code 1}.
+     *
+     * @param topTarget the color instance that receives the color of the top corner
+     * @param bottomTarget the color instance that receives the color of the bottom corner
+     * @param leftTarget the color instance that receives the color of the left corner
+     * @param rightTarget the color instance that receives the color of the right corner
+     */
+    void getVertexColors(
+            @Nonnull com.badlogic.gdx.graphics.Color topTarget,
+            @Nonnull com.badlogic.gdx.graphics.Color bottomTarget,
+            @Nonnull com.badlogic.gdx.graphics.Color leftTarget,
+            @Nonnull com.badlogic.gdx.graphics.Color rightTarget) {
+        averageColor(top, topLeft, topRight, topTarget);
+        averageColor(bottom, bottomLeft, bottomRight, bottomTarget);
+        averageColor(left, bottomLeft, topLeft, leftTarget);
+        averageColor(right, topRight, bottomRight, rightTarget);
+    }
+
+    private void averageColor(
+            @Nonnull com.badlogic.gdx.graphics.Color corner,
+            @Nonnull com.badlogic.gdx.graphics.Color firstSide,
+            @Nonnull com.badlogic.gdx.graphics.Color secondSide,
+            @Nonnull com.badlogic.gdx.graphics.Color target) {
+        target.set((corner.r + firstSide.r + secondSide.r + center.r) / 4.f,
+                   (corner.g + firstSide.g + secondSide.g + center.g) / 4.f,
+                   (corner.b + firstSide.b + secondSide.b + center.b) / 4.f, 1.f);
     }
 
     private static void setUniform(
@@ -231,13 +277,24 @@ public class GdxTileLightEffect implements TileLightEffect, GdxTextureEffect {
         batch.setShader(null);
     }
 
+    @Override
+    public boolean isEffectChanged() {
+        return changed;
+    }
+
     @Override
     public void setTopLeftCoordinate(float x, float y) {
-        topLeftCoord.set(x, y);
+        if ((topLeftCoord.x != x) || (topLeftCoord.y != y)) {
+            topLeftCoord.set(x, y);
+            changed = true;
+        }
     }
 
     @Override
     public void setBottomRightCoordinate(float x, float y) {
-        bottomRightCoord.set(x, y);
+        if ((bottomRightCoord.x != x) || (bottomRightCoord.y != y)) {
+            bottomRightCoord.set(x, y);
+            changed = true;
+        }
     }
 }
@@ -30,11 +30,34 @@ import org.illarion.engine.graphic.WorldMapDataProviderCallback;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
 
 /**
+ * The world map is drawn into a pixmap that is uploaded to the texture once it changed. The complete map is
+ * requested from the data provider in bands of rows that are rasterized in parallel. The colors of all combinations
+ * of map colors are calculated ahead of time, so each tile only requires a table lookup.
+ *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
 class GdxWorldMap implements WorldMap, WorldMapDataProviderCallback {
+    /**
+     * The amount of bytes used to store one pixel in the pixmap.
+     */
+    private static final int BYTES_PER_PIXEL = 3;
+
+    /**
+     * The amount of rows of the map that are requested from the provider at once.
+     */
+    private static final int BAND_HEIGHT = 32;
+
+    /**
+     * The RGB colors of the pixels on the map. The table is indexed by the map color of the tile, the map color of
+     * the overlay and the blocked flag.
+     */
+    @Nonnull
+    private static final int[] PIXEL_COLORS = createPixelColors();
+
     /**
      * The origin location of the map.
      */
@@ -67,10 +90,9 @@ class GdxWorldMap implements WorldMap, WorldMapDataProviderCallback {
     private final WorldMapDataProvider provider;
 
     /**
-     * The color instance that is used temporary to calculate color values.
+     * {@code true} in case the bands of the map are rasterized in parallel.
      */
-    @Nonnull
-    private final Color tempDrawingColor;
+    private final boolean parallelRasterization;
 
     /**
      * This flag is set {@code true} in case the map requires to be rendered again.
@@ -82,7 +104,60 @@ class GdxWorldMap implements WorldMap, WorldMapDataProviderCallback {
 
         worldMapPixels = new Pixmap(WORLD_MAP_WIDTH, WORLD_MAP_HEIGHT, Format.RGB888);
         worldMapTexture = new GdxTexture(new TextureRegion(new Texture(worldMapPixels)));
-        tempDrawingColor = new Color();
+        parallelRasterization = Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    @Nonnull
+    private static int[] createPixelColors() {
+        int colorCount = MapColor.getColorCount();
+        int[] pixelColors = new int[colorCount * colorCount * 2];
+        Color drawingColor = new Color();
+        for (int tileId = 0; tileId < colorCount; tileId++) {
+            for (int overlayId = 0; overlayId < colorCount; overlayId++) {
+                for (int blocked = 0; blocked < 2; blocked++) {
+                    GdxGraphics.transferColor(MapColor.getColor(tileId), drawingColor);
+                    if (overlayId != NO_TILE) {
+                        org.illarion.engine.graphic.Color mapColor = MapColor.getColor(tileId);
+                        drawingColor.r += mapColor.getRedf();
+                        drawingColor.g += mapColor.getGreenf();
+                        drawingColor.b += mapColor.getBluef();
+                        drawingColor.mul(0.5f);
+                    }
+                    if (blocked == 1) {
+                        drawingColor.mul(0.7f);
+                    }
+                    drawingColor.a = 1.f;
+                    pixelColors[getPixelColorIndex(tileId, overlayId, blocked == 1)] =
+                            Color.rgba8888(drawingColor) >>> 8;
+                }
+            }
+        }
+        return pixelColors;
+    }
+
+    private static int getPixelColorIndex(int tileId, int overlayId, boolean blocked) {
+        return (((tileId * MapColor.getColorCount()) + overlayId) << 1) + (blocked ? 1 : 0);
+    }
+
+    /**
+     * Get the RGB color of a pixel on the map.
+     *
+     * @return the color or {@code -1} in case the pixel is not supposed to be drawn
+     */
+    private static int getPixelColor(int tileId, int overlayId, boolean blocked) {
+        int colorCount = MapColor.getColorCount();
+        if ((tileId <= NO_TILE) || (tileId >= colorCount) || (overlayId < 0) || (overlayId >= colorCount)) {
+            return -1;
+        }
+        return PIXEL_COLORS[getPixelColorIndex(tileId, overlayId, blocked)];
+    }
+
+    @GuardedBy("worldMapPixels")
+    private static void drawPixel(@Nonnull ByteBuffer pixels, int texPosX, int texPosY, int color) {
+        int index = ((texPosY * WORLD_MAP_WIDTH) + texPosX) * BYTES_PER_PIXEL;
+        pixels.put(index, (byte) (color >>> 16));
+        pixels.put(index + 1, (byte) (color >>> 8));
+        pixels.put(index + 2, (byte) color);
     }
 
     @Nullable
@@ -120,23 +195,10 @@ class GdxWorldMap implements WorldMap, WorldMapDataProviderCallback {
             return;
         }
 
-        if (tileId != NO_TILE) {
-            GdxGraphics.transferColor(MapColor.getColor(tileId), tempDrawingColor);
-            if (overlayId != NO_TILE) {
-                org.illarion.engine.graphic.Color mapColor = MapColor.getColor(tileId);
-                tempDrawingColor.r += mapColor.getRedf();
-                tempDrawingColor.g += mapColor.getGreenf();
-                tempDrawingColor.b += mapColor.getBluef();
-                tempDrawingColor.mul(0.5f);
-            }
-            if (blocked) {
-                tempDrawingColor.mul(0.7f);
-            }
-            tempDrawingColor.a = 1.f;
-
+        int color = getPixelColor(tileId, overlayId, blocked);
+        if (color != -1) {
             synchronized (worldMapPixels) {
-                worldMapPixels.setColor(tempDrawingColor);
-                worldMapPixels.drawPixel(texPosX, texPosY);
+                drawPixel(worldMapPixels.getPixels(), texPosX, texPosY, color);
                 mapDirty = true;
             }
         }
@@ -169,21 +231,51 @@ class GdxWorldMap implements WorldMap, WorldMapDataProviderCallback {
         if (mapOrigin == null) {
             throw new IllegalStateException("World map is not ready yet. The origin is not set.");
         }
+        ServerCoordinate origin = mapOrigin;
         currentlyFetchingTiles = true;
-        for (int x = 0; x < WorldMap.WORLD_MAP_WIDTH; x++) {
-            for (int y = 0; y < WorldMap.WORLD_MAP_HEIGHT; y++) {
-                if (cancelFetchingTiles) {
-                    break;
-                }
-                provider.requestTile(new ServerCoordinate(mapOrigin, x, y, 0), this);
-            }
+        IntStream bands = IntStream.range(0, (WORLD_MAP_HEIGHT + BAND_HEIGHT - 1) / BAND_HEIGHT);
+        if (parallelRasterization) {
+            bands = bands.parallel();
         }
+        bands.forEach(band -> rasterizeBand(origin, band * BAND_HEIGHT));
         currentlyFetchingTiles = false;
         synchronized (this) {
             notifyAll();
         }
     }
 
+    /**
+     * Request the tiles of a band of rows from the provider and draw them.
+     *
+     * @param origin the origin of the map
+     * @param firstRow the first row of the band
+     */
+    private void rasterizeBand(@Nonnull ServerCoordinate origin, int firstRow) {
+        if (cancelFetchingTiles) {
+            return;
+        }
+        int rows = Math.min(BAND_HEIGHT, WORLD_MAP_HEIGHT - firstRow);
+        int[] tiles = new int[WORLD_MAP_WIDTH * rows];
+        provider.requestTiles(new ServerCoordinate(origin, 0, firstRow, 0), WORLD_MAP_WIDTH, rows, tiles);
+
+        synchronized (worldMapPixels) {
+            ByteBuffer pixels = worldMapPixels.getPixels();
+            int index = 0;
+            for (int y = firstRow; y < (firstRow + rows); y++) {
+                for (int x = 0; x < WORLD_MAP_WIDTH; x++) {
+                    int tile = tiles[index++];
+                    int color = getPixelColor(WorldMapDataProvider.getTileId(tile),
+                                              WorldMapDataProvider.getOverlayId(tile),
+                                              WorldMapDataProvider.isBlocked(tile));
+                    if (color != -1) {
+                        drawPixel(pixels, x, y, color);
+                    }
+                }
+            }
+            mapDirty = true;
+        }
+    }
+
     @Override
     public void setPlayerLocation(@SuppressWarnings("NullableProblems") @Nonnull ServerCoordinate location) {
         playerLocation = location;
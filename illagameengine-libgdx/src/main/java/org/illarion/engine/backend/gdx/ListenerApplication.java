@@ -17,7 +17,6 @@ package org.illarion.engine.backend.gdx;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import org.illarion.engine.GameListener;
 
 import javax.annotation.Nonnull;
@@ -73,9 +72,9 @@ class ListenerApplication extends ApplicationAdapter {
         listener.render(container);
         graphics.endFrame();
 
-        SpriteBatch batch = container.getEngine().getGraphics().getSpriteBatch();
-        container.setLastFrameRenderCalls(batch.totalRenderCalls);
-        batch.totalRenderCalls = 0;
+        container.setLastFrameStatistics(graphics.getSpriteBatch().totalRenderCalls, graphics.getShaderFlushes(),
+                                         graphics.getBlendingFlushes(), graphics.getClippingFlushes());
+        graphics.resetStatistics();
     }
 
     /**
@@ -0,0 +1,41 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.assets;
+
+/**
+ * This defines when the atlas files of a texture directory are loaded and how long they stay in memory.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public enum TextureLoadingMode {
+    /**
+     * The atlas files are loaded during the startup before all other directories and stay in memory. This is meant
+     * for the textures of the first screens that are shown.
+     */
+    Preferred,
+
+    /**
+     * The atlas files are loaded during the startup and stay in memory.
+     */
+    Startup,
+
+    /**
+     * Only the lists of the atlas files are read during the startup. An atlas file is loaded once one of its
+     * textures is drawn for the first time and unloaded again once it was not used for a while and the texture
+     * memory budget is exceeded. Until the atlas is loaded, a transparent placeholder is drawn.
+     */
+    OnDemand
+}
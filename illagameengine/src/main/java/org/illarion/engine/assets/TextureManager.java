@@ -37,6 +37,23 @@ public interface TextureManager {
      */
     void addTextureDirectory(@Nonnull String directory);
 
+    /**
+     * Add a directory that provides texture data. Directories added with {@link #addTextureDirectory(String)} use
+     * the mode {@link TextureLoadingMode#Startup}.
+     *
+     * @param directory the directory providing the texture data
+     * @param mode the mode that defines when the atlas files of the directory are loaded
+     */
+    void addTextureDirectory(@Nonnull String directory, @Nonnull TextureLoadingMode mode);
+
+    /**
+     * Set the amount of memory the atlas files of the directories with the mode {@link TextureLoadingMode#OnDemand}
+     * may use. Atlas files that were not used recently are unloaded once this budget is exceeded.
+     *
+     * @param bytes the budget in bytes
+     */
+    void setOnDemandBudget(long bytes);
+
     /**
      * Get a specified texture.
      *
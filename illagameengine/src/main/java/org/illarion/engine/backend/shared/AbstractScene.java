@@ -15,11 +15,10 @@
  */
 package org.illarion.engine.backend.shared;
 
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.illarion.engine.GameContainer;
-import org.illarion.engine.graphic.Graphics;
-import org.illarion.engine.graphic.Scene;
-import org.illarion.engine.graphic.SceneElement;
-import org.illarion.engine.graphic.SceneEvent;
+import org.illarion.engine.graphic.*;
 import org.illarion.engine.graphic.effects.SceneEffect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,10 +27,22 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * This is the abstract implementation of a scene that takes care for the sorting and storing of the scene elements
  * as this is the same for all the implementations.
+ * <p>
+ * The elements are stored in square regions of the scene, based on the location of {@link LocatedSceneElement}s.
+ * Each region keeps its elements sorted. For each update only the regions close to the viewport are collected into
+ * the working array, that is then used to update and render the scene.
+ * </p>
+ * <p>
+ * The elements that report that their update is {@link SceneElement#isParallelUpdateSafe() safe to run in parallel}
+ * are updated in chunks on a fork-join pool. All other elements are updated on the render thread afterwards. Changes
+ * to the structure of the scene that are requested while the parallel update is running are applied once it is done.
+ * </p>
  *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
@@ -42,10 +53,161 @@ public abstract class AbstractScene<T extends SceneEffect> implements Scene, Com
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractScene.class);
 
     /**
-     * This list of elements in the scene. This list is kept sorted.
+     * The width and height of a single region of the scene.
+     */
+    private static final int REGION_SIZE = 256;
+
+    /**
+     * The amount of regions around the viewport that are processed as well. The graphics of a element may extend
+     * far from its location, so the regions next to the viewport may contain elements that are still visible.
+     */
+    private static final int REGION_MARGIN = 2;
+
+    /**
+     * The amount of elements of the working array that are updated by a single task of the parallel update. The
+     * parallel update is only used in case there are at least two chunks of elements that are safe to be updated in
+     * parallel.
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 128;
+
+    /**
+     * One region of the scene. The elements in the region are kept sorted.
+     */
+    private static final class Region {
+        /**
+         * The elements in this region.
+         */
+        @Nonnull
+        private final List<SceneElement> elements = new ArrayList<>();
+
+        /**
+         * The key of this region or {@code null} in case this is the region that stores the elements without
+         * location.
+         */
+        @Nullable
+        private final Long key;
+
+        Region(@Nullable Long key) {
+            this.key = key;
+        }
+
+        void insert(@Nonnull SceneElement element, @Nonnull Comparator<SceneElement> comparator) {
+            int insertIndex = Collections.binarySearch(elements, element, comparator);
+            if (insertIndex < 0) {
+                elements.add(-insertIndex - 1, element);
+            } else {
+                elements.add(insertIndex, element);
+            }
+        }
+
+        void remove(@Nonnull SceneElement element) {
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                if (elements.get(i) == element) {
+                    elements.remove(i);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Check if a element is still placed correctly in the sort order and move it in case it is not.
+         *
+         * @param element the element
+         * @param comparator the comparator that defines the order
+         */
+        void resort(@Nonnull SceneElement element, @Nonnull Comparator<SceneElement> comparator) {
+            int index = -1;
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                if (elements.get(i) == element) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == -1) {
+                insert(element, comparator);
+                return;
+            }
+            boolean inOrder = (index == 0) || (comparator.compare(elements.get(index - 1), element) <= 0);
+            if (inOrder && (index < (elements.size() - 1))) {
+                inOrder = comparator.compare(element, elements.get(index + 1)) <= 0;
+            }
+            if (!inOrder) {
+                elements.remove(index);
+                insert(element, comparator);
+            }
+        }
+    }
+
+    /**
+     * The task that updates a part of the working array. It splits up until the parts are not larger then
+     * {@link #PARALLEL_CHUNK_SIZE}. Only the elements marked for the parallel update are updated.
+     */
+    private final class UpdateChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull
+        private final GameContainer container;
+        private final int delta;
+        private final int from;
+        private final int to;
+
+        UpdateChunkTask(@Nonnull GameContainer container, int delta, int from, int to) {
+            this.container = container;
+            this.delta = delta;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if ((to - from) > PARALLEL_CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new UpdateChunkTask(container, delta, from, middle),
+                          new UpdateChunkTask(container, delta, middle, to));
+                return;
+            }
+            SceneElement[] elements = workingArray;
+            boolean[] parallel = parallelUpdates;
+            for (int i = from; i < to; i++) {
+                if (parallel[i]) {
+                    elements[i].update(container, delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * The region and the order a element was stored with.
+     */
+    private static final class ElementEntry {
+        @Nonnull
+        private Region region;
+        private int order;
+
+        ElementEntry(@Nonnull Region region, int order) {
+            this.region = region;
+            this.order = order;
+        }
+    }
+
+    /**
+     * The regions of the scene that contain at least one element. This object is also the lock for all the element
+     * structures of this scene.
+     */
+    @Nonnull
+    private final TLongObjectMap<Region> regions;
+
+    /**
+     * The region that stores all elements without a location. These elements are always processed.
+     */
+    @Nonnull
+    private final Region unlocatedRegion;
+
+    /**
+     * The region and order of all elements in this scene.
      */
     @Nonnull
-    private final List<SceneElement> sceneElements;
+    private final Map<SceneElement, ElementEntry> elementEntries;
 
     /**
      * This is the queue of events that are published during the updates.
@@ -59,6 +221,26 @@ public abstract class AbstractScene<T extends SceneEffect> implements Scene, Com
     @Nonnull
     private final List<T> sceneEffects;
 
+    /**
+     * The pool that executes the parallel part of the update. In case this is {@code null} all elements are updated
+     * on the render thread.
+     */
+    @Nullable
+    private final ForkJoinPool updatePool;
+
+    /**
+     * This flag is set {@code true} while the parallel update is running. Changes to the structure of the scene are
+     * stored in {@link #deferredChanges} meanwhile. Access is guarded by the lock of the regions.
+     */
+    private boolean deferStructuralChanges;
+
+    /**
+     * The changes to the structure of the scene that were requested during the parallel update. Access is guarded by
+     * the lock of the regions.
+     */
+    @Nonnull
+    private final List<Runnable> deferredChanges;
+
     /**
      * This is the snapshot array that is taken and filled shortly before the update calls. Is then used to render
      * and update the scene.
@@ -72,10 +254,52 @@ public abstract class AbstractScene<T extends SceneEffect> implements Scene, Com
     private int workingArraySize;
 
     /**
-     * Create a new scene and setup the internal structures.
+     * This array stores for each element of the working array if it is updated by the parallel update.
+     */
+    @Nonnull
+    private boolean[] parallelUpdates = new boolean[0];
+
+    /**
+     * The array that is used to collect the elements that are offered a located event.
+     */
+    @Nonnull
+    private SceneElement[] eventArray = new SceneElement[0];
+
+    /**
+     * The list of regions collected for the current update. It is only used during the update.
+     */
+    @Nonnull
+    private final List<Region> collectedRegions = new ArrayList<>();
+
+    /**
+     * The area of the scene that is visible. As long as this is not set, all regions are processed.
+     */
+    private boolean viewportSet;
+    private int viewportX;
+    private int viewportY;
+    private int viewportWidth;
+    private int viewportHeight;
+
+    /**
+     * Create a new scene and setup the internal structures. The scene uses the common fork-join pool for the
+     * parallel update, in case it provides more then one thread.
      */
     protected AbstractScene() {
-        sceneElements = new ArrayList<>();
+        this((ForkJoinPool.getCommonPoolParallelism() > 1) ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Create a new scene and setup the internal structures.
+     *
+     * @param updatePool the pool that executes the parallel part of the update or {@code null} to update all
+     * elements on the render thread
+     */
+    protected AbstractScene(@Nullable ForkJoinPool updatePool) {
+        this.updatePool = updatePool;
+        deferredChanges = new ArrayList<>();
+        regions = new TLongObjectHashMap<>();
+        unlocatedRegion = new Region(null);
+        elementEntries = new IdentityHashMap<>();
         eventQueue = new ConcurrentLinkedQueue<>();
         sceneEffects = new ArrayList<>();
     }
@@ -87,38 +311,189 @@ public abstract class AbstractScene<T extends SceneEffect> implements Scene, Com
 
     @Override
     public final void addElement(@Nonnull SceneElement element) {
-        synchronized (sceneElements) {
-            int insertIndex = Collections.binarySearch(sceneElements, element, this);
-            if (insertIndex < 0) {
-                sceneElements.add(-insertIndex - 1, element);
-            } else {
-                sceneElements.add(insertIndex, element);
+        synchronized (regions) {
+            if (deferStructuralChanges) {
+                deferredChanges.add(() -> addElement(element));
+                return;
+            }
+            if (elementEntries.containsKey(element)) {
+                LOGGER.warn("Element {} was added to the scene twice.", element);
+                return;
             }
+            Region region = getRegion(element);
+            region.insert(element, this);
+            elementEntries.put(element, new ElementEntry(region, element.getOrder()));
         }
     }
 
     @Override
     public final void updateElementLocation(@Nonnull SceneElement element) {
-        synchronized (sceneElements) {
-            // If element is not found, insertIndex = (where the element should be added * -1) - 1
-            int insertIndex = Collections.binarySearch(sceneElements, element, this);
-            // If the item wasn't found, set checkIndex = the proper location
-            int checkIndex = (insertIndex < 0) ? ((insertIndex + 1) * -1) : insertIndex;
-            // If checkIndex is outside our ArrayList, set it to the last element
-            checkIndex = (checkIndex >= sceneElements.size()) ? (checkIndex = sceneElements.size() - 1) : checkIndex;
-            SceneElement testElement = sceneElements.get(checkIndex);
-            if (!Objects.equals(testElement, element)) {
-                removeElement(element);
+        synchronized (regions) {
+            if (deferStructuralChanges) {
+                deferredChanges.add(() -> updateElementLocation(element));
+                return;
+            }
+            ElementEntry entry = elementEntries.get(element);
+            if (entry == null) {
                 addElement(element);
+                return;
             }
+            Region region = getRegion(element);
+            int order = element.getOrder();
+            if (region == entry.region) {
+                if (order != entry.order) {
+                    region.resort(element, this);
+                }
+            } else {
+                removeFromRegion(entry.region, element);
+                region.insert(element, this);
+                entry.region = region;
+            }
+            entry.order = order;
         }
     }
 
     @Override
     public final void removeElement(@Nonnull SceneElement element) {
-        synchronized (sceneElements) {
-            sceneElements.remove(element);
+        synchronized (regions) {
+            if (deferStructuralChanges) {
+                deferredChanges.add(() -> removeElement(element));
+                return;
+            }
+            ElementEntry entry = elementEntries.remove(element);
+            if (entry != null) {
+                removeFromRegion(entry.region, element);
+            }
+        }
+    }
+
+    @Override
+    public final void setViewport(int x, int y, int width, int height) {
+        viewportX = x;
+        viewportY = y;
+        viewportWidth = width;
+        viewportHeight = height;
+        viewportSet = true;
+    }
+
+    /**
+     * Remove a element from a region and drop the region in case its empty now. This has to be called while
+     * holding the lock of the regions.
+     *
+     * @param region the region
+     * @param element the element to remove
+     */
+    private void removeFromRegion(@Nonnull Region region, @Nonnull SceneElement element) {
+        region.remove(element);
+        if (region.elements.isEmpty() && (region.key != null)) {
+            regions.remove(region.key);
+        }
+    }
+
+    /**
+     * Get the region a element belongs to. In case the region does not exist yet, its created. This has to be called
+     * while holding the lock of the regions.
+     *
+     * @param element the element
+     * @return the region of the element
+     */
+    @Nonnull
+    private Region getRegion(@Nonnull SceneElement element) {
+        if (!(element instanceof LocatedSceneElement)) {
+            return unlocatedRegion;
+        }
+        LocatedSceneElement locatedElement = (LocatedSceneElement) element;
+        long key = getRegionKey(Math.floorDiv(locatedElement.getSceneX(), REGION_SIZE),
+                                Math.floorDiv(locatedElement.getSceneY(), REGION_SIZE));
+        Region region = regions.get(key);
+        if (region == null) {
+            region = new Region(key);
+            regions.put(key, region);
+        }
+        return region;
+    }
+
+    private static long getRegionKey(int regionX, int regionY) {
+        return ((long) regionX << 32) | (regionY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Collect the regions that intersect with a area of the scene, extended by the margin. This has to be called
+     * while holding the lock of the regions.
+     *
+     * @param x the x coordinate of the origin of the area
+     * @param y the y coordinate of the origin of the area
+     * @param width the width of the area
+     * @param height the height of the area
+     * @param target the list the regions are added to
+     */
+    private void collectRegions(int x, int y, int width, int height, @Nonnull Collection<Region> target) {
+        int minRegionX = Math.floorDiv(x, REGION_SIZE) - REGION_MARGIN;
+        int minRegionY = Math.floorDiv(y, REGION_SIZE) - REGION_MARGIN;
+        int maxRegionX = Math.floorDiv(x + width, REGION_SIZE) + REGION_MARGIN;
+        int maxRegionY = Math.floorDiv(y + height, REGION_SIZE) + REGION_MARGIN;
+
+        long regionsInArea = (long) ((maxRegionX - minRegionX) + 1) * ((maxRegionY - minRegionY) + 1);
+        if (regionsInArea < regions.size()) {
+            for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+                for (int regionY = minRegionY; regionY <= maxRegionY; regionY++) {
+                    Region region = regions.get(getRegionKey(regionX, regionY));
+                    if (region != null) {
+                        target.add(region);
+                    }
+                }
+            }
+        } else {
+            regions.forEachEntry((key, region) -> {
+                int regionX = (int) (key >> 32);
+                int regionY = (int) key;
+                if ((regionX >= minRegionX) && (regionX <= maxRegionX) && (regionY >= minRegionY) &&
+                        (regionY <= maxRegionY)) {
+                    target.add(region);
+                }
+                return true;
+            });
+        }
+        if (!unlocatedRegion.elements.isEmpty()) {
+            target.add(unlocatedRegion);
+        }
+    }
+
+    /**
+     * Copy the elements of the collected regions into a array and sort them. The regions are sorted already, so the
+     * sorting only has to merge them.
+     *
+     * @param target the array the elements are copied to
+     * @return the array that contains the elements, this is either the target array or a larger copy of it
+     */
+    @Nonnull
+    private SceneElement[] copyCollectedRegions(@Nonnull SceneElement[] target) {
+        int count = countCollectedElements();
+        SceneElement[] result = target;
+        if (result.length < count) {
+            result = new SceneElement[count];
+        }
+        int index = 0;
+        for (Region region : collectedRegions) {
+            List<SceneElement> elements = region.elements;
+            int size = elements.size();
+            for (int i = 0; i < size; i++) {
+                result[index++] = elements.get(i);
+            }
         }
+        Arrays.fill(result, count, result.length, null);
+        if (collectedRegions.size() > 1) {
+            Arrays.sort(result, 0, count, this);
+        }
+        return result;
+    }
+
+    private int countCollectedElements() {
+        int count = 0;
+        for (Region region : collectedRegions) {
+            count += region.elements.size();
+        }
+        return count;
     }
 
     /**
@@ -128,17 +503,39 @@ public abstract class AbstractScene<T extends SceneEffect> implements Scene, Com
      * @param delta the time since the last update that is reported to the elements
      */
     protected final void updateScene(@Nonnull GameContainer container, int delta) {
-        Arrays.fill(workingArray, null);
-        synchronized (sceneElements) {
-            workingArray = sceneElements.toArray(workingArray);
-            workingArraySize = sceneElements.size();
+        synchronized (regions) {
+            collectedRegions.clear();
+            if (viewportSet) {
+                collectRegions(viewportX, viewportY, viewportWidth, viewportHeight, collectedRegions);
+            } else {
+                regions.forEachValue(collectedRegions::add);
+                if (!unlocatedRegion.elements.isEmpty()) {
+                    collectedRegions.add(unlocatedRegion);
+                }
+            }
+            workingArray = copyCollectedRegions(workingArray);
+            workingArraySize = countCollectedElements();
         }
 
         @Nullable SceneEvent event = eventQueue.poll();
         while (event != null) {
+            SceneElement[] candidates = workingArray;
+            int candidateCount = workingArraySize;
+            if (viewportSet && (event instanceof LocatedSceneEvent)) {
+                LocatedSceneEvent locatedEvent = (LocatedSceneEvent) event;
+                synchronized (regions) {
+                    collectedRegions.clear();
+                    collectRegions(viewportX + locatedEvent.getX(), viewportY + locatedEvent.getY(), 0, 0,
+                                   collectedRegions);
+                    eventArray = copyCollectedRegions(eventArray);
+                    candidateCount = countCollectedElements();
+                }
+                candidates = eventArray;
+            }
+
             boolean notProcessed = true;
-            for (int i = workingArraySize - 1; i >= 0; i--) {
-                SceneElement element = workingArray[i];
+            for (int i = candidateCount - 1; i >= 0; i--) {
+                SceneElement element = candidates[i];
                 if (element.isEventProcessed(container, delta, event)) {
                     notProcessed = false;
                     break;
@@ -149,10 +546,66 @@ public abstract class AbstractScene<T extends SceneEffect> implements Scene, Com
             }
             event = eventQueue.poll();
         }
+        Arrays.fill(eventArray, null);
+
+        ForkJoinPool pool = updatePool;
+        if ((pool == null) || (markParallelUpdates() < (PARALLEL_CHUNK_SIZE * 2))) {
+            for (int i = 0; i < workingArraySize; i++) {
+                SceneElement element = workingArray[i];
+                element.update(container, delta);
+            }
+            return;
+        }
+
+        synchronized (regions) {
+            deferStructuralChanges = true;
+        }
+        try {
+            pool.invoke(new UpdateChunkTask(container, delta, 0, workingArraySize));
+        } finally {
+            applyDeferredChanges();
+        }
 
         for (int i = 0; i < workingArraySize; i++) {
-            SceneElement element = workingArray[i];
-            element.update(container, delta);
+            if (!parallelUpdates[i]) {
+                SceneElement element = workingArray[i];
+                element.update(container, delta);
+            }
+        }
+    }
+
+    /**
+     * Query all elements of the working array if they can be updated in parallel and store the result in the
+     * {@link #parallelUpdates} array.
+     *
+     * @return the amount of elements that are updated in parallel
+     */
+    private int markParallelUpdates() {
+        if (parallelUpdates.length < workingArraySize) {
+            parallelUpdates = new boolean[workingArray.length];
+        }
+        int count = 0;
+        for (int i = 0; i < workingArraySize; i++) {
+            boolean parallel = workingArray[i].isParallelUpdateSafe();
+            parallelUpdates[i] = parallel;
+            if (parallel) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stop deferring the changes to the structure of the scene and apply all changes that were requested during the
+     * parallel update.
+     */
+    private void applyDeferredChanges() {
+        synchronized (regions) {
+            deferStructuralChanges = false;
+            for (Runnable change : deferredChanges) {
+                change.run();
+            }
+            deferredChanges.clear();
         }
     }
 
@@ -202,7 +655,9 @@ public abstract class AbstractScene<T extends SceneEffect> implements Scene, Com
 
     @Override
     public int getElementCount() {
-        return sceneElements.size();
+        synchronized (regions) {
+            return elementEntries.size();
+        }
     }
 
     /**
@@ -17,8 +17,10 @@ package org.illarion.engine.backend.shared;
 
 import illarion.common.util.PoolThreadFactory;
 import illarion.common.util.ProgressMonitor;
+import org.illarion.engine.assets.TextureLoadingMode;
 import org.illarion.engine.assets.TextureManager;
 import org.illarion.engine.graphic.Texture;
+import org.jetbrains.annotations.Contract;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xmlpull.v1.XmlPullParserException;
@@ -27,10 +29,7 @@ import org.xmlpull.v1.XmlPullParserFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.*;
 
 /**
  * This is the shared code of the texture manager that is used by all backend implementations in a similar way.
@@ -40,6 +39,39 @@ import java.util.concurrent.Executors;
 public abstract class AbstractTextureManager<T> implements TextureManager {
     private static final Logger log = LoggerFactory.getLogger(AbstractTextureManager.class);
 
+    /**
+     * The amount of threads that decode the texture atlas files. One core is left for the graphics context that
+     * uploads the decoded atlas files at the same time.
+     */
+    protected static final int DECODE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * The maximal amount of decoded texture atlas files that wait for their transfer to the graphics context. Each
+     * of them holds the pixel data of an entire atlas.
+     */
+    protected static final int MAX_DECODED_ATLASES = DECODE_THREADS + 1;
+
+    /**
+     * The time in nanoseconds that {@link #update()} may spend with transferring textures to the graphics context
+     * during one frame.
+     */
+    private static final long UPLOAD_BUDGET = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The default amount of memory the on demand atlas files may use.
+     */
+    private static final long DEFAULT_ON_DEMAND_BUDGET = 256L * 1024L * 1024L;
+
+    /**
+     * The amount of frames an on demand atlas has to be unused before it may be unloaded.
+     */
+    private static final int ON_DEMAND_MIN_IDLE_FRAMES = 600;
+
+    /**
+     * The interval in frames the memory used by the on demand atlas files is checked against the budget.
+     */
+    private static final int ON_DEMAND_CHECK_INTERVAL = 60;
+
     /**
      * These are the progress monitors for each directory.
      */
@@ -52,6 +84,12 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
     @Nonnull
     private final List<String> rootDirectories;
 
+    /**
+     * This stores when the atlas files of a directory are loaded.
+     */
+    @Nonnull
+    private final List<TextureLoadingMode> directoryModes;
+
     /**
      * This stores the values if a directory is done loading or currently loading.
      */
@@ -83,10 +121,51 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
     private Deque<TextureAtlasTask> loadingTasks;
 
     /**
-     * These are the tasks that are progressed in the graphics context.
+     * These are the atlas files that are ready to be transferred to the graphics context, ordered by their priority.
+     */
+    @Nonnull
+    private final Queue<TextureAtlasFinalizeTask<T>> updateTasks;
+
+    /**
+     * The atlas that is currently transferred to the graphics context.
      */
     @Nullable
-    private Queue<Runnable> updateTasks;
+    private TextureAtlasFinalizeTask<T> currentUpload;
+
+    /**
+     * The on demand atlas files that are currently loaded.
+     */
+    @Nonnull
+    private final List<OnDemandTextureAtlas> loadedOnDemandAtlases;
+
+    /**
+     * The amount of memory used by the loaded on demand atlas files.
+     */
+    private long onDemandBytes;
+
+    /**
+     * The amount of memory the on demand atlas files may use.
+     */
+    private long onDemandBudget;
+
+    /**
+     * The permits to hold a decoded texture atlas. The decoding threads take a permit before they decode an atlas
+     * and the permit is returned once the atlas is transferred to the graphics context. This way the decoded atlas
+     * files do not pile up while the graphics context is busy.
+     */
+    @Nonnull
+    private final Semaphore decodedAtlasPermits;
+
+    /**
+     * This flag is {@code true} once the memory used to decode the atlas files was released and no atlas was
+     * transferred since.
+     */
+    private boolean decodingMemoryReleased;
+
+    /**
+     * The frames counted by {@link #update()}.
+     */
+    private long currentFrame;
 
     private boolean loadingStarted;
 
@@ -96,9 +175,25 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
     protected AbstractTextureManager() {
         directoryMonitors = new ArrayList<>();
         rootDirectories = new ArrayList<>();
-        textures = new HashMap<>();
+        textures = new ConcurrentHashMap<>();
         progressMonitor = new ProgressMonitor();
         directoriesLoaded = new ArrayList<>();
+        directoryModes = new ArrayList<>();
+        updateTasks = new PriorityBlockingQueue<>();
+        loadedOnDemandAtlases = new ArrayList<>();
+        onDemandBudget = DEFAULT_ON_DEMAND_BUDGET;
+        decodedAtlasPermits = new Semaphore(MAX_DECODED_ATLASES);
+    }
+
+    /**
+     * Get the priority of a loading task. Tasks with a lower value are executed first.
+     *
+     * @param directoryRank the loading rank of the directory the task belongs to
+     * @param index the index of the task within the directory
+     * @return the priority
+     */
+    static long getLoadingPriority(int directoryRank, int index) {
+        return ((long) directoryRank << 32) | index;
     }
 
     @Override
@@ -106,14 +201,13 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
         if (isLoadingDone()) {
             return;
         }
-        if (loadingExecutor != null) {
+        if (loadingStarted) {
             log.warn("Trying to load texture files while loading already in progress.");
             return;
         }
 
         loadingStarted = true;
         loadingTasks = new ConcurrentLinkedDeque<>();
-        updateTasks = new ConcurrentLinkedQueue<>();
 
         // Prepare the parser factory for processing the XML files
         XmlPullParserFactory parserFactory;
@@ -126,39 +220,157 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
         parserFactory.setValidating(false);
 
         // Loading starts here. Firing up the executor.
-        loadingExecutor = Executors.newFixedThreadPool(2, new PoolThreadFactory("TextureLoading", false));
+        Executor executor = getLoadingExecutor();
         int directoryCount = rootDirectories.size();
         for (int i = 0; i < directoryCount; i++) {
             if (directoriesLoaded.get(i)) {
                 continue;
             }
             String directoryName = rootDirectories.get(i);
+            int rank = getDirectoryRank(i);
             TextureAtlasListXmlLoadingTask<T> task =
                     new TextureAtlasListXmlLoadingTask<>(parserFactory, directoryName, this,
-                            directoryMonitors.get(i), loadingExecutor);
-            loadingExecutor.execute(task);
+                            directoryMonitors.get(i), executor, rank, isOnDemand(i));
+            executor.execute(new PrioritizedFutureTask<>(task, getLoadingPriority(rank, 0)));
             loadingTasks.addFirst(task);
             directoriesLoaded.set(i, Boolean.TRUE);
         }
     }
 
-    public void update() {
-        if (isLoadingDone()) {
-            return;
+    /**
+     * Get the loading rank of a directory. The preferred directories are loaded first, in the order they were
+     * added. The other directories follow in the order they were added.
+     *
+     * @param directoryIndex the index of the directory
+     * @return the loading rank
+     */
+    private int getDirectoryRank(int directoryIndex) {
+        if (directoryModes.get(directoryIndex) == TextureLoadingMode.Preferred) {
+            return directoryIndex;
         }
-        if (updateTasks == null) {
-            return;
+        return rootDirectories.size() + directoryIndex;
+    }
+
+    /**
+     * Check if the atlas files of a directory are loaded on demand.
+     *
+     * @param directoryIndex the index of the directory
+     * @return {@code true} in case the atlas files are loaded once they are used
+     */
+    private boolean isOnDemand(int directoryIndex) {
+        return (directoryModes.get(directoryIndex) == TextureLoadingMode.OnDemand) && isOnDemandLoadingSupported();
+    }
+
+    /**
+     * Get the executor that decodes the texture atlas files. The executor hands out the tasks by their priority.
+     * Its threads stop once there is nothing left to decode.
+     *
+     * @return the executor
+     */
+    @Nonnull
+    private Executor getLoadingExecutor() {
+        if (loadingExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(DECODE_THREADS, DECODE_THREADS, 1, TimeUnit.SECONDS,
+                                                                 new PriorityBlockingQueue<>(),
+                                                                 new PoolThreadFactory("TextureLoading", true));
+            executor.allowCoreThreadTimeOut(true);
+            loadingExecutor = executor;
         }
+        return loadingExecutor;
+    }
 
-        long startTime = System.currentTimeMillis();
+    /**
+     * Transfer the decoded texture atlas files to the graphics context. The atlas files are transferred in the order
+     * of their priority and in multiple parts, until the upload budget of this frame is used up. This function has
+     * to be called once every frame in the graphics context.
+     */
+    public void update() {
+        currentFrame++;
+        if (((currentFrame % ON_DEMAND_CHECK_INTERVAL) == 0) && (onDemandBytes > onDemandBudget)) {
+            unloadOnDemandAtlases();
+        }
 
+        long budgetEnd = System.nanoTime() + UPLOAD_BUDGET;
         do {
-            Runnable task = updateTasks.poll();
+            @Nullable TextureAtlasFinalizeTask<T> task = currentUpload;
             if (task == null) {
-                return;
+                task = updateTasks.poll();
+                if (task == null) {
+                    if (!decodingMemoryReleased && (loadingTasks == null) &&
+                            (decodedAtlasPermits.availablePermits() == MAX_DECODED_ATLASES)) {
+                        releaseDecodingMemory();
+                        decodingMemoryReleased = true;
+                    }
+                    return;
+                }
             }
-            task.run();
-        } while ((System.currentTimeMillis() - startTime) < 100);
+            decodingMemoryReleased = false;
+            currentUpload = task.uploadStep() ? null : task;
+        } while ((System.nanoTime() - budgetEnd) < 0);
+    }
+
+    @Contract(pure = true)
+    long getCurrentFrame() {
+        return currentFrame;
+    }
+
+    /**
+     * Start loading a on demand texture atlas. The atlas receives its texture once the atlas is decoded and
+     * transferred to the graphics context.
+     *
+     * @param atlas the atlas to load
+     */
+    void loadOnDemandAtlas(@Nonnull OnDemandTextureAtlas atlas) {
+        log.debug("Loading on demand {}", atlas);
+        TextureAtlasFinalizeTask<T> task = new TextureAtlasFinalizeTask<>(atlas, this);
+        getLoadingExecutor().execute(task.getPreLoadTask());
+        task.spritesDone();
+    }
+
+    void setOnDemandAtlasTexture(@Nonnull OnDemandTextureAtlas atlas, @Nullable Texture texture) {
+        atlas.setTexture(texture);
+        if (texture != null) {
+            onDemandBytes += getTextureSize(texture);
+            loadedOnDemandAtlases.add(atlas);
+        }
+    }
+
+    /**
+     * Unload the on demand atlas files that were not used for the longest time until the used memory fits into the
+     * budget again. Atlas files that were used recently are never unloaded.
+     */
+    private void unloadOnDemandAtlases() {
+        loadedOnDemandAtlases.sort(Comparator.comparingLong(OnDemandTextureAtlas::getLastUsedFrame));
+        Iterator<OnDemandTextureAtlas> itr = loadedOnDemandAtlases.iterator();
+        while (itr.hasNext() && (onDemandBytes > onDemandBudget)) {
+            OnDemandTextureAtlas atlas = itr.next();
+            if ((currentFrame - atlas.getLastUsedFrame()) < ON_DEMAND_MIN_IDLE_FRAMES) {
+                break;
+            }
+            @Nullable Texture texture = atlas.getTexture();
+            if (texture != null) {
+                onDemandBytes -= getTextureSize(texture);
+                disposeAtlasTexture(texture);
+            }
+            atlas.unload();
+            itr.remove();
+            log.debug("Unloaded {}", atlas);
+        }
+    }
+
+    @Contract(pure = true)
+    private static long getTextureSize(@Nonnull Texture texture) {
+        return (long) texture.getWidth() * texture.getHeight() * PixelBuffer.BYTES_PER_PIXEL;
+    }
+
+    @Override
+    public void setOnDemandBudget(long bytes) {
+        onDemandBudget = bytes;
+    }
+
+    void addOnDemandTexture(
+            @Nonnull String name, @Nonnull OnDemandTextureAtlas atlas, int posX, int posY, int width, int height) {
+        textures.put(name, createOnDemandTexture(atlas, posX, posY, width, height));
     }
 
     void addLoadingTask(@Nonnull TextureAtlasTask task) {
@@ -167,10 +379,24 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
         }
     }
 
-    void addUpdateTask(@Nonnull Runnable task) {
-        if (updateTasks != null) {
-            updateTasks.add(task);
-        }
+    void addUpdateTask(@Nonnull TextureAtlasFinalizeTask<T> task) {
+        updateTasks.add(task);
+    }
+
+    /**
+     * Wait until another decoded texture atlas may be held in memory.
+     *
+     * @throws InterruptedException in case the thread is interrupted while waiting
+     */
+    void acquireDecodedAtlasPermit() throws InterruptedException {
+        decodedAtlasPermits.acquire();
+    }
+
+    /**
+     * Report that a decoded texture atlas is not held in memory anymore.
+     */
+    void releaseDecodedAtlasPermit() {
+        decodedAtlasPermits.release();
     }
 
     @Override
@@ -213,13 +439,102 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
     @Nullable
     protected abstract T loadTextureData(@Nonnull String textureName);
 
+    /**
+     * Release the texture data once the texture was transferred to the graphics context. The default
+     * implementation does nothing.
+     *
+     * @param preLoadData the texture data that is not needed anymore
+     */
+    protected void releaseTextureData(@Nonnull T preLoadData) {
+    }
+
+    /**
+     * Release the memory that is kept to decode the texture atlas files. This is called once the loading is done and
+     * all decoded atlas files are transferred to the graphics context. The default implementation does nothing.
+     */
+    protected void releaseDecodingMemory() {
+    }
+
+    /**
+     * Start the transfer of a texture to the graphics context. The default implementation creates the entire
+     * texture with {@link #loadTexture(String, Object)} in a single step. Backends that are able to transfer a
+     * texture in multiple parts should override this function.
+     *
+     * @param resource the path to the resource
+     * @param preLoadData the texture data
+     * @return the transfer of the texture
+     */
+    @Nonnull
+    protected TextureUpload startTextureUpload(@Nonnull String resource, @Nonnull T preLoadData) {
+        return new TextureUpload() {
+            @Nullable
+            private Texture texture;
+
+            @Override
+            public boolean uploadStep() {
+                texture = loadTexture(resource, preLoadData);
+                return true;
+            }
+
+            @Nullable
+            @Override
+            public Texture getTexture() {
+                return texture;
+            }
+        };
+    }
+
+    /**
+     * Check if this backend supports loading texture atlas files on demand. Directories with the mode
+     * {@link TextureLoadingMode#OnDemand} are loaded during the startup in case this function returns {@code false}.
+     * The default implementation returns {@code false}.
+     *
+     * @return {@code true} in case on demand loading is supported
+     */
+    protected boolean isOnDemandLoadingSupported() {
+        return false;
+    }
+
+    /**
+     * Create a texture that is located on a on demand atlas. The texture has to call
+     * {@link OnDemandTextureAtlas#use()} every time it is drawn and draw a placeholder until the atlas is loaded.
+     * This function is called outside of the graphics context.
+     *
+     * @param atlas the atlas the texture is located on
+     * @param posX the x coordinate of the texture on the atlas
+     * @param posY the y coordinate of the texture on the atlas
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @return the texture
+     */
+    @Nonnull
+    protected Texture createOnDemandTexture(
+            @Nonnull OnDemandTextureAtlas atlas, int posX, int posY, int width, int height) {
+        throw new UnsupportedOperationException("On demand loading is not supported.");
+    }
+
+    /**
+     * Release a on demand atlas texture that was unloaded. The default implementation disposes the texture.
+     *
+     * @param texture the texture of the entire atlas
+     */
+    protected void disposeAtlasTexture(@Nonnull Texture texture) {
+        texture.dispose();
+    }
+
     @Override
     public final void addTextureDirectory(@Nonnull String directory) {
+        addTextureDirectory(directory, TextureLoadingMode.Startup);
+    }
+
+    @Override
+    public final void addTextureDirectory(@Nonnull String directory, @Nonnull TextureLoadingMode mode) {
         rootDirectories.add(directory);
         ProgressMonitor dirProgressMonitor = new ProgressMonitor();
         directoryMonitors.add(dirProgressMonitor);
         progressMonitor.addChild(dirProgressMonitor);
         directoriesLoaded.add(Boolean.FALSE);
+        directoryModes.add(mode);
     }
 
     /**
@@ -284,6 +599,7 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
         @Nullable T preLoadTextureData = loadTextureData(cleanName + ".png");
         if (preLoadTextureData != null) {
             @Nullable Texture directTexture = loadTexture(cleanName + ".png", preLoadTextureData);
+            releaseTextureData(preLoadTextureData);
             if (directTexture != null) {
                 log.trace("Fetched texture {} by direct name.", cleanName);
                 textures.put(cleanName, directTexture);
@@ -308,10 +624,10 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
 
             TextureAtlasListXmlLoadingTask<T> task =
                     new TextureAtlasListXmlLoadingTask<>(parserFactory, directoryName, this,
-                            directoryMonitors.get(directoryIndex), null);
+                            directoryMonitors.get(directoryIndex), null, getDirectoryRank(directoryIndex),
+                            isOnDemand(directoryIndex));
             if (loadingTasks == null) {
                 loadingTasks = new ConcurrentLinkedDeque<>();
-                updateTasks = new ConcurrentLinkedQueue<>();
             }
             loadingTasks.add(task);
             task.run();
@@ -363,10 +679,6 @@ public abstract class AbstractTextureManager<T> implements TextureManager {
             dirMonitor.setProgress(1.f);
         }
 
-        if (loadingExecutor != null) {
-            loadingExecutor.shutdown();
-        }
-        loadingExecutor = null;
         loadingTasks = null;
         return true;
     }
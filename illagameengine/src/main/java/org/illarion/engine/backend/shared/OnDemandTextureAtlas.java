@@ -0,0 +1,155 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import org.illarion.engine.graphic.Texture;
+import org.jetbrains.annotations.Contract;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * This is a texture atlas that is loaded once one of its textures is drawn and that may be unloaded again once it
+ * was not used for a while. The textures on this atlas have to check the state of the atlas every time they are
+ * drawn.
+ * <p/>
+ * All functions of this class have to be called in the graphics context.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@NotThreadSafe
+public final class OnDemandTextureAtlas {
+    /**
+     * The name of the atlas file without the file ending.
+     */
+    @Nonnull
+    private final String name;
+
+    /**
+     * The texture manager that loads the atlas.
+     */
+    @Nonnull
+    private final AbstractTextureManager<?> textureManager;
+
+    /**
+     * The loading priority of the atlas.
+     */
+    private final long priority;
+
+    /**
+     * The texture of the entire atlas or {@code null} in case the atlas is not loaded.
+     */
+    @Nullable
+    private Texture texture;
+
+    /**
+     * This value is increased every time the atlas is loaded or unloaded.
+     */
+    private int generation;
+
+    /**
+     * The frame the atlas was used last.
+     */
+    private long lastUsedFrame;
+
+    /**
+     * Set {@code true} while the atlas is loading.
+     */
+    private boolean loading;
+
+    /**
+     * Set {@code true} in case loading the atlas failed. It is not loaded again in this case.
+     */
+    private boolean failed;
+
+    OnDemandTextureAtlas(@Nonnull String name, @Nonnull AbstractTextureManager<?> textureManager, long priority) {
+        this.name = name;
+        this.textureManager = textureManager;
+        this.priority = priority;
+    }
+
+    /**
+     * Report that a texture of this atlas is used in the current frame. This starts loading the atlas in case it is
+     * not loaded yet.
+     *
+     * @return the texture of the entire atlas or {@code null} in case the atlas is not loaded yet
+     */
+    @Nullable
+    public Texture use() {
+        lastUsedFrame = textureManager.getCurrentFrame();
+        if ((texture == null) && !loading && !failed) {
+            loading = true;
+            textureManager.loadOnDemandAtlas(this);
+        }
+        return texture;
+    }
+
+    /**
+     * Get the generation of the atlas. This value changes every time the atlas is loaded or unloaded, so the
+     * textures of the atlas are able to detect that they need to fetch the atlas texture again.
+     *
+     * @return the generation
+     */
+    @Contract(pure = true)
+    public int getGeneration() {
+        return generation;
+    }
+
+    @Nonnull
+    @Contract(pure = true)
+    String getName() {
+        return name;
+    }
+
+    @Contract(pure = true)
+    long getPriority() {
+        return priority;
+    }
+
+    @Contract(pure = true)
+    long getLastUsedFrame() {
+        return lastUsedFrame;
+    }
+
+    @Nullable
+    @Contract(pure = true)
+    Texture getTexture() {
+        return texture;
+    }
+
+    void setTexture(@Nullable Texture texture) {
+        loading = false;
+        if (texture == null) {
+            failed = true;
+        } else {
+            this.texture = texture;
+            generation++;
+        }
+    }
+
+    void unload() {
+        texture = null;
+        generation++;
+    }
+
+    @Nonnull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+        return "Texture atlas: " + name;
+    }
+}
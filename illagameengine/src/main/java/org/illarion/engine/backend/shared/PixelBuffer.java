@@ -0,0 +1,123 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import org.jetbrains.annotations.Contract;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+/**
+ * This is decoded image data in the RGBA8888 format. The pixel data is stored in a direct buffer that is taken from
+ * a {@link PixelBufferPool} and should be handed back to the pool once the data is not needed anymore.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public final class PixelBuffer {
+    /**
+     * The amount of bytes used by a single pixel.
+     */
+    public static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * The pool that owns the buffer.
+     */
+    @Nonnull
+    private final PixelBufferPool pool;
+
+    /**
+     * The buffer that stores the pixel data. The rows are stored from the top to the bottom of the image without
+     * any padding.
+     */
+    @Nonnull
+    private final ByteBuffer pixels;
+
+    /**
+     * The width of the image in pixels.
+     */
+    private final int width;
+
+    /**
+     * The height of the image in pixels.
+     */
+    private final int height;
+
+    /**
+     * Set {@code true} once the buffer was returned to the pool.
+     */
+    private boolean released;
+
+    PixelBuffer(@Nonnull PixelBufferPool pool, @Nonnull ByteBuffer pixels, int width, int height) {
+        this.pool = pool;
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Contract(pure = true)
+    public int getWidth() {
+        return width;
+    }
+
+    @Contract(pure = true)
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the pixel data of a range of rows. The returned buffer is positioned at the first byte of the first row
+     * and limited to the end of the last row.
+     *
+     * @param firstRow the first row
+     * @param rowCount the amount of rows
+     * @return the view on the pixel data
+     */
+    @Nonnull
+    public ByteBuffer getRows(int firstRow, int rowCount) {
+        if (released) {
+            throw new IllegalStateException("The pixel buffer was already released.");
+        }
+        if ((firstRow < 0) || (rowCount < 0) || ((firstRow + rowCount) > height)) {
+            throw new IndexOutOfBoundsException("Rows " + firstRow + " to " + (firstRow + rowCount) +
+                    " are outside of the image height " + height);
+        }
+        int rowBytes = width * BYTES_PER_PIXEL;
+        ByteBuffer rows = pixels.duplicate();
+        rows.limit((firstRow + rowCount) * rowBytes);
+        rows.position(firstRow * rowBytes);
+        return rows;
+    }
+
+    /**
+     * Get the pixel data of the entire image.
+     *
+     * @return the view on the pixel data
+     */
+    @Nonnull
+    public ByteBuffer getPixels() {
+        return getRows(0, height);
+    }
+
+    /**
+     * Hand the buffer back to the pool. The pixel data must not be used anymore once this function was called.
+     */
+    public void release() {
+        if (!released) {
+            released = true;
+            pool.release(pixels);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This pool keeps the large direct buffers that store decoded texture data, so loading the texture atlas files does
+ * not allocate a new buffer for every atlas.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+@ThreadSafe
+public final class PixelBufferPool {
+    /**
+     * The buffers that are currently not in use.
+     */
+    @Nonnull
+    private final List<ByteBuffer> freeBuffers;
+
+    /**
+     * The maximal amount of unused buffers that are kept.
+     */
+    private final int maxFreeBuffers;
+
+    /**
+     * Create a new pool.
+     *
+     * @param maxFreeBuffers the maximal amount of unused buffers kept in the pool
+     */
+    public PixelBufferPool(int maxFreeBuffers) {
+        this.maxFreeBuffers = maxFreeBuffers;
+        freeBuffers = new ArrayList<>(maxFreeBuffers);
+    }
+
+    /**
+     * Get a buffer for a image. A buffer that is large enough is taken from the pool if possible. Otherwise a new
+     * buffer is created. This function never blocks, the texture manager limits the amount of decoded atlas files
+     * that are held at the same time.
+     *
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @return the buffer for the image
+     */
+    @Nonnull
+    public PixelBuffer acquire(int width, int height) {
+        if ((width <= 0) || (height <= 0)) {
+            throw new IllegalArgumentException("Invalid image size: " + width + 'x' + height);
+        }
+        int size = width * height * PixelBuffer.BYTES_PER_PIXEL;
+        ByteBuffer buffer = takeFreeBuffer(size);
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return new PixelBuffer(this, buffer, width, height);
+    }
+
+    @Nullable
+    private synchronized ByteBuffer takeFreeBuffer(int size) {
+        int bestIndex = -1;
+        for (int i = 0; i < freeBuffers.size(); i++) {
+            int capacity = freeBuffers.get(i).capacity();
+            if ((capacity >= size) && ((bestIndex == -1) || (capacity < freeBuffers.get(bestIndex).capacity()))) {
+                bestIndex = i;
+            }
+        }
+        return (bestIndex == -1) ? null : freeBuffers.remove(bestIndex);
+    }
+
+    /**
+     * Drop all unused buffers. Their memory is freed once they are garbage collected.
+     */
+    public synchronized void clear() {
+        freeBuffers.clear();
+    }
+
+    synchronized void release(@Nonnull ByteBuffer buffer) {
+        if (freeBuffers.size() < maxFreeBuffers) {
+            freeBuffers.add(buffer);
+        }
+    }
+}
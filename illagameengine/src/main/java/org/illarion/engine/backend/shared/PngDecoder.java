@@ -0,0 +1,420 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * This decoder reads PNG images directly into a {@link PixelBuffer}. The image data is inflated and unfiltered row
+ * by row while the stream is read, so the encoded file is never held in memory and the decoded image does not need
+ * to be copied.
+ * <p/>
+ * Only non-interlaced images with 8 bits per sample are supported. That covers the texture atlas files. For all
+ * other images {@link #decode(InputStream, PixelBufferPool)} returns {@code null} and the caller has to use another
+ * decoder.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public final class PngDecoder {
+    @Nonnull
+    private static final Logger log = LoggerFactory.getLogger(PngDecoder.class);
+
+    /**
+     * The signature every PNG file starts with.
+     */
+    private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+
+    private static final int CHUNK_IHDR = 0x49484452;
+    private static final int CHUNK_PLTE = 0x504C5445;
+    private static final int CHUNK_TRNS = 0x74524E53;
+    private static final int CHUNK_IDAT = 0x49444154;
+    private static final int CHUNK_IEND = 0x49454E44;
+
+    private static final int COLOR_GRAY = 0;
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_PALETTE = 3;
+    private static final int COLOR_GRAY_ALPHA = 4;
+    private static final int COLOR_RGBA = 6;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    @Nonnull
+    private final DataInputStream in;
+    @Nonnull
+    private final PixelBufferPool pool;
+    @Nonnull
+    private final Inflater inflater = new Inflater();
+
+    private int width;
+    private int height;
+    private int colorType;
+    private int bytesPerPixel;
+
+    /**
+     * The palette in the RGBA8888 format. Only used for palette images.
+     */
+    @Nullable
+    private byte[] palette;
+
+    /**
+     * The transparent color of gray and RGB images or {@code -1} in case there is none.
+     */
+    private int transparentColor = -1;
+
+    @Nullable
+    private PixelBuffer target;
+
+    /**
+     * The filtered row that is currently inflated. The first byte is the filter type.
+     */
+    private byte[] currentRow;
+
+    /**
+     * The previous row after removing the filter.
+     */
+    private byte[] previousRow;
+
+    /**
+     * The buffer the current row is written to while removing the filter.
+     */
+    private byte[] unfilteredRow;
+
+    /**
+     * The current row in the RGBA8888 format.
+     */
+    private byte[] rgbaRow;
+
+    /**
+     * The amount of bytes of the current row that are inflated already.
+     */
+    private int currentRowFill;
+
+    /**
+     * The index of the current row.
+     */
+    private int row;
+
+    private PngDecoder(@Nonnull InputStream in, @Nonnull PixelBufferPool pool) {
+        this.in = new DataInputStream(in);
+        this.pool = pool;
+    }
+
+    /**
+     * Decode a PNG image.
+     *
+     * @param in the stream to read the image from
+     * @param pool the pool that provides the buffer for the decoded image
+     * @return the decoded image or {@code null} in case the image uses a format this decoder does not support
+     * @throws IOException in case reading the stream fails or the image is damaged
+     */
+    @Nullable
+    public static PixelBuffer decode(@Nonnull InputStream in, @Nonnull PixelBufferPool pool) throws IOException {
+        PngDecoder decoder = new PngDecoder(in, pool);
+        boolean success = false;
+        try {
+            PixelBuffer result = decoder.decode();
+            success = true;
+            return result;
+        } finally {
+            decoder.inflater.end();
+            if (!success && (decoder.target != null)) {
+                decoder.target.release();
+            }
+        }
+    }
+
+    @Nullable
+    private PixelBuffer decode() throws IOException {
+        if (in.readLong() != SIGNATURE) {
+            throw new IOException("The data is not a PNG image.");
+        }
+
+        byte[] chunkData = new byte[0];
+        while (true) {
+            int length = in.readInt();
+            int type = in.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid chunk length: " + length);
+            }
+            if (chunkData.length < length) {
+                chunkData = new byte[length];
+            }
+            in.readFully(chunkData, 0, length);
+            in.readInt(); // CRC
+
+            switch (type) {
+                case CHUNK_IHDR:
+                    if (!readHeader(chunkData)) {
+                        return null;
+                    }
+                    break;
+                case CHUNK_PLTE:
+                    readPalette(chunkData, length);
+                    break;
+                case CHUNK_TRNS:
+                    readTransparency(chunkData, length);
+                    break;
+                case CHUNK_IDAT:
+                    if (target == null) {
+                        if ((colorType == COLOR_PALETTE) && (palette == null)) {
+                            throw new IOException("Palette image without palette.");
+                        }
+                        target = pool.acquire(width, height);
+                    }
+                    inflate(chunkData, length);
+                    break;
+                case CHUNK_IEND:
+                    if ((target == null) || (row < height)) {
+                        throw new IOException("The image data ended after " + row + " of " + height + " rows.");
+                    }
+                    return target;
+                default:
+                    if ((type & 0x20000000) == 0) {
+                        log.debug("Unsupported critical PNG chunk {}", Integer.toHexString(type));
+                        return null;
+                    }
+            }
+        }
+    }
+
+    private boolean readHeader(@Nonnull byte[] data) throws IOException {
+        width = getInt(data, 0);
+        height = getInt(data, 4);
+        int bitDepth = data[8] & 0xFF;
+        colorType = data[9] & 0xFF;
+        int interlace = data[12] & 0xFF;
+        if ((width <= 0) || (height <= 0)) {
+            throw new IOException("Invalid image size: " + width + 'x' + height);
+        }
+        if ((bitDepth != 8) || (interlace != 0)) {
+            return false;
+        }
+        switch (colorType) {
+            case COLOR_GRAY:
+            case COLOR_PALETTE:
+                bytesPerPixel = 1;
+                break;
+            case COLOR_GRAY_ALPHA:
+                bytesPerPixel = 2;
+                break;
+            case COLOR_RGB:
+                bytesPerPixel = 3;
+                break;
+            case COLOR_RGBA:
+                bytesPerPixel = 4;
+                break;
+            default:
+                return false;
+        }
+        currentRow = new byte[(width * bytesPerPixel) + 1];
+        previousRow = new byte[width * bytesPerPixel];
+        unfilteredRow = new byte[width * bytesPerPixel];
+        rgbaRow = new byte[width * PixelBuffer.BYTES_PER_PIXEL];
+        return true;
+    }
+
+    private void readPalette(@Nonnull byte[] data, int length) {
+        int entries = length / 3;
+        byte[] newPalette = new byte[256 * 4];
+        for (int i = 0; i < entries; i++) {
+            newPalette[i * 4] = data[i * 3];
+            newPalette[(i * 4) + 1] = data[(i * 3) + 1];
+            newPalette[(i * 4) + 2] = data[(i * 3) + 2];
+            newPalette[(i * 4) + 3] = (byte) 0xFF;
+        }
+        palette = newPalette;
+    }
+
+    private void readTransparency(@Nonnull byte[] data, int length) {
+        switch (colorType) {
+            case COLOR_PALETTE:
+                if (palette != null) {
+                    for (int i = 0; (i < length) && (i < 256); i++) {
+                        palette[(i * 4) + 3] = data[i];
+                    }
+                }
+                break;
+            case COLOR_GRAY:
+                if (length >= 2) {
+                    transparentColor = data[1] & 0xFF;
+                }
+                break;
+            case COLOR_RGB:
+                if (length >= 6) {
+                    transparentColor = ((data[1] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[5] & 0xFF);
+                }
+                break;
+        }
+    }
+
+    private void inflate(@Nonnull byte[] data, int length) throws IOException {
+        inflater.setInput(data, 0, length);
+        try {
+            while (row < height) {
+                int inflated = inflater.inflate(currentRow, currentRowFill, currentRow.length - currentRowFill);
+                if (inflated == 0) {
+                    if (inflater.needsInput() || inflater.finished()) {
+                        return;
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new IOException("The image data requires a preset dictionary.");
+                    }
+                }
+                currentRowFill += inflated;
+                if (currentRowFill == currentRow.length) {
+                    finishRow();
+                    currentRowFill = 0;
+                }
+            }
+        } catch (@Nonnull DataFormatException e) {
+            throw new IOException("The image data is damaged.", e);
+        }
+    }
+
+    private void finishRow() throws IOException {
+        unfilter();
+        byte[] samples = previousRow;
+        byte[] rgba = rgbaRow;
+        switch (colorType) {
+            case COLOR_RGBA:
+                System.arraycopy(samples, 0, rgba, 0, rgba.length);
+                break;
+            case COLOR_RGB:
+                for (int x = 0, s = 0, d = 0; x < width; x++, s += 3, d += 4) {
+                    rgba[d] = samples[s];
+                    rgba[d + 1] = samples[s + 1];
+                    rgba[d + 2] = samples[s + 2];
+                    rgba[d + 3] = (byte) 0xFF;
+                    if ((transparentColor != -1) && (transparentColor ==
+                            (((samples[s] & 0xFF) << 16) | ((samples[s + 1] & 0xFF) << 8) | (samples[s + 2] & 0xFF)))) {
+                        rgba[d + 3] = 0;
+                    }
+                }
+                break;
+            case COLOR_PALETTE:
+                assert palette != null;
+                for (int x = 0, d = 0; x < width; x++, d += 4) {
+                    System.arraycopy(palette, (samples[x] & 0xFF) * 4, rgba, d, 4);
+                }
+                break;
+            case COLOR_GRAY_ALPHA:
+                for (int x = 0, s = 0, d = 0; x < width; x++, s += 2, d += 4) {
+                    rgba[d] = samples[s];
+                    rgba[d + 1] = samples[s];
+                    rgba[d + 2] = samples[s];
+                    rgba[d + 3] = samples[s + 1];
+                }
+                break;
+            case COLOR_GRAY:
+                for (int x = 0, d = 0; x < width; x++, d += 4) {
+                    rgba[d] = samples[x];
+                    rgba[d + 1] = samples[x];
+                    rgba[d + 2] = samples[x];
+                    rgba[d + 3] = ((samples[x] & 0xFF) == transparentColor) ? 0 : (byte) 0xFF;
+                }
+                break;
+        }
+        assert target != null;
+        ByteBuffer rowBuffer = target.getRows(row, 1);
+        rowBuffer.put(rgba);
+        row++;
+    }
+
+    /**
+     * Remove the filter from the current row. The result is stored in {@link #previousRow}, so it serves as the
+     * previous row for the next row right away.
+     *
+     * @throws IOException in case the filter type is invalid
+     */
+    private void unfilter() throws IOException {
+        byte[] raw = currentRow;
+        byte[] prior = previousRow;
+        byte[] result = unfilteredRow;
+        int filter = raw[0];
+        int bpp = bytesPerPixel;
+        int rowLength = result.length;
+        switch (filter) {
+            case FILTER_NONE:
+                System.arraycopy(raw, 1, result, 0, rowLength);
+                break;
+            case FILTER_SUB:
+                System.arraycopy(raw, 1, result, 0, bpp);
+                for (int i = bpp; i < rowLength; i++) {
+                    result[i] = (byte) (raw[i + 1] + result[i - bpp]);
+                }
+                break;
+            case FILTER_UP:
+                for (int i = 0; i < rowLength; i++) {
+                    result[i] = (byte) (raw[i + 1] + prior[i]);
+                }
+                break;
+            case FILTER_AVERAGE:
+                for (int i = 0; i < bpp; i++) {
+                    result[i] = (byte) (raw[i + 1] + ((prior[i] & 0xFF) >>> 1));
+                }
+                for (int i = bpp; i < rowLength; i++) {
+                    result[i] = (byte) (raw[i + 1] + (((result[i - bpp] & 0xFF) + (prior[i] & 0xFF)) >>> 1));
+                }
+                break;
+            case FILTER_PAETH:
+                for (int i = 0; i < bpp; i++) {
+                    result[i] = (byte) (raw[i + 1] + prior[i]);
+                }
+                for (int i = bpp; i < rowLength; i++) {
+                    result[i] = (byte) (raw[i + 1] +
+                            paeth(result[i - bpp] & 0xFF, prior[i] & 0xFF, prior[i - bpp] & 0xFF));
+                }
+                break;
+            default:
+                throw new IOException("Invalid filter type " + filter + " in row " + row);
+        }
+        unfilteredRow = prior;
+        previousRow = result;
+    }
+
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = (left + up) - upLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceUp = Math.abs(estimate - up);
+        int distanceUpLeft = Math.abs(estimate - upLeft);
+        if ((distanceLeft <= distanceUp) && (distanceLeft <= distanceUpLeft)) {
+            return left;
+        }
+        if (distanceUp <= distanceUpLeft) {
+            return up;
+        }
+        return upLeft;
+    }
+
+    private static int getInt(@Nonnull byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) |
+                (data[offset + 3] & 0xFF);
+    }
+}
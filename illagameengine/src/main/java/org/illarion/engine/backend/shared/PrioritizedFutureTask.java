@@ -0,0 +1,64 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * This is a task of the texture loading that is executed in the order of its priority. Lower values are executed
+ * first.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+final class PrioritizedFutureTask<V> extends FutureTask<V> implements Comparable<PrioritizedFutureTask<?>> {
+    /**
+     * The priority of this task.
+     */
+    private final long priority;
+
+    /**
+     * The action that is executed once the task is done.
+     */
+    @Nullable
+    private final Runnable completion;
+
+    PrioritizedFutureTask(@Nonnull Callable<V> callable, long priority, @Nullable Runnable completion) {
+        super(callable);
+        this.priority = priority;
+        this.completion = completion;
+    }
+
+    PrioritizedFutureTask(@Nonnull Runnable runnable, long priority) {
+        super(runnable, null);
+        this.priority = priority;
+        completion = null;
+    }
+
+    @Override
+    protected void done() {
+        if (completion != null) {
+            completion.run();
+        }
+    }
+
+    @Override
+    public int compareTo(@Nonnull PrioritizedFutureTask<?> o) {
+        return Long.compare(priority, o.priority);
+    }
+}
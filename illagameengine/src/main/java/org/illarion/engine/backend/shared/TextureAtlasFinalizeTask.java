@@ -25,12 +25,16 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * This task transfers a decoded texture atlas to the graphics context and registers the sprites of the atlas. The
+ * task is handed to the texture manager once the atlas is decoded and all sprites of the atlas are known.
+ *
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
-public class TextureAtlasFinalizeTask<T> implements Runnable, TextureAtlasTask {
+public class TextureAtlasFinalizeTask<T> implements TextureAtlasTask, Comparable<TextureAtlasFinalizeTask<?>> {
     /**
      * The logger that provides the logging output of this class.
      */
@@ -45,33 +49,98 @@ public class TextureAtlasFinalizeTask<T> implements Runnable, TextureAtlasTask {
     }
 
     @Nonnull
-    private final FutureTask<T> preLoadTask;
+    private final TextureAtlasPreLoadTask<T> preLoadCallable;
+    @Nonnull
+    private final PrioritizedFutureTask<T> preLoadTask;
     @Nonnull
     private final AbstractTextureManager<T> textureManager;
     @Nonnull
     private final String atlasName;
     @Nonnull
     private final List<SpriteData> spriteList;
-    @Nonnull
+    @Nullable
     private final ProgressMonitor monitor;
     private final float progressToAdd;
+    private final long priority;
+
+    /**
+     * The on demand atlas that receives the texture. In case this is {@code null}, the atlas and its sprites are
+     * added to the texture manager.
+     */
+    @Nullable
+    private final OnDemandTextureAtlas target;
+
+    /**
+     * The parts that need to be finished before the upload can start. These are the decoding of the atlas and the
+     * list of the sprites.
+     */
+    @Nonnull
+    private final AtomicInteger pendingParts;
+
+    @Nullable
+    private T preLoadData;
+    @Nullable
+    private TextureUpload upload;
     private boolean done;
 
     public TextureAtlasFinalizeTask(
-            @Nonnull FutureTask<T> preLoadTask,
             @Nonnull String atlasName,
             @Nonnull AbstractTextureManager<T> textureManager,
             @Nonnull ProgressMonitor monitor,
-            float progressToAdd) {
-        this.preLoadTask = preLoadTask;
+            float progressToAdd,
+            long priority) {
+        this(atlasName, textureManager, monitor, progressToAdd, priority, null);
+    }
+
+    /**
+     * Create a task that loads a on demand texture atlas.
+     *
+     * @param target the atlas that receives the texture
+     * @param textureManager the texture manager
+     */
+    TextureAtlasFinalizeTask(@Nonnull OnDemandTextureAtlas target, @Nonnull AbstractTextureManager<T> textureManager) {
+        this(target.getName(), textureManager, null, 0.f, target.getPriority(), target);
+    }
+
+    private TextureAtlasFinalizeTask(
+            @Nonnull String atlasName,
+            @Nonnull AbstractTextureManager<T> textureManager,
+            @Nullable ProgressMonitor monitor,
+            float progressToAdd,
+            long priority,
+            @Nullable OnDemandTextureAtlas target) {
         this.atlasName = atlasName;
         this.textureManager = textureManager;
         this.monitor = monitor;
         this.progressToAdd = progressToAdd;
+        this.priority = priority;
+        this.target = target;
+        pendingParts = new AtomicInteger(2);
+        preLoadCallable = new TextureAtlasPreLoadTask<>(textureManager, atlasName);
+        preLoadTask = new PrioritizedFutureTask<>(preLoadCallable, priority, this::partDone);
         spriteList = new ArrayList<>();
         done = false;
     }
 
+    /**
+     * Get the task that decodes the atlas outside of the graphics context.
+     *
+     * @return the decoding task
+     */
+    @Nonnull
+    public RunnableFuture<T> getPreLoadTask() {
+        return preLoadTask;
+    }
+
+    /**
+     * Decode the atlas in the current thread. The decoding does not wait until other decoded atlas files are
+     * transferred, because the current thread may be the one that has to transfer them.
+     */
+    public void runPreLoadTask() {
+        preLoadCallable.setThrottled(false);
+        preLoadTask.run();
+    }
+
     public void addSprite(
             @Nonnull String name, int posX, int posY, int width, int height) {
         SpriteData data = new SpriteData();
@@ -83,35 +152,96 @@ public class TextureAtlasFinalizeTask<T> implements Runnable, TextureAtlasTask {
         spriteList.add(data);
     }
 
+    /**
+     * Report that all sprites of the atlas were added.
+     */
+    public void spritesDone() {
+        partDone();
+    }
+
+    private void partDone() {
+        if (pendingParts.decrementAndGet() == 0) {
+            textureManager.addUpdateTask(this);
+        }
+    }
+
     @Override
     public boolean isDone() {
         return done;
     }
 
-    @Override
-    public void run() {
+    /**
+     * Transfer the next part of the atlas to the graphics context. This function has to be called in the graphics
+     * context.
+     *
+     * @return {@code true} once the task is done
+     */
+    public boolean uploadStep() {
+        boolean finished = true;
         try {
-            @Nullable T preLoadData = preLoadTask.get();
-            if (preLoadData == null) {
-                LOGGER.warn("Failed to load texture data for atlas: {}", atlasName);
-            } else {
-                Texture atlasTexture = textureManager.loadTexture(atlasName, preLoadData);
-                if (atlasTexture != null) {
-                    textureManager.addTexture(atlasName, atlasTexture);
-                    for (@Nonnull SpriteData data : spriteList) {
-                        Texture spriteTexture = atlasTexture
-                                .getSubTexture(data.posX, data.posY, data.width, data.height);
-                        textureManager.addTexture(data.spriteName, spriteTexture);
-                    }
-                }
-            }
-            monitor.setProgress(monitor.getProgress() + progressToAdd);
+            finished = uploadNextPart();
         } catch (@Nonnull InterruptedException e) {
             LOGGER.error("Loading thread got interrupted.", e);
+            failTarget();
         } catch (@Nonnull ExecutionException e) {
             LOGGER.error("Failure while loading texture data.", e);
+            failTarget();
         } finally {
-            done = true;
+            if (finished) {
+                finish();
+            }
+        }
+        return finished;
+    }
+
+    private boolean uploadNextPart() throws InterruptedException, ExecutionException {
+        if (upload == null) {
+            preLoadData = preLoadTask.get();
+            if (preLoadData == null) {
+                LOGGER.warn("Failed to load texture data for atlas: {}", atlasName);
+                failTarget();
+                return true;
+            }
+            upload = textureManager.startTextureUpload(atlasName, preLoadData);
+        }
+        if (!upload.uploadStep()) {
+            return false;
+        }
+
+        @Nullable Texture atlasTexture = upload.getTexture();
+        if (target != null) {
+            textureManager.setOnDemandAtlasTexture(target, atlasTexture);
+        } else if (atlasTexture != null) {
+            textureManager.addTexture(atlasName, atlasTexture);
+            for (@Nonnull SpriteData data : spriteList) {
+                Texture spriteTexture = atlasTexture.getSubTexture(data.posX, data.posY, data.width, data.height);
+                textureManager.addTexture(data.spriteName, spriteTexture);
+            }
+        }
+        return true;
+    }
+
+    private void failTarget() {
+        if (target != null) {
+            textureManager.setOnDemandAtlasTexture(target, null);
         }
     }
+
+    private void finish() {
+        if (preLoadData != null) {
+            textureManager.releaseTextureData(preLoadData);
+            preLoadData = null;
+            preLoadCallable.releasePermit();
+        }
+        upload = null;
+        if (monitor != null) {
+            monitor.setProgress(monitor.getProgress() + progressToAdd);
+        }
+        done = true;
+    }
+
+    @Override
+    public int compareTo(@Nonnull TextureAtlasFinalizeTask<?> o) {
+        return Long.compare(priority, o.priority);
+    }
 }
@@ -27,7 +27,6 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.Executor;
-import java.util.concurrent.FutureTask;
 
 /**
  * The purpose of this task is to read the XML file of one set of texture atlas files.
@@ -72,6 +71,17 @@ public class TextureAtlasListXmlLoadingTask<T> implements Runnable, TextureAtlas
     @Nullable
     private final Executor taskExecutor;
 
+    /**
+     * The loading rank of the directory. Atlas files of directories with a lower rank are loaded first.
+     */
+    private final int directoryRank;
+
+    /**
+     * Set {@code true} in case the atlas files are loaded on demand. Only the sprites of the atlas files are
+     * registered in this case.
+     */
+    private final boolean onDemand;
+
     /**
      * Stores if the task is done.
      */
@@ -86,18 +96,24 @@ public class TextureAtlasListXmlLoadingTask<T> implements Runnable, TextureAtlas
      * @param textureManager the parent texture manager
      * @param progressMonitor the monitor of the loading progress
      * @param taskExecutor the executor that takes care for executing further tasks.
+     * @param directoryRank the loading rank of the directory
+     * @param onDemand {@code true} to load the atlas files once they are used
      */
     public TextureAtlasListXmlLoadingTask(
             @Nonnull XmlPullParserFactory parserFactory,
             @Nonnull String atlasName,
             @Nonnull AbstractTextureManager<T> textureManager,
             @Nonnull ProgressMonitor progressMonitor,
-            @Nullable Executor taskExecutor) {
+            @Nullable Executor taskExecutor,
+            int directoryRank,
+            boolean onDemand) {
         this.parserFactory = parserFactory;
         this.atlasName = atlasName;
         this.textureManager = textureManager;
         this.progressMonitor = progressMonitor;
         this.taskExecutor = taskExecutor;
+        this.directoryRank = directoryRank;
+        this.onDemand = onDemand;
         done = false;
         progressMonitor.setProgress(0.f);
     }
@@ -119,7 +135,9 @@ public class TextureAtlasListXmlLoadingTask<T> implements Runnable, TextureAtlas
 
             int currentEvent = parser.nextTag();
             int expectedAtlasCount = 0;
+            int atlasIndex = 0;
             @Nullable TextureAtlasFinalizeTask<T> currentTextureTask = null;
+            @Nullable OnDemandTextureAtlas currentOnDemandAtlas = null;
             while (currentEvent != XmlPullParser.END_DOCUMENT) {
                 if (currentEvent == XmlPullParser.START_TAG) {
                     String tagName = parser.getName();
@@ -133,24 +151,28 @@ public class TextureAtlasListXmlLoadingTask<T> implements Runnable, TextureAtlas
                         case "atlas":
                             @Nullable String currentAtlasName = getAtlasTextureName(parser);
                             if (currentAtlasName != null) {
-                                FutureTask<T> preLoadTask = new FutureTask<>(
-                                        new TextureAtlasPreLoadTask<>(textureManager, currentAtlasName));
-                                if (taskExecutor == null) {
-                                    preLoadTask.run();
-                                } else {
-                                    taskExecutor.execute(preLoadTask);
-                                }
-
+                                atlasIndex++;
                                 float progressToAdd = (expectedAtlasCount == 0) ? 0.f : (1.f /
                                         expectedAtlasCount);
-                                currentTextureTask = new TextureAtlasFinalizeTask<>(preLoadTask, currentAtlasName,
-                                                                                    textureManager, progressMonitor,
-                                                                                    progressToAdd);
+                                long priority = AbstractTextureManager.getLoadingPriority(directoryRank, atlasIndex);
+                                if (onDemand) {
+                                    currentOnDemandAtlas =
+                                            new OnDemandTextureAtlas(currentAtlasName, textureManager, priority);
+                                    progressMonitor.setProgress(progressMonitor.getProgress() + progressToAdd);
+                                } else {
+                                    currentTextureTask = new TextureAtlasFinalizeTask<>(currentAtlasName,
+                                            textureManager, progressMonitor, progressToAdd, priority);
+                                    if (taskExecutor == null) {
+                                        currentTextureTask.runPreLoadTask();
+                                    } else {
+                                        taskExecutor.execute(currentTextureTask.getPreLoadTask());
+                                    }
+                                }
                             }
                             break;
                         case "sprite":
-                            if (currentTextureTask != null) {
-                                transferSpriteData(parser, currentTextureTask);
+                            if ((currentTextureTask != null) || (currentOnDemandAtlas != null)) {
+                                transferSpriteData(parser, currentTextureTask, currentOnDemandAtlas);
                             }
                             break;
                     }
@@ -158,10 +180,11 @@ public class TextureAtlasListXmlLoadingTask<T> implements Runnable, TextureAtlas
                     String tagName = parser.getName();
                     if ("atlas".equals(tagName)) {
                         if (currentTextureTask != null) {
-                            textureManager.addUpdateTask(currentTextureTask);
                             textureManager.addLoadingTask(currentTextureTask);
+                            currentTextureTask.spritesDone();
                             currentTextureTask = null;
                         }
+                        currentOnDemandAtlas = null;
                     } else if ("atlasList".equals(tagName)) {
                         break;
                     }
@@ -215,7 +238,9 @@ public class TextureAtlasListXmlLoadingTask<T> implements Runnable, TextureAtlas
     }
 
     private void transferSpriteData(
-            @Nonnull XmlPullParser parser, @Nonnull TextureAtlasFinalizeTask<T> task) {
+            @Nonnull XmlPullParser parser,
+            @Nullable TextureAtlasFinalizeTask<T> task,
+            @Nullable OnDemandTextureAtlas onDemandAtlas) {
         @Nullable String name = null;
         int posX = -1;
         int posY = -1;
@@ -250,7 +275,11 @@ public class TextureAtlasListXmlLoadingTask<T> implements Runnable, TextureAtlas
         }
 
         if ((name != null) && (posX > -1) && (posY > -1) && (width > -1) && (height > -1)) {
-            task.addSprite(name, posX, posY, width, height);
+            if (task != null) {
+                task.addSprite(name, posX, posY, width, height);
+            } else if (onDemandAtlas != null) {
+                textureManager.addOnDemandTexture(name, onDemandAtlas, posX, posY, width, height);
+            }
         } else {
             log.error("Unable to receive all required values for sprite definition!");
         }
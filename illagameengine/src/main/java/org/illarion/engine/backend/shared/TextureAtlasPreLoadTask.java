@@ -37,6 +37,17 @@ public class TextureAtlasPreLoadTask<V> implements Callable<V> {
     @Nonnull
     private final String textureName;
 
+    /**
+     * This flag is {@code true} in case the task waits until the texture manager allows to hold another decoded
+     * atlas.
+     */
+    private boolean throttled = true;
+
+    /**
+     * This flag is {@code true} while the decoded data holds a permit of the texture manager.
+     */
+    private boolean permitTaken;
+
     /**
      * Create a new pre-load texture atlas task.
      *
@@ -49,9 +60,42 @@ public class TextureAtlasPreLoadTask<V> implements Callable<V> {
         this.textureName = textureName;
     }
 
+    /**
+     * Set if the task waits until the texture manager allows to hold another decoded atlas. This must not be enabled
+     * in case the task is executed by the thread that transfers the atlas files to the graphics context.
+     *
+     * @param throttled {@code true} to wait for the texture manager
+     */
+    void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+
+    /**
+     * Report that the decoded data is not held in memory anymore.
+     */
+    void releasePermit() {
+        if (permitTaken) {
+            permitTaken = false;
+            textureManager.releaseDecodedAtlasPermit();
+        }
+    }
+
     @Nullable
     @Override
     public V call() throws Exception {
-        return textureManager.loadTextureData(textureName + ".png");
+        if (throttled) {
+            textureManager.acquireDecodedAtlasPermit();
+            permitTaken = true;
+        }
+        boolean loaded = false;
+        try {
+            @Nullable V data = textureManager.loadTextureData(textureName + ".png");
+            loaded = data != null;
+            return data;
+        } finally {
+            if (!loaded) {
+                releasePermit();
+            }
+        }
     }
 }
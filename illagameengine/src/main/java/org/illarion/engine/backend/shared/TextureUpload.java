@@ -0,0 +1,43 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import org.illarion.engine.graphic.Texture;
+
+import javax.annotation.Nullable;
+
+/**
+ * This is the transfer of decoded texture data to the graphics context. The transfer can be split into multiple
+ * steps, so a large texture does not stall a single frame.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public interface TextureUpload {
+    /**
+     * Transfer the next part of the texture data. This function is called in the graphics context.
+     *
+     * @return {@code true} once the entire texture is transferred
+     */
+    boolean uploadStep();
+
+    /**
+     * Get the texture. This is only valid once {@link #uploadStep()} reported that the transfer is complete.
+     *
+     * @return the texture or {@code null} in case the texture could not be created
+     */
+    @Nullable
+    Texture getTexture();
+}
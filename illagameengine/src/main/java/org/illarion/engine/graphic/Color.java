@@ -155,6 +155,19 @@ public class Color {
         alpha += color.alpha;
     }
 
+    /**
+     * Add color values to this color. The alpha component is not changed.
+     *
+     * @param fRed the red component that is added
+     * @param fGreen the green component that is added
+     * @param fBlue the blue component that is added
+     */
+    public void add(float fRed, float fGreen, float fBlue) {
+        red += Math.round(fRed * MAX_INT_VALUE);
+        green += Math.round(fGreen * MAX_INT_VALUE);
+        blue += Math.round(fBlue * MAX_INT_VALUE);
+    }
+
     /**
      * Get the alpha color component.
      *
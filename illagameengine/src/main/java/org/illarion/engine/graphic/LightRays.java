@@ -18,21 +18,58 @@ package org.illarion.engine.graphic;
 import illarion.common.util.Bresenham;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * This class stores a set of light rays that originate from a root location.
+ * <p>
+ * The rays form a tree with the origin of the light as root. This tree is stored in flat primitive arrays in
+ * depth-first order. So the children of a node follow the node directly and {@link #subtreeEnd} points to the first
+ * node behind the last child of a node. This allows walking the tree with a single loop and skipping the remaining
+ * part of a ray once it is blocked.
+ * </p>
  *
  * @author Nop
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
 final class LightRays {
     /**
-     * The root node.
+     * The intensity of the light below that a ray does not spread any further.
+     */
+    private static final float MIN_INTENSITY = 0.05f;
+
+    /**
+     * The relative x coordinates of the nodes.
+     */
+    @Nonnull
+    private final int[] nodeX;
+
+    /**
+     * The relative y coordinates of the nodes.
+     */
+    @Nonnull
+    private final int[] nodeY;
+
+    /**
+     * The index of the parent node for each node. The root node has no parent, its value is {@code -1}.
+     */
+    @Nonnull
+    private final int[] parent;
+
+    /**
+     * The index of the first node that is not a part of the subtree of each node.
+     */
+    @Nonnull
+    private final int[] subtreeEnd;
+
+    /**
+     * The light intensity of the nodes without any obstruction.
      */
     @Nonnull
-    private final RayNode root;
+    private final float[] nodeIntensity;
 
     /**
      * The length of the rays
@@ -67,16 +104,34 @@ final class LightRays {
      */
     public LightRays(int targetSize) {
         size = targetSize;
-        root = new RayNode(targetSize);
+        TreeNode root = new TreeNode(0, 0);
 
         Bresenham bresenham = new Bresenham();
 
         for (int i = -targetSize; i < targetSize; ++i) {
-            createRay(i, -targetSize, bresenham);
-            createRay(i + 1, targetSize, bresenham);
-            createRay(targetSize, i, bresenham);
-            createRay(-targetSize, i + 1, bresenham);
+            createRay(root, i, -targetSize, bresenham);
+            createRay(root, i + 1, targetSize, bresenham);
+            createRay(root, targetSize, i, bresenham);
+            createRay(root, -targetSize, i + 1, bresenham);
         }
+
+        int count = root.countNodes();
+        nodeX = new int[count];
+        nodeY = new int[count];
+        parent = new int[count];
+        subtreeEnd = new int[count];
+        nodeIntensity = new float[count];
+        flatten(root, -1, 0);
+    }
+
+    /**
+     * Get the amount of nodes of the ray tree. This is the size of the buffer required by
+     * {@link #apply(LightSource, float[])}.
+     *
+     * @return the amount of nodes
+     */
+    int getNodeCount() {
+        return nodeX.length;
     }
 
     /**
@@ -84,23 +139,141 @@ final class LightRays {
      * light source and the rays are used for this light source. With knowing the real location there are the checks
      * down with the {@link LightingMap} of the light ray gets over the tiles correctly and with the results the
      * light rays are  modified to the shadow by the objects on the map applies correctly.
+     * <p>
+     * The intensity set for each node is reduced by the light blocking level of the tiles in front of it. In case a
+     * tile blocks the light entirely the ray stops at this location and the following nodes are skipped.
+     * </p>
      *
      * @param light the source of the light that shall be mapped with the pre
+     * @param buffer the buffer that stores the remaining intensity of the light for each node, it needs at least
+     * the length returned by {@link #getNodeCount()}
      */
-    public void apply(@Nonnull LightSource light) {
-        root.apply(light, 1.0f);
+    void apply(@Nonnull LightSource light, @Nonnull float[] buffer) {
+        int count = nodeX.length;
+        int index = 0;
+        while (index < count) {
+            float globalIntensity = (index == 0) ? 1.f : buffer[parent[index]];
+            int blocked = light.setIntensity(nodeX[index], nodeY[index], globalIntensity * nodeIntensity[index]);
+            // never block light source itself, remove when blocking is variable
+            if (index == 0) {
+                blocked = 0;
+            }
+
+            if (blocked < LightingMap.BLOCKED_VIEW) {
+                float newIntensity = globalIntensity;
+                if (blocked > 0) {
+                    newIntensity -= blocked / (float) LightingMap.BLOCKED_VIEW;
+                }
+                if (newIntensity > MIN_INTENSITY) {
+                    buffer[index] = newIntensity;
+                    index++;
+                    continue;
+                }
+            }
+            index = subtreeEnd[index];
+        }
     }
 
     /**
      * Prepare a single light ray and add it to the root node
      *
+     * @param root the root node of the ray tree
      * @param x the x coordinate of the target location of the ray
      * @param y the y coordinate of the target location of the ray
      */
-    private void createRay(int x, int y, @Nonnull Bresenham bresenham) {
+    private void createRay(@Nonnull TreeNode root, int x, int y, @Nonnull Bresenham bresenham) {
         bresenham.calculate(0, 0, x, y);
         bresenham.adjustStart(0, 0);
 
-        root.addRay(bresenham.getX(), bresenham.getY(), bresenham.getLength(), 1, size);
+        int[] xPath = bresenham.getX();
+        int[] yPath = bresenham.getY();
+        int len = bresenham.getLength();
+
+        TreeNode current = root;
+        for (int index = 1; index < len; index++) {
+            int nx = xPath[index];
+            int ny = yPath[index];
+
+            TreeNode next = null;
+            for (TreeNode node : current.children) {
+                if ((node.posX == nx) && (node.posY == ny)) {
+                    next = node;
+                    break;
+                }
+            }
+
+            if (next == null) {
+                next = new TreeNode(nx, ny);
+                // only inside falloff circle
+                if (getIntensity(nx, ny) > 0) {
+                    current.children.add(next);
+                }
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Write a node and all its children to the flat arrays.
+     *
+     * @param node the node to write
+     * @param parentIndex the index of the parent node
+     * @param index the index the node is written to
+     * @return the index behind the last written node
+     */
+    private int flatten(@Nonnull TreeNode node, int parentIndex, int index) {
+        nodeX[index] = node.posX;
+        nodeY[index] = node.posY;
+        nodeIntensity[index] = getIntensity(node.posX, node.posY);
+        parent[index] = parentIndex;
+
+        int next = index + 1;
+        for (TreeNode child : node.children) {
+            next = flatten(child, index, next);
+        }
+        subtreeEnd[index] = next;
+        return next;
+    }
+
+    /**
+     * Get the intensity of the light at a location relative to the origin of the light.
+     *
+     * @param x the relative x coordinate
+     * @param y the relative y coordinate
+     * @return the intensity of the light
+     */
+    private float getIntensity(int x, int y) {
+        float distance = (float) Math.sqrt((x * x) + (y * y));
+        return (float) (1.0 - (distance / (size + 0.5)));
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "LightRays(size: " + size + ", nodes: " + nodeX.length + ')';
+    }
+
+    /**
+     * A node of the ray tree. This is only used while the rays are build.
+     */
+    private static final class TreeNode {
+        private final int posX;
+        private final int posY;
+
+        @Nonnull
+        private final List<TreeNode> children = new ArrayList<>();
+
+        TreeNode(int posX, int posY) {
+            this.posX = posX;
+            this.posY = posY;
+        }
+
+        int countNodes() {
+            int count = 1;
+            for (TreeNode child : children) {
+                count += child.countNodes();
+            }
+            return count;
+        }
     }
 }
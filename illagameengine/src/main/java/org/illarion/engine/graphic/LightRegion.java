@@ -0,0 +1,141 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2015 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.graphic;
+
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import illarion.common.types.ServerCoordinate;
+import org.jetbrains.annotations.Contract;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is the set of tiles that need their light to be calculated again during one publishing run of the light
+ * tracer. Along with the tiles it stores the bounding box of the region, so light sources that are far away from
+ * all changes can be rejected without checking each of their tiles.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+final class LightRegion {
+    /**
+     * The keys of all tiles in this region.
+     *
+     * @see #getKey(int, int, int)
+     */
+    @Nonnull
+    private final TLongSet keys = new TLongHashSet();
+
+    /**
+     * The locations of all tiles in this region.
+     */
+    @Nonnull
+    private final List<ServerCoordinate> tiles = new ArrayList<>();
+
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int minZ = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+    private int maxZ = Integer.MIN_VALUE;
+
+    /**
+     * Add a tile to the region.
+     *
+     * @param coordinate the location of the tile
+     */
+    void add(@Nonnull ServerCoordinate coordinate) {
+        if (keys.add(getKey(coordinate.getX(), coordinate.getY(), coordinate.getZ()))) {
+            addTile(coordinate);
+        }
+    }
+
+    /**
+     * Add a tile to the region.
+     *
+     * @param x the x coordinate of the tile
+     * @param y the y coordinate of the tile
+     * @param z the z coordinate of the tile
+     */
+    void add(int x, int y, int z) {
+        if (keys.add(getKey(x, y, z))) {
+            addTile(new ServerCoordinate(x, y, z));
+        }
+    }
+
+    private void addTile(@Nonnull ServerCoordinate coordinate) {
+        tiles.add(coordinate);
+        minX = Math.min(minX, coordinate.getX());
+        minY = Math.min(minY, coordinate.getY());
+        minZ = Math.min(minZ, coordinate.getZ());
+        maxX = Math.max(maxX, coordinate.getX());
+        maxY = Math.max(maxY, coordinate.getY());
+        maxZ = Math.max(maxZ, coordinate.getZ());
+    }
+
+    /**
+     * Check if a tile is part of this region.
+     *
+     * @param x the x coordinate of the tile
+     * @param y the y coordinate of the tile
+     * @param z the z coordinate of the tile
+     * @return {@code true} in case the tile is part of the region
+     */
+    @Contract(pure = true)
+    boolean contains(int x, int y, int z) {
+        return keys.contains(getKey(x, y, z));
+    }
+
+    /**
+     * Check if the square area around a location may overlap with this region. This only checks the bounding box,
+     * so a {@code true} result does not ensure that any tile of the area is actually part of the region.
+     *
+     * @param x the x coordinate of the center of the area
+     * @param y the y coordinate of the center of the area
+     * @param z the z coordinate of the center of the area
+     * @param radius the distance from the center to the border of the area
+     * @return {@code false} in case the area is for sure outside of the region
+     */
+    @Contract(pure = true)
+    boolean intersects(int x, int y, int z, int radius) {
+        if ((z < minZ) || (z > maxZ)) {
+            return false;
+        }
+        if (((x + radius) < minX) || ((x - radius) > maxX)) {
+            return false;
+        }
+        return ((y + radius) >= minY) && ((y - radius) <= maxY);
+    }
+
+    @Contract(pure = true)
+    boolean isEmpty() {
+        return tiles.isEmpty();
+    }
+
+    @Nonnull
+    @Contract(pure = true)
+    Collection<ServerCoordinate> getTiles() {
+        return Collections.unmodifiableList(tiles);
+    }
+
+    @Contract(pure = true)
+    private static long getKey(int x, int y, int z) {
+        return ((x & 0xFFFFFL) << 40) | ((y & 0xFFFFFL) << 20) | (z & 0xFFFFFL);
+    }
+}
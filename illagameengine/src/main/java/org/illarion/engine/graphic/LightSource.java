@@ -20,7 +20,9 @@ import org.jetbrains.annotations.Contract;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -59,10 +61,37 @@ public final class LightSource {
 
     /**
      * The intensity array stores the calculated light intensity values. These result from the pre-calculated light
-     * rays along with the situation on the map such as objects that block out the light.
+     * rays along with the situation on the map such as objects that block out the light. The values are stored row
+     * by row, the index of a offset is {@code (dX + size) * width + (dY + size)}.
      */
     @Nonnull
-    private final double[][] intensity;
+    private final float[] intensity;
+
+    /**
+     * The amount of tiles in one row of the {@link #intensity} array.
+     */
+    private final int width;
+
+    /**
+     * The buffer that is used to store the remaining intensity along the rays while the shadows are calculated.
+     */
+    @Nonnull
+    private final float[] rayBuffer;
+
+    /**
+     * The red component of the light, already scaled by the brightness and the inversion.
+     */
+    private final float lightRed;
+
+    /**
+     * The green component of the light, already scaled by the brightness and the inversion.
+     */
+    private final float lightGreen;
+
+    /**
+     * The blue component of the light, already scaled by the brightness and the inversion.
+     */
+    private final float lightBlue;
 
     /**
      * Invert flag. If this is set to true it results in a reduce of the light share on a tile instead of a increase.
@@ -75,6 +104,25 @@ public final class LightSource {
     @Nonnull
     private ServerCoordinate location;
 
+    /**
+     * The location of the light source the current values of the {@link #intensity} array were calculated for.
+     */
+    private int shadowX;
+    private int shadowY;
+    private int shadowZ;
+
+    /**
+     * The locations of the tiles this light source added light to when it was published the last time.
+     */
+    @Nonnull
+    private final List<ServerCoordinate> publishedTiles;
+
+    /**
+     * This flag is set {@code true} in case the shadows got calculated again since the light source was published
+     * the last time.
+     */
+    private boolean changed;
+
     /**
      * The reference map that is used to get the data how the light spreads on the map.
      */
@@ -105,10 +153,16 @@ public final class LightSource {
         encodedValue = encoding;
         int newSize = (encoding / 10000) % 10;
         rays = LightRays.getRays(newSize);
-        intensity = new double[(newSize * 2) + 1][(newSize * 2) + 1];
+        width = (newSize * 2) + 1;
+        intensity = new float[width * width];
+        rayBuffer = new float[rays.getNodeCount()];
         color = new Color(Color.WHITE);
 
         this.location = location;
+        shadowX = location.getX();
+        shadowY = location.getY();
+        shadowZ = location.getZ();
+        publishedTiles = new ArrayList<>();
 
         float blue = (encoding % 10) / 9.f;
         float green = ((encoding / 10) % 10) / 9.f;
@@ -122,40 +176,97 @@ public final class LightSource {
         size = (encoding / 10000) % 10;
         invert = (encoding / 100000) == 1;
 
+        float factor = invert ? (float) -bright : (float) bright;
+        lightRed = red * factor;
+        lightGreen = green * factor;
+        lightBlue = blue * factor;
+
         dirty = true;
 
         calculationLock = new ReentrantLock();
     }
 
     /**
-     * Apply shadow map to rendering target. So all calculated intensity values
-     * are added to the map by this function.
+     * Apply shadow map to rendering target. So all calculated intensity values that fall into the region are added to
+     * the map by this function. Tiles outside of the region are not touched.
+     *
+     * @param region the region of tiles that are updated
      */
-    public void apply() {
+    void apply(@Nonnull LightRegion region) {
         if (mapSource == null) {
             throw new IllegalStateException("The light source is not properly bound to a map yet.");
         }
 
-        ServerCoordinate loc = location;
+        int originX = shadowX;
+        int originY = shadowY;
+        int z = shadowZ;
+        if (!region.intersects(originX, originY, z, size)) {
+            return;
+        }
+        int index = 0;
         for (int dX = -size; dX <= size; dX++) {
             for (int dY = -size; dY <= size; dY++) {
-                double locIntensity = intensity[dX + size][dY + size];
+                float locIntensity = intensity[index++];
                 if (locIntensity == 0) {
                     continue;
                 }
 
-                double factor = locIntensity * bright;
+                int x = originX + dX;
+                int y = originY + dY;
+                if (region.contains(x, y, z)) {
+                    mapSource.setLight(x, y, z, lightRed * locIntensity, lightGreen * locIntensity,
+                                       lightBlue * locIntensity);
+                }
+            }
+        }
+    }
 
-                Color tempColor = new Color(color);
-                tempColor.multiply((float) factor);
-                if (invert) {
-                    tempColor.multiply(-1.f);
+    /**
+     * Add all tiles that are influenced by this light source to a region. This contains the tiles that received
+     * light when this light source was published the last time and the tiles that receive light based on the
+     * current shadow map.
+     *
+     * @param region the region the tiles are added to
+     */
+    void addFootprint(@Nonnull LightRegion region) {
+        publishedTiles.forEach(region::add);
+        if (!disposed) {
+            int index = 0;
+            for (int dX = -size; dX <= size; dX++) {
+                for (int dY = -size; dY <= size; dY++) {
+                    if (intensity[index++] != 0) {
+                        region.add(shadowX + dX, shadowY + dY, shadowZ);
+                    }
                 }
+            }
+        }
+    }
 
-                // set the light on the map
-                mapSource.setLight(new ServerCoordinate(loc, dX, dY, 0), tempColor);
+    /**
+     * Mark the current shadow map as published. This stores the tiles that received light from this light source,
+     * so they can be updated once the light source changes again.
+     */
+    void markPublished() {
+        publishedTiles.clear();
+        int index = 0;
+        for (int dX = -size; dX <= size; dX++) {
+            for (int dY = -size; dY <= size; dY++) {
+                if (intensity[index++] != 0) {
+                    publishedTiles.add(new ServerCoordinate(shadowX + dX, shadowY + dY, shadowZ));
+                }
             }
         }
+        changed = false;
+    }
+
+    /**
+     * Check if the shadows of this light source got calculated again since it was published the last time.
+     *
+     * @return {@code true} in case the light has to be published again
+     */
+    @Contract(pure = true)
+    boolean isChanged() {
+        return changed;
     }
 
     /**
@@ -168,10 +279,15 @@ public final class LightSource {
             return false;
         }
         dirty = false;
+        changed = true;
+        ServerCoordinate currentLocation = location;
+        shadowX = currentLocation.getX();
+        shadowY = currentLocation.getY();
+        shadowZ = currentLocation.getZ();
 
         // reset array
         resetShadows();
-        rays.apply(this);
+        rays.apply(this, rayBuffer);
 
         return true;
     }
@@ -243,9 +359,7 @@ public final class LightSource {
      * source object is put into the cache for later usage.
      */
     private void resetShadows() {
-        for (double[] anIntensity : intensity) {
-            Arrays.fill(anIntensity, 0);
-        }
+        Arrays.fill(intensity, 0.f);
     }
 
     /**
@@ -258,7 +372,7 @@ public final class LightSource {
      * @param newInt the intensity that shall for this location now
      * @return the obscurity of the location that's light intensity was just set
      */
-    public int setIntensity(int dX, int dY, double newInt) {
+    public int setIntensity(int dX, int dY, float newInt) {
         if (mapSource == null) {
             throw new IllegalStateException("The light source is not properly bound to a map yet.");
         }
@@ -269,12 +383,12 @@ public final class LightSource {
             throw new IllegalArgumentException("The Y offset for the light is out of bounds: " + dY);
         }
 
-        ServerCoordinate targetCoordinates = new ServerCoordinate(location, dX, dY, 0);
-
-        if (((dX == 0) && (dY == 0)) || mapSource.acceptsLight(targetCoordinates, dX, dY)) {
-            intensity[dX + size][dY + size] = newInt;
+        int x = shadowX + dX;
+        int y = shadowY + dY;
+        if (((dX == 0) && (dY == 0)) || mapSource.acceptsLight(x, y, shadowZ, dX, dY)) {
+            intensity[((dX + size) * width) + dY + size] = newInt;
         }
-        return mapSource.blocksView(targetCoordinates);
+        return mapSource.blocksView(x, y, shadowZ);
     }
 
     /**
@@ -277,30 +277,46 @@ public final class LightTracer implements Stoppable {
     }
 
     /**
-     * Publish all tidy lights.
+     * Publish all tidy lights. Only the tiles that are touched by lights that changed or got removed since the last
+     * time the lights were published are calculated again. All lights that reach into those tiles add their light
+     * to them again, all other tiles keep their light.
      */
     private void publishTidyLights() {
         if (isShutDown) {
             return;
         }
         List<LightSource> disposedList = null;
+        LightRegion region = new LightRegion();
         applyingLock.writeLock().lock();
         try {
-            log.info("Publishing lights now!");
             for (LightSource light : lights) {
                 if (light.isDisposed()) {
                     if (disposedList == null) {
                         disposedList = new ArrayList<>();
                     }
                     disposedList.add(light);
-                } else {
-                    light.apply();
+                    light.addFootprint(region);
+                } else if (light.isChanged()) {
+                    light.addFootprint(region);
+                    light.markPublished();
+                }
+            }
+            if (region.isEmpty()) {
+                log.debug("Publishing lights skipped, no light changed.");
+            } else {
+                log.info("Publishing lights for {} tiles now!", region.getTiles().size());
+                for (LightSource light : lights) {
+                    if (!light.isDisposed()) {
+                        light.apply(region);
+                    }
                 }
             }
         } finally {
             applyingLock.writeLock().unlock();
         }
-        mapSource.renderLights();
+        if (!region.isEmpty()) {
+            mapSource.renderLights(region.getTiles());
+        }
 
         if (disposedList != null) {
             lights.removeAll(disposedList);
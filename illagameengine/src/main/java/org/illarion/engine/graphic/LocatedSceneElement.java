@@ -0,0 +1,41 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.graphic;
+
+/**
+ * This is a scene element that has a fixed location on the scene. The scene uses this location to sort the element
+ * into a region of the scene, so the element is only updated and rendered while it is close to the visible area.
+ * <p>
+ * In case the location changes, the element has to report this with {@link Scene#updateElementLocation(SceneElement)}.
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public interface LocatedSceneElement extends SceneElement {
+    /**
+     * Get the x coordinate of the location of this element on the scene.
+     *
+     * @return the x coordinate
+     */
+    int getSceneX();
+
+    /**
+     * Get the y coordinate of the location of this element on the scene.
+     *
+     * @return the y coordinate
+     */
+    int getSceneY();
+}
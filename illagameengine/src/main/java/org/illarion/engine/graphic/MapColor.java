@@ -79,6 +79,16 @@ public final class MapColor {
         return COLORS[color];
     }
 
+    /**
+     * Get the amount of colors that are defined.
+     *
+     * @return the amount of colors, the valid color indices are {@code 0} up to this value excluding
+     */
+    @Contract(pure = true)
+    public static int getColorCount() {
+        return COLORS.length;
+    }
+
     /**
      * Write color value to a byte buffer on the map.
      *
@@ -68,6 +68,18 @@ public interface Scene {
      */
     void render(@Nonnull Graphics graphics, int offsetX, int offsetY);
 
+    /**
+     * Set the area of the scene that is currently visible. Elements of the scene that implement
+     * {@link LocatedSceneElement} are only updated, rendered and offered events in case they are close to this area.
+     * As long as no viewport is set, the entire scene is processed.
+     *
+     * @param x the x coordinate of the origin of the visible area
+     * @param y the y coordinate of the origin of the visible area
+     * @param width the width of the visible area
+     * @param height the height of the visible area
+     */
+    void setViewport(int x, int y, int width, int height);
+
     /**
      * This function publishes events to the scene. The actual publishing is done during the call of the
      * {@link #update(GameContainer, int)} function. This method is thread save.
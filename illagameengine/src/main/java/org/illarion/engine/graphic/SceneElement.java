@@ -47,6 +47,21 @@ public interface SceneElement {
      */
     void update(@Nonnull GameContainer container, int delta);
 
+    /**
+     * Check if the next call of {@link #update(GameContainer, int)} may run concurrently to the updates of other
+     * elements. This is the case when the update only changes the state of this element, such as the alpha value,
+     * the fading or the colours. The update must not access the graphics backend in this case. Changes to the
+     * structure of the scene that are requested anyway are applied once all concurrent updates are done.
+     * <p>
+     * The value is queried on the render thread once per update, right before the update is done.
+     * </p>
+     *
+     * @return {@code true} in case the update of this element is safe to be executed on a worker thread
+     */
+    default boolean isParallelUpdateSafe() {
+        return false;
+    }
+
     /**
      * This function is called for events that are send to the scene.
      *
@@ -16,6 +16,7 @@
 package org.illarion.engine.graphic;
 
 import illarion.common.types.ServerCoordinate;
+import org.jetbrains.annotations.Contract;
 
 import javax.annotation.Nonnull;
 
@@ -25,6 +26,13 @@ import javax.annotation.Nonnull;
  * @author Martin Karing &lt;nitram@illarion.org&gt;
  */
 public interface WorldMapDataProvider {
+    /**
+     * The flag in the packed tile data that marks a blocked tile.
+     *
+     * @see #packTile(int, int, boolean)
+     */
+    int BLOCKED_FLAG = 0x10000;
+
     /**
      * Request the tile data of a specific tile.
      *
@@ -32,4 +40,78 @@ public interface WorldMapDataProvider {
      * @param callback the callback class that is supposed to receive the tile data
      */
     void requestTile(@Nonnull ServerCoordinate location, @Nonnull WorldMapDataProviderCallback callback);
+
+    /**
+     * Request the tile data of a rectangular area at once. The data of each tile is packed using
+     * {@link #packTile(int, int, boolean)} and stored row by row, so the tile at {@code origin + (x, y)} is stored at
+     * {@code target[y * width + x]}.
+     * <p>
+     * The default implementation requests each tile using {@link #requestTile(ServerCoordinate,
+     * WorldMapDataProviderCallback)}. Implementations should override it in case they are able to supply the data in
+     * bulk. This function may be called from multiple threads at the same time.
+     *
+     * @param origin the location of the first tile of the area
+     * @param width the width of the area in tiles
+     * @param height the height of the area in tiles
+     * @param target the array that receives the packed tile data, it needs to store at least
+     * {@code width * height} values
+     */
+    default void requestTiles(@Nonnull ServerCoordinate origin, int width, int height, @Nonnull int[] target) {
+        WorldMapDataProviderCallback callback = (loc, tileId, overlayId, blocked) -> {
+            int x = loc.getX() - origin.getX();
+            int y = loc.getY() - origin.getY();
+            target[(y * width) + x] = packTile(tileId, overlayId, blocked);
+        };
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                requestTile(new ServerCoordinate(origin, x, y, 0), callback);
+            }
+        }
+    }
+
+    /**
+     * Pack the data of a tile into a single value.
+     *
+     * @param tileId the map ID of the tile (this is not the tile ID)
+     * @param overlayId the map ID of the overlay (this is not the tile ID)
+     * @param blocked {@code true} in case the player can't step onto this tile
+     * @return the packed tile data
+     */
+    @Contract(pure = true)
+    static int packTile(int tileId, int overlayId, boolean blocked) {
+        return (tileId & 0xFF) | ((overlayId & 0xFF) << 8) | (blocked ? BLOCKED_FLAG : 0);
+    }
+
+    /**
+     * Get the map ID of the tile from the packed tile data.
+     *
+     * @param packedTile the packed tile data
+     * @return the map ID of the tile
+     */
+    @Contract(pure = true)
+    static int getTileId(int packedTile) {
+        return packedTile & 0xFF;
+    }
+
+    /**
+     * Get the map ID of the overlay from the packed tile data.
+     *
+     * @param packedTile the packed tile data
+     * @return the map ID of the overlay
+     */
+    @Contract(pure = true)
+    static int getOverlayId(int packedTile) {
+        return (packedTile >> 8) & 0xFF;
+    }
+
+    /**
+     * Check if the packed tile data marks a blocked tile.
+     *
+     * @param packedTile the packed tile data
+     * @return {@code true} in case the player can't step onto the tile
+     */
+    @Contract(pure = true)
+    static boolean isBlocked(int packedTile) {
+        return (packedTile & BLOCKED_FLAG) != 0;
+    }
 }
@@ -0,0 +1,289 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package org.illarion.engine.backend.shared;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The images used by this test are encoded by the test itself, so every filter type and color type is covered. The
+ * result of the decoder is compared to the image decoded by ImageIO.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public class PngDecoderTest {
+    private static final int COLOR_GRAY = 0;
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_PALETTE = 3;
+    private static final int COLOR_GRAY_ALPHA = 4;
+    private static final int COLOR_RGBA = 6;
+
+    private static final int WIDTH = 7;
+    private static final int HEIGHT = 5;
+
+    @Nonnull
+    @DataProvider(name = "images")
+    public Object[][] images() {
+        int[] colorTypes = {COLOR_GRAY, COLOR_RGB, COLOR_PALETTE, COLOR_GRAY_ALPHA, COLOR_RGBA};
+        Object[][] result = new Object[colorTypes.length * 6][];
+        int index = 0;
+        for (int colorType : colorTypes) {
+            for (int filter = 0; filter <= 4; filter++) {
+                result[index++] = new Object[]{colorType, filter};
+            }
+            // -1 selects a different filter type for each row
+            result[index++] = new Object[]{colorType, -1};
+        }
+        return result;
+    }
+
+    @Test(dataProvider = "images")
+    public void testDecode(int colorType, int filter) throws IOException {
+        byte[] png = encode(colorType, filter, new Random((colorType * 10) + filter));
+
+        BufferedImage expected = ImageIO.read(new ByteArrayInputStream(png));
+        Assert.assertNotNull(expected);
+
+        PixelBuffer decoded = PngDecoder.decode(new ByteArrayInputStream(png), new PixelBufferPool(1));
+        Assert.assertNotNull(decoded);
+        try {
+            Assert.assertEquals(decoded.getWidth(), WIDTH);
+            Assert.assertEquals(decoded.getHeight(), HEIGHT);
+            assertPixels(decoded.getPixels(), expected);
+        } finally {
+            decoded.release();
+        }
+    }
+
+    @Test
+    public void testUnsupportedBitDepth() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeLong(0x89504E470D0A1A0AL);
+        writeChunk(data, "IHDR", header(COLOR_RGBA, 16));
+        writeChunk(data, "IEND", new byte[0]);
+
+        Assert.assertNull(PngDecoder.decode(new ByteArrayInputStream(out.toByteArray()), new PixelBufferPool(1)));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMissingRows() throws IOException {
+        byte[] png = encode(COLOR_RGBA, 0, new Random(0));
+        // Cut the file right after the header and append the end chunk.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(png, 0, 8 + 12 + 13);
+        writeChunk(new DataOutputStream(out), "IEND", new byte[0]);
+
+        PngDecoder.decode(new ByteArrayInputStream(out.toByteArray()), new PixelBufferPool(1));
+    }
+
+    private static void assertPixels(@Nonnull ByteBuffer pixels, @Nonnull BufferedImage expected) {
+        Raster raster = expected.getRaster();
+        ColorModel colorModel = expected.getColorModel();
+        int[] samples = new int[raster.getNumBands()];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.getPixel(x, y, samples);
+                int[] rgba;
+                if (colorModel instanceof IndexColorModel) {
+                    int argb = ((IndexColorModel) colorModel).getRGB(samples[0]);
+                    rgba = new int[]{(argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, argb >>> 24};
+                } else if (samples.length <= 2) {
+                    // The samples of gray images are read directly, the color model would convert them to sRGB.
+                    int alpha = (samples.length == 2) ? samples[1] : 0xFF;
+                    rgba = new int[]{samples[0], samples[0], samples[0], alpha};
+                } else {
+                    int alpha = (samples.length == 4) ? samples[3] : 0xFF;
+                    rgba = new int[]{samples[0], samples[1], samples[2], alpha};
+                }
+                for (int i = 0; i < 4; i++) {
+                    Assert.assertEquals(pixels.get() & 0xFF, rgba[i], "Pixel " + x + '/' + y + " component " + i);
+                }
+            }
+        }
+        Assert.assertFalse(pixels.hasRemaining());
+    }
+
+    /**
+     * Encode a image with random pixels.
+     *
+     * @param colorType the PNG color type
+     * @param filter the filter type applied to all rows or {@code -1} to use a different type for each row
+     * @param random the source of the pixel data
+     * @return the encoded image
+     */
+    @Nonnull
+    private static byte[] encode(int colorType, int filter, @Nonnull Random random) throws IOException {
+        int bytesPerPixel = getBytesPerPixel(colorType);
+        int rowLength = WIDTH * bytesPerPixel;
+
+        @Nullable byte[] palette = null;
+        @Nullable byte[] transparency = null;
+        int paletteSize = 12;
+        if (colorType == COLOR_PALETTE) {
+            palette = new byte[paletteSize * 3];
+            random.nextBytes(palette);
+            // Only a part of the palette has a alpha value, the other entries have to be opaque.
+            transparency = new byte[paletteSize / 2];
+            random.nextBytes(transparency);
+        }
+
+        ByteArrayOutputStream filtered = new ByteArrayOutputStream();
+        byte[] previous = new byte[rowLength];
+        for (int y = 0; y < HEIGHT; y++) {
+            byte[] row = new byte[rowLength];
+            random.nextBytes(row);
+            if (colorType == COLOR_PALETTE) {
+                for (int i = 0; i < rowLength; i++) {
+                    row[i] = (byte) ((row[i] & 0xFF) % paletteSize);
+                }
+            }
+            int rowFilter = (filter == -1) ? (y % 5) : filter;
+            filtered.write(rowFilter);
+            filtered.write(applyFilter(rowFilter, row, previous, bytesPerPixel));
+            previous = row;
+        }
+
+        Deflater deflater = new Deflater();
+        deflater.setInput(filtered.toByteArray());
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        byte[] imageData = compressed.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeLong(0x89504E470D0A1A0AL);
+        writeChunk(data, "IHDR", header(colorType, 8));
+        if (palette != null) {
+            writeChunk(data, "PLTE", palette);
+        }
+        if (transparency != null) {
+            writeChunk(data, "tRNS", transparency);
+        }
+        writeChunk(data, "tEXt", "Comment\0ignored".getBytes(StandardCharsets.ISO_8859_1));
+        // The image data is split in small chunks, so rows are spread over multiple chunks.
+        for (int offset = 0; offset < imageData.length; offset += 16) {
+            int length = Math.min(16, imageData.length - offset);
+            byte[] part = new byte[length];
+            System.arraycopy(imageData, offset, part, 0, length);
+            writeChunk(data, "IDAT", part);
+        }
+        writeChunk(data, "IEND", new byte[0]);
+        return out.toByteArray();
+    }
+
+    @Nonnull
+    private static byte[] applyFilter(int filter, @Nonnull byte[] row, @Nonnull byte[] previous, int bpp) {
+        byte[] result = new byte[row.length];
+        for (int i = 0; i < row.length; i++) {
+            int left = (i >= bpp) ? (row[i - bpp] & 0xFF) : 0;
+            int up = previous[i] & 0xFF;
+            int upLeft = (i >= bpp) ? (previous[i - bpp] & 0xFF) : 0;
+            int predictor;
+            switch (filter) {
+                case 0:
+                    predictor = 0;
+                    break;
+                case 1:
+                    predictor = left;
+                    break;
+                case 2:
+                    predictor = up;
+                    break;
+                case 3:
+                    predictor = (left + up) >>> 1;
+                    break;
+                case 4:
+                    int estimate = (left + up) - upLeft;
+                    int distanceLeft = Math.abs(estimate - left);
+                    int distanceUp = Math.abs(estimate - up);
+                    int distanceUpLeft = Math.abs(estimate - upLeft);
+                    if ((distanceLeft <= distanceUp) && (distanceLeft <= distanceUpLeft)) {
+                        predictor = left;
+                    } else if (distanceUp <= distanceUpLeft) {
+                        predictor = up;
+                    } else {
+                        predictor = upLeft;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid filter type: " + filter);
+            }
+            result[i] = (byte) (row[i] - predictor);
+        }
+        return result;
+    }
+
+    private static int getBytesPerPixel(int colorType) {
+        switch (colorType) {
+            case COLOR_GRAY:
+            case COLOR_PALETTE:
+                return 1;
+            case COLOR_GRAY_ALPHA:
+                return 2;
+            case COLOR_RGB:
+                return 3;
+            case COLOR_RGBA:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Invalid color type: " + colorType);
+        }
+    }
+
+    @Nonnull
+    private static byte[] header(int colorType, int bitDepth) {
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(WIDTH).putInt(HEIGHT);
+        header.put((byte) bitDepth).put((byte) colorType);
+        header.put((byte) 0).put((byte) 0).put((byte) 0);
+        return header.array();
+    }
+
+    private static void writeChunk(@Nonnull DataOutputStream out, @Nonnull String type, @Nonnull byte[] data)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
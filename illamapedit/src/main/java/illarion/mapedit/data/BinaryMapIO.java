@@ -0,0 +1,255 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.mapedit.data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads and writes maps in the binary format. The format stores the IDs of all tiles as plain integer
+ * arrays, followed by the tiles that carry items, warp points or annotations. It is read and written as a stream
+ * without any text parsing.
+ * <p>
+ * The layout of the file is:
+ * <ul>
+ * <li>the magic number and the version of the format</li>
+ * <li>level, x, y, width and height of the map</li>
+ * <li>the tile IDs, overlay IDs, shape IDs and music IDs, each {@code width * height} integers row by row</li>
+ * <li>the number of detailed tiles, followed by the index, the annotation, the warp point and the items of each
+ * of those tiles</li>
+ * </ul>
+ * </p>
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+final class BinaryMapIO {
+    /**
+     * The magic number at the start of each binary map file. It reads {@code IMAP}.
+     */
+    private static final int MAGIC = 0x494D4150;
+    private static final int VERSION = 1;
+
+    private static final int FLAG_ANNOTATION = 1;
+    private static final int FLAG_WARP = 2;
+
+    /**
+     * The number of integers that are transferred in one block.
+     */
+    private static final int BLOCK_SIZE = 16 * 1024;
+
+    private BinaryMapIO() {
+    }
+
+    /**
+     * Write a map to a file.
+     *
+     * @param map the map
+     * @param file the target file
+     * @throws IOException in case writing the file fails
+     */
+    static void write(@Nonnull Map map, @Nonnull Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(map.getZ());
+            out.writeInt(map.getX());
+            out.writeInt(map.getY());
+            out.writeInt(map.getWidth());
+            out.writeInt(map.getHeight());
+
+            byte[] buffer = new byte[BLOCK_SIZE * 4];
+            writeInts(out, map.getTileIdData(), buffer);
+            writeInts(out, map.getOverlayIdData(), buffer);
+            writeInts(out, map.getShapeIdData(), buffer);
+            writeInts(out, map.getMusicIdData(), buffer);
+
+            List<MapTile> detailedTiles = new ArrayList<>();
+            int[] indices = map.getDetailedTileIndices();
+            int count = 0;
+            for (int index : indices) {
+                MapTile tile = map.getDetailedTileAtIndex(index);
+                if ((tile != null) && tile.hasDetails()) {
+                    detailedTiles.add(tile);
+                    indices[count++] = index;
+                }
+            }
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(indices[i]);
+                writeDetails(out, detailedTiles.get(i));
+            }
+        }
+    }
+
+    /**
+     * Read a map from a file.
+     *
+     * @param file the file
+     * @param name the name of the map
+     * @param path the path of the map
+     * @return the map
+     * @throws IOException in case reading the file fails or the file is not a binary map
+     */
+    @Nonnull
+    static Map read(@Nonnull Path file, @Nonnull String name, @Nonnull Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a binary map.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of the binary map format: " + version);
+            }
+            int z = in.readInt();
+            int x = in.readInt();
+            int y = in.readInt();
+            int width = in.readInt();
+            int height = in.readInt();
+            if ((width <= 0) || (height <= 0)) {
+                throw new IOException("Illegal size of the map: " + width + 'x' + height);
+            }
+            Map map = new Map(name, path, width, height, x, y, z);
+
+            byte[] buffer = new byte[BLOCK_SIZE * 4];
+            readInts(in, map.getTileIdData(), buffer);
+            readInts(in, map.getOverlayIdData(), buffer);
+            readInts(in, map.getShapeIdData(), buffer);
+            readInts(in, map.getMusicIdData(), buffer);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int index = in.readInt();
+                if ((index < 0) || (index >= map.getTileCount())) {
+                    throw new IOException("Tile index out of range: " + index);
+                }
+                readDetails(in, map.getTileAtIndex(index));
+            }
+            return map;
+        }
+    }
+
+    private static void writeInts(
+            @Nonnull OutputStream out, @Nonnull int[] values, @Nonnull byte[] buffer) throws IOException {
+        IntBuffer ints = ByteBuffer.wrap(buffer).asIntBuffer();
+        for (int offset = 0; offset < values.length; offset += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, values.length - offset);
+            ints.clear();
+            ints.put(values, offset, length);
+            out.write(buffer, 0, length * 4);
+        }
+    }
+
+    private static void readInts(
+            @Nonnull DataInputStream in, @Nonnull int[] values, @Nonnull byte[] buffer) throws IOException {
+        IntBuffer ints = ByteBuffer.wrap(buffer).asIntBuffer();
+        for (int offset = 0; offset < values.length; offset += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, values.length - offset);
+            in.readFully(buffer, 0, length * 4);
+            ints.clear();
+            ints.get(values, offset, length);
+        }
+    }
+
+    private static void writeDetails(@Nonnull DataOutputStream out, @Nonnull MapTile tile) throws IOException {
+        String annotation = tile.getAnnotation();
+        MapWarpPoint warp = tile.getMapWarpPoint();
+        int flags = 0;
+        if (annotation != null) {
+            flags |= FLAG_ANNOTATION;
+        }
+        if (warp != null) {
+            flags |= FLAG_WARP;
+        }
+        out.writeByte(flags);
+        if (annotation != null) {
+            out.writeUTF(annotation);
+        }
+        if (warp != null) {
+            out.writeInt(warp.getXTarget());
+            out.writeInt(warp.getYTarget());
+            out.writeInt(warp.getZTarget());
+        }
+
+        List<MapItem> items = tile.getMapItems();
+        if (items == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(items.size());
+        for (MapItem item : items) {
+            out.writeInt(item.getId());
+            out.writeInt(item.getQualityDurability());
+            writeNullableString(out, item.getAnnotation());
+            List<String> data = item.getItemData();
+            if (data == null) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(data.size());
+                for (String value : data) {
+                    out.writeUTF(value);
+                }
+            }
+        }
+    }
+
+    private static void readDetails(@Nonnull DataInputStream in, @Nonnull MapTile tile) throws IOException {
+        int flags = in.readUnsignedByte();
+        if ((flags & FLAG_ANNOTATION) != 0) {
+            tile.setAnnotation(in.readUTF());
+        }
+        if ((flags & FLAG_WARP) != 0) {
+            tile.setMapWarpPoint(new MapWarpPoint(in.readInt(), in.readInt(), in.readInt()));
+        }
+
+        int itemCount = in.readInt();
+        for (int i = 0; i < itemCount; i++) {
+            int id = in.readInt();
+            int qualityDurability = in.readInt();
+            String annotation = readNullableString(in);
+            int dataCount = in.readInt();
+            List<String> data = new ArrayList<>(dataCount);
+            for (int j = 0; j < dataCount; j++) {
+                data.add(in.readUTF());
+            }
+            MapItem item = new MapItem(id, data, qualityDurability);
+            item.setAnnotation(annotation);
+            tile.addMapItem(item);
+        }
+    }
+
+    private static void writeNullableString(@Nonnull DataOutputStream out, @Nullable String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(@Nonnull DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+}
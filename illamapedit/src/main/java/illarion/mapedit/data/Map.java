@@ -15,6 +15,7 @@
  */
 package illarion.mapedit.data;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
 import illarion.common.types.ServerCoordinate;
 import illarion.mapedit.data.MapTile.MapTileFactory;
 import illarion.mapedit.events.HistoryPasteCutEvent;
@@ -26,6 +27,7 @@ import org.bushe.swing.event.EventBus;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -35,6 +37,11 @@ import java.util.Set;
  * @author Tim
  */
 public class Map implements Iterable<MapTile> {
+    /**
+     * The width and height of the square regions the modifications of the tiles are tracked for.
+     */
+    public static final int REGION_SIZE = 16;
+
     /**
      * The map name
      */
@@ -65,10 +72,31 @@ public class Map implements Iterable<MapTile> {
     private final int z;
 
     /**
-     * The tiles.
+     * The IDs of the base tiles. The tiles are stored row by row.
+     */
+    @Nonnull
+    private final int[] tileIds;
+    /**
+     * The IDs of the overlays of the tiles.
+     */
+    @Nonnull
+    private final int[] overlayIds;
+    /**
+     * The IDs of the shapes of the overlays.
+     */
+    @Nonnull
+    private final int[] shapeIds;
+    /**
+     * The IDs of the music of the tiles.
      */
     @Nonnull
-    private final MapTile[] mapTileData;
+    private final int[] musicIds;
+    /**
+     * The tiles that carry items, a warp point or an annotation. Only few tiles of a map do, so they are stored by
+     * their index. All other tiles are created from the ID arrays when they are requested.
+     */
+    @Nonnull
+    private final TIntObjectHashMap<MapTile> detailedTiles;
     private int activeX = Integer.MIN_VALUE;
     private int activeY = Integer.MIN_VALUE;
     private boolean isFillDragging;
@@ -81,6 +109,18 @@ public class Map implements Iterable<MapTile> {
     private int fillY;
     @Nonnull
     private final SelectionManager selectionManager;
+    /**
+     * The modification counts of the regions of the map. The count of a region is increased every time a tile in
+     * the region is replaced.
+     */
+    @Nonnull
+    private final int[] regionVersions;
+    private final int regionsPerRow;
+    /**
+     * An object that only belongs to this instance of the map.
+     */
+    @Nonnull
+    private final Object instanceKey = new Object();
 
     /**
      * Creates a new map
@@ -101,9 +141,15 @@ public class Map implements Iterable<MapTile> {
         this.x = x;
         this.y = y;
         this.z = z;
-        mapTileData = new MapTile[w * h];
+        tileIds = new int[w * h];
+        overlayIds = new int[w * h];
+        shapeIds = new int[w * h];
+        musicIds = new int[w * h];
+        detailedTiles = new TIntObjectHashMap<>();
         visible = true;
         selectionManager = new SelectionManager();
+        regionsPerRow = ((w + REGION_SIZE) - 1) / REGION_SIZE;
+        regionVersions = new int[regionsPerRow * (((h + REGION_SIZE) - 1) / REGION_SIZE)];
     }
 
     @Nullable
@@ -196,14 +242,165 @@ public class Map implements Iterable<MapTile> {
      * @param mapTile the tile to add.
      */
     private void setTileAtIndex(int index, @Nonnull MapTile mapTile) {
-        mapTileData[index] = mapTile;
+        tileIds[index] = mapTile.getId();
+        overlayIds[index] = mapTile.getOverlayID();
+        shapeIds[index] = mapTile.getShapeID();
+        musicIds[index] = mapTile.getMusicID();
+        if (mapTile.hasDetails()) {
+            detailedTiles.put(index, mapTile);
+        } else {
+            detailedTiles.remove(index);
+            mapTile.bind(this, index);
+        }
+        regionVersions[getRegionIndex(indexToMapX(index) / REGION_SIZE, indexToMapY(index) / REGION_SIZE)]++;
+    }
+
+    /**
+     * Set the IDs of a tile at a specified position. This replaces the tile without creating a tile object, the
+     * items, the warp point and the annotation of the tile are removed.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param tileId the ID of the base tile
+     * @param overlayId the ID of the overlay
+     * @param shapeId the ID of the shape of the overlay
+     * @param musicId the ID of the music
+     */
+    public void setTileAt(int x, int y, int tileId, int overlayId, int shapeId, int musicId) {
+        int index = mapToIndex(x, y);
+        tileIds[index] = tileId;
+        overlayIds[index] = overlayId;
+        shapeIds[index] = shapeId;
+        musicIds[index] = musicId;
+        detailedTiles.remove(index);
+        regionVersions[getRegionIndex(x / REGION_SIZE, y / REGION_SIZE)]++;
+    }
+
+    /**
+     * Set the IDs of a tile while the map is loaded. Other than {@link #setTileAt(int, int, int, int, int, int)}
+     * this does not track the change, so it must only be used before the map is displayed. It may be called
+     * concurrently for different tiles.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param tileId the ID of the base tile
+     * @param overlayId the ID of the overlay
+     * @param shapeId the ID of the shape of the overlay
+     * @param musicId the ID of the music
+     */
+    public void loadTileAt(int x, int y, int tileId, int overlayId, int shapeId, int musicId) {
+        int index = mapToIndex(x, y);
+        tileIds[index] = tileId;
+        overlayIds[index] = overlayId;
+        shapeIds[index] = shapeId;
+        musicIds[index] = musicId;
+    }
+
+    /**
+     * This function is called by a tile that was created from the ID arrays once items, a warp point or an
+     * annotation are added to it. The tile is stored from then on, unless the tile at the index was replaced in the
+     * meantime.
+     *
+     * @param index the index of the tile
+     * @param mapTile the tile that changed
+     */
+    void onTileDetailsChanged(int index, @Nonnull MapTile mapTile) {
+        if (detailedTiles.containsKey(index)) {
+            return;
+        }
+        if ((tileIds[index] == mapTile.getId()) && (overlayIds[index] == mapTile.getOverlayID()) &&
+                (shapeIds[index] == mapTile.getShapeID()) && (musicIds[index] == mapTile.getMusicID())) {
+            detailedTiles.put(index, mapTile);
+        }
+    }
+
+    /**
+     * Get the modification count of a region of the map. The count changes every time a tile in the region is
+     * replaced, so it can be used to check if a cached image of the region is still valid.
+     *
+     * @param regionX the x coordinate of the region, the region contains the tiles starting at
+     * {@code regionX * REGION_SIZE}
+     * @param regionY the y coordinate of the region
+     * @return the modification count of the region
+     */
+    public int getRegionVersion(int regionX, int regionY) {
+        return regionVersions[getRegionIndex(regionX, regionY)];
+    }
+
+    /**
+     * Get a key that identifies this instance of the map. Two maps that are equal, because they were loaded from the
+     * same files, still have different keys. Caches of data that depends on the tiles should use this key. The key is
+     * only referenced by the map, so it can be used in a {@link java.util.WeakHashMap}.
+     *
+     * @return the key of this map instance
+     */
+    @Nonnull
+    public Object getInstanceKey() {
+        return instanceKey;
+    }
+
+    private int getRegionIndex(int regionX, int regionY) {
+        return (regionY * regionsPerRow) + regionX;
     }
 
     /**
      * Get a tile located at a specific internal index value.
      */
+    @Nonnull
     MapTile getTileAtIndex(int index) {
-        return mapTileData[index];
+        MapTile tile = detailedTiles.get(index);
+        if (tile == null) {
+            tile = new MapTile(tileIds[index], overlayIds[index], shapeIds[index], musicIds[index], null, null);
+            tile.bind(this, index);
+        }
+        return tile;
+    }
+
+    /**
+     * Get the tile with items, a warp point or an annotation at a specific internal index value.
+     *
+     * @return the tile or {@code null} in case the tile has none of those
+     */
+    @Nullable
+    MapTile getDetailedTileAtIndex(int index) {
+        return detailedTiles.get(index);
+    }
+
+    /**
+     * Get the indices of all tiles that carry items, a warp point or an annotation in ascending order.
+     */
+    @Nonnull
+    int[] getDetailedTileIndices() {
+        int[] indices = detailedTiles.keys();
+        Arrays.sort(indices);
+        return indices;
+    }
+
+    @Nonnull
+    int[] getTileIdData() {
+        return tileIds;
+    }
+
+    @Nonnull
+    int[] getOverlayIdData() {
+        return overlayIds;
+    }
+
+    @Nonnull
+    int[] getShapeIdData() {
+        return shapeIds;
+    }
+
+    @Nonnull
+    int[] getMusicIdData() {
+        return musicIds;
+    }
+
+    /**
+     * @return the number of tiles on this map
+     */
+    int getTileCount() {
+        return tileIds.length;
     }
 
     /**
@@ -225,15 +422,15 @@ public class Map implements Iterable<MapTile> {
     }
 
     int indexToMapX(int index) {
-        if (index < 0 || index >= mapTileData.length) {
-            throw new IllegalArgumentException("Index is out of range. 0 <= " + index + " < " + mapTileData.length);
+        if (index < 0 || index >= tileIds.length) {
+            throw new IllegalArgumentException("Index is out of range. 0 <= " + index + " < " + tileIds.length);
         }
         return index % width;
     }
 
     int indexToMapY(int index) {
-        if (index < 0 || index >= mapTileData.length) {
-            throw new IllegalArgumentException("Index is out of range. 0 <= " + index + " < " + mapTileData.length);
+        if (index < 0 || index >= tileIds.length) {
+            throw new IllegalArgumentException("Index is out of range. 0 <= " + index + " < " + tileIds.length);
         }
         return index / width;
     }
@@ -250,7 +447,7 @@ public class Map implements Iterable<MapTile> {
      * @param mapItem the item  <- u don't sayy ;)
      */
     public void addItemAt(int x, int y, MapItem mapItem) {
-        mapTileData[mapToIndex(x, y)].addMapItem(mapItem);
+        getTileAtIndex(mapToIndex(x, y)).addMapItem(mapItem);
     }
 
     public void setVisible(boolean visible) {
@@ -269,7 +466,7 @@ public class Map implements Iterable<MapTile> {
      * @param warpPoint the warp point <- u don't sayy ;)
      */
     public void setWarpAt(int x, int y, MapWarpPoint warpPoint) {
-        mapTileData[mapToIndex(x, y)].setMapWarpPoint(warpPoint);
+        getTileAtIndex(mapToIndex(x, y)).setMapWarpPoint(warpPoint);
     }
 
     /**
@@ -284,14 +481,7 @@ public class Map implements Iterable<MapTile> {
         if (!contains(x, y)) {
             return null;
         }
-        int i = mapToIndex(x, y);
-        if (mapTileData[i] != null) {
-            return mapTileData[i];
-        }
-
-        MapTile tile = MapTileFactory.createNew(0, 0, 0, 0);
-        setTileAtIndex(i, tile);
-        return tile;
+        return getTileAtIndex(mapToIndex(x, y));
     }
 
     @Nullable
@@ -474,7 +664,7 @@ public class Map implements Iterable<MapTile> {
 
     @Override
     public MapIterator iterator() {
-        return new MapIterator(this, mapTileData.length);
+        return new MapIterator(this, tileIds.length);
     }
 }
 
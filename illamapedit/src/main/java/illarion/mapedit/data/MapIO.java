@@ -35,9 +35,8 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.regex.Matcher;
@@ -71,6 +70,8 @@ public final class MapIO {
     public static final String EXT_TILE = ".tiles.txt";
     @Nonnull
     public static final String EXT_ANNO = ".annot.txt";
+    @Nonnull
+    public static final String EXT_BINARY = ".map.bin";
     private static final char NEWLINE = '\n';
     @Nonnull
     private static final Pattern VERSION_PATTERN = Pattern.compile("V: (\\d+)");
@@ -82,6 +83,10 @@ public final class MapIO {
     private static final Charset CHARSET = Charset.forName("ISO-8859-1");
     @Nonnull
     private static final DecoderFactory DECODER_FACTORY = new DecoderFactory();
+    /**
+     * The minimal size in bytes of a part of the tile file that is decoded in parallel to other parts.
+     */
+    private static final int MIN_TILE_PART_SIZE = 1024 * 1024;
 
     private MapIO() {
 
@@ -107,7 +112,7 @@ public final class MapIO {
         }).start();
     }
 
-    private static final class LoadFileCallable implements Callable<List<String>> {
+    private static final class LoadFileCallable implements Callable<byte[]> {
         @Nonnull
         private final Path file;
 
@@ -116,41 +121,202 @@ public final class MapIO {
         }
 
         @Override
-        public List<String> call() throws Exception {
+        public byte[] call() throws Exception {
             try {
-                return Files.readAllLines(file, CHARSET);
+                return Files.readAllBytes(file);
             } catch (IOException e) {
-                return Collections.emptyList();
+                return new byte[0];
             }
         }
     }
 
-    private static final class LoadMapDataCallable implements Callable<Void> {
-        @Nonnull
-        private final DataType type;
+    private static final class DecodeTilesCallable implements Callable<Void> {
         @Nonnull
         private final Decoder decoder;
         @Nonnull
-        private final List<String> lines;
+        private final byte[] data;
+        private final int start;
+        private final int end;
 
-        private LoadMapDataCallable(
-                @Nonnull DataType type, @Nonnull Decoder decoder, @Nonnull List<String> lines) {
-            this.type = type;
+        private DecodeTilesCallable(@Nonnull Decoder decoder, @Nonnull byte[] data, int start, int end) {
             this.decoder = decoder;
-            this.lines = lines;
+            this.data = data;
+            this.start = start;
+            this.end = end;
         }
 
         @Nullable
         @Override
         public Void call() throws Exception {
-            int size = lines.size();
-            for (int i = 0; i < size; i++) {
-                decoder.decodeLine(type, lines.get(i), i);
-            }
+            decoder.decodeTiles(data, start, end);
             return null;
         }
     }
 
+    /**
+     * Decode all lines of a file with the line based decoding of the decoder.
+     *
+     * @param type the type of the data in the file
+     * @param decoder the decoder
+     * @param data the content of the file
+     */
+    private static void decodeLines(@Nonnull DataType type, @Nonnull Decoder decoder, @Nonnull byte[] data)
+            throws FormatCorruptedException {
+        int lineStart = 0;
+        int i = 0;
+        while (lineStart < data.length) {
+            int lineEnd = findLineEnd(data, lineStart, data.length);
+            decoder.decodeLine(type, getLine(data, lineStart, lineEnd), i++);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Get the amount of parts a tile file is split into to decode it. Each part is at least
+     * {@link #MIN_TILE_PART_SIZE} bytes large.
+     *
+     * @param length the size of the tile file in bytes
+     * @return the amount of parts
+     */
+    private static int getTilePartCount(int length) {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), length / MIN_TILE_PART_SIZE));
+    }
+
+    /**
+     * Decode the tiles of the map. The data is split into parts that start and end at line breaks. Large files are
+     * decoded in multiple parts at the same time.
+     *
+     * @param decoder the decoder, the header of the map has to be decoded already
+     * @param data the content of the tile file
+     * @param start the index of the first line after the header
+     * @param parts the amount of parts
+     */
+    private static void decodeTiles(@Nonnull Decoder decoder, @Nonnull byte[] data, int start, int parts)
+            throws IOException, InterruptedException {
+        int length = data.length - start;
+        if (parts == 1) {
+            decoder.decodeTiles(data, start, data.length);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(parts);
+        int partStart = start;
+        for (int part = 1; part <= parts; part++) {
+            int partEnd = data.length;
+            if (part < parts) {
+                int splitPoint = Math.max(partStart, start + (int) (((long) length * part) / parts));
+                partEnd = Math.min(data.length, findLineEnd(data, splitPoint, data.length) + 1);
+            }
+            if (partEnd > partStart) {
+                tasks.add(new DecodeTilesCallable(decoder, data, partStart, partEnd));
+            }
+            partStart = partEnd;
+        }
+        try {
+            for (Future<Void> result : EXECUTOR_SERVICE.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Error while decoding the tiles.", cause);
+        }
+    }
+
+    /**
+     * Find the end of a line.
+     *
+     * @return the index of the line break or {@code end} in case the line is not terminated
+     */
+    private static int findLineEnd(@Nonnull byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == NEWLINE) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    @Nonnull
+    private static String getLine(@Nonnull byte[] data, int start, int end) {
+        int lineEnd = end;
+        if ((lineEnd > start) && (data[lineEnd - 1] == '\r')) {
+            lineEnd--;
+        }
+        return new String(data, start, lineEnd - start, CHARSET);
+    }
+
+    /**
+     * Check if the binary file of a map exists and is at least as new as all text files of the map.
+     *
+     * @param binaryFile the binary map file
+     * @param textFiles the text files of the map
+     * @return {@code true} in case the binary file should be loaded
+     */
+    private static boolean isBinaryMapCurrent(@Nonnull Path binaryFile, @Nonnull Path... textFiles) {
+        if (!Files.isRegularFile(binaryFile)) {
+            return false;
+        }
+        try {
+            FileTime binaryTime = Files.getLastModifiedTime(binaryFile);
+            for (Path textFile : textFiles) {
+                if (Files.exists(textFile) && (binaryTime.compareTo(Files.getLastModifiedTime(textFile)) < 0)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to check the modification time of {}", binaryFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Decode the header and the tiles of a tile file.
+     *
+     * @param tileData the content of the tile file
+     * @param name the name of the map
+     * @param path the path of the map
+     * @param parts the amount of parts the tiles are split into to decode them at the same time
+     * @return the decoder that holds the decoded map
+     * @throws IOException in case the file is not a valid tile file
+     * @throws InterruptedException in case the thread is interrupted while waiting for the parts
+     */
+    @Nonnull
+    static Decoder decodeTileFile(@Nonnull byte[] tileData, @Nonnull String name, @Nonnull Path path, int parts)
+            throws IOException, InterruptedException {
+        Decoder decoder = null;
+        int lineStart = 0;
+        int i = 0;
+        while ((lineStart < tileData.length) && ((decoder == null) || (decoder.getDecodedMap() == null))) {
+            i++;
+            int lineEnd = findLineEnd(tileData, lineStart, tileData.length);
+            String line = getLine(tileData, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+            if (decoder != null) {
+                decoder.decodeLine(DataType.Tiles, line, i);
+                continue;
+            }
+            if (line.startsWith("#")) {
+                continue;
+            }
+            Matcher versionLineMatcher = VERSION_PATTERN.matcher(line);
+            if (versionLineMatcher.find()) {
+                String version = versionLineMatcher.group(1);
+                decoder = DECODER_FACTORY.getDecoder(Integer.parseInt(version), name, path);
+            }
+        }
+        if (decoder == null) {
+            throw new IOException("Failed to find required version number line.");
+        }
+        if (lineStart < tileData.length) {
+            decodeTiles(decoder, tileData, lineStart, parts);
+        }
+        return decoder;
+    }
+
     @Nullable
     public static Map loadMapThread(@Nonnull Path path, @Nonnull String name) throws IOException {
         LOGGER.debug("Load map {} at {}", name, path);
@@ -159,44 +325,26 @@ public final class MapIO {
         Path itemFile = path.resolve(name + EXT_ITEM);
         Path warpFile = path.resolve(name + EXT_WARP);
         Path annoFile = path.resolve(name + EXT_ANNO);
+        Path binaryFile = path.resolve(name + EXT_BINARY);
+        if (isBinaryMapCurrent(binaryFile, tileFile, itemFile, warpFile, annoFile)) {
+            LOGGER.debug("Load binary map from {}", binaryFile);
+            return BinaryMapIO.read(binaryFile, name, path);
+        }
 
-        Future<List<String>> tileLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(tileFile));
-        Future<List<String>> itemLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(itemFile));
-        Future<List<String>> warpLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(warpFile));
-        Future<List<String>> annoLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(annoFile));
+        Future<byte[]> tileLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(tileFile));
+        Future<byte[]> itemLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(itemFile));
+        Future<byte[]> warpLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(warpFile));
+        Future<byte[]> annoLoadFuture = EXECUTOR_SERVICE.submit(new LoadFileCallable(annoFile));
 
         try {
-            List<String> tileLines = tileLoadFuture.get();
-            Iterator<String> tileLinesItr = tileLines.iterator();
-            Decoder decoder = null;
-            int i = 0;
-            while (tileLinesItr.hasNext()) {
-                i++;
-                String line = tileLinesItr.next();
-                if ((line == null) || line.startsWith("#")) {
-                    continue;
-                }
-                Matcher versionLineMatcher = VERSION_PATTERN.matcher(line);
-                if (versionLineMatcher.find()) {
-                    String version = versionLineMatcher.group(1);
-                    decoder = DECODER_FACTORY.getDecoder(Integer.parseInt(version), name, path);
-                    break;
-                }
-            }
-            if (decoder == null) {
-                throw new IOException("Failed to find required version number line.");
-            }
-            while (tileLinesItr.hasNext()) {
-                i++;
-                String line = tileLinesItr.next();
-                decoder.decodeLine(DataType.Tiles, line, i);
-            }
+            byte[] tileData = tileLoadFuture.get();
+            Decoder decoder = decodeTileFile(tileData, name, path, getTilePartCount(tileData.length));
 
-            List<Callable<Void>> loadingTasks = new ArrayList<>();
-            loadingTasks.add(new LoadMapDataCallable(DataType.Items, decoder, itemLoadFuture.get()));
-            loadingTasks.add(new LoadMapDataCallable(DataType.WarpPoints, decoder, warpLoadFuture.get()));
-            loadingTasks.add(new LoadMapDataCallable(DataType.Annotations, decoder, annoLoadFuture.get()));
-            EXECUTOR_SERVICE.invokeAll(loadingTasks);
+            /* The annotations refer to the items and all of them change the same tiles, so they are decoded one after
+             * another. */
+            decodeLines(DataType.Items, decoder, itemLoadFuture.get());
+            decodeLines(DataType.WarpPoints, decoder, warpLoadFuture.get());
+            decodeLines(DataType.Annotations, decoder, annoLoadFuture.get());
             Map m = decoder.getDecodedMap();
 
             if (m == null) {
@@ -252,61 +400,86 @@ public final class MapIO {
                         writeHeader(tileOutput, HEADER_W, map.getWidth());
                         writeHeader(tileOutput, HEADER_H, map.getHeight());
 
-                        MapIterator itr = map.iterator();
-                        while (itr.hasNext()) {
-                            MapTile tile = itr.next();
-                            int x = itr.getCurrentX();
-                            int y = itr.getCurrentY();
-
-                            //        <dx>;<dy>;<tileID>;<musicID>
-                            writeLine(tileOutput, String.format("%d;%d;%s", x, y, tile));
-                            if (tile.hasAnnotation()) {
-                                writeLine(annoOutput, String.format("%d;%d;0;%s", x, y, tile.getAnnotation()));
-                            }
-
-                            List<MapItem> items = tile.getMapItems();
-                            if (items != null) {
-                                for (int i = 0; i < items.size(); i++) {
-                                    //        <dx>;<dy>;<item ID>;<quality>[;<data value>[;...]]
-                                    writeLine(itemOutput, String.format("%d;%d;%s", x, y, items.get(i)));
-                                    if (items.get(i).hasAnnotation()) {
-                                        writeLine(annoOutput, String.format("%d;%d;%d;%s", x, y, i + 1,
-                                                                            items.get(i).getAnnotation()));
-                                    }
-                                }
-                            }
-                            MapWarpPoint warp = tile.getMapWarpPoint();
-                            if (warp != null) {
-                                writeLine(warpOutput, String.format("%d;%d;%s", x, y, warp));
-                            }
-                        }
+                        writeData(map, tileOutput, itemOutput, warpOutput, annoOutput);
                     }
                 }
             }
         }
     }
 
-    private static void writeHeader(@Nonnull Writer writer, @Nonnull String header, int value) throws IOException {
-        writer.write(header);
-        writer.write(' ');
-        writer.write(Integer.toString(value));
-        writer.write(NEWLINE);
+    /**
+     * Save the map in the binary format, alongside the text files.
+     *
+     * @param map the map to save
+     * @throws IOException in case writing the file fails
+     */
+    public static void saveMapBinary(@Nonnull Map map) throws IOException {
+        BinaryMapIO.write(map, map.getPath().resolve(map.getName() + EXT_BINARY));
     }
 
-    private static void writeLine(@Nonnull BufferedWriter writer, @Nonnull Object... args) throws IOException {
-        for (int i = 0; i < args.length; ++i) {
-            writer.write(args[i].toString());
-            if (i < (args.length - 1)) {
+    private static void writeData(
+            @Nonnull Map map,
+            @Nonnull Writer tileOutput,
+            @Nonnull Writer itemOutput,
+            @Nonnull Writer warpOutput,
+            @Nonnull Writer annoOutput) throws IOException {
+        int[] tileIds = map.getTileIdData();
+        int[] overlayIds = map.getOverlayIdData();
+        int[] shapeIds = map.getShapeIdData();
+        int[] musicIds = map.getMusicIdData();
+        int width = map.getWidth();
+        StringBuilder line = new StringBuilder(64);
+        for (int index = 0; index < tileIds.length; index++) {
+            int x = index % width;
+            int y = index / width;
+
+            //        <dx>;<dy>;<tileID>;<musicID>
+            startLine(line, x, y).append(MapTile.encodeTileId(tileIds[index], overlayIds[index], shapeIds[index]))
+                    .append(';').append(musicIds[index]);
+            writeLine(tileOutput, line);
+
+            MapTile tile = map.getDetailedTileAtIndex(index);
+            if (tile == null) {
+                continue;
+            }
+            if (tile.hasAnnotation()) {
+                writeLine(annoOutput, startLine(line, x, y).append("0;").append(tile.getAnnotation()));
+            }
 
-                writer.write(';');
-            } else {
-                writer.write(NEWLINE);
+            List<MapItem> items = tile.getMapItems();
+            if (items != null) {
+                for (int i = 0; i < items.size(); i++) {
+                    MapItem item = items.get(i);
+                    //        <dx>;<dy>;<item ID>;<quality>[;<data value>[;...]]
+                    writeLine(itemOutput, startLine(line, x, y).append(item));
+                    if (item.hasAnnotation()) {
+                        writeLine(annoOutput,
+                                  startLine(line, x, y).append(i + 1).append(';').append(item.getAnnotation()));
+                    }
+                }
+            }
+            MapWarpPoint warp = tile.getMapWarpPoint();
+            if (warp != null) {
+                writeLine(warpOutput, startLine(line, x, y).append(warp));
             }
         }
     }
 
-    private static void writeLine(@Nonnull BufferedWriter writer, @Nonnull String str) throws IOException {
-        writer.write(str);
+    @Nonnull
+    private static StringBuilder startLine(@Nonnull StringBuilder line, int x, int y) {
+        line.setLength(0);
+        return line.append(x).append(';').append(y).append(';');
+    }
+
+    private static void writeLine(@Nonnull Writer writer, @Nonnull CharSequence line) throws IOException {
+        writer.append(line);
+        writer.write(NEWLINE);
+    }
+
+    private static void writeHeader(@Nonnull Writer writer, @Nonnull String header, int value) throws IOException {
+        writer.write(header);
+        writer.write(' ');
+        writer.write(Integer.toString(value));
         writer.write(NEWLINE);
     }
 }
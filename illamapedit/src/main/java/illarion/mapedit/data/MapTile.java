@@ -121,6 +121,16 @@ public class MapTile {
      */
     @Nullable
     private MapWarpPoint mapWarpPoint;
+    /**
+     * The map this tile was created for. It is notified once items, a warp point or an annotation are added, so it
+     * can keep the tile.
+     */
+    @Nullable
+    private Map owner;
+    /**
+     * The index of this tile on the owning map.
+     */
+    private int ownerIndex;
 
     public MapTile(
             int baseId,
@@ -196,6 +206,7 @@ public class MapTile {
             mapItems = new FastTable<>();
         }
         mapItems.add(item);
+        notifyOwner();
     }
 
     public void removeMapItem(MapItem item) {
@@ -258,6 +269,7 @@ public class MapTile {
 
     public void setAnnotation(@Nullable String annotation) {
         this.annotation = annotation;
+        notifyOwner();
     }
 
     /**
@@ -267,6 +279,50 @@ public class MapTile {
      */
     public void setMapWarpPoint(@Nullable MapWarpPoint mapWarpPoint) {
         this.mapWarpPoint = mapWarpPoint;
+        notifyOwner();
+    }
+
+    /**
+     * Check if this tile carries any items, a warp point or an annotation.
+     *
+     * @return {@code true} in case the tile has anything else than the IDs
+     */
+    boolean hasDetails() {
+        return ((mapItems != null) && !mapItems.isEmpty()) || (annotation != null) || (mapWarpPoint != null);
+    }
+
+    /**
+     * Assign this tile to a map. The map is notified once the tile gets any details.
+     *
+     * @param map the map
+     * @param index the index of the tile on the map
+     */
+    void bind(@Nonnull Map map, int index) {
+        owner = map;
+        ownerIndex = index;
+    }
+
+    private void notifyOwner() {
+        Map map = owner;
+        if ((map != null) && hasDetails()) {
+            owner = null;
+            map.onTileDetailsChanged(ownerIndex, this);
+        }
+    }
+
+    /**
+     * Get the tile ID as it is stored in the map files.
+     *
+     * @param tileId the ID of the base tile
+     * @param overlayId the ID of the overlay
+     * @param shapeId the ID of the shape of the overlay
+     * @return the encoded tile ID
+     */
+    static int encodeTileId(int tileId, int overlayId, int shapeId) {
+        if (shapeId == 0) {
+            return tileId;
+        }
+        return Overlay.generateTileId(tileId, overlayId, shapeId);
     }
 
     /**
@@ -280,11 +336,7 @@ public class MapTile {
     public String toString() {
         TextBuilder builder = new TextBuilder();
 
-        if (shapeID == 0) {
-            builder.append(tileId);
-        } else {
-            builder.append(Overlay.generateTileId(tileId, overlayID, shapeID));
-        }
+        builder.append(encodeTileId(tileId, overlayID, shapeID));
         builder.append(';');
         builder.append(musicID);
 
@@ -27,6 +27,17 @@ public interface Decoder {
 
     void decodeLine(DataType type, String line, int i) throws FormatCorruptedException;
 
+    /**
+     * Decode a part of the tile file. The header of the map has to be decoded before. This function is called
+     * concurrently for different parts of the same file.
+     *
+     * @param data the content of the entire tile file in ISO-8859-1
+     * @param start the index of the first byte of the part, this has to be the start of a line
+     * @param end the index after the last byte of the part, this has to be the end of a line
+     * @throws FormatCorruptedException in case a line of the part is not a valid tile line
+     */
+    void decodeTiles(byte[] data, int start, int end) throws FormatCorruptedException;
+
     @Nullable
     Map getDecodedMap();
 }
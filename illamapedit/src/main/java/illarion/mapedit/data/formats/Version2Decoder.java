@@ -20,11 +20,11 @@ import illarion.mapedit.crash.exceptions.FormatCorruptedException;
 import illarion.mapedit.data.Map;
 import illarion.mapedit.data.MapItem;
 import illarion.mapedit.data.MapTile;
-import illarion.mapedit.data.MapTile.MapTileFactory;
 import illarion.mapedit.data.MapWarpPoint;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -135,14 +135,109 @@ public class Version2Decoder implements Decoder {
         int ty = Integer.parseInt(sections[1]);
         int tid = Integer.parseInt(sections[2]);
         int tmid = Integer.parseInt(sections[3]);
-        final MapTile tile;
+        setTile(map, tx, ty, tid, tmid);
+    }
+
+    @Override
+    public void decodeTiles(@Nonnull byte[] data, int start, int end) throws FormatCorruptedException {
+        Map currentMap = map;
+        if (currentMap == null) {
+            throw new IllegalStateException("The header of the map was not decoded yet.");
+        }
+        int[] fields = new int[4];
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while ((lineEnd < end) && (data[lineEnd] != '\n')) {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if ((contentEnd > lineStart) && (data[contentEnd - 1] == '\r')) {
+                contentEnd--;
+            }
+            if ((contentEnd > lineStart) && (data[lineStart] != '#')) {
+                //        <dx>;<dy>;<tileID>;<musicID>
+                if (scanFields(data, lineStart, contentEnd, fields) != fields.length) {
+                    throw createTileLineException(data, lineStart, contentEnd);
+                }
+                int tx = fields[0];
+                int ty = fields[1];
+                if (!currentMap.contains(tx, ty)) {
+                    throw createTileLineException(data, lineStart, contentEnd);
+                }
+                setTile(currentMap, tx, ty, fields[2], fields[3]);
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static void setTile(@Nonnull Map map, int tx, int ty, int tid, int tmid) {
         if (TileInfo.hasOverlay(tid)) {
-            tile = MapTileFactory
-                    .createNew(TileInfo.getBaseID(tid), TileInfo.getOverlayID(tid), TileInfo.getShapeId(tid), tmid);
+            map.loadTileAt(tx, ty, TileInfo.getBaseID(tid), TileInfo.getOverlayID(tid), TileInfo.getShapeId(tid), tmid);
         } else {
-            tile = MapTileFactory.createNew(tid, 0, 0, tmid);
+            map.loadTileAt(tx, ty, tid, 0, 0, tmid);
+        }
+    }
+
+    /**
+     * Read the integer values of a line that are separated by {@code ;}. Separators at the end of the line are
+     * ignored once all values are read.
+     *
+     * @param data the data
+     * @param start the index of the first character of the line
+     * @param end the index after the last character of the line
+     * @param fields the array that receives the values
+     * @return the number of values or {@code -1} in case the line is malformed, contains a value outside of the
+     * range of {@code int} or contains more values than the array can hold
+     */
+    private static int scanFields(@Nonnull byte[] data, int start, int end, @Nonnull int[] fields) {
+        int count = 0;
+        int pos = start;
+        while (true) {
+            boolean negative = (pos < end) && (data[pos] == '-');
+            if (negative || ((pos < end) && (data[pos] == '+'))) {
+                pos++;
+            }
+            long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+            int digitsStart = pos;
+            long value = 0;
+            while ((pos < end) && (data[pos] >= '0') && (data[pos] <= '9')) {
+                value = (value * 10) + (data[pos] - '0');
+                if (value > limit) {
+                    return -1;
+                }
+                pos++;
+            }
+            if (pos == digitsStart) {
+                return -1;
+            }
+            fields[count++] = (int) (negative ? -value : value);
+            if (pos == end) {
+                return count;
+            }
+            if (data[pos] != ';') {
+                return -1;
+            }
+            pos++;
+            if (count == fields.length) {
+                while ((pos < end) && (data[pos] == ';')) {
+                    pos++;
+                }
+                return (pos == end) ? count : -1;
+            }
+        }
+    }
+
+    @Nonnull
+    private FormatCorruptedException createTileLineException(@Nonnull byte[] data, int start, int end) {
+        int lineNumber = 1;
+        for (int i = 0; i < start; i++) {
+            if (data[i] == '\n') {
+                lineNumber++;
+            }
         }
-        map.setTileAt(tx, ty, tile);
+        String line = new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+        return new FormatCorruptedException(path + ".tiles.txt", line, lineNumber, "<dx>;<dy>;<tileID>;<musicID>");
     }
 
     public void decodeAnnoLine(String line, int i) throws FormatCorruptedException {
@@ -206,6 +206,9 @@ public class GuiController extends WindowAdapter {
 
                 if (map != null) {
                     MapIO.saveMap(map);
+                    if (MapEditorConfig.getInstance().isSaveBinaryMap()) {
+                        MapIO.saveMapBinary(map);
+                    }
                 }
             } catch (IOException ex) {
                 LOGGER.warn("Can't save map", ex);
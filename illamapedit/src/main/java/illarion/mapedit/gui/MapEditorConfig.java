@@ -71,6 +71,8 @@ public final class MapEditorConfig {
     @Nonnull
     public static final String SHOW_MAP_POSITION = "showMapPosition";
     @Nonnull
+    public static final String SAVE_BINARY_MAP = "saveBinaryMap";
+    @Nonnull
     public static final String WINDOW_HEIGHT = "windowSizeH";
     @Nonnull
     public static final String WINDOW_WIDTH = "windowSizeW";
@@ -121,6 +123,8 @@ public final class MapEditorConfig {
 
         generalPage.addEntry(new Entry("gui.config.showMapPostion", new CheckEntry(SHOW_MAP_POSITION)));
 
+        generalPage.addEntry(new Entry("gui.config.saveBinaryMap", new CheckEntry(SAVE_BINARY_MAP)));
+
         dialog.addPage(generalPage);
 
         Page lookAndFeelPage = new Page("gui.config.lookAndFeelTab");
@@ -196,6 +200,20 @@ public final class MapEditorConfig {
         return configSystem.getBoolean(SHOW_MAP_POSITION);
     }
 
+    /**
+     * Check if the maps are supposed to be saved in the binary format as well. The binary file is loaded instead
+     * of the text files as long as it is not older than them.
+     *
+     * @return {@code true} in case the binary map file should be written
+     */
+    public boolean isSaveBinaryMap() {
+        if (configSystem == null) {
+            LOGGER.error("Configuration system not initialized yet.");
+            return false;
+        }
+        return configSystem.getBoolean(SAVE_BINARY_MAP);
+    }
+
     @EventTopicSubscriber(topic = USED_LOOK_AND_FEEL)
     public void onConfigChanged(@Nonnull String topic, ConfigChangedEvent event) {
         if (topic.equals(USED_LOOK_AND_FEEL)) {
@@ -236,6 +254,7 @@ public final class MapEditorConfig {
         configSystem.setDefault(USED_LOOK_AND_FEEL, DEFAULT_LOOK_AND_FEEL);
         configSystem.setDefault(USED_LANGUAGE, getDefaultLanguageString());
         configSystem.setDefault(SHOW_MAP_POSITION, false);
+        configSystem.setDefault(SAVE_BINARY_MAP, false);
         configSystem.setDefault(WINDOW_HEIGHT, 700);
         configSystem.setDefault(WINDOW_WIDTH, 1000);
     }
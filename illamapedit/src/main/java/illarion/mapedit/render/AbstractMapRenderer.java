@@ -15,7 +15,9 @@
  */
 package illarion.mapedit.render;
 
+import illarion.common.graphics.MapConstants;
 import illarion.mapedit.data.Map;
+import illarion.mapedit.util.SwingLocation;
 import org.pushingpixels.flamingo.api.common.icon.ResizableIcon;
 import org.pushingpixels.flamingo.api.ribbon.RibbonElementPriority;
 
@@ -32,6 +34,41 @@ import java.awt.image.BufferedImage;
 public abstract class AbstractMapRenderer implements Comparable<AbstractMapRenderer> {
     private static final Shape TILE_POLYGON = new Polygon(new int[]{33, 0, 33, 65}, new int[]{0, 17, 33, 17}, 4);
 
+    /**
+     * This interface is used to receive the tiles that are visible in the viewport.
+     */
+    @FunctionalInterface
+    protected interface VisibleTileVisitor {
+        /**
+         * Called for a tile that is visible.
+         *
+         * @param x the x coordinate of the tile on the map
+         * @param y the y coordinate of the tile on the map
+         * @param xDisplay the x display coordinate of the tile
+         * @param yDisplay the y display coordinate of the tile
+         */
+        void visit(int x, int y, int xDisplay, int yDisplay);
+    }
+
+    /**
+     * The range of the tiles that are visible in the viewport. The tiles are addressed by the sum
+     * ({@code u = x + y}) and the difference ({@code v = x - y}) of their server coordinates, as the display
+     * coordinates of a tile only depend on one of those values each.
+     */
+    private static final class VisibleRange {
+        private final int minU;
+        private final int maxU;
+        private final int minV;
+        private final int maxV;
+
+        VisibleRange(int minU, int maxU, int minV, int maxV) {
+            this.minU = minU;
+            this.maxU = maxU;
+            this.minV = minV;
+            this.maxV = maxV;
+        }
+    }
+
     /**
      * The render manager.
      */
@@ -63,6 +100,105 @@ public abstract class AbstractMapRenderer implements Comparable<AbstractMapRende
         return viewport.contains(viewX, viewY);
     }
 
+    /**
+     * Visit all tiles of the map that are visible in the viewport. The range of the visible tiles is calculated from
+     * the viewport, the zoom and the translation, so only the visible tiles are touched. The tiles are visited from
+     * the back to the front.
+     *
+     * @param map the map
+     * @param viewport the viewport
+     * @param level the selected level
+     * @param visitor the visitor that receives the visible tiles
+     */
+    protected final void forEachVisibleTile(
+            @Nonnull Map map, @Nonnull Rectangle viewport, int level, @Nonnull VisibleTileVisitor visitor) {
+        int z = map.getZ() - level;
+        VisibleRange range = getVisibleRange(map, viewport, z);
+        if (range == null) {
+            return;
+        }
+        for (int v = range.maxV; v >= range.minV; v--) {
+            /* The server coordinates are (u + v) / 2 and (u - v) / 2, so u has to have the same parity as v. */
+            int minU = range.minU + ((range.minU ^ v) & 1);
+            for (int u = minU; u <= range.maxU; u += 2) {
+                int x = ((u + v) / 2) - map.getX();
+                int y = ((u - v) / 2) - map.getY();
+                if (!map.contains(x, y)) {
+                    continue;
+                }
+                int xDisplay = SwingLocation.displayCoordinateX(x + map.getX(), y + map.getY(), z);
+                int yDisplay = SwingLocation.displayCoordinateY(x + map.getX(), y + map.getY(), z);
+                if (isInViewport(viewport, xDisplay, yDisplay)) {
+                    visitor.visit(x, y, xDisplay, yDisplay);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the bounds of the visible tiles of the map.
+     *
+     * @param map the map
+     * @param viewport the viewport
+     * @param level the selected level
+     * @return the area of the map that contains all visible tiles or {@code null} in case no tile is visible
+     */
+    @Nullable
+    protected final Rectangle getVisibleTileBounds(@Nonnull Map map, @Nonnull Rectangle viewport, int level) {
+        VisibleRange range = getVisibleRange(map, viewport, map.getZ() - level);
+        if (range == null) {
+            return null;
+        }
+        int minX = Math.max(0, Math.floorDiv(range.minU + range.minV, 2) - map.getX());
+        int maxX = Math.min(map.getWidth() - 1, Math.floorDiv(range.maxU + range.maxV, 2) - map.getX());
+        int minY = Math.max(0, Math.floorDiv(range.minU - range.maxV, 2) - map.getY());
+        int maxY = Math.min(map.getHeight() - 1, Math.floorDiv(range.maxU - range.minV, 2) - map.getY());
+        if ((minX > maxX) || (minY > maxY)) {
+            return null;
+        }
+        return new Rectangle(minX, minY, (maxX - minX) + 1, (maxY - minY) + 1);
+    }
+
+    /**
+     * Calculate the range of the visible tiles. This inverts the check of {@link #isInViewport(Shape, int, int)}
+     * and clamps the result to the map. The range contains one tile of margin on each side to avoid rounding
+     * problems.
+     *
+     * @param map the map
+     * @param viewport the viewport
+     * @param z the z coordinate used to calculate the display coordinates
+     * @return the visible range or {@code null} in case no tile of the map is visible
+     */
+    @Nullable
+    private VisibleRange getVisibleRange(@Nonnull Map map, @Nonnull Rectangle viewport, int z) {
+        float zoom = getZoom();
+        float left = ((viewport.x - getTranslateX()) / zoom) - getTileWidth();
+        float right = (((viewport.x + viewport.width) - getTranslateX()) / zoom) - getTileWidth();
+        float top = ((viewport.y - getTranslateY()) / zoom) - getTileHeight();
+        float bottom = (((viewport.y + viewport.height) - getTranslateY()) / zoom) - getTileHeight();
+
+        /* xDisplay = u * STEP_X and yDisplay = yOrigin - v * STEP_Y */
+        int yOrigin = SwingLocation.displayCoordinateY(0, 0, z);
+        int minU = (int) Math.floor(left / MapConstants.STEP_X) - 1;
+        int maxU = (int) Math.ceil(right / MapConstants.STEP_X) + 1;
+        int minV = (int) Math.floor((yOrigin - bottom) / MapConstants.STEP_Y) - 1;
+        int maxV = (int) Math.ceil((yOrigin - top) / MapConstants.STEP_Y) + 1;
+
+        int mapMinU = map.getX() + map.getY();
+        int mapMaxU = mapMinU + map.getWidth() + map.getHeight() - 2;
+        int mapMinV = (map.getX() - map.getY()) - (map.getHeight() - 1);
+        int mapMaxV = (map.getX() - map.getY()) + (map.getWidth() - 1);
+
+        minU = Math.max(minU, mapMinU);
+        maxU = Math.min(maxU, mapMaxU);
+        minV = Math.max(minV, mapMinV);
+        maxV = Math.min(maxV, mapMaxV);
+        if ((minU > maxU) || (minV > maxV)) {
+            return null;
+        }
+        return new VisibleRange(minU, maxU, minV, maxV);
+    }
+
     protected float calculateZoom(int display, int translate, float size) {
         return (display * getZoom()) + translate + (size * getZoom());
     }
@@ -19,12 +19,10 @@ import illarion.mapedit.Lang;
 import illarion.mapedit.data.Map;
 import illarion.mapedit.data.MapTile;
 import illarion.mapedit.resource.loaders.ImageLoader;
-import illarion.mapedit.util.SwingLocation;
 import org.pushingpixels.flamingo.api.common.icon.ResizableIcon;
 
 import javax.annotation.Nonnull;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
 /**
@@ -48,28 +46,15 @@ public class AnnotationRenderer extends AbstractMapRenderer {
             @Nonnull Rectangle viewport,
             int level,
             @Nonnull Graphics2D g) {
-        int width = map.getWidth();
-        int height = map.getHeight();
-        int z = map.getZ() - level;
-        AffineTransform transform = g.getTransform();
-
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < height; ++y) {
-                MapTile tile = map.getTileAt(x, y);
-                if ((tile == null) || (!tile.hasAnnotation() && !tile.hasItemAnnotation())) {
-                    continue;
-                }
-
-                int xDisplay = SwingLocation.displayCoordinateX(x + map.getX(), y + map.getY(), z);
-                int yDisplay = SwingLocation.displayCoordinateY(x + map.getX(), y + map.getY(), z);
-                if (isInViewport(viewport, xDisplay, yDisplay)) {
-                    int drawX = xDisplay + (int) (XOFFSET * getZoom());
-                    int drawY = yDisplay + (int) (YOFFSET * getZoom());
-                    g.drawImage(image, drawX, drawY, null);
-                }
+        forEachVisibleTile(map, viewport, level, (x, y, xDisplay, yDisplay) -> {
+            MapTile tile = map.getTileAt(x, y);
+            if ((tile == null) || (!tile.hasAnnotation() && !tile.hasItemAnnotation())) {
+                return;
             }
-        }
-        g.setTransform(transform);
+            int drawX = xDisplay + (int) (XOFFSET * getZoom());
+            int drawY = yDisplay + (int) (YOFFSET * getZoom());
+            g.drawImage(image, drawX, drawY, null);
+        });
     }
 
     @Override
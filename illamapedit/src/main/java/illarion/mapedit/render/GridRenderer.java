@@ -45,25 +45,27 @@ public class GridRenderer extends AbstractMapRenderer {
             Rectangle viewport,
             int level,
             @Nonnull Graphics2D g) {
-        int width = map.getWidth();
-        int height = map.getHeight();
+        Rectangle tiles = getVisibleTileBounds(map, viewport, level);
+        if (tiles == null) {
+            return;
+        }
+        int minX = tiles.x + map.getX();
+        int maxX = minX + tiles.width;
+        int minY = tiles.y + map.getY();
+        int maxY = minY + tiles.height;
         int z = map.getZ() - level;
         AffineTransform transform = g.getTransform();
 
         g.translate(0, getTileHeight() + 1);
 
         g.setColor(Color.LIGHT_GRAY);
-        for (int x = 0; x <= width; ++x) {
-            g.drawLine(SwingLocation.displayCoordinateX(x + map.getX(), map.getY(), z),
-                       SwingLocation.displayCoordinateY(x + map.getX(), map.getY(), z),
-                       SwingLocation.displayCoordinateX(x + map.getX(), height + map.getY(), z),
-                       SwingLocation.displayCoordinateY(x + map.getX(), height + map.getY(), z));
+        for (int x = minX; x <= maxX; ++x) {
+            g.drawLine(SwingLocation.displayCoordinateX(x, minY, z), SwingLocation.displayCoordinateY(x, minY, z),
+                       SwingLocation.displayCoordinateX(x, maxY, z), SwingLocation.displayCoordinateY(x, maxY, z));
         }
-        for (int y = 0; y <= height; ++y) {
-            g.drawLine(SwingLocation.displayCoordinateX(map.getX(), y + map.getY(), z),
-                       SwingLocation.displayCoordinateY(map.getX(), y + map.getY(), z),
-                       SwingLocation.displayCoordinateX(width + map.getX(), y + map.getY(), z),
-                       SwingLocation.displayCoordinateY(width + map.getX(), y + map.getY(), z));
+        for (int y = minY; y <= maxY; ++y) {
+            g.drawLine(SwingLocation.displayCoordinateX(minX, y, z), SwingLocation.displayCoordinateY(minX, y, z),
+                       SwingLocation.displayCoordinateX(maxX, y, z), SwingLocation.displayCoordinateY(maxX, y, z));
         }
 
         g.setTransform(transform);
@@ -19,12 +19,10 @@ import illarion.mapedit.Lang;
 import illarion.mapedit.data.Map;
 import illarion.mapedit.data.MapTile;
 import illarion.mapedit.resource.loaders.ImageLoader;
-import illarion.mapedit.util.SwingLocation;
 import org.pushingpixels.flamingo.api.common.icon.ResizableIcon;
 
 import javax.annotation.Nonnull;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
 /**
@@ -48,27 +46,13 @@ public class ItemDataRenderer extends AbstractMapRenderer {
             @Nonnull Rectangle viewport,
             int level,
             @Nonnull Graphics2D g) {
-        int width = map.getWidth();
-        int height = map.getHeight();
-        int z = map.getZ() - level;
-        AffineTransform transform = g.getTransform();
-
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < height; ++y) {
-                MapTile tile = map.getTileAt(x, y);
-                if ((tile == null) || tile.isMapItemsDataEmpty()) {
-                    continue;
-                }
-                int xDisplay = SwingLocation.displayCoordinateX(x + map.getX(), y + map.getY(), z);
-                int yDisplay = SwingLocation.displayCoordinateY(x + map.getX(), y + map.getY(), z);
-                if (viewport.contains((xDisplay * getZoom()) + getTranslateX() + (getTileWidth() * getZoom()),
-                                      (yDisplay * getZoom()) + getTranslateY() + (getTileHeight() * getZoom()))) {
-                    g.drawImage(image, xDisplay + (int) (XOFFSET * getZoom()), yDisplay + (int) (YOFFSET * getZoom()),
-                                null);
-                }
+        forEachVisibleTile(map, viewport, level, (x, y, xDisplay, yDisplay) -> {
+            MapTile tile = map.getTileAt(x, y);
+            if ((tile == null) || tile.isMapItemsDataEmpty()) {
+                return;
             }
-        }
-        g.setTransform(transform);
+            g.drawImage(image, xDisplay + (int) (XOFFSET * getZoom()), yDisplay + (int) (YOFFSET * getZoom()), null);
+        });
     }
 
     @Override
@@ -0,0 +1,245 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.mapedit.render;
+
+import illarion.mapedit.data.Map;
+import illarion.mapedit.util.SwingLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * This cache stores pre-rendered images of a static layer of the map. Each image covers a square region of
+ * {@link Map#REGION_SIZE} tiles. It stays valid until one of the tiles in the region is changed or the zoom, the
+ * level or the style of the rendering changes.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+final class MapChunkCache {
+    /**
+     * The painter that is used to draw the tiles into the images of the regions.
+     */
+    interface ChunkPainter {
+        /**
+         * Get the largest size of the image that is painted for a single tile.
+         *
+         * @return the size of the largest tile image
+         */
+        @Nonnull
+        Dimension getTileExtent();
+
+        /**
+         * Paint a single tile.
+         *
+         * @param g the graphics, the transformation is set to the display coordinates of the map
+         * @param map the map
+         * @param x the x coordinate of the tile on the map
+         * @param y the y coordinate of the tile on the map
+         * @param xDisplay the x display coordinate of the tile
+         * @param yDisplay the y display coordinate of the tile
+         */
+        void paintTile(@Nonnull Graphics2D g, @Nonnull Map map, int x, int y, int xDisplay, int yDisplay);
+    }
+
+    /**
+     * A single pre-rendered region of the map.
+     */
+    private static final class Chunk {
+        @Nullable
+        private BufferedImage image;
+        private int originX;
+        private int originY;
+        private int version;
+        private float zoom;
+        private int z;
+        private int style;
+        private int lastUsed;
+
+        boolean isValid(int version, float zoom, int z, int style) {
+            return (image != null) && (this.version == version) && (Float.compare(this.zoom, zoom) == 0) &&
+                    (this.z == z) && (this.style == style);
+        }
+
+        long getSize() {
+            BufferedImage currentImage = image;
+            if (currentImage == null) {
+                return 0L;
+            }
+            return currentImage.getWidth() * currentImage.getHeight() * 4L;
+        }
+    }
+
+    /**
+     * The amount of memory in bytes the images of the cache may use. Images that were drawn during the last
+     * rendering are kept even if this limit is exceeded.
+     */
+    private static final long MAX_CACHE_SIZE = 64L * 1024L * 1024L;
+
+    @Nonnull
+    private final ChunkPainter painter;
+
+    /**
+     * The regions of each map, stored by the {@link Map#getInstanceKey() instance key} of the map. Maps that are
+     * loaded again are equal to the old instance, so the map itself can't be used as key. The array is indexed the
+     * same way as the region versions of the map.
+     */
+    @Nonnull
+    private final java.util.Map<Object, Chunk[]> chunks = new WeakHashMap<>();
+
+    /**
+     * All regions that currently hold an image, the least recently used region first.
+     */
+    @Nonnull
+    private final Set<Chunk> recentlyUsed = new LinkedHashSet<>();
+
+    private long cacheSize;
+    private int frame;
+
+    MapChunkCache(@Nonnull ChunkPainter painter) {
+        this.painter = painter;
+    }
+
+    /**
+     * Render the regions of the map that contain the visible tiles. Regions that are not valid anymore are painted
+     * again before they are drawn.
+     *
+     * @param map the map
+     * @param tiles the area of the map that contains the visible tiles
+     * @param z the z coordinate used to calculate the display coordinates
+     * @param zoom the current zoom
+     * @param style a value that describes everything else the painter depends on, changing it invalidates the
+     * images
+     * @param g the graphics, the transformation is set to the display coordinates of the map
+     */
+    void render(@Nonnull Map map, @Nonnull Rectangle tiles, int z, float zoom, int style, @Nonnull Graphics2D g) {
+        frame++;
+        int regionsX = ((map.getWidth() + Map.REGION_SIZE) - 1) / Map.REGION_SIZE;
+        int regionsY = ((map.getHeight() + Map.REGION_SIZE) - 1) / Map.REGION_SIZE;
+        Chunk[] mapChunks = chunks.get(map.getInstanceKey());
+        if (mapChunks == null) {
+            mapChunks = new Chunk[regionsX * regionsY];
+            chunks.put(map.getInstanceKey(), mapChunks);
+        }
+
+        int minRegionX = tiles.x / Map.REGION_SIZE;
+        int maxRegionX = ((tiles.x + tiles.width) - 1) / Map.REGION_SIZE;
+        int minRegionY = tiles.y / Map.REGION_SIZE;
+        int maxRegionY = ((tiles.y + tiles.height) - 1) / Map.REGION_SIZE;
+
+        AffineTransform transform = g.getTransform();
+        /* The images are rendered in the resolution of the screen, so the zoom must not be applied twice. */
+        g.scale(1.0 / zoom, 1.0 / zoom);
+        for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+            for (int regionY = minRegionY; regionY <= maxRegionY; regionY++) {
+                int index = (regionY * regionsX) + regionX;
+                Chunk chunk = mapChunks[index];
+                if (chunk == null) {
+                    chunk = new Chunk();
+                    mapChunks[index] = chunk;
+                }
+                int version = map.getRegionVersion(regionX, regionY);
+                if (!chunk.isValid(version, zoom, z, style)) {
+                    release(chunk);
+                    paint(chunk, map, regionX, regionY, z, zoom, g.getRenderingHints());
+                    chunk.version = version;
+                    chunk.zoom = zoom;
+                    chunk.z = z;
+                    chunk.style = style;
+                    cacheSize += chunk.getSize();
+                }
+                chunk.lastUsed = frame;
+                recentlyUsed.remove(chunk);
+                recentlyUsed.add(chunk);
+                g.drawImage(chunk.image, chunk.originX, chunk.originY, null);
+            }
+        }
+        g.setTransform(transform);
+
+        evict();
+    }
+
+    private void paint(
+            @Nonnull Chunk chunk,
+            @Nonnull Map map,
+            int regionX,
+            int regionY,
+            int z,
+            float zoom,
+            @Nonnull java.util.Map<?, ?> hints) {
+        int minX = regionX * Map.REGION_SIZE;
+        int minY = regionY * Map.REGION_SIZE;
+        int maxX = Math.min(map.getWidth(), minX + Map.REGION_SIZE) - 1;
+        int maxY = Math.min(map.getHeight(), minY + Map.REGION_SIZE) - 1;
+
+        Dimension extent = painter.getTileExtent();
+        int left = SwingLocation.displayCoordinateX(minX + map.getX(), minY + map.getY(), z);
+        int right = SwingLocation.displayCoordinateX(maxX + map.getX(), maxY + map.getY(), z) + extent.width;
+        int top = SwingLocation.displayCoordinateY(maxX + map.getX(), minY + map.getY(), z);
+        int bottom = SwingLocation.displayCoordinateY(minX + map.getX(), maxY + map.getY(), z) + extent.height;
+
+        int originX = (int) Math.floor(left * zoom);
+        int originY = (int) Math.floor(top * zoom);
+        int width = ((int) Math.ceil(right * zoom) - originX) + 1;
+        int height = ((int) Math.ceil(bottom * zoom) - originY) + 1;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.addRenderingHints(hints);
+            g.translate(-originX, -originY);
+            g.scale(zoom, zoom);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    int xDisplay = SwingLocation.displayCoordinateX(x + map.getX(), y + map.getY(), z);
+                    int yDisplay = SwingLocation.displayCoordinateY(x + map.getX(), y + map.getY(), z);
+                    painter.paintTile(g, map, x, y, xDisplay, yDisplay);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+
+        chunk.image = image;
+        chunk.originX = originX;
+        chunk.originY = originY;
+    }
+
+    private void release(@Nonnull Chunk chunk) {
+        cacheSize -= chunk.getSize();
+        chunk.image = null;
+        recentlyUsed.remove(chunk);
+    }
+
+    private void evict() {
+        Iterator<Chunk> itr = recentlyUsed.iterator();
+        while ((cacheSize > MAX_CACHE_SIZE) && itr.hasNext()) {
+            Chunk chunk = itr.next();
+            if (chunk.lastUsed == frame) {
+                break;
+            }
+            cacheSize -= chunk.getSize();
+            chunk.image = null;
+            itr.remove();
+        }
+    }
+}
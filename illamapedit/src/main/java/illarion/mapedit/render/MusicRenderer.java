@@ -18,12 +18,10 @@ package illarion.mapedit.render;
 import illarion.mapedit.Lang;
 import illarion.mapedit.data.Map;
 import illarion.mapedit.resource.loaders.ImageLoader;
-import illarion.mapedit.util.SwingLocation;
 import org.pushingpixels.flamingo.api.common.icon.ResizableIcon;
 
 import javax.annotation.Nonnull;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
 /**
@@ -50,30 +48,16 @@ public class MusicRenderer extends AbstractMapRenderer {
             @Nonnull Rectangle viewport,
             int level,
             @Nonnull Graphics2D g) {
-        int width = map.getWidth();
-        int height = map.getHeight();
-        int z = map.getZ() - level;
-        AffineTransform transform = g.getTransform();
-
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < height; ++y) {
-                int id = map.getTileAt(x, y).getMusicID();
-                if (id == 0) {
-                    continue;
-                }
-                int xdisp = SwingLocation.displayCoordinateX(x + map.getX(), y + map.getY(), z);
-                int ydisp = SwingLocation.displayCoordinateY(x + map.getX(), y + map.getY(), z);
-                if (viewport.contains((xdisp * getZoom()) + getTranslateX() + (getTileWidth() * getZoom()),
-                                      (ydisp * getZoom()) + getTranslateY() + (getTileHeight() * getZoom()))) {
-
-                    g.drawImage(image, xdisp + (int) (XOFFSET * getZoom()), ydisp + (int) (YOFFSET * getZoom()), null);
-                    g.setColor(Color.RED);
-                    g.drawString(Integer.toString(id), xdisp + (int) (XOFFSET * getZoom()),
-                                 ydisp + (int) (YOFFSET * getZoom()));
-                }
+        forEachVisibleTile(map, viewport, level, (x, y, xdisp, ydisp) -> {
+            int id = map.getTileAt(x, y).getMusicID();
+            if (id == 0) {
+                return;
             }
-        }
-        g.setTransform(transform);
+            g.drawImage(image, xdisp + (int) (XOFFSET * getZoom()), ydisp + (int) (YOFFSET * getZoom()), null);
+            g.setColor(Color.RED);
+            g.drawString(Integer.toString(id), xdisp + (int) (XOFFSET * getZoom()),
+                         ydisp + (int) (YOFFSET * getZoom()));
+        });
     }
 
     @Override
@@ -48,16 +48,19 @@ public class SelectedTileRenderer extends AbstractMapRenderer {
     @Override
     public void renderMap(
             @Nonnull Map map, Rectangle viewport, int level, @Nonnull Graphics2D g) {
-        int width = map.getWidth();
-        int height = map.getHeight();
         int z = map.getZ() - level;
         AffineTransform transform = g.getTransform();
 
         g.translate(0, getTileHeight() + 1);
         g.setColor(Color.ORANGE);
 
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < height; ++y) {
+        Rectangle tiles = getVisibleTileBounds(map, viewport, level);
+        int minX = (tiles == null) ? 0 : tiles.x;
+        int maxX = (tiles == null) ? 0 : (tiles.x + tiles.width);
+        int minY = (tiles == null) ? 0 : tiles.y;
+        int maxY = (tiles == null) ? 0 : (tiles.y + tiles.height);
+        for (int x = minX; x < maxX; ++x) {
+            for (int y = minY; y < maxY; ++y) {
                 int mapX = x + map.getX();
                 int mapY = y + map.getY();
                 if (map.isActiveTile(x, y)) {
@@ -15,6 +15,7 @@
  */
 package illarion.mapedit.render;
 
+import illarion.common.graphics.MapConstants;
 import illarion.mapedit.Lang;
 import illarion.mapedit.data.Map;
 import illarion.mapedit.data.MapTile;
@@ -23,11 +24,11 @@ import illarion.mapedit.resource.TileImg;
 import illarion.mapedit.resource.loaders.ImageLoader;
 import illarion.mapedit.resource.loaders.OverlayLoader;
 import illarion.mapedit.resource.loaders.TileLoader;
-import illarion.mapedit.util.SwingLocation;
 import org.pushingpixels.flamingo.api.common.icon.ResizableIcon;
 import org.pushingpixels.flamingo.api.ribbon.RibbonElementPriority;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 
@@ -54,11 +55,35 @@ public class TileRenderer extends AbstractMapRenderer {
      */
     private boolean renderEmpty;
 
+    /**
+     * The pre-rendered images of the tiles.
+     */
+    @Nonnull
+    private final MapChunkCache chunkCache;
+
+    /**
+     * The size of the largest tile image.
+     */
+    @Nullable
+    private Dimension tileExtent;
+
     /**
      * Creates a new map renderer
      */
     public TileRenderer(@Nonnull RendererManager manager) {
         super(manager);
+        chunkCache = new MapChunkCache(new MapChunkCache.ChunkPainter() {
+            @Nonnull
+            @Override
+            public Dimension getTileExtent() {
+                return TileRenderer.this.getTileExtent();
+            }
+
+            @Override
+            public void paintTile(@Nonnull Graphics2D g, @Nonnull Map map, int x, int y, int xDisplay, int yDisplay) {
+                TileRenderer.this.paintTile(g, map, x, y, xDisplay, yDisplay);
+            }
+        });
     }
 
     @Override
@@ -67,38 +92,50 @@ public class TileRenderer extends AbstractMapRenderer {
             @Nonnull Rectangle viewport,
             int level,
             @Nonnull Graphics2D g) {
-        int z = map.getZ() - level;
-        AffineTransform transform = g.getTransform();
-
-        for (int x = 0; x < map.getWidth(); ++x) {
-            for (int y = 0; y < map.getHeight(); ++y) {
-                int xdisp = SwingLocation.displayCoordinateX(x + map.getX(), y + map.getY(), z);
-                int ydisp = SwingLocation.displayCoordinateY(x + map.getX(), y + map.getY(), z);
-                if (viewport.contains((xdisp * getZoom()) + getTranslateX() + (getTileWidth() * getZoom()),
-                                      (ydisp * getZoom()) + getTranslateY() + (getTileHeight() * getZoom()))) {
-                    MapTile mt = map.getTileAt(x, y);
-                    if (renderEmpty || (mt != null && mt.getId() != 0)) {
-                        TileImg t = TileLoader.getInstance().getTileFromId(mt.getId());
-                        if (t != null) {
-                            AffineTransform tr = g.getTransform();
-                            if (getZoom() > getMinZoom()) {
-                                renderTile(xdisp, ydisp, g, t.getImg()[0]);
-                                renderOverlay(g, mt);
-                            } else {
-                                if (t.getInfo().getMapColor() != 0) {
-                                    g.translate(xdisp, ydisp);
-                                    g.setColor(TILE_COLORS[t.getInfo().getMapColor()]);
-                                    g.fill(getTilePolygon());
-                                }
-                            }
-                            g.setTransform(tr);
-                        }
+        Rectangle tiles = getVisibleTileBounds(map, viewport, level);
+        if (tiles != null) {
+            chunkCache.render(map, tiles, map.getZ() - level, getZoom(), renderEmpty ? 1 : 0, g);
+        }
+    }
+
+    private void paintTile(@Nonnull Graphics2D g, @Nonnull Map map, int x, int y, int xDisp, int yDisp) {
+        MapTile mt = map.getTileAt(x, y);
+        if ((mt != null) && (renderEmpty || (mt.getId() != 0))) {
+            TileImg t = TileLoader.getInstance().getTileFromId(mt.getId());
+            if (t != null) {
+                AffineTransform tr = g.getTransform();
+                if (getZoom() > getMinZoom()) {
+                    renderTile(xDisp, yDisp, g, t.getImg()[0]);
+                    renderOverlay(g, mt);
+                } else {
+                    if (t.getInfo().getMapColor() != 0) {
+                        g.translate(xDisp, yDisp);
+                        g.setColor(TILE_COLORS[t.getInfo().getMapColor()]);
+                        g.fill(getTilePolygon());
                     }
                 }
+                g.setTransform(tr);
             }
         }
+    }
 
-        g.setTransform(transform);
+    /**
+     * Get the size of the largest tile image. This is used as the size of the area each tile may paint on.
+     */
+    @Nonnull
+    private Dimension getTileExtent() {
+        if (tileExtent == null) {
+            Dimension extent = new Dimension(MapConstants.TILE_W, MapConstants.TILE_H);
+            for (TileImg tile : TileLoader.getInstance().getTiles()) {
+                Image image = tile.getImg()[0];
+                if (image != null) {
+                    extent.width = Math.max(extent.width, image.getWidth(null));
+                    extent.height = Math.max(extent.height, image.getHeight(null));
+                }
+            }
+            tileExtent = extent;
+        }
+        return tileExtent;
     }
 
     private void renderTile(
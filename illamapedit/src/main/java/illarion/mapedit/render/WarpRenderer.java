@@ -19,13 +19,11 @@ import illarion.mapedit.Lang;
 import illarion.mapedit.data.Map;
 import illarion.mapedit.data.MapTile;
 import illarion.mapedit.data.MapWarpPoint;
-import illarion.mapedit.util.SwingLocation;
 import org.pushingpixels.flamingo.api.common.icon.ResizableIcon;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 
 /**
  * @author Tim
@@ -47,37 +45,24 @@ public class WarpRenderer extends AbstractMapRenderer {
             @Nonnull Rectangle viewport,
             int level,
             @Nonnull Graphics2D g) {
-        int width = map.getWidth();
-        int height = map.getHeight();
-        int z = map.getZ() - level;
-        AffineTransform transform = g.getTransform();
-
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < height; ++y) {
-                MapTile tile = map.getTileAt(x, y);
-                if (tile != null) {
-                    MapWarpPoint wp = tile.getMapWarpPoint();
-                    if (wp == null) {
-                        continue;
-                    }
-                    int xdisp = SwingLocation.displayCoordinateX(x + map.getX(), y + map.getY(), z);
-                    int ydisp = SwingLocation.displayCoordinateY(x + map.getX(), y + map.getY(), z);
-                    if (viewport.contains((xdisp * getZoom()) + getTranslateX() + (getTileWidth() * getZoom()),
-                                          (ydisp * getZoom()) + getTranslateY() + (getTileHeight() * getZoom()))) {
-
-                        g.setColor(Color.RED);
-                        g.drawString("Warp", xdisp + (int) (XOFFSET * getZoom()), ydisp + (int) (YOFFSET * getZoom()));
-                        g.drawString("X: " + wp.getXTarget(), xdisp + (int) (XOFFSET * getZoom()),
-                                     ydisp + (int) ((YOFFSET + 10) * getZoom()));
-                        g.drawString("Y: " + wp.getYTarget(), xdisp + (int) (XOFFSET * getZoom()),
-                                     ydisp + (int) ((YOFFSET + 20) * getZoom()));
-                        g.drawString("Z: " + wp.getZTarget(), xdisp + (int) (XOFFSET * getZoom()),
-                                     ydisp + (int) ((YOFFSET + 30) * getZoom()));
-                    }
-                }
+        forEachVisibleTile(map, viewport, level, (x, y, xdisp, ydisp) -> {
+            MapTile tile = map.getTileAt(x, y);
+            if (tile == null) {
+                return;
+            }
+            MapWarpPoint wp = tile.getMapWarpPoint();
+            if (wp == null) {
+                return;
             }
-        }
-        g.setTransform(transform);
+            g.setColor(Color.RED);
+            g.drawString("Warp", xdisp + (int) (XOFFSET * getZoom()), ydisp + (int) (YOFFSET * getZoom()));
+            g.drawString("X: " + wp.getXTarget(), xdisp + (int) (XOFFSET * getZoom()),
+                         ydisp + (int) ((YOFFSET + 10) * getZoom()));
+            g.drawString("Y: " + wp.getYTarget(), xdisp + (int) (XOFFSET * getZoom()),
+                         ydisp + (int) ((YOFFSET + 20) * getZoom()));
+            g.drawString("Z: " + wp.getZTarget(), xdisp + (int) (XOFFSET * getZoom()),
+                         ydisp + (int) ((YOFFSET + 30) * getZoom()));
+        });
     }
 
     @Override
@@ -0,0 +1,146 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.mapedit.data;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public class BinaryMapIOTest {
+    private static final String MAP_NAME = "test";
+    private static final String[] TEXT_EXTENSIONS = {MapIO.EXT_TILE, MapIO.EXT_ITEM, MapIO.EXT_WARP, MapIO.EXT_ANNO};
+
+    private Path textDir;
+    private Path binaryDir;
+
+    @BeforeMethod
+    public void before() throws IOException {
+        textDir = Files.createTempDirectory("illarion-map-text");
+        binaryDir = Files.createTempDirectory("illarion-map-binary");
+    }
+
+    @AfterMethod
+    public void after() throws IOException {
+        deleteDirectory(textDir);
+        deleteDirectory(binaryDir);
+    }
+
+    @Test
+    public void testTextBinaryTextRoundTrip() throws IOException {
+        Map map = createMap(textDir, true);
+        MapIO.saveMap(map, MAP_NAME, textDir);
+
+        Map textMap = MapIO.loadMapThread(textDir, MAP_NAME);
+        Assert.assertNotNull(textMap);
+        TestMaps.assertMapsEqual(textMap, map);
+
+        Path binaryFile = binaryDir.resolve(MAP_NAME + MapIO.EXT_BINARY);
+        BinaryMapIO.write(textMap, binaryFile);
+        Map binaryMap = BinaryMapIO.read(binaryFile, MAP_NAME, binaryDir);
+        TestMaps.assertMapsEqual(binaryMap, map);
+
+        MapIO.saveMap(binaryMap, MAP_NAME, binaryDir);
+        for (String extension : TEXT_EXTENSIONS) {
+            Assert.assertEquals(Files.readAllBytes(binaryDir.resolve(MAP_NAME + extension)),
+                                Files.readAllBytes(textDir.resolve(MAP_NAME + extension)),
+                                "The text files differ after the binary round trip: " + extension);
+        }
+    }
+
+    @Test
+    public void testCurrentBinaryMapIsLoaded() throws IOException {
+        MapIO.saveMap(createMap(textDir, true), MAP_NAME, textDir);
+        BinaryMapIO.write(createMap(textDir, false), textDir.resolve(MAP_NAME + MapIO.EXT_BINARY));
+        setModificationTimes(null);
+
+        Map map = MapIO.loadMapThread(textDir, MAP_NAME);
+        Assert.assertNotNull(map);
+        TestMaps.assertMapsEqual(map, createMap(textDir, false));
+    }
+
+    @Test
+    public void testOutdatedBinaryMapIsIgnored() throws IOException {
+        for (String newerFile : TEXT_EXTENSIONS) {
+            MapIO.saveMap(createMap(textDir, true), MAP_NAME, textDir);
+            BinaryMapIO.write(createMap(textDir, false), textDir.resolve(MAP_NAME + MapIO.EXT_BINARY));
+            setModificationTimes(newerFile);
+
+            Map map = MapIO.loadMapThread(textDir, MAP_NAME);
+            Assert.assertNotNull(map);
+            TestMaps.assertMapsEqual(map, createMap(textDir, true));
+        }
+    }
+
+    /**
+     * Create a map that contains tiles with overlays, items with data and annotations, warps and annotated tiles.
+     *
+     * @param path the path of the map
+     * @param details {@code false} to create a map that contains only the tiles
+     * @return the map
+     */
+    @Nonnull
+    private static Map createMap(@Nonnull Path path, boolean details) {
+        Map map = TestMaps.createTileMap(MAP_NAME, path, 20, 18);
+        if (details) {
+            map.addItemAt(0, 0, new MapItem(15, null, MapItem.QUALITY_DEFAULT));
+            map.addItemAt(3, 4, new MapItem(42, Arrays.asList("name=chest", "lock=7"), 512));
+            MapItem annotatedItem = new MapItem(1234, Arrays.asList("description=old"), 999);
+            annotatedItem.setAnnotation("item annotation");
+            map.addItemAt(3, 4, annotatedItem);
+            map.addItemAt(19, 17, new MapItem(7, null, 101));
+            map.setWarpAt(5, 6, new MapWarpPoint(100, 200, -3));
+            map.setWarpAt(19, 0, new MapWarpPoint(0, 0, 0));
+            map.getTileAt(3, 4).setAnnotation("tile annotation");
+            map.getTileAt(11, 12).setAnnotation("another tile annotation");
+        }
+        return map;
+    }
+
+    /**
+     * Make the binary file of the map newer than the text files.
+     *
+     * @param newerFile the extension of the text file that is made newer than the binary file or {@code null}
+     * @throws IOException in case setting the times fails
+     */
+    private void setModificationTimes(String newerFile) throws IOException {
+        long binaryTime = Files.getLastModifiedTime(textDir.resolve(MAP_NAME + MapIO.EXT_BINARY)).toMillis();
+        for (String extension : TEXT_EXTENSIONS) {
+            long offset = extension.equals(newerFile) ? 10000L : -10000L;
+            Files.setLastModifiedTime(textDir.resolve(MAP_NAME + extension), FileTime.fromMillis(binaryTime + offset));
+        }
+    }
+
+    private static void deleteDirectory(@Nonnull Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
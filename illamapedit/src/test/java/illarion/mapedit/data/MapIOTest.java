@@ -0,0 +1,144 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.mapedit.data;
+
+import illarion.mapedit.crash.exceptions.FormatCorruptedException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+public class MapIOTest {
+    private static final String MAP_NAME = "test";
+    private static final Path MAP_PATH = Paths.get("maps");
+    private static final int WIDTH = 30;
+    private static final int HEIGHT = 25;
+
+    @DataProvider(name = "parts")
+    public Object[][] createParts() {
+        return new Object[][]{{1}, {2}, {3}, {4}, {7}, {64}};
+    }
+
+    @Test(dataProvider = "parts")
+    public void testDecodeTilesInParts(int parts) throws Exception {
+        Map map = MapIO.decodeTileFile(createTileFile(), MAP_NAME, MAP_PATH, parts).getDecodedMap();
+
+        Assert.assertNotNull(map);
+        TestMaps.assertMapsEqual(map, TestMaps.createTileMap(MAP_NAME, MAP_PATH, WIDTH, HEIGHT));
+    }
+
+    @DataProvider(name = "malformedLines")
+    public Object[][] createMalformedLines() {
+        return new Object[][]{
+                {"1;2;3", 1}, {"1;2;3", 4},
+                {"1;2;3;4;5", 1}, {"1;2;3;4;5", 4},
+                {"1;2;x;0", 1}, {"1;2;x;0", 4},
+                {"1;;3;0", 1}, {"1;2;3;0;5", 4},
+                {"1;2;2147483648;0", 1}, {"1;2;99999999999999999999;0", 4},
+                {"1;-;3;0", 1}, {"30;0;3;0", 4},
+                {"0;25;3;0", 1}, {"-1;0;3;0", 4}
+        };
+    }
+
+    @Test(dataProvider = "malformedLines")
+    public void testMalformedTileLine(@Nonnull String malformedLine, int parts) throws Exception {
+        String file = new String(createTileFile(), StandardCharsets.ISO_8859_1);
+        String validLine = "7;11;" + TestMaps.getTileId(7, 11) + ';' + TestMaps.getMusicId(7, 11);
+        int lineIndex = file.indexOf('\n' + validLine + '\n');
+        Assert.assertTrue(lineIndex >= 0, "The test file does not contain the line to replace.");
+        int lineNumber = 2;
+        for (int i = 0; i < lineIndex; i++) {
+            if (file.charAt(i) == '\n') {
+                lineNumber++;
+            }
+        }
+        byte[] data = file.replace('\n' + validLine + '\n', '\n' + malformedLine + '\n')
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        try {
+            MapIO.decodeTileFile(data, MAP_NAME, MAP_PATH, parts);
+            Assert.fail("The malformed line was accepted: " + malformedLine);
+        } catch (FormatCorruptedException e) {
+            Assert.assertEquals(e.getLineNr(), lineNumber);
+            Assert.assertEquals(e.getLine(), malformedLine);
+        }
+    }
+
+    @Test
+    public void testSignedValues() throws Exception {
+        String file = "V: 2\nL: 0\nX: 0\nY: 0\nW: 2\nH: 1\n0;0;+5;-1\n+1;-0;6;+2\n";
+        Map map = MapIO.decodeTileFile(file.getBytes(StandardCharsets.ISO_8859_1), MAP_NAME, MAP_PATH, 1)
+                .getDecodedMap();
+
+        Assert.assertNotNull(map);
+        Assert.assertEquals(map.getTileAt(0, 0).getId(), 5);
+        Assert.assertEquals(map.getTileAt(0, 0).getMusicID(), -1);
+        Assert.assertEquals(map.getTileAt(1, 0).getId(), 6);
+        Assert.assertEquals(map.getTileAt(1, 0).getMusicID(), 2);
+    }
+
+    @Test
+    public void testTrailingSeparators() throws Exception {
+        String file = "V: 2\nL: 0\nX: 0\nY: 0\nW: 2\nH: 1\n0;0;5;1;\n1;0;6;2;;\n";
+        Map map = MapIO.decodeTileFile(file.getBytes(StandardCharsets.ISO_8859_1), MAP_NAME, MAP_PATH, 1)
+                .getDecodedMap();
+
+        Assert.assertNotNull(map);
+        Assert.assertEquals(map.getTileAt(0, 0).getId(), 5);
+        Assert.assertEquals(map.getTileAt(0, 0).getMusicID(), 1);
+        Assert.assertEquals(map.getTileAt(1, 0).getId(), 6);
+        Assert.assertEquals(map.getTileAt(1, 0).getMusicID(), 2);
+    }
+
+    /**
+     * Create a tile file that contains comments, empty lines and lines that end with CR LF between the tiles.
+     *
+     * @return the content of the file
+     */
+    @Nonnull
+    private static byte[] createTileFile() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# The header of the map\n");
+        builder.append("V: 2\nL: ").append(TestMaps.ORIGIN_Z).append("\nX: ").append(TestMaps.ORIGIN_X)
+                .append("\nY: ").append(TestMaps.ORIGIN_Y).append("\nW: ").append(WIDTH).append("\nH: ").append(HEIGHT)
+                .append('\n');
+        int line = 0;
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                line++;
+                if ((line % 17) == 0) {
+                    builder.append("# a comment between the tiles\n");
+                } else if ((line % 23) == 0) {
+                    builder.append('\n');
+                } else if ((line % 29) == 0) {
+                    builder.append("\r\n");
+                }
+                builder.append(x).append(';').append(y).append(';').append(TestMaps.getTileId(x, y)).append(';')
+                        .append(TestMaps.getMusicId(x, y));
+                builder.append(((line % 5) == 0) ? "\r\n" : "\n");
+            }
+        }
+        builder.append("# the end");
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of the Illarion project.
+ *
+ * Copyright © 2016 - Illarion e.V.
+ *
+ * Illarion is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Illarion is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package illarion.mapedit.data;
+
+import org.testng.Assert;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The map shared by the tests of the map formats. Every third tile has an overlay, all other values depend on the
+ * location of the tile, so each tile of a decoded map can be checked.
+ *
+ * @author Martin Karing &lt;nitram@illarion.org&gt;
+ */
+final class TestMaps {
+    static final int ORIGIN_X = 10;
+    static final int ORIGIN_Y = -20;
+    static final int ORIGIN_Z = 2;
+
+    private TestMaps() {
+    }
+
+    /**
+     * Create a map that contains only tiles.
+     *
+     * @param name the name of the map
+     * @param path the path of the map
+     * @param width the width of the map
+     * @param height the height of the map
+     * @return the map
+     */
+    @Nonnull
+    static Map createTileMap(@Nonnull String name, @Nonnull Path path, int width, int height) {
+        Map map = new Map(name, path, width, height, ORIGIN_X, ORIGIN_Y, ORIGIN_Z);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (hasOverlay(x, y)) {
+                    map.setTileAt(x, y, 2, getOverlayId(x), getShapeId(y), getMusicId(x, y));
+                } else {
+                    map.setTileAt(x, y, (x * y) % 20, 0, 0, getMusicId(x, y));
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Get the tile ID of a tile as it is stored in the tile file. The ID contains the overlay and the shape.
+     *
+     * @param x the x coordinate of the tile
+     * @param y the y coordinate of the tile
+     * @return the encoded tile ID
+     */
+    static int getTileId(int x, int y) {
+        if (hasOverlay(x, y)) {
+            return MapTile.encodeTileId(2, getOverlayId(x), getShapeId(y));
+        }
+        return (x * y) % 20;
+    }
+
+    static int getMusicId(int x, int y) {
+        return (x + y) % 3;
+    }
+
+    private static boolean hasOverlay(int x, int y) {
+        return ((x + y) % 3) == 0;
+    }
+
+    private static int getOverlayId(int x) {
+        return 1 + (x % 5);
+    }
+
+    private static int getShapeId(int y) {
+        return 1 + (y % 10);
+    }
+
+    /**
+     * Check that two maps contain the same tiles, items, warps and annotations.
+     *
+     * @param actual the map that is checked
+     * @param expected the map with the expected content
+     */
+    static void assertMapsEqual(@Nonnull Map actual, @Nonnull Map expected) {
+        Assert.assertEquals(actual.getWidth(), expected.getWidth());
+        Assert.assertEquals(actual.getHeight(), expected.getHeight());
+        Assert.assertEquals(actual.getX(), expected.getX());
+        Assert.assertEquals(actual.getY(), expected.getY());
+        Assert.assertEquals(actual.getZ(), expected.getZ());
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                MapTile actualTile = actual.getTileAt(x, y);
+                MapTile expectedTile = expected.getTileAt(x, y);
+                String location = " at " + x + ", " + y;
+                Assert.assertNotNull(actualTile, "Missing tile" + location);
+                Assert.assertEquals(actualTile.getId(), expectedTile.getId(), "Tile ID" + location);
+                Assert.assertEquals(actualTile.getOverlayID(), expectedTile.getOverlayID(), "Overlay ID" + location);
+                Assert.assertEquals(actualTile.getShapeID(), expectedTile.getShapeID(), "Shape ID" + location);
+                Assert.assertEquals(actualTile.getMusicID(), expectedTile.getMusicID(), "Music ID" + location);
+                Assert.assertEquals(actualTile.hasAnnotation(), expectedTile.hasAnnotation(), "Annotation" + location);
+                if (expectedTile.hasAnnotation()) {
+                    Assert.assertEquals(actualTile.getAnnotation(), expectedTile.getAnnotation(),
+                                        "Annotation" + location);
+                }
+                assertWarpsEqual(actualTile.getMapWarpPoint(), expectedTile.getMapWarpPoint(), location);
+                assertItemsEqual(actualTile.getMapItems(), expectedTile.getMapItems(), location);
+            }
+        }
+    }
+
+    private static void assertWarpsEqual(MapWarpPoint actual, MapWarpPoint expected, @Nonnull String location) {
+        if (expected == null) {
+            Assert.assertNull(actual, "Warp" + location);
+            return;
+        }
+        Assert.assertNotNull(actual, "Warp" + location);
+        Assert.assertEquals(actual.getXTarget(), expected.getXTarget(), "Warp target" + location);
+        Assert.assertEquals(actual.getYTarget(), expected.getYTarget(), "Warp target" + location);
+        Assert.assertEquals(actual.getZTarget(), expected.getZTarget(), "Warp target" + location);
+    }
+
+    private static void assertItemsEqual(List<MapItem> actual, List<MapItem> expected, @Nonnull String location) {
+        int expectedCount = (expected == null) ? 0 : expected.size();
+        int actualCount = (actual == null) ? 0 : actual.size();
+        Assert.assertEquals(actualCount, expectedCount, "Item count" + location);
+        for (int i = 0; i < expectedCount; i++) {
+            MapItem actualItem = actual.get(i);
+            MapItem expectedItem = expected.get(i);
+            Assert.assertEquals(actualItem.getId(), expectedItem.getId(), "Item ID" + location);
+            Assert.assertEquals(actualItem.getQualityDurability(), expectedItem.getQualityDurability(),
+                                "Item quality" + location);
+            Assert.assertEquals(actualItem.isItemDataNullOrEmpty(), expectedItem.isItemDataNullOrEmpty(),
+                                "Item data" + location);
+            if (!expectedItem.isItemDataNullOrEmpty()) {
+                Assert.assertEquals(actualItem.getItemData(), expectedItem.getItemData(), "Item data" + location);
+            }
+            Assert.assertEquals(actualItem.getAnnotation(), expectedItem.getAnnotation(),
+                                "Item annotation" + location);
+        }
+    }
+}